@@ -26,6 +26,7 @@ package matsyir.pvpperformancetracker;
 
 import matsyir.pvpperformancetracker.models.RangeAmmoData;
 import matsyir.pvpperformancetracker.models.RingData;
+import matsyir.pvpperformancetracker.models.TrackingProfile;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
@@ -318,6 +319,32 @@ public interface PvpPerformanceTrackerConfig extends Config
 		return RangeAmmoData.DartAmmo.DRAGON_DARTS;
 	}
 
+	@ConfigItem(
+		keyName = "recalculateHistory",
+		name = "Recalculate Saved Fights",
+		description = "When the gear/ammo or level settings are changed, recalculate the deserved damage of all saved fights" +
+			"<br>in the background. Otherwise, saved fights keep the values from when they were tracked.",
+		position = 145,
+		section = gearAmmo
+	)
+	default boolean recalculateHistory()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "ownedGear",
+		name = "Owned Gear",
+		description = "Comma-separated item ids of the gear you own, used by 'Optimize Gear vs Opponent' in a fight's" +
+			"<br>right-click menu to suggest the best loadouts against that opponent.",
+		position = 146,
+		section = gearAmmo
+	)
+	default String ownedGear()
+	{
+		return "";
+	}
+
 	// ================================= Levels =================================
 
 	@Range(
@@ -418,22 +445,6 @@ public interface PvpPerformanceTrackerConfig extends Config
 
 	// ================================= Misc/Less-Used-General =================================
 
-	@Range(
-		min = 1,
-		max = 1000
-	)
-	@ConfigItem(
-		keyName = "fightHistoryRenderLimit",
-		name = "Max Rendered Fights",
-		description = "Maximum number of previous fights to be displayed in the fight history side-panel." +
-			"<br>WILL cause lag spikes at very high numbers. This should be small if you have low RAM",
-		position = 205
-	)
-	default int fightHistoryRenderLimit()
-	{
-		return 200;
-	}
-
 	@Range(
 		max = 1000000
 	)
@@ -460,6 +471,21 @@ public interface PvpPerformanceTrackerConfig extends Config
 		return false;
 	}
 
+	@Range(
+		max = 3600
+	)
+	@ConfigItem(
+		keyName = "fightPairingWindow",
+		name = "Fight Pairing Window (s)",
+		description = "When looking for the opponent's side of a fight for fight analysis, how many seconds apart both fights" +
+			"<br>can have ended. Increase this if the two clients' clocks aren't in sync.",
+		position = 225
+	)
+	default int fightPairingWindow()
+	{
+		return 60;
+	}
+
 	@ConfigItem(
 		keyName = "dlongIsVls",
 		name = "Dlong = VLS",
@@ -472,6 +498,48 @@ public interface PvpPerformanceTrackerConfig extends Config
 		return true;
 	}
 
+	@ConfigItem(
+		keyName = "trackingProfile",
+		name = "Tracking Profile",
+		description = "Full: track everything, including KO chances & HP estimates." +
+			"<br>Lite: only track the core stats (off-pray, deserved damage, damage dealt, etc.), skipping" +
+			"<br>hitsplat matching, HP polling and hiscore lookups. Lighter on low-end PCs. Lite fights can still be" +
+			"<br>merged in fight analysis. See \"Compare Tracking Profiles\" in the panel's menu for the measured cost.",
+		position = 235
+	)
+	default TrackingProfile trackingProfile()
+	{
+		return TrackingProfile.FULL;
+	}
+
+	@ConfigItem(
+		keyName = "adaptiveLoadShedding",
+		name = "Reduce Tracking Under Load",
+		description = "If the plugin goes over its time budget per tick, progressively turn off optional work" +
+			"<br>(HP polling, then KO chance, then ghost barrages, then the chat fight log) until the load drops." +
+			"<br>The current level is shown on the overlay while reduced.",
+		position = 240
+	)
+	default boolean adaptiveLoadShedding()
+	{
+		return true;
+	}
+
+	@Range(
+		min = 1,
+		max = 600
+	)
+	@ConfigItem(
+		keyName = "tickBudgetMs",
+		name = "Tick Budget (ms)",
+		description = "Time the plugin may spend per game tick before reducing tracking, if enabled.",
+		position = 241
+	)
+	default int tickBudgetMs()
+	{
+		return 20;
+	}
+
 	@ConfigItem(
 		keyName = "fightLogInChat",
 		name = "Fight Log In Chat",
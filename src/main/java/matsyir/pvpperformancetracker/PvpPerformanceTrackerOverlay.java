@@ -29,10 +29,10 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.math.RoundingMode; // Added import
 import java.text.NumberFormat; // Added import
-import java.util.ArrayList; // Added import
 import javax.inject.Inject;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
-import matsyir.pvpperformancetracker.models.FightLogEntry; // Added import
+import matsyir.pvpperformancetracker.controllers.FightStatsSnapshot;
+import matsyir.pvpperformancetracker.utils.TickBudgetMonitor;
 import static net.runelite.api.MenuAction.RUNELITE_OVERLAY_CONFIG;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.overlay.Overlay;
@@ -71,6 +71,13 @@ public class PvpPerformanceTrackerOverlay extends Overlay
 	private LineComponent overlayTotalKoChanceLine; // Combined total/sum KO chance
 	private LineComponent overlayLastKoChanceLine; // Combined last KO chance
 
+	private LineComponent overlayLoadLine; // shows the tracking level while optional work is being shed
+	private TickBudgetMonitor.Level shownLoadLevel = TickBudgetMonitor.Level.FULL;
+
+	// fight & stats version currently displayed by the lines, to skip updating them every frame
+	private FightPerformance lastRenderedFight;
+	private long lastRenderedVersion = -1;
+
 	@Inject
 	private PvpPerformanceTrackerOverlay(PvpPerformanceTrackerPlugin plugin, PvpPerformanceTrackerConfig config)
 	{
@@ -104,109 +111,114 @@ public class PvpPerformanceTrackerOverlay extends Overlay
 		overlayEighthLine.setRightColor(ColorScheme.BRAND_ORANGE); // static
 		overlayTotalKoChanceLine = LineComponent.builder().build(); // Initialize new lines
 		overlayLastKoChanceLine = LineComponent.builder().build(); // Initialize new lines
+		overlayLoadLine = LineComponent.builder().left("Reduced:").leftColor(ColorScheme.BRAND_ORANGE)
+			.rightColor(ColorScheme.BRAND_ORANGE).build();
 
 		setLines();
 	}
 
 	@Override
 	public Dimension render(Graphics2D graphics)
+	{
+		long start = System.nanoTime();
+		long startBytes = plugin.getLoadMonitor().allocatedBytes();
+		try
+		{
+			return renderFight(graphics);
+		}
+		finally
+		{
+			plugin.getLoadMonitor().record(start, startBytes);
+		}
+	}
+
+	private Dimension renderFight(Graphics2D graphics)
 	{
 		FightPerformance fight = plugin.getCurrentFight();
-		if (!config.showFightOverlay() || fight == null || !fight.fightStarted() ||
-			(config.restrictToLms() && !plugin.isAtLMS()))
+		if (!config.showFightOverlay() || fight == null || (config.restrictToLms() && !plugin.isAtLMS()))
 		{
 			return null;
 		}
 
+		// read the fight's latest published stats rather than the live Fighters, which are being updated
+		FightStatsSnapshot stats = fight.getStatsSnapshot();
+		if (stats == null || !stats.isFightStarted())
+		{
+			return null;
+		}
+
+		// add or remove the reduced tracking line if the load level changed
+		TickBudgetMonitor.Level loadLevel = plugin.getLoadMonitor().getLevel();
+		if (loadLevel != shownLoadLevel)
+		{
+			shownLoadLevel = loadLevel;
+			setLines();
+		}
+
+		// the lines only need to be updated if the stats changed since the last frame
+		if (fight != lastRenderedFight || stats.getVersion() != lastRenderedVersion)
+		{
+			updateLines(stats);
+			lastRenderedFight = fight;
+			lastRenderedVersion = stats.getVersion();
+		}
+
+		return panelComponent.render(graphics);
+	}
+
+	private void updateLines(FightStatsSnapshot stats)
+	{
 		// Second line: off-pray hit success stats
-		overlaySecondLine.setLeft(fight.getCompetitor().getOffPrayStats(true));
-		overlaySecondLine.setLeftColor(fight.competitorOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
-		overlaySecondLine.setRight(fight.getOpponent().getOffPrayStats(true));
-		overlaySecondLine.setRightColor(fight.opponentOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
+		overlaySecondLine.setLeft(stats.getCompetitorOffPrayShort());
+		overlaySecondLine.setLeftColor(stats.isCompetitorOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
+		overlaySecondLine.setRight(stats.getOpponentOffPrayShort());
+		overlaySecondLine.setRightColor(stats.isOpponentOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// Third line: Deserved damage stats
 		// only show deserved damage difference on the competitor, since space is restricted here and having both
 		// differences is redundant since the sign is simply flipped.
-		overlayThirdLine.setLeft(fight.getCompetitor().getDeservedDmgString(fight.getOpponent()));
-		overlayThirdLine.setLeftColor(fight.competitorDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
+		overlayThirdLine.setLeft(stats.getCompetitorDeservedDmgString());
+		overlayThirdLine.setLeftColor(stats.isCompetitorDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
 
-		overlayThirdLine.setRight(String.valueOf((int)Math.round(fight.getOpponent().getDeservedDamage())));
-		overlayThirdLine.setRightColor(fight.opponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
+		overlayThirdLine.setRight(String.valueOf(stats.getOpponentDeservedDmgRounded()));
+		overlayThirdLine.setRightColor(stats.isOpponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// Fouth line: Damage dealt stats
 		// same thing for damage dealt, the difference is only on the competitor.
-		overlayFourthLine.setLeft(String.valueOf(fight.getCompetitor().getDmgDealtString(fight.getOpponent())));
-		overlayFourthLine.setLeftColor(fight.competitorDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
+		overlayFourthLine.setLeft(stats.getCompetitorDmgDealtString());
+		overlayFourthLine.setLeftColor(stats.isCompetitorDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
 
-		overlayFourthLine.setRight(String.valueOf(fight.getOpponent().getDamageDealt()));
-		overlayFourthLine.setRightColor(fight.opponentDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
+		overlayFourthLine.setRight(String.valueOf(stats.getOpponentDamageDealt()));
+		overlayFourthLine.setRightColor(stats.isOpponentDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// Fifth line: magic hit stats/luck
-		overlayFifthLine.setLeft(String.valueOf(fight.getCompetitor().getShortMagicHitStats()));
-		overlayFifthLine.setLeftColor(fight.competitorMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
-
-		overlayFifthLine.setRight(String.valueOf(fight.getOpponent().getShortMagicHitStats()));
-		overlayFifthLine.setRightColor(fight.opponentMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
-
-		overlaySixthLine.setLeft(String.valueOf(fight.getCompetitor().getOffensivePrayStats(true)));
-
-		overlaySeventhLine.setLeft(String.valueOf(fight.getCompetitor().getHpHealed()));
+		overlayFifthLine.setLeft(stats.getCompetitorShortMagicHitStats());
+		overlayFifthLine.setLeftColor(stats.isCompetitorMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
 
-		overlayEighthLine.setLeft(fight.getCompetitor().getGhostBarrageStats());
+		overlayFifthLine.setRight(stats.getOpponentShortMagicHitStats());
+		overlayFifthLine.setRightColor(stats.isOpponentMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
 
-		// --- KO Chance Calculation START ---
-		int competitorKoChances = 0;
-		Double lastCompetitorKoChance = null;
-		double competitorSurvivalProb = 1.0; // Start with 100% survival chance
+		overlaySixthLine.setLeft(stats.getCompetitorOffensivePrayShort());
 
-		int opponentKoChances = 0;
-		Double lastOpponentKoChance = null;
-		double opponentSurvivalProb = 1.0; // Start with 100% survival chance
+		overlaySeventhLine.setLeft(String.valueOf(stats.getCompetitorHpHealed()));
 
-		String competitorName = fight.getCompetitor().getName();
+		overlayEighthLine.setLeft(stats.getCompetitorGhostBarrageStats());
 
-		ArrayList<FightLogEntry> logs = fight.getAllFightLogEntries();
-		for (FightLogEntry log : logs)
-		{
-			// Use the display KO chance calculated in post-processing
-			Double koChance = log.getDisplayKoChance();
-			if (koChance != null)
-			{
-				if (log.attackerName.equals(competitorName))
-				{
-					competitorKoChances++;
-					competitorSurvivalProb *= (1.0 - koChance); // Multiply by chance of *not* KOing
-					lastCompetitorKoChance = koChance;
-				}
-				else // Opponent's attack
-				{
-					opponentKoChances++;
-					opponentSurvivalProb *= (1.0 - koChance); // Multiply by chance of *not* KOing
-					lastOpponentKoChance = koChance;
-				}
-			}
-		}
-
-		// Calculate overall KO probability (1 - overall survival probability)
-		Double competitorOverallKoProb = (competitorKoChances > 0) ? (1.0 - competitorSurvivalProb) : null;
-		Double opponentOverallKoProb = (opponentKoChances > 0) ? (1.0 - opponentSurvivalProb) : null;
-
-		// Format Total KO Chance Line (Using Overall Probability)
-		String totalCompStr = competitorKoChances
+		// Total KO chances, using the overall probability of at least one KO
+		Double competitorOverallKoProb = stats.getCompetitorOverallKoProb();
+		Double opponentOverallKoProb = stats.getOpponentOverallKoProb();
+		String totalCompStr = stats.getCompetitorKoChances()
 				+ (competitorOverallKoProb != null ? " (" + nfPercent.format(competitorOverallKoProb) + ")" : "");
-		String totalOppStr = opponentKoChances
+		String totalOppStr = stats.getOpponentKoChances()
 				+ (opponentOverallKoProb != null ? " (" + nfPercent.format(opponentOverallKoProb) + ")" : "");
 		overlayTotalKoChanceLine.setLeft(totalCompStr);
 		overlayTotalKoChanceLine.setRight(totalOppStr);
 
-		// Format Last KO Chance Line
-		String lastCompStr = (lastCompetitorKoChance != null ? nfPercent.format(lastCompetitorKoChance) : "-");
-		String lastOppStr = (lastOpponentKoChance != null ? nfPercent.format(lastOpponentKoChance) : "-");
-		overlayLastKoChanceLine.setLeft(lastCompStr);
-		overlayLastKoChanceLine.setRight(lastOppStr);
-		// --- KO Chance Calculation END ---
-
-		return panelComponent.render(graphics);
+		// Last KO chances
+		Double lastCompetitorKoChance = stats.getCompetitorLastKoChance();
+		Double lastOpponentKoChance = stats.getOpponentLastKoChance();
+		overlayLastKoChanceLine.setLeft(lastCompetitorKoChance != null ? nfPercent.format(lastCompetitorKoChance) : "-");
+		overlayLastKoChanceLine.setRight(lastOpponentKoChance != null ? nfPercent.format(lastOpponentKoChance) : "-");
 	}
 
 	void setLines()
@@ -259,6 +271,11 @@ public class PvpPerformanceTrackerOverlay extends Overlay
 		if (config.showOverlayLastKoChance()) {
 			panelComponent.getChildren().add(overlayLastKoChanceLine);
 		}
+		if (shownLoadLevel != TickBudgetMonitor.Level.FULL)
+		{
+			overlayLoadLine.setRight(shownLoadLevel.getDisplayName());
+			panelComponent.getChildren().add(overlayLoadLine);
+		}
 	}
 
 	void setFight(FightPerformance fight)
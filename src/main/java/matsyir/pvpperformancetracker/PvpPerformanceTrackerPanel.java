@@ -26,7 +26,14 @@ package matsyir.pvpperformancetracker;
 
 import java.awt.BorderLayout;
 import java.awt.Dimension;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 import javax.inject.Inject;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -36,20 +43,31 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
-import matsyir.pvpperformancetracker.views.FightPerformancePanel;
+import matsyir.pvpperformancetracker.utils.NamePrefixIndex;
+import matsyir.pvpperformancetracker.views.FightHistoryList;
 import matsyir.pvpperformancetracker.views.TotalStatsPanel;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
 
 class PvpPerformanceTrackerPanel extends PluginPanel
 {
-	// The main fight history container, this will hold all the individual FightPerformancePanels.
-	private final JPanel fightHistoryContainer = new JPanel();
+	private static final int NAME_FILTER_DEBOUNCE_MS = 200;
+
+	// The main fight history list, only the visible fights are rendered.
+	private final FightHistoryList fightHistoryList = new FightHistoryList();
 	private final TotalStatsPanel totalStatsPanel = new TotalStatsPanel();
+	// status line for background work on the fight history (e.g. recalculations), hidden when there is none.
+	private final JPanel statusLine = new JPanel(new BorderLayout());
+	private final JLabel statusLabel = new JLabel();
+	// every fight of the fight history indexed by both names, for the name filter. Only used on the EDT, and only
+	// changed when fights are added to or removed from the fight history.
+	private final NamePrefixIndex<FightPerformance> nameIndex = new NamePrefixIndex<>();
+	private final Set<FightPerformance> indexedFights = Collections.newSetFromMap(new IdentityHashMap<>());
 
 	private final PvpPerformanceTrackerPlugin plugin;
 	private final PvpPerformanceTrackerConfig config;
@@ -64,12 +82,25 @@ class PvpPerformanceTrackerPanel extends PluginPanel
 		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
 		setBackground(ColorScheme.DARK_GRAY_COLOR);
 		setBorder(new EmptyBorder(8, 8, 8, 8));
-		JPanel mainContent = new JPanel(new BorderLayout());
-
-		fightHistoryContainer.setLayout(new BoxLayout(fightHistoryContainer, BoxLayout.Y_AXIS));
 
 		add(totalStatsPanel);
 
+		statusLabel.setHorizontalAlignment(SwingConstants.CENTER);
+		statusLabel.setForeground(ColorScheme.BRAND_ORANGE);
+		statusLabel.setToolTipText("Click to cancel");
+		statusLabel.addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				plugin.cancelBackgroundWork();
+			}
+		});
+		statusLine.add(statusLabel, BorderLayout.CENTER);
+		statusLine.setMaximumSize(new Dimension(PANEL_WIDTH, (int)statusLabel.getPreferredSize().getHeight() + 4));
+		statusLine.setVisible(false);
+		add(statusLine);
+
 		// add filter line with label & text field.
 		JPanel filterLine = new JPanel(new BorderLayout());
 		// filter label
@@ -79,18 +110,18 @@ class PvpPerformanceTrackerPanel extends PluginPanel
 		JTextField nameFilter = new JTextField(config.nameFilter());
 		filterLine.setMaximumSize(new Dimension(PANEL_WIDTH, (int)filterLine.getPreferredSize().getHeight()));
 
+		// only apply the filter once typing stops for a moment, instead of on every keystroke.
+		Timer nameFilterDebounce = new Timer(NAME_FILTER_DEBOUNCE_MS, e ->
+		{
+			plugin.updateNameFilterConfig(nameFilter.getText());
+			showFilteredFights();
+		});
+		nameFilterDebounce.setRepeats(false);
+
 		nameFilter.getDocument().addDocumentListener(new DocumentListener() {
 			private void updateNameFilterValue()
 			{
-				plugin.updateNameFilterConfig(nameFilter.getText());
-
-				// do not rebuild the panel if the filter starts with a space. This is because you could spam rebuild()
-				// by holding down space and causing massive lag. This isn't really an issue with real filters as the
-				// results quickly get filtered down, resulting in less UI elements.
-				if (!nameFilter.getText().startsWith(" "))
-				{
-					PvpPerformanceTrackerPanel.this.rebuild();
-				}
+				nameFilterDebounce.restart();
 			}
 
 			public void changedUpdate(DocumentEvent e) { updateNameFilterValue(); }
@@ -104,116 +135,176 @@ class PvpPerformanceTrackerPanel extends PluginPanel
 		add(Box.createRigidArea(new Dimension(0, 4)));
 		add(filterLine);
 
-		// wrap mainContent with scrollpane so it has a scrollbar
-		JScrollPane scrollableContainer = new JScrollPane(mainContent);
+		// wrap the fight history with scrollpane so it has a scrollbar
+		JScrollPane scrollableContainer = new JScrollPane(fightHistoryList);
 		scrollableContainer.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		scrollableContainer.getViewport().setBackground(ColorScheme.DARK_GRAY_COLOR);
 		scrollableContainer.getVerticalScrollBar().setPreferredSize(new Dimension(6, 0));
-
-		mainContent.add(fightHistoryContainer, BorderLayout.NORTH);
+		scrollableContainer.getVerticalScrollBar().setUnitIncrement(16);
 
 		add(Box.createRigidArea(new Dimension(0, 4)));
 		add(scrollableContainer);
 	}
 
+	// the fight history list, total stats & name index are only changed on the EDT. Callers say which fights were
+	// added or removed, so a single added/removed fight or a filter change doesn't rebuild everything.
+
 	public void addFight(FightPerformance fight)
 	{
-		// if the nameFilter isn't blank, skip adding the fight to panels if it doesn't respect the name filter
-		if (!config.nameFilter().equals("")
-			&& (config.exactNameFilter() ?
-				!fight.getCompetitor().getName().toLowerCase().equals(config.nameFilter())
-				&& !fight.getOpponent().getName().toLowerCase().equals(config.nameFilter())
-				: !fight.getCompetitor().getName().toLowerCase().startsWith(config.nameFilter())
-				&& !fight.getOpponent().getName().toLowerCase().startsWith(config.nameFilter())))
-		{
-			return;
-		}
-
-		totalStatsPanel.addFight(fight);
-
 		SwingUtilities.invokeLater(() ->
 		{
-			fightHistoryContainer.add(new FightPerformancePanel(fight), 0);
+			indexFight(fight);
 
-			// if we now have more fights than we want to render, then remove fights from the container in order to only render our max.
-			if (fightHistoryContainer.getComponentCount() > config.fightHistoryRenderLimit())
-			{
-				// this will probably only remove 1 fight in most cases, but just in case we need to remove more than that.
-				int numFightsToRemove = fightHistoryContainer.getComponentCount() - config.fightHistoryRenderLimit();
-				for (int i = 0; i < numFightsToRemove && fightHistoryContainer.getComponentCount() > 0; i++)
-				{
-					// remove from the last components since we add to 0
-					fightHistoryContainer.remove(fightHistoryContainer.getComponentCount() - 1);
-				}
-			}
+			// skip adding the fight to panels if it doesn't respect the name filter
+			if (!matchesNameFilter(fight)) { return; }
 
-			updateUI();
+			totalStatsPanel.addFight(fight);
+			fightHistoryList.addFight(fight);
 		});
 	}
 
-	public void addFights(ArrayList<FightPerformance> fights)
+	// fights were added to the fight history at once (e.g. imported), show the ones matching the name filter.
+	public void addFights(List<FightPerformance> fights)
 	{
-		// if the nameFilter isn't blank, skip adding any fights to panels if they don't respect the name filter
-		if (!config.nameFilter().equals(""))
+		List<FightPerformance> added = new ArrayList<>(fights);
+		SwingUtilities.invokeLater(() ->
 		{
-			fights.removeIf((FightPerformance f) ->
-				// remove if the names aren't EQUAL when using "exactNameFilter",
-				// if not then remove names that don't start with the name filter.
-				config.exactNameFilter() ?
-					!f.getCompetitor().getName().toLowerCase().equals(config.nameFilter())
-						&& !f.getOpponent().getName().toLowerCase().equals(config.nameFilter())
-					: !f.getCompetitor().getName().toLowerCase().startsWith(config.nameFilter())
-					&& !f.getOpponent().getName().toLowerCase().startsWith(config.nameFilter()));
-		}
+			added.forEach(this::indexFight);
+			showFilteredFights();
+		});
+	}
 
-		totalStatsPanel.addFights(fights);
+	public void removeFight(FightPerformance fight)
+	{
 		SwingUtilities.invokeLater(() ->
 		{
-			// if we're adding more fights than we want to render at all, then reduce the number of fights and clear all the existing ones
-			if (fights.size() > config.fightHistoryRenderLimit())
+			unindexFight(fight);
+			if (fightHistoryList.removeFight(fight))
 			{
-				int numFightsToRemove = fights.size() - config.fightHistoryRenderLimit();
-				fights.removeIf((FightPerformance f) -> fights.indexOf(f) < numFightsToRemove);
-				fightHistoryContainer.removeAll();
+				totalStatsPanel.removeFight(fight);
 			}
-			// if we're adding a normal number of fights, then check if we actually need to remove existing fights to make room for it.
-			else
-			{
-				int fightsToAdd = fights.size();
-				int fightsToRemove = fightHistoryContainer.getComponentCount() - config.fightHistoryRenderLimit() + fightsToAdd;
+		});
+	}
 
-				if (fightsToRemove > 0)
+	// fights were removed from the fight history at once (e.g. trimmed by the history limit).
+	public void removeFights(List<FightPerformance> fights)
+	{
+		List<FightPerformance> removed = new ArrayList<>(fights);
+		SwingUtilities.invokeLater(() ->
+		{
+			// only the removed fights that were shown have to leave the list & total stats.
+			List<FightPerformance> shown = new ArrayList<>();
+			for (FightPerformance fight : removed)
+			{
+				unindexFight(fight);
+				if (fightHistoryList.removeFight(fight))
 				{
-					// Remove oldest fightHistory until the size is equal to the limit.
-					for (int i = 0; i < fightsToRemove && fightHistoryContainer.getComponentCount() > 0; i++)
-					{
-						// remove from the last components since we add to 0
-						fightHistoryContainer.remove(fightHistoryContainer.getComponentCount() - 1);
-					}
+					shown.add(fight);
 				}
-
 			}
+			totalStatsPanel.removeFights(shown);
+		});
+	}
 
-			fights.forEach((FightPerformance f) -> fightHistoryContainer.add(new FightPerformancePanel(f), 0));
-			updateUI();
+	// the fight's shown stats changed (e.g. its luck percentiles were calculated), repaint it if it's shown.
+	public void fightUpdated(FightPerformance fight)
+	{
+		SwingUtilities.invokeLater(() -> fightHistoryList.fightUpdated(fight));
+	}
+
+	// the name filter settings changed, show the fights matching them.
+	public void applyNameFilter()
+	{
+		SwingUtilities.invokeLater(this::showFilteredFights);
+	}
+
+	// the whole fight history was replaced (loaded or reset), index it again and re-add everything.
+	public void reload()
+	{
+		List<FightPerformance> fightHistory = plugin.getFightHistorySnapshot();
+		SwingUtilities.invokeLater(() ->
+		{
+			nameIndex.clear();
+			indexedFights.clear();
+			fightHistory.forEach(this::indexFight);
+			clearShownFights();
+			showFilteredFights();
 		});
 	}
 
+	// clear and re-add the shown fights, needed when the saved fights' stats changed (e.g. after a recalculation).
 	public void rebuild()
+	{
+		SwingUtilities.invokeLater(() ->
+		{
+			clearShownFights();
+			showFilteredFights();
+		});
+	}
+
+	private void clearShownFights()
 	{
 		totalStatsPanel.reset();
-		fightHistoryContainer.removeAll();
-		if (plugin.fightHistory.size() > 0)
+		fightHistoryList.clear();
+	}
+
+	// show the fights matching the name filter, found through the name index. Only adds & removes the fights
+	// that changed in the list and total stats.
+	private void showFilteredFights()
+	{
+		// an empty filter finds every fight.
+		List<FightPerformance> shownFights = new ArrayList<>(nameIndex.find(config.nameFilter(), config.exactNameFilter()));
+		// the list shows the newest fights first
+		shownFights.sort(Comparator.comparingLong((FightPerformance f) -> f.lastFightTime).reversed());
+
+		List<FightPerformance> added = new ArrayList<>();
+		List<FightPerformance> removed = new ArrayList<>();
+		fightHistoryList.setFights(shownFights, added, removed);
+		totalStatsPanel.removeFights(removed);
+		totalStatsPanel.addFights(added);
+	}
+
+	private void indexFight(FightPerformance fight)
+	{
+		if (indexedFights.add(fight))
 		{
-			// create new arraylist from the main one so we can't modify the fight history
-			ArrayList<FightPerformance> fightsToAdd = new ArrayList<>(plugin.fightHistory);
+			nameIndex.add(fight.getCompetitor().getName(), fight);
+			nameIndex.add(fight.getOpponent().getName(), fight);
+		}
+	}
 
-			addFights(fightsToAdd);
+	private void unindexFight(FightPerformance fight)
+	{
+		if (indexedFights.remove(fight))
+		{
+			nameIndex.remove(fight.getCompetitor().getName(), fight);
+			nameIndex.remove(fight.getOpponent().getName(), fight);
 		}
-		SwingUtilities.invokeLater(this::updateUI);
+	}
+
+	// same filter as showFilteredFights, for a single fight: names must be EQUAL when using "exactNameFilter",
+	// if not then names must start with the name filter.
+	private boolean matchesNameFilter(FightPerformance fight)
+	{
+		String nameFilter = config.nameFilter();
+		boolean exact = config.exactNameFilter();
+		return NamePrefixIndex.matches(fight.getCompetitor().getName(), nameFilter, exact) ||
+			NamePrefixIndex.matches(fight.getOpponent().getName(), nameFilter, exact);
 	}
 
 	public void setConfigWarning(boolean enable)
 	{
 		totalStatsPanel.setConfigWarning(enable);
 	}
+
+	// show a status for background work on the fight history, or hide it if null. Can be called from any thread.
+	public void setStatus(String status)
+	{
+		SwingUtilities.invokeLater(() ->
+		{
+			statusLabel.setText(status);
+			statusLine.setVisible(status != null);
+			revalidate();
+		});
+	}
 }
\ No newline at end of file
@@ -42,16 +42,22 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import javax.inject.Inject;
@@ -59,18 +65,32 @@ import javax.swing.ImageIcon;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.JRootPane;
 import javax.swing.SwingUtilities;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import matsyir.pvpperformancetracker.controllers.BatchFightAnalyzer;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
+import matsyir.pvpperformancetracker.controllers.FightPairIndex;
 import matsyir.pvpperformancetracker.controllers.Fighter;
+import matsyir.pvpperformancetracker.controllers.GearOptimizer;
+import matsyir.pvpperformancetracker.controllers.HistoryRecalculator;
+import matsyir.pvpperformancetracker.controllers.HpIntervalTracker;
+import matsyir.pvpperformancetracker.controllers.ItemStatsTable;
+import matsyir.pvpperformancetracker.models.AnimationData;
 import matsyir.pvpperformancetracker.models.CombatLevels;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
 import matsyir.pvpperformancetracker.models.HitsplatInfo;
 import matsyir.pvpperformancetracker.models.RangeAmmoData;
+import matsyir.pvpperformancetracker.models.TrackingProfile;
 import matsyir.pvpperformancetracker.models.oldVersions.FightPerformance__1_5_5;
+import matsyir.pvpperformancetracker.utils.HitsplatAssignment;
+import matsyir.pvpperformancetracker.utils.IconCache;
 import matsyir.pvpperformancetracker.utils.PvpPerformanceTrackerUtils;
+import matsyir.pvpperformancetracker.utils.TickBudgetMonitor;
+import matsyir.pvpperformancetracker.views.FightAnalysisFrame;
+import matsyir.pvpperformancetracker.views.GearOptimizerFrame;
 import net.runelite.api.Actor;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
@@ -200,14 +220,37 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	private HiscoreManager hiscoreManager; // Added injection
 
 	// custom fields/props
-	public ArrayList<FightPerformance> fightHistory;
+	// changed from both the client thread (finished fights) and the EDT (remove, reset, import...), so every
+	// access must hold its lock. Everything else should read fightHistorySnapshot instead.
+	private final ArrayList<FightPerformance> fightHistory = new ArrayList<>();
+	// unmodifiable copy of fightHistory, re-published after every change so the panels can read it from the EDT
+	@Getter
+	private volatile List<FightPerformance> fightHistorySnapshot = Collections.emptyList();
 	@Getter
 	private FightPerformance currentFight;
-	private Map<Integer, ImageIcon> spriteCache; // sprite cache since a small amount of sprites is re-used a lot
-	// do not cache items in the same way since we could potentially cache a very large amount of them.
+	// sprites & item images used by the panels/frames. A small amount of them is re-used a lot, and the bound
+	// keeps item images (of which there could be a very large amount) from piling up.
+	private static final int ICON_CACHE_SIZE = 512;
+	private final IconCache iconCache = new IconCache(ICON_CACHE_SIZE);
 	private Map<Integer, List<HitsplatInfo>> hitsplatBuffer = new HashMap<>(); // MODIFIED: Use HitsplatInfo
 	private final Map<Integer, List<HitsplatInfo>> incomingHitsplatsBuffer = new ConcurrentHashMap<>(); // Stores hitsplats *received* by players per tick.
 	private HiscoreEndpoint hiscoreEndpoint = HiscoreEndpoint.NORMAL; // Added field
+	@Getter
+	private volatile boolean liteTracking; // cached from the trackingProfile config, checked on every hitsplat
+	@Getter
+	private final TickBudgetMonitor loadMonitor = new TickBudgetMonitor(); // time spent per tick, to shed optional work
+	// measured cost of the fights tracked with each profile this session, to compare them. Guarded by itself.
+	private final Map<TrackingProfile, TickBudgetMonitor.Totals> trackingProfileCosts = new EnumMap<>(TrackingProfile.class);
+	private TrackingProfile currentFightProfile = TrackingProfile.FULL; // profile the current fight started with
+
+	private HistoryRecalculator historyRecalculator; // recalculates saved fights when the gear/level config changes
+	private volatile BatchFightAnalyzer batchAnalyzer; // currently running batch fight analysis, if any
+	// finished fights' luck percentiles are calculated here, away from the executor which polls HP & saves fights.
+	private ExecutorService luckPercentileExecutor;
+	// fights imported from other players' histories, only kept for the session to find the other side of the
+	// user's fights for fight analysis. Both are guarded by opposingFights.
+	private final List<FightPerformance> opposingFights = new ArrayList<>();
+	private FightPairIndex<FightPerformance> opposingFightIndex;
 
 	// #################################################################################################################
 	// ##################################### Core RL plugin functions & RL Events ######################################
@@ -224,7 +267,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	{
 		CONFIG = config; // save static instances of config/plugin to easily use in
 		PLUGIN = this;   // other contexts without passing them all the way down or injecting
-		fightHistory = new ArrayList<>();
+		liteTracking = config.trackingProfile() == TrackingProfile.LITE;
 
 		GSON = injectedGson.newBuilder()
 			.excludeFieldsWithoutExposeAnnotation()
@@ -260,19 +303,40 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 
 		overlayManager.add(overlay);
 
-		spriteCache = new HashMap<>(); // prepare sprite cache
-
 		// prepare default N/A or None symbol for eventual use.
 		clientThread.invokeLater(() -> DEFAULT_NONE_SYMBOL = itemManager.getImage(20594));
+
+		// resolve the stats of all known equipment ahead of time, rather than on the first attacks of a fight.
+		// the bundled stats are used until the live ones are ready.
+		executor.execute(ItemStatsTable::loadBundled);
+		clientThread.invokeLater(ItemStatsTable::warmUp);
+
+		historyRecalculator = new HistoryRecalculator(clientThread::invokeLater);
+		luckPercentileExecutor = Executors.newSingleThreadExecutor(r ->
+		{
+			Thread thread = new Thread(r, "pvp-tracker-luck-percentile");
+			thread.setDaemon(true);
+			return thread;
+		});
 	}
 
 	@Override
 	protected void shutDown() throws Exception
 	{
+		historyRecalculator.shutDown();
+		// unfinished luck percentiles are simply left out, the fights themselves are already in the history.
+		luckPercentileExecutor.shutdownNow();
+		if (batchAnalyzer != null)
+		{
+			batchAnalyzer.cancel();
+		}
 		saveFightHistoryData();
 
 		clientToolbar.removeNavigation(navButton);
 		overlayManager.remove(overlay);
+
+		log.debug("Icon cache: {}", iconCache.getStats());
+		iconCache.clear();
 	}
 
 	@Subscribe
@@ -280,6 +344,8 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	{
 		if (!event.getGroup().equals(CONFIG_KEY)) { return; }
 
+		FightAnalysisFrame.clearAnalysisCache();
+
 		switch(event.getKey())
 		{
 			// if a user enables the panel or restricts/unrestricts the location to LMS, hide/show the panel accordingly
@@ -312,18 +378,41 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 				break;
 			// If the user updates the fight history limit, remove fights as necessary
 			case "fightHistoryLimit":
-			case "fightHistoryRenderLimit":
-				if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+				List<FightPerformance> trimmed;
+				synchronized (fightHistory)
 				{
-					int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-					// Remove oldest fightHistory until the size is smaller than the limit.
-					// Should only remove one fight in most cases.
-					fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
+					trimmed = trimFightHistory();
+					publishFightHistory();
+				}
+				if (!trimmed.isEmpty())
+				{
+					panel.removeFights(trimmed);
 				}
-				panel.rebuild();
 				break;
 			case "exactNameFilter":
-				panel.rebuild();
+				panel.applyNameFilter();
+				break;
+			case "fightPairingWindow":
+				rebuildOpposingFightIndex();
+				break;
+			// pending attacks & buffered hitsplats get cleared on the next tick when switching to lite
+			case "trackingProfile":
+				liteTracking = config.trackingProfile() == TrackingProfile.LITE;
+				break;
+			// these change what deserved damage means, so saved fights can optionally be recalculated with them.
+			case "ringChoice":
+			case "boltChoice":
+			case "strongBoltChoice":
+			case "bpDartChoice":
+			case "attackLevel":
+			case "strengthLevel":
+			case "defenceLevel":
+			case "rangedLevel":
+			case "magicLevel":
+				if (config.recalculateHistory())
+				{
+					recalculateFightHistory();
+				}
 				break;
 			case "settingsConfigured":
 				boolean enableConfigWarning = !config.settingsConfigured();
@@ -405,6 +494,8 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		{
 			currentFight = new FightPerformance(client.getLocalPlayer(), (Player)opponent);
 			overlay.setFight(currentFight);
+			loadMonitor.resetTotals();
+			currentFightProfile = config.trackingProfile();
 		}
 	}
 
@@ -464,7 +555,10 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		{
 			if (hasOpponent() && event.getActor() instanceof Player && event.getActor().getName() != null)
 			{
+				long start = System.nanoTime();
+				long startBytes = loadMonitor.allocatedBytes();
 				currentFight.checkForAttackAnimations((Player)event.getActor(), new CombatLevels(client));
+				loadMonitor.record(start, startBytes);
 			}
 		});
 	}
@@ -472,6 +566,14 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	@Subscribe
 	// track damage dealt/taken
 	public void onHitsplatApplied(HitsplatApplied event)
+	{
+		long start = System.nanoTime();
+		long startBytes = loadMonitor.allocatedBytes();
+		processHitsplat(event);
+		loadMonitor.record(start, startBytes);
+	}
+
+	private void processHitsplat(HitsplatApplied event)
 	{
 		int hitType = event.getHitsplat().getHitsplatType();
 		int amount = event.getHitsplat().getAmount();
@@ -503,6 +605,25 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 
 		currentFight.addDamageDealt(target.getName(), amount);
 
+		// the lite profile only needs the damage dealt, none of the buffering for KO chances
+		if (liteTracking)
+		{
+			return;
+		}
+
+		// hitsplats are only buffered for KO chance matching, skip them if that's being shed
+		if (loadMonitor.isShedding(TickBudgetMonitor.Level.NO_KO_CHANCE))
+		{
+			return;
+		}
+
+		// keep the target's HP range up to date for KO chances. poison & venom still deal damage.
+		Fighter targetFighter = currentFight.getFighter(target.getName());
+		if (targetFighter != null && amount > 0 && hitType != HitsplatID.HEAL && hitType != HitsplatID.DISEASE)
+		{
+			targetFighter.getOrCreateHpTracker(getMaxHpFor(target)).onHit(client.getTickCount(), amount);
+		}
+
 		// Exclude certain hitsplat types (like heal, poison, venom, disease)
 		// from the buffer used for HP-before-hit calculations.
 		boolean isExcludedType = hitType == HitsplatID.HEAL ||
@@ -531,6 +652,11 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		tickEvents.add(info);
 
 		// Schedule task to poll HP after a short delay of 100ms (reduces missing HP values)
+		// if HP polling is being shed, the matching falls back to the HP at processing time
+		if (loadMonitor.isShedding(TickBudgetMonitor.Level.NO_HP_POLLING))
+		{
+			return;
+		}
 		try
 		{
 			executor.schedule(() -> updatePolledHp(info), 100, TimeUnit.MILLISECONDS);
@@ -593,9 +719,12 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	// we can only detect this for the local player
 	private void checkForGhostBarrage()
 	{
-		if (!hasOpponent()) { return; }
+		if (!hasOpponent() || loadMonitor.isShedding(TickBudgetMonitor.Level.NO_GHOST_BARRAGE)) { return; }
 
+		long start = System.nanoTime();
+		long startBytes = loadMonitor.allocatedBytes();
 		currentFight.checkForLocalGhostBarrage(new CombatLevels(client), client.getLocalPlayer());
+		loadMonitor.record(start, startBytes);
 	}
 
 	// When the config is reset, also reset the fight history data, as a way to restart
@@ -617,6 +746,37 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	@Subscribe
 	public void onGameTick(GameTick event)
 	{
+		// evaluate the previous tick's total time before starting on this one
+		loadMonitor.endTick(config.tickBudgetMs(), config.adaptiveLoadShedding());
+
+		long start = System.nanoTime();
+		long startBytes = loadMonitor.allocatedBytes();
+		processHitsplatsForTick();
+		loadMonitor.record(start, startBytes);
+	}
+
+	private void processHitsplatsForTick()
+	{
+		// if KO chances are being shed or we're using the lite profile, nothing gets matched: drop anything
+		// still pending so it doesn't pile up, and so matching restarts cleanly when the load drops.
+		if (liteTracking || loadMonitor.isShedding(TickBudgetMonitor.Level.NO_KO_CHANCE))
+		{
+			if (hasOpponent())
+			{
+				currentFight.getCompetitor().getPendingAttacks().clear();
+				currentFight.getOpponent().getPendingAttacks().clear();
+			}
+			hitsplatBuffer.clear();
+			incomingHitsplatsBuffer.clear();
+			return;
+		}
+
+		// the local player's exact HP is known, so their HP tracker can be exact
+		if (hasOpponent() && currentFight.getCompetitor().getHpTracker() != null)
+		{
+			currentFight.getCompetitor().getHpTracker().onExactHp(client.getBoostedSkillLevel(Skill.HITPOINTS));
+		}
+
 		// Process hitsplats from the previous tick
 		int currentTick = client.getTickCount();
 		int tickToProcess = currentTick - 1;
@@ -770,30 +930,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		hitsByActor.forEach((opponent, hits) -> {
 			if (!(opponent instanceof Player)) return; // Only process hits on players
 
-			// Determine max HP to use (config, Hiscores, or LMS override)
-			int maxHpToUse;
-			if (isAtLMS())
-			{
-				maxHpToUse = 99;
-			}
-			else
-			{
-				maxHpToUse = CONFIG.opponentHitpointsLevel();
-
-				// Hiscores lookup should only happen if not in LMS
-			if (opponent instanceof Player && opponent.getName() != null)
-			{
-				final HiscoreResult hiscoreResult = hiscoreManager.lookupAsync(opponent.getName(), hiscoreEndpoint);
-				if (hiscoreResult != null)
-				{
-					final int hp = hiscoreResult.getSkill(HiscoreSkill.HITPOINTS).getLevel();
-					if (hp > 0)
-					{
-						maxHpToUse = hp; // Use Hiscores HP if available
-					}
-				}
-			}
-			}
+			int maxHpToUse = getMaxHpFor(opponent);
 
 			// Determine attacker
 			String actorName = ((Player) opponent).getName();
@@ -821,93 +958,89 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			List<FightLogEntry> gmaulsMatchedThisTick = new ArrayList<>();
 			int totalGmaulHitsMatchedThisTick = 0;
 
-			// Iterate through candidate entries chronologically
+			// Drop entries that are out of their style's lookback window or already fully matched
+			List<FightLogEntry> activeEntries = new ArrayList<>();
 			for (FightLogEntry entry : candidateEntries)
 			{
-
-				// Apply specific lookback for the entry's style
-				int lookback;
-				switch (entry.getAnimationData().attackStyle)
-				{
-					case STAB: case SLASH: case CRUSH: lookback = 3; break;
-					case MAGIC: lookback = 5; break;
-					case RANGED: default: lookback = 3; break;
-				}
-				if (client.getTickCount() - entry.getTick() > lookback)
+				if (client.getTickCount() - entry.getTick() > getHitLookback(entry)
+					|| entry.getExpectedHits() - entry.getMatchedHitsCount() <= 0)
 				{
 					entry.setKoChanceCalculated(true);
 					attacker.getPendingAttacks().remove(entry);
 					continue;
 				}
+				activeEntries.add(entry);
+			}
 
-				int toMatch = entry.getExpectedHits() - entry.getMatchedHitsCount();
-				if (toMatch <= 0)
-				{
-					entry.setKoChanceCalculated(true);
-					attacker.getPendingAttacks().remove(entry);
-					continue;
-				}
+			// Narrow the target's HP range with the health bar polled after this tick's last hit, then get
+			// their estimated HP before this tick's hits.
+			HpIntervalTracker hpTracker = currentFight.getFighter(actorName).getOrCreateHpTracker(maxHpToUse);
+			HitsplatInfo lastHitInfo = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+			if (lastHitInfo != null)
+			{
+				hpTracker.onHealthSample(lastHitInfo.getPolledHealthRatio(), lastHitInfo.getPolledHealthScale(), tickToProcess);
+			}
+			Integer hpBeforeTick = hpTracker.getEstimatedHpBeforeTick(tickToProcess);
+			int damageAssignedThisTick = 0; // damage of entries that landed before the current one
 
+			// Assign this tick's hits to the active entries (min-cost, bounded), then apply them per entry
+			List<List<HitsplatInfo>> assignedHits = assignHitsplats(activeEntries, hits, tickToProcess);
+			for (int entryIdx = 0; entryIdx < activeEntries.size(); entryIdx++)
+			{
+				FightLogEntry entry = activeEntries.get(entryIdx);
+				List<HitsplatInfo> entryHits = assignedHits.get(entryIdx);
 				boolean isInstantGmaulCheck = entry.isGmaulSpecial() && entry.getTick() == tickToProcess;
-				boolean isDelayedAttack = !isInstantGmaulCheck;
 
-				// Only try to match if it's either an instant GMaul or a delayed attack landing now
-				if (isInstantGmaulCheck || isDelayedAttack)
+				int matchedThisCycle = entryHits.size();
+				int damageThisCycle = 0;
+				HitsplatInfo lastMatchedInfo = null;
+				for (HitsplatInfo hInfo : entryHits)
 				{
-					int matchedThisCycle = 0;
-					int damageThisCycle = 0;
-					HitsplatInfo lastMatchedInfo = null;
-					Iterator<HitsplatInfo> hitsIter = hits.iterator();
+					damageThisCycle += hInfo.getEvent().getHitsplat().getAmount();
+					lastMatchedInfo = hInfo;
+				}
 
-					// Gmaul can hit twice, others match expected hits
-					int hitsToFind = entry.isGmaulSpecial() ? 2 : toMatch;
+				if (matchedThisCycle > 0)
+				{
+					int previousDamage = entry.getActualDamageSum(); // from earlier ticks, for multi-tick specs
+					entry.setActualDamageSum(previousDamage + damageThisCycle);
+					entry.setMatchedHitsCount(entry.getMatchedHitsCount() + matchedThisCycle);
+					processedEntriesThisTick.add(entry);
 
-					while (matchedThisCycle < hitsToFind && hitsIter.hasNext())
+					if (entry.isGmaulSpecial())
 					{
-						HitsplatInfo hInfo = hitsIter.next();
-						int amt = hInfo.getEvent().getHitsplat().getAmount();
-						damageThisCycle += amt;
-						matchedThisCycle++;
-						lastMatchedInfo = hInfo;
-						hitsIter.remove();
+						gmaulsMatchedThisTick.add(entry);
+						totalGmaulHitsMatchedThisTick += matchedThisCycle;
 					}
 
-					if (matchedThisCycle > 0)
+					if (entry.getHitsplatTick() < 0)
 					{
-						entry.setActualDamageSum(entry.getActualDamageSum() + damageThisCycle);
-						entry.setMatchedHitsCount(entry.getMatchedHitsCount() + matchedThisCycle);
-						processedEntriesThisTick.add(entry);
-
-						if (entry.isGmaulSpecial())
-						{
-							gmaulsMatchedThisTick.add(entry);
-							totalGmaulHitsMatchedThisTick += matchedThisCycle;
-						}
-
-						if (entry.getHitsplatTick() < 0 && lastMatchedInfo != null)
-						{
-							entry.setHitsplatTick(tickToProcess);
-						}
+						entry.setHitsplatTick(tickToProcess);
+					}
 
-						// Calculate and set estimated HP Before using polled HP
-						int ratio = -1, scale = -1;
-						if (lastMatchedInfo != null)
-						{
-							ratio = lastMatchedInfo.getPolledHealthRatio();
-							scale = lastMatchedInfo.getPolledHealthScale();
-						}
+					// Estimated HP before this entry's first hit, from the target's HP tracker
+					int hpBefore = -1;
+					if (hpBeforeTick != null)
+					{
+						hpBefore = hpBeforeTick - damageAssignedThisTick + previousDamage;
+					}
+					else
+					{
+						// tick is no longer in the tracker's history, fall back to the polled HP
+						int ratio = lastMatchedInfo.getPolledHealthRatio();
+						int scale = lastMatchedInfo.getPolledHealthScale();
 						// Fallback to current ratio/scale if polled is unavailable
 						if (ratio < 0 || scale <= 0) { ratio = opponent.getHealthRatio(); scale = opponent.getHealthScale(); }
-						int hpBefore = -1;
 						if (ratio >= 0 && scale > 0 && maxHpToUse > 0)
 						{
 							hpBefore = PvpPerformanceTrackerUtils.calculateHpBeforeHit(ratio, scale, maxHpToUse, entry.getActualDamageSum());
 						}
-						if (hpBefore > 0)
-						{
-							entry.setEstimatedHpBeforeHit(hpBefore);
-							entry.setOpponentMaxHp(maxHpToUse);
-						}
+					}
+					damageAssignedThisTick += damageThisCycle;
+					if (hpBefore > 0)
+					{
+						entry.setEstimatedHpBeforeHit(hpBefore);
+						entry.setOpponentMaxHp(maxHpToUse);
 					}
 				}
 
@@ -996,7 +1129,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 						entry.setDisplayHpAfter(hpAfterCurrent);
 
 						Double koChanceCurrent = (hpBeforeCurrent != null)
-							? PvpPerformanceTrackerUtils.calculateKoChance(entry.getAccuracy(), entry.getMinHit(), entry.getMaxHit(), hpBeforeCurrent)
+							? PvpPerformanceTrackerUtils.calculateKoChance(entry, hpBeforeCurrent)
 							: null;
 						entry.setDisplayKoChance(koChanceCurrent);
 						entry.setKoChance(koChanceCurrent);
@@ -1008,6 +1141,12 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 				}
 				});
 			});
+
+			// KO chances were updated, publish them for the overlay
+			if (hasOpponent())
+			{
+				currentFight.publishStatsSnapshot();
+			}
 		}
 
 		// Cleanup old entries from buffers at the end of the tick processing
@@ -1015,6 +1154,159 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		incomingHitsplatsBuffer.keySet().removeIf(tick -> tick < currentTick - maxWindow);
 	}
 
+	// Determine max HP to use for an actor (config, Hiscores, or LMS override)
+	private int getMaxHpFor(Actor actor)
+	{
+		if (isAtLMS())
+		{
+			return 99;
+		}
+
+		int maxHp = CONFIG.opponentHitpointsLevel();
+
+		// Hiscores lookup should only happen if not in LMS
+		if (actor instanceof Player && actor.getName() != null)
+		{
+			final HiscoreResult hiscoreResult = hiscoreManager.lookupAsync(actor.getName(), hiscoreEndpoint);
+			if (hiscoreResult != null)
+			{
+				final int hp = hiscoreResult.getSkill(HiscoreSkill.HITPOINTS).getLevel();
+				if (hp > 0)
+				{
+					maxHp = hp; // Use Hiscores HP if available
+				}
+			}
+		}
+		return maxHp;
+	}
+
+	// max number of ticks between an attack's animation and its hitsplat, per style.
+	private static int getHitLookback(FightLogEntry entry)
+	{
+		return entry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC ? 5 : 3;
+	}
+
+	// roughly expected number of ticks between an attack's animation and its hitsplat (processed a tick later).
+	private static int getExpectedHitDelay(FightLogEntry entry)
+	{
+		if (entry.isGmaulSpecial())
+		{
+			return 0;
+		}
+		switch (entry.getAnimationData().attackStyle)
+		{
+			case MAGIC: return 2;
+			case RANGED: return 1;
+			default: return 0;
+		}
+	}
+
+	// number of hits an entry can still take in a single tick, based on its hitsplat group pattern.
+	// e.g. claws (2, 2) take up to 2 hits on the first tick they land, then 2 more on the next.
+	private static int getHitsAvailableThisTick(FightLogEntry entry)
+	{
+		int remaining = entry.getExpectedHits() - entry.getMatchedHitsCount();
+		if (entry.isGmaulSpecial())
+		{
+			return 2; // gmaul can hit twice in the same tick
+		}
+
+		int matched = entry.getMatchedHitsCount();
+		for (int groupSize : entry.getAnimationData().getHitsplatGroupPattern())
+		{
+			if (matched < groupSize)
+			{
+				return Math.min(remaining, groupSize - matched);
+			}
+			matched -= groupSize;
+		}
+		return remaining;
+	}
+
+	// index of the hitsplat group an entry's next hits belong to, e.g. 1 for claws (2, 2) once 2 hits matched.
+	private static int getCurrentHitGroup(FightLogEntry entry)
+	{
+		if (entry.isGmaulSpecial())
+		{
+			return 0;
+		}
+
+		int matched = entry.getMatchedHitsCount();
+		int[] pattern = entry.getAnimationData().getHitsplatGroupPattern();
+		for (int group = 0; group < pattern.length; group++)
+		{
+			if (matched < pattern[group])
+			{
+				return group;
+			}
+			matched -= pattern[group];
+		}
+		return pattern.length - 1;
+	}
+
+	// Assign the hits of a tick to the entries that could have caused them, see HitsplatAssignment.
+	// Each group of an entry's hitsplat pattern lands a tick after the previous one, so the expected landing
+	// tick of a slot is the style's expected delay plus the index of the group it belongs to.
+	// Ties fall back to the old greedy order (earlier entries first, then earlier hits).
+	// Assigned hits are removed from the hits list. Returns the assigned hits for each entry, in order.
+	private List<List<HitsplatInfo>> assignHitsplats(List<FightLogEntry> entries, List<HitsplatInfo> hits, int tickToProcess)
+	{
+		List<List<HitsplatInfo>> assigned = new ArrayList<>(entries.size());
+		List<Integer> slotEntries = new ArrayList<>(); // entry index for each slot
+		List<HitsplatAssignment.Slot> slots = new ArrayList<>();
+		for (int i = 0; i < entries.size(); i++)
+		{
+			assigned.add(new ArrayList<>());
+			FightLogEntry entry = entries.get(i);
+			int delay = tickToProcess - entry.getTick();
+			int expectedDelay = getExpectedHitDelay(entry) + getCurrentHitGroup(entry);
+			int available = getHitsAvailableThisTick(entry);
+			for (int rank = 0; rank < available; rank++)
+			{
+				slotEntries.add(i);
+				slots.add(new HitsplatAssignment.Slot(delay, expectedDelay, entry.getMaxHit(), i * 0.01 + rank * 0.001));
+			}
+		}
+		if (slots.isEmpty() || hits.isEmpty())
+		{
+			return assigned;
+		}
+
+		int[] hitAmounts = new int[hits.size()];
+		for (int h = 0; h < hits.size(); h++)
+		{
+			hitAmounts[h] = hits.get(h).getEvent().getHitsplat().getAmount();
+		}
+
+		int[] solution = HitsplatAssignment.assign(slots, hitAmounts);
+		boolean[] hitUsed = new boolean[hits.size()];
+		for (int s = 0; s < slots.size(); s++)
+		{
+			int h = solution[s];
+			if (h >= 0)
+			{
+				hitUsed[h] = true;
+				assigned.get(slotEntries.get(s)).add(hits.get(h));
+			}
+		}
+
+		// keep each entry's hits in their original order, so the last one is the most recent
+		for (List<HitsplatInfo> entryHits : assigned)
+		{
+			entryHits.sort(Comparator.comparingInt(hits::indexOf));
+		}
+
+		for (int h = hits.size() - 1; h >= 0; h--)
+		{
+			if (hitUsed[h])
+			{
+				hits.remove(h);
+			}
+		}
+
+		return assigned;
+	}
+
 	// #################################################################################################################
 	// ################################## Plugin-specific functions & global helpers ###################################
 	// #################################################################################################################
@@ -1063,12 +1355,20 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 				return;
 			}
 
-			fightHistory.clear();
-
 			// read the old saved fights from the file into an array, and add them as an updated
 			// fight to the fightHistory list.
-			Arrays.asList(GSON.fromJson(new FileReader(fightHistoryData), FightPerformance__1_5_5[].class))
-				.forEach((oldFight) -> fightHistory.add(new FightPerformance(oldFight)));
+			FightPerformance__1_5_5[] oldFights = GSON.fromJson(new FileReader(fightHistoryData), FightPerformance__1_5_5[].class);
+			synchronized (fightHistory)
+			{
+				fightHistory.clear();
+				for (FightPerformance__1_5_5 oldFight : oldFights)
+				{
+					FightPerformance fight = new FightPerformance(oldFight);
+					initializeImportedFight(fight);
+					fightHistory.add(fight);
+				}
+				publishFightHistory();
+			}
 
 			// now that the fights were deserialized and updated to the newest version, simply save them.
 			// afterwards, they will be re-loaded normally. Bit inefficient but not a big deal
@@ -1094,12 +1394,73 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			// add fight to fight history if it actually started
 			if (currentFight.fightStarted())
 			{
-				addToFightHistory(currentFight);
+				log.debug("Fight tracked with the {} profile: {}us per tick on average over {} ticks",
+					currentFightProfile, loadMonitor.getAverageTickMicros(), loadMonitor.getTotalTicks());
+				synchronized (trackingProfileCosts)
+				{
+					trackingProfileCosts.computeIfAbsent(currentFightProfile, p -> new TickBudgetMonitor.Totals()).add(loadMonitor);
+				}
+
+				// add the fight right away, and fill in its luck percentiles once they're calculated in the background.
+				FightPerformance finishedFight = currentFight;
+				Runnable luckPercentileTask = finishedFight.createLuckPercentileTask();
+				addToFightHistory(finishedFight);
+				try
+				{
+					luckPercentileExecutor.execute(() ->
+					{
+						luckPercentileTask.run();
+						panel.fightUpdated(finishedFight);
+					});
+				}
+				catch (RejectedExecutionException e)
+				{
+					// the plugin is shutting down, the fight is saved without its luck percentiles.
+					log.debug("Luck percentiles not calculated, the plugin is shutting down");
+				}
 			}
 			currentFight = null;
 		}
 	}
 
+	// measured cost per tick of the fights tracked with each profile this session, as an html table.
+	public String getTrackingProfileComparison()
+	{
+		StringBuilder sb = new StringBuilder("<html>Measured plugin cost per game tick, for the fights tracked this session:<br/><br/>"
+			+ "<table><tr><th>Profile</th><th>Fights</th><th>Ticks</th><th>Time/tick</th><th>Allocated/tick</th></tr>");
+		synchronized (trackingProfileCosts)
+		{
+			for (TrackingProfile profile : TrackingProfile.values())
+			{
+				TickBudgetMonitor.Totals totals = trackingProfileCosts.getOrDefault(profile, new TickBudgetMonitor.Totals());
+				sb.append("<tr><td>").append(profile).append("</td><td>").append(totals.getFights())
+					.append("</td><td>").append(totals.getTicks())
+					.append("</td><td>").append(String.format("%.1f µs", totals.getMicrosPerTick()))
+					.append("</td><td>").append(TickBudgetMonitor.isMeasuringAllocations() ?
+						String.format("%.1f KB", totals.getBytesPerTick() / 1024) : "N/A")
+					.append("</td></tr>");
+			}
+
+			TickBudgetMonitor.Totals full = trackingProfileCosts.get(TrackingProfile.FULL);
+			TickBudgetMonitor.Totals lite = trackingProfileCosts.get(TrackingProfile.LITE);
+			sb.append("</table><br/>");
+			if (full != null && lite != null && full.getMicrosPerTick() > 0)
+			{
+				sb.append(String.format("Lite uses %.0f%% of Full's time", lite.getMicrosPerTick() / full.getMicrosPerTick() * 100));
+				if (TickBudgetMonitor.isMeasuringAllocations() && full.getBytesPerTick() > 0)
+				{
+					sb.append(String.format(" and %.0f%% of its allocations", lite.getBytesPerTick() / full.getBytesPerTick() * 100));
+				}
+				sb.append('.');
+			}
+			else
+			{
+				sb.append("Track at least one fight with each profile to compare them.");
+			}
+		}
+		return sb.append("</html>").toString();
+	}
+
 	// save the currently loaded fightHistory to the local json data so it is saved for the next client launch.
 	private void saveFightHistoryData()
 	{
@@ -1109,7 +1470,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		{
 			File fightHistoryData = new File(FIGHT_HISTORY_DATA_DIR, FIGHT_HISTORY_DATA_FNAME);
 			Writer writer = new FileWriter(fightHistoryData);
-			GSON.toJson(fightHistory, writer);
+			GSON.toJson(fightHistorySnapshot, writer);
 			writer.flush();
 			writer.close();
 		}
@@ -1123,22 +1484,139 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	void addToFightHistory(FightPerformance fight)
 	{
 		if (fight == null) { return; }
-		fightHistory.add(fight);
-		// no need to sort, since they sort chronologically, but they should automatically be added that way.
+		List<FightPerformance> trimmed;
+		synchronized (fightHistory)
+		{
+			fightHistory.add(fight);
+			// no need to sort, since they sort chronologically, but they should automatically be added that way.
 
-		// remove fights as necessary to respect the fightHistoryLimit.
-		if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+			// remove fights as necessary to respect the fightHistoryLimit.
+			trimmed = trimFightHistory();
+			publishFightHistory();
+		}
+		panel.addFight(fight);
+		if (!trimmed.isEmpty())
 		{
-			int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-			// Remove oldest fightHistory until the size is equal to the limit.
-			// Should only remove one fight in most cases.
-			fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
-			panel.rebuild();
+			panel.removeFights(trimmed);
 		}
-		else
+	}
+
+	// remove the oldest fights until the fight history respects the fightHistoryLimit. Should only remove one fight
+	// in most cases. Returns the removed fights. Must hold the fightHistory lock.
+	private List<FightPerformance> trimFightHistory()
+	{
+		if (config.fightHistoryLimit() <= 0 || fightHistory.size() <= config.fightHistoryLimit())
 		{
-			panel.addFight(fight);
+			return Collections.emptyList();
 		}
+
+		List<FightPerformance> oldest = fightHistory.subList(0, fightHistory.size() - config.fightHistoryLimit());
+		List<FightPerformance> trimmed = new ArrayList<>(oldest);
+		oldest.clear();
+		return trimmed;
+	}
+
+	// publish a new unmodifiable copy of the fight history, should be called after every change to fightHistory,
+	// while still holding its lock.
+	private void publishFightHistory()
+	{
+		fightHistorySnapshot = Collections.unmodifiableList(new ArrayList<>(fightHistory));
+	}
+
+	// recalculate the deserved damage of all saved fights in the background, using the current config.
+	// Restarts from scratch if a recalculation was already running (e.g. several levels changed in a row).
+	void recalculateFightHistory()
+	{
+		List<FightPerformance> fights = fightHistorySnapshot;
+		if (fights == null || fights.isEmpty())
+		{
+			return;
+		}
+
+		panel.setStatus("Recalculating fights: 0%");
+		historyRecalculator.start(fights, new HistoryRecalculator.Listener()
+		{
+			@Override
+			public void onProgress(int fightsDone, int totalFights)
+			{
+				panel.setStatus("Recalculating fights: " + (fightsDone * 100 / totalFights) + "%");
+			}
+
+			@Override
+			public void onFinished(int totalFights, long elapsedMs)
+			{
+				log.info("Recalculated {} fights in {}ms", totalFights, elapsedMs);
+				panel.setStatus(null);
+				panel.rebuild();
+			}
+		});
+	}
+
+	// cancel whatever background work the status line is currently showing.
+	void cancelBackgroundWork()
+	{
+		if (historyRecalculator.isRunning())
+		{
+			historyRecalculator.cancel();
+			log.info("Cancelled fight history recalculation");
+		}
+		BatchFightAnalyzer analyzer = batchAnalyzer;
+		if (analyzer != null)
+		{
+			analyzer.cancel();
+			log.info("Cancelled batch fight analysis");
+		}
+		panel.setStatus(null);
+	}
+
+	// merge every pair of opposing fights found in a folder of exported fight histories, in the background,
+	// and write a report into the same folder. Only one batch runs at a time.
+	public void runBatchFightAnalysis(File folder)
+	{
+		if (batchAnalyzer != null)
+		{
+			createConfirmationModal(false, "A batch fight analysis is already running.");
+			return;
+		}
+
+		BatchFightAnalyzer analyzer = new BatchFightAnalyzer(GSON, config.fightPairingWindow() * 1000L);
+		batchAnalyzer = analyzer;
+		panel.setStatus("Batch analysis: reading fights...");
+		Thread thread = new Thread(() ->
+		{
+			try
+			{
+				analyzer.run(folder, new BatchFightAnalyzer.Listener()
+				{
+					@Override
+					public void onProgress(int fightsDone, int totalFights)
+					{
+						panel.setStatus("Batch analysis: " + fightsDone + "/" + totalFights + " fights");
+					}
+
+					@Override
+					public void onFinished(BatchFightAnalyzer.Summary summary)
+					{
+						log.info("Batch analysis: merged {} of {} fight pairs in {}ms", summary.getMerged(), summary.getPairs(), summary.getElapsedMs());
+						createConfirmationModal(true, "<html>Batch fight analysis done: merged " + summary.getMerged() + " of " +
+							summary.getPairs() + " fight pairs,<br/>found in " + summary.getFights() + " fights from " + summary.getFiles() +
+							" files.<br/>Report saved to " + summary.getReport().getAbsolutePath() + "</html>");
+					}
+				});
+			}
+			catch (Exception e)
+			{
+				log.warn("Error during batch fight analysis: " + e.getMessage());
+				createConfirmationModal(false, "Error during batch fight analysis: " + e.getMessage());
+			}
+			finally
+			{
+				batchAnalyzer = null;
+				panel.setStatus(null);
+			}
+		}, "pvp-tracker-batch-analysis");
+		thread.setDaemon(true);
+		thread.start();
 	}
 
 	// import complete fight history data from the saved json data file
@@ -1166,8 +1644,11 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			List<FightPerformance> savedFights = Arrays.asList(
 				GSON.fromJson(new FileReader(fightHistoryData), FightPerformance[].class));
 
-			fightHistory.clear();
-			importFights(savedFights);
+			synchronized (fightHistory)
+			{
+				fightHistory.clear();
+				importFights(savedFights);
+			}
 		}
 		catch (Exception e)
 		{
@@ -1176,7 +1657,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			return;
 		}
 
-		panel.rebuild();
+		panel.reload();
 	}
 
 	// import additional/extra fight history data supplied by the user
@@ -1184,11 +1665,13 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	// more specific FightPerformance processing is done in importFights()
 	public void importUserFightHistoryData(String data)
 	{
+		List<FightPerformance> savedFights;
+		List<FightPerformance> trimmed;
 		try
 		{
 			// read saved fights from the data string and import them
-			List<FightPerformance> savedFights = Arrays.asList(GSON.fromJson(data, FightPerformance[].class));
-			importFights(savedFights);
+			savedFights = Arrays.asList(GSON.fromJson(data, FightPerformance[].class));
+			trimmed = importFights(savedFights);
 			createConfirmationModal(true, "Fight history data was successfully imported.");
 		}
 		catch (Exception e)
@@ -1199,7 +1682,78 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			return;
 		}
 
-		panel.rebuild();
+		panel.addFights(savedFights);
+		panel.removeFights(trimmed);
+	}
+
+	// import other players' fight histories, to automatically find the opposing side of the user's fights
+	// when opening fight analysis. These aren't saved or shown in the fight history.
+	public void importOpposingFightHistoryData(String data)
+	{
+		int imported = 0;
+		try
+		{
+			FightPerformance[] fights = GSON.fromJson(data, FightPerformance[].class);
+			synchronized (opposingFights)
+			{
+				for (FightPerformance fight : fights)
+				{
+					if (fight == null || fight.getCompetitor() == null || fight.getOpponent() == null ||
+						fight.getCompetitor().getFightLogEntries() == null || fight.getOpponent().getFightLogEntries() == null)
+					{
+						continue;
+					}
+
+					initializeImportedFight(fight);
+					opposingFights.add(fight);
+					getOpposingFightIndex().add(fight, fight);
+					imported++;
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			log.warn("Error while importing opposing fight history data: " + e.getMessage());
+			createConfirmationModal(false, "Fight history data was invalid, and could not be imported.");
+			return;
+		}
+
+		createConfirmationModal(true, imported + " opposing fights were imported. Fight analysis will now fill in" +
+			" the opponent's side of matching fights automatically.");
+	}
+
+	// find the other side of the given fight among the imported opposing fights, or null if there is none.
+	public FightPerformance findOpposingFight(FightPerformance fight)
+	{
+		if (fight == null || fight.getCompetitor() == null || fight.getOpponent() == null)
+		{
+			return null;
+		}
+
+		synchronized (opposingFights)
+		{
+			return opposingFights.isEmpty() ? null : getOpposingFightIndex().findOpposing(fight);
+		}
+	}
+
+	// must hold the opposingFights lock
+	private FightPairIndex<FightPerformance> getOpposingFightIndex()
+	{
+		if (opposingFightIndex == null)
+		{
+			opposingFightIndex = new FightPairIndex<>(config.fightPairingWindow() * 1000L);
+			opposingFights.forEach(f -> opposingFightIndex.add(f, f));
+		}
+		return opposingFightIndex;
+	}
+
+	// the pairing window changed, rebuild the index with the new one on next use.
+	private void rebuildOpposingFightIndex()
+	{
+		synchronized (opposingFights)
+		{
+			opposingFightIndex = null;
+		}
 	}
 
 	// set fight log names after importing since they aren't serialized but are on the parent class
@@ -1216,47 +1770,64 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			l.attackerName = f.getCompetitor().getName());
 		f.getOpponent().getFightLogEntries().forEach((FightLogEntry l) ->
 			l.attackerName = f.getOpponent().getName());
+
+		// loaded fights never change on their own, so this first snapshot is what the panels & overlay will read.
+		f.publishStatsSnapshot();
 	}
 
 	// process and add a list of deserialized json fights to the currently loaded fights
 	// can throw NullPointerException if some of the serialized data is corrupted
-	void importFights(List<FightPerformance> fights) throws NullPointerException
+	// returns the fights that were removed to respect the fightHistoryLimit, which may include imported ones.
+	List<FightPerformance> importFights(List<FightPerformance> fights) throws NullPointerException
 	{
-		if (fights == null || fights.size() < 1) { return; }
+		if (fights == null || fights.size() < 1) { return Collections.emptyList(); }
 
 		fights.removeIf(Objects::isNull);
-		fightHistory.addAll(fights);
-		fightHistory.sort(FightPerformance::compareTo);
 
-		// remove fights to respect the fightHistoryLimit.
-		if (config.fightHistoryLimit() > 0 && fightHistory.size() > config.fightHistoryLimit())
+		// set fight log names since they aren't serialized but are on the parent class,
+		// and publish their stats before they can be seen by other threads.
+		for (FightPerformance f : fights)
 		{
-			int numToRemove = fightHistory.size() - config.fightHistoryLimit();
-			// Remove oldest fightHistory until the size is equal to the limit.
-			// Should only remove one fight in most cases.
-			fightHistory.removeIf((FightPerformance f) -> fightHistory.indexOf(f) < numToRemove);
+			initializeImportedFight(f);
 		}
 
-		// set fight log names since they aren't serialized but are on the parent class
-		for (FightPerformance f : fightHistory)
+		synchronized (fightHistory)
 		{
-			initializeImportedFight(f);
+			fightHistory.addAll(fights);
+			fightHistory.sort(FightPerformance::compareTo);
+
+			// remove fights to respect the fightHistoryLimit.
+			List<FightPerformance> trimmed = trimFightHistory();
+
+			publishFightHistory();
+			return trimmed;
 		}
 	}
 
 	// reset the loaded fight history as well as the saved json data
 	public void resetFightHistory()
 	{
-		fightHistory.clear();
+		synchronized (fightHistory)
+		{
+			fightHistory.clear();
+			publishFightHistory();
+		}
 		saveFightHistoryData();
-		panel.rebuild();
+		panel.reload();
 	}
 
 	// remove a fight from the loaded fight history
 	public void removeFight(FightPerformance fight)
 	{
-		fightHistory.remove(fight);
-		panel.rebuild();
+		synchronized (fightHistory)
+		{
+			if (!fightHistory.remove(fight))
+			{
+				return;
+			}
+			publishFightHistory();
+		}
+		panel.removeFight(fight);
 	}
 
 	public boolean isAtLMS()
@@ -1307,7 +1878,7 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 	// save the complete fight history data to the clipboard.
 	public void exportFightHistory()
 	{
-		String fightHistoryDataJson = GSON.toJson(fightHistory.toArray(new FightPerformance[0]), FightPerformance[].class);
+		String fightHistoryDataJson = GSON.toJson(fightHistorySnapshot.toArray(new FightPerformance[0]), FightPerformance[].class);
 		final StringSelection contents = new StringSelection(fightHistoryDataJson);
 		Toolkit.getDefaultToolkit().getSystemClipboard().setContents(contents, null);
 
@@ -1349,6 +1920,65 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		createConfirmationModal(true, "Discord message of fight data was copied to the clipboard.");
 	}
 
+	// rank loadouts of the user's owned gear against the fight's opponent, using every saved fight against them.
+	// should be called from the EDT. Items are resolved on the client thread, then the search runs in the background.
+	public void optimizeGearAgainst(FightPerformance fight, JRootPane rootPane)
+	{
+		if (fight == null) { return; }
+
+		int[] ownedItemIds = parseItemIds(config.ownedGear());
+		if (ownedItemIds.length == 0)
+		{
+			createConfirmationModal(false, "No owned gear is configured. Add the item ids of your gear to the 'Owned Gear' setting first.");
+			return;
+		}
+
+		GearOptimizer.Request request = GearOptimizer.Request.fromFights(fight, fightHistorySnapshot, ownedItemIds);
+		if (request.getAttacks().isEmpty())
+		{
+			createConfirmationModal(false, "There are no attacks with gear data against this opponent to optimize.");
+			return;
+		}
+
+		String opponentName = fight.getOpponent().getName();
+		clientThread.invokeLater(() ->
+		{
+			GearOptimizer.ResolvedItems items = GearOptimizer.resolveItems(request, itemManager);
+			// a search can take a while, so it gets its own thread (and pool) rather than holding up the executor.
+			Thread thread = new Thread(() ->
+			{
+				try
+				{
+					List<GearOptimizer.AttackResult> results = GearOptimizer.optimize(request, items);
+					SwingUtilities.invokeLater(() -> new GearOptimizerFrame(opponentName, results, items, rootPane));
+				}
+				catch (Exception e)
+				{
+					log.warn("Error while optimizing gear against " + opponentName + ": " + e.getMessage());
+					createConfirmationModal(false, "Could not optimize gear against this opponent.");
+				}
+			}, "pvp-tracker-gear-optimizer");
+			thread.setDaemon(true);
+			thread.start();
+		});
+	}
+
+	// parse a comma-separated list of item ids from the config, ignoring anything that isn't a number.
+	private static int[] parseItemIds(String itemIds)
+	{
+		if (itemIds == null || itemIds.trim().isEmpty())
+		{
+			return new int[0];
+		}
+
+		return Arrays.stream(itemIds.split(","))
+			.map(String::trim)
+			.filter(id -> id.matches("\\d+"))
+			.mapToInt(Integer::parseInt)
+			.distinct()
+			.toArray();
+	}
+
 	// retrieve offensive pray as SpriteID since that's all we will directly use it for,
 	// aside from comparison/equality checks, so we save an extra mapping this way
 	public int currentlyUsedOffensivePray()
@@ -1407,25 +2037,11 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 			return;
 		}
 
-		// if sprite id found in sprite cache: use it.
-		if (spriteCache.containsKey(spriteId))
-		{
-			label.setIcon(spriteCache.get(spriteId));
-			if (swingCallback != null)
-			{
-				SwingUtilities.invokeLater(swingCallback);
-			}
-			return;
-		}
-
-		// if sprite id wasn't in sprite cache: get it, use it and add it to the cache
-		clientThread.invokeLater(() ->
+		// whenComplete, so the fallback is shown & the callback still runs if the sprite failed to load.
+		iconCache.get(IconCache.spriteKey(spriteId), () -> loadSpriteIcon(spriteId)).whenComplete((icon, error) -> runOnSwingThread(() ->
 		{
-			BufferedImage sprite = spriteManager.getSprite(spriteId, 0);
-			if (sprite != null)
+			if (error == null && icon != null)
 			{
-				ImageIcon icon = new ImageIcon(sprite);
-				spriteCache.put(spriteId, icon);
 				label.setIcon(icon);
 			}
 			else
@@ -1436,9 +2052,9 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 
 			if (swingCallback != null)
 			{
-				SwingUtilities.invokeLater(swingCallback);
+				swingCallback.run();
 			}
-		});
+		}));
 	}
 
 	public void addSpriteToLabelIfValid(JLabel label, int spriteId)
@@ -1446,6 +2062,31 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		addSpriteToLabelIfValid(label, spriteId, null);
 	}
 
+	// returns the cached icon for a sprite, for renderers that draw many cells with one component.
+	// if it isn't cached yet, returns null and loads it, then runs the swingCallback once it's available.
+	public ImageIcon getSpriteIcon(int spriteId, Runnable swingCallback)
+	{
+		if (spriteId <= 0)
+		{
+			return null;
+		}
+
+		CompletableFuture<ImageIcon> icon = iconCache.get(IconCache.spriteKey(spriteId), () -> loadSpriteIcon(spriteId));
+		if (icon.isDone())
+		{
+			return icon.isCompletedExceptionally() ? null : icon.join();
+		}
+
+		icon.thenAccept(loaded ->
+		{
+			if (loaded != null && swingCallback != null)
+			{
+				SwingUtilities.invokeLater(swingCallback);
+			}
+		});
+		return null;
+	}
+
 	// if verifyId is true, takes in itemId directly from PlayerComposition
 	// otherwise, assume valid itemId
 	public void addItemToLabelIfValid(JLabel label, int itemId, boolean verifyId, Runnable swingCallback, String tooltipOverride)
@@ -1453,23 +2094,28 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		if (itemId > PlayerComposition.ITEM_OFFSET || !verifyId)
 		{
 			final int finalItemId = itemId - (verifyId ? PlayerComposition.ITEM_OFFSET : 0);
-			clientThread.invokeLater(() -> {
-				itemManager.getImage(finalItemId).addTo(label);
-				if (tooltipOverride != null && tooltipOverride.length() > 0)
+			// whenComplete, so the fallback is shown & the callback still runs if the item failed to load.
+			iconCache.get(IconCache.itemKey(finalItemId), () -> loadItemIcon(finalItemId)).whenComplete((icon, error) -> runOnSwingThread(() ->
+			{
+				boolean hasOverride = tooltipOverride != null && tooltipOverride.length() > 0;
+				if (error == null && icon != null)
 				{
-					label.setToolTipText(tooltipOverride);
+					label.setIcon(icon);
+					// the item's name is kept as the icon's description
+					label.setToolTipText(hasOverride ? tooltipOverride :
+						icon.getDescription() != null ? icon.getDescription() : "N/A");
 				}
 				else
 				{
-					String name = itemManager.getItemComposition(finalItemId).getName();
-					label.setToolTipText(name != null ? name : "Item Name Not Found");
+					DEFAULT_NONE_SYMBOL.addTo(label);
+					label.setToolTipText(hasOverride ? tooltipOverride : "N/A");
 				}
 
 				if (swingCallback != null)
 				{
-					SwingUtilities.invokeLater(swingCallback);
+					swingCallback.run();
 				}
-			});
+			}));
 		}
 		else
 		{
@@ -1482,6 +2128,57 @@ public class PvpPerformanceTrackerPlugin extends Plugin
 		}
 	}
 
+	private CompletableFuture<ImageIcon> loadSpriteIcon(int spriteId)
+	{
+		CompletableFuture<ImageIcon> icon = new CompletableFuture<>();
+		clientThread.invokeLater(() ->
+		{
+			try
+			{
+				BufferedImage sprite = spriteManager.getSprite(spriteId, 0);
+				icon.complete(sprite != null ? new ImageIcon(sprite) : null);
+			}
+			catch (Exception e)
+			{
+				icon.completeExceptionally(e);
+			}
+		});
+		return icon;
+	}
+
+	private CompletableFuture<ImageIcon> loadItemIcon(int itemId)
+	{
+		CompletableFuture<ImageIcon> icon = new CompletableFuture<>();
+		clientThread.invokeLater(() ->
+		{
+			try
+			{
+				String name = itemManager.getItemComposition(itemId).getName();
+				AsyncBufferedImage image = itemManager.getImage(itemId);
+				// only complete once the image is loaded, so a blank image never gets cached.
+				image.onLoaded(() -> icon.complete(new ImageIcon(image, name != null ? name : "Item Name Not Found")));
+			}
+			catch (Exception e)
+			{
+				icon.completeExceptionally(e);
+			}
+		});
+		return icon;
+	}
+
+	// icons that were already cached get applied right away when requested from the EDT.
+	private static void runOnSwingThread(Runnable runnable)
+	{
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			runnable.run();
+		}
+		else
+		{
+			SwingUtilities.invokeLater(runnable);
+		}
+	}
+
 	public void addItemToLabelIfValid(JLabel label, RangeAmmoData data, boolean verifyId, Runnable swingCallback)
 	{
 		addItemToLabelIfValid(label, data.getItemId(), verifyId, swingCallback, data.toString());
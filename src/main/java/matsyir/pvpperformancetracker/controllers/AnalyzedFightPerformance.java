@@ -26,17 +26,38 @@ package matsyir.pvpperformancetracker.controllers;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.swing.SwingUtilities;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.CONFIG;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.models.RingData;
+import matsyir.pvpperformancetracker.utils.LogAligner;
+import matsyir.pvpperformancetracker.utils.PvpPerformanceTrackerUtils;
+import net.runelite.api.PlayerComposition;
 
 @Slf4j
 public class AnalyzedFightPerformance extends FightPerformance
 {
+	// sides of the merged fight
+	private static final int COMPETITOR = 0;
+	private static final int OPPONENT = 1;
+	// how long to wait for the client thread to look up item stats the ItemStatsTable doesn't have.
+	private static final long ITEM_STATS_TIMEOUT_SECONDS = 10;
+
 	// fight's full fight logs, saved in "pairs", as an array:
 	// [0]: attacker's full log entry
 	// [1]: defender's defensive log entry
@@ -47,14 +68,80 @@ public class AnalyzedFightPerformance extends FightPerformance
 	FightPerformance mainFight;
 	@Getter
 	FightPerformance opposingFight;
+	// every recording of the fight that was used, including the main & opposing fights
+	@Getter
+	List<FightPerformance> perspectives;
+
 	// create a more detailed fight performance by merging data from two opposing fight logs
 	// also include the fights for easier access to general info
 	public AnalyzedFightPerformance(FightPerformance mainFight, FightPerformance opposingFight, Runnable swingCallback) throws Exception
 	{
-		this.mainFight = mainFight;
-		this.opposingFight = opposingFight;
+		this(Arrays.asList(mainFight, opposingFight), swingCallback);
+	}
+
+	// create a more detailed fight performance by merging any number of recordings of the same fight, from either
+	// fighter's client. The first one is the main fight: its competitor stays the competitor. More than one recording
+	// per side can fill in attacks that one of them missed, and conflicting entries are voted on.
+	public AnalyzedFightPerformance(List<FightPerformance> recordings, Runnable swingCallback) throws Exception
+	{
+		this.mainFight = recordings.get(0);
 		String cName = mainFight.competitor.getName();
 		String oName = mainFight.opponent.getName();
+
+		// find which side recorded each fight, and skip any that aren't between the same two fighters.
+		List<FightPerformance> candidates = new ArrayList<>();
+		List<Integer> candidateSides = new ArrayList<>();
+		for (FightPerformance fight : recordings)
+		{
+			int side = sideOf(fight, cName, oName);
+			if (side < 0)
+			{
+				log.debug("Fight merge: skipping a fight between {} and {}", fight.competitor.getName(), fight.opponent.getName());
+				continue;
+			}
+			candidates.add(fight);
+			candidateSides.add(side);
+		}
+		if (!candidateSides.contains(OPPONENT))
+		{
+			throw new Exception("Fight analysis needs a recording of the fight from " + oName + "'s client.");
+		}
+
+		// align every other recording with the main fight, and shift their ticks to line up with it.
+		// Recordings that can't be aligned are left out entirely, as long as the opponent's side is still covered.
+		this.perspectives = new ArrayList<>();
+		List<Integer> recordedBy = new ArrayList<>();
+		ArrayList<FightLogEntry> fullMainFightLogEntries = fullEntries(mainFight);
+		for (int i = 0; i < candidates.size(); i++)
+		{
+			FightPerformance fight = candidates.get(i);
+			if (i > 0)
+			{
+				int bestTickDiff;
+				try
+				{
+					bestTickDiff = findTickOffset(fullMainFightLogEntries, fullEntries(fight));
+				}
+				catch (Exception e)
+				{
+					log.debug("Fight merge: skipping recording {}: {}", i, e.getMessage());
+					continue;
+				}
+
+				for (FightLogEntry log : fight.getAllFightLogEntries())
+				{
+					log.setTick(log.getTick() + bestTickDiff);
+				}
+			}
+
+			perspectives.add(fight);
+			recordedBy.add(candidateSides.get(i));
+		}
+		if (!recordedBy.contains(OPPONENT))
+		{
+			throw new Exception("Could not find matching initial attack logs in order to merge fights.");
+		}
+
 		this.competitor = new Fighter(mainFight, cName);
 		this.opponent = new Fighter(mainFight, oName);
 		if (mainFight.competitor.isDead())
@@ -65,200 +152,343 @@ public class AnalyzedFightPerformance extends FightPerformance
 		{
 			this.opponent.died();
 		}
-		this.lastFightTime = Math.max(mainFight.lastFightTime, opposingFight.lastFightTime);
 
 		// before looping through logs, set "global"/constant values that won't change depending on dps
-		// calculations: successful magic hits, actual damage dealt, and hp healed.
-		// in case either fighter somehow missed an attack, use the max potential available data
-		// detected, as we could rarely miss an attack but never add an extra one.
-		this.competitor.addDamageDealt(Math.max(mainFight.competitor.getDamageDealt(), opposingFight.opponent.getDamageDealt()));
-		this.competitor.addMagicHitCount(Math.max(mainFight.competitor.getMagicHitCount(), opposingFight.opponent.getMagicHitCount()));
-		this.competitor.addHpHealed(mainFight.competitor.getHpHealed());
-		this.competitor.setTotalGhostBarrageStats(mainFight.competitor.getGhostBarrageCount(), mainFight.getCompetitor().getGhostBarrageDeservedDamage());
-
-		this.opponent.addDamageDealt(Math.max(opposingFight.competitor.getDamageDealt(), mainFight.opponent.getDamageDealt()));
-		this.opponent.addMagicHitCount(Math.max(opposingFight.competitor.getMagicHitCount(), mainFight.opponent.getMagicHitCount()));
-		this.opponent.addHpHealed(opposingFight.competitor.getHpHealed());
-		this.opponent.setTotalGhostBarrageStats(opposingFight.competitor.getGhostBarrageCount(), opposingFight.getCompetitor().getGhostBarrageDeservedDamage());
-
-		ArrayList<FightLogEntry> mainFightLogEntries = mainFight.getAllFightLogEntries();
-		mainFightLogEntries.sort(FightLogEntry::compareTo);
-		ArrayList<FightLogEntry> opponentFightLogEntries = opposingFight.getAllFightLogEntries();
-		opponentFightLogEntries.sort(FightLogEntry::compareTo);
-
-		// save only full entries into separate arrays, as we'll loop through those a lot.
-		ArrayList<FightLogEntry> fullMainFightLogEntries = mainFightLogEntries.stream()
-			.filter(FightLogEntry::isFullEntry).sorted().collect(Collectors.toCollection(ArrayList::new));
-		ArrayList<FightLogEntry> fullOpponentFightLogEntries = opponentFightLogEntries.stream()
-			.filter(FightLogEntry::isFullEntry).sorted().collect(Collectors.toCollection(ArrayList::new));
+		// calculations: successful magic hits, actual damage dealt, and hp healed, only from the aligned recordings.
+		// in case any client somehow missed an attack, use the max potential available data
+		// detected, as we could rarely miss an attack but never add an extra one. Healing & ghost barrages are
+		// only known by the fighter's own client.
+		int[] damageDealt = new int[2];
+		int[] magicHitCount = new int[2];
+		int[] hpHealed = { -1, -1 };
+		List<List<MergeEntry>> entries = new ArrayList<>();
+		for (int i = 0; i < perspectives.size(); i++)
+		{
+			FightPerformance fight = perspectives.get(i);
+			int own = recordedBy.get(i);
+			Fighter[] fighters = own == COMPETITOR ?
+				new Fighter[] { fight.competitor, fight.opponent } : new Fighter[] { fight.opponent, fight.competitor };
+			for (int side = COMPETITOR; side <= OPPONENT; side++)
+			{
+				damageDealt[side] = Math.max(damageDealt[side], fighters[side].getDamageDealt());
+				magicHitCount[side] = Math.max(magicHitCount[side], fighters[side].getMagicHitCount());
+			}
 
-		int offsetsToCheck = 2; // total number of fight log offsets to start from and find matches in the opposing fight.
-		int attacksToCheck = 12; // total number of opposing logs to check starting from the offset.
-		// TODO: THIS SHOULDNT BREAK IF attacksToCheck IS 300+ or unused & using all attacks/logs ????
-		// ^ or maybe we dont have specific enough data to have it working 100% this way?
+			if (fight.competitor.getHpHealed() > hpHealed[own])
+			{
+				hpHealed[own] = fight.competitor.getHpHealed();
+				(own == COMPETITOR ? this.competitor : this.opponent)
+					.setTotalGhostBarrageStats(fight.competitor.getGhostBarrageCount(), fight.competitor.getGhostBarrageDeservedDamage());
+			}
+			if (own == OPPONENT && opposingFight == null)
+			{
+				opposingFight = fight;
+			}
 
-		// save matching logs as "pairs", in an array:
-		// [0] = main fight's log entry match
-		// [1] = opposing fight's log entry match
-		// for each different offset start (from mainFight), save an array of the matching logs.
-		ArrayList<ArrayList<FightLogEntry[]>> matchingLogs = new ArrayList<>();
+			entries.add(mergeEntries(fight, own, i));
+		}
+
+		this.competitor.addDamageDealt(damageDealt[COMPETITOR]);
+		this.competitor.addMagicHitCount(magicHitCount[COMPETITOR]);
+		this.competitor.addHpHealed(hpHealed[COMPETITOR]);
+		this.opponent.addDamageDealt(damageDealt[OPPONENT]);
+		this.opponent.addMagicHitCount(magicHitCount[OPPONENT]);
+		this.opponent.addHpHealed(hpHealed[OPPONENT]);
+		this.lastFightTime = perspectives.stream().mapToLong(f -> f.lastFightTime).max().orElse(mainFight.lastFightTime);
 
+		analyzedMatchingLogs = new ArrayList<>();
 
-		// go through up to the first 5 full logs to match with the opponent's first 6 attacks.
-		// do this with a few different offsets and go with the results that had the most matches in 6 attacks.
-		//
-		// Why multiple offsets rather than one pass, or setting starting tick to 0?
-		// It's possible one of the clients misses the first attack, and that people use the same gear
-		// for many attacks, which may cause logs to match each-other while being offset, causing future
-		// attacks to often be missed, and always be misleading. This way, if initial attacks are missed
-		for (int mainOffset = 0; mainOffset < offsetsToCheck; mainOffset++)
+		// the attacks are re-calculated right here, since the damage calc doesn't need the client thread. Only the
+		// stats of items missing from the ItemStatsTable have to be looked up on it first, through the ItemManager.
+		DamageCalcContext.ItemStatsSource itemStats = resolveItemStats(entries);
+		this.competitor.setItemStatsSource(itemStats);
+		this.opponent.setItemStatsSource(itemStats);
+
+		// now that all the ticks should be lined up, merge every recording's logs tick by tick, and pair each
+		// attacker's full log with the defender's defensive log of the same tick.
+		mergeLogs(entries, (side, attackerLog, defenderLog) ->
 		{
-			for (int oppOffset = 0; oppOffset < offsetsToCheck; oppOffset++)
+			if (side == COMPETITOR)
 			{
-				ArrayList<FightLogEntry[]> currentOffsetMatches = new ArrayList<>();
-				int highestMatchIdx = -1;
-				for (int i = mainOffset; i < fullMainFightLogEntries.size() && i < attacksToCheck; i++)
-				{
-					FightLogEntry entry = fullMainFightLogEntries.get(i);
-
-					// .skip: do not check for matches on an attack we already got a match for, so skip it.
-					//     if the highestMatchIdx is still <0, no matches were found yet so keep checking with oppOffset.
-					int skip = highestMatchIdx < 0 ? oppOffset : highestMatchIdx + 1;
-					// .limit: similarly to .skip, reduce the amount of attacks we check by the amount we skipped.
-					// .filter: find matching fight log entries from the opposing fight.
-					// do not use dps calc values for comparison as they can be different depending on each player's
-					// config. could potentially fix this by recalculating fights first, but comparing all of these
-					// should be ok enough. if gear and pray is the same, then so would dps anyways (before we do
-					// the proper brew/level merge we are currently doing)
-					FightLogEntry matchingOppLog = fullOpponentFightLogEntries.stream()
-						.skip(skip)
-						.limit(attacksToCheck - skip)
-						.filter(oppEntry -> entry.attackerName.equals(oppEntry.attackerName) &&
-							entry.getAnimationData() == oppEntry.getAnimationData() &&
-							Arrays.equals(entry.getAttackerGear(), oppEntry.getAttackerGear()) &&
-							Arrays.equals(entry.getDefenderGear(), oppEntry.getDefenderGear()) &&
-							entry.getAttackerOverhead() == oppEntry.getAttackerOverhead() &&
-							entry.getDefenderOverhead() == oppEntry.getDefenderOverhead() &&
-							entry.success() == oppEntry.success() &&
-							entry.isSplash() == oppEntry.isSplash())
-						.findFirst()
-						.orElse(null);
-
-					// if a match was found, save the index of the match, and add both entries to the current offset matches.
-					if (matchingOppLog != null)
-					{
-						int logEntryIdx = fullOpponentFightLogEntries.indexOf(matchingOppLog);
+				addCompetitorAttack(attackerLog, defenderLog);
+			}
+			else
+			{
+				addOpponentAttack(attackerLog, defenderLog);
+			}
+		});
+		publishStatsSnapshot();
+		SwingUtilities.invokeLater(swingCallback);
+	}
 
-						if (logEntryIdx <= highestMatchIdx) // this should never happen.
-						{
-							throw new Exception("Invalid state during fight merge: logEntryIdx was under highestMatchIdx");
-						}
+	// item stats for re-calculating the merged attacks from any thread: the ItemStatsTable, plus any other item
+	// in the recordings (or the assumed rings) looked up once on the client thread. Blocks until that's done.
+	private static DamageCalcContext.ItemStatsSource resolveItemStats(List<List<MergeEntry>> entries) throws Exception
+	{
+		Set<Integer> missing = new HashSet<>();
+		for (List<MergeEntry> recording : entries)
+		{
+			for (MergeEntry entry : recording)
+			{
+				if (entry.log.isFullEntry())
+				{
+					addMissingItems(entry.log.getAttackerGear(), missing);
+					addMissingItems(entry.log.getDefenderGear(), missing);
+				}
+			}
+		}
+		for (RingData ring : new RingData[] { CONFIG.ringChoice(), RingData.BERSERKER_RING })
+		{
+			if (ring != null && ring.getItemId() > 0 && ItemStatsTable.get(ring.getItemId()) == null)
+			{
+				missing.add(ring.getItemId());
+			}
+		}
 
-						highestMatchIdx = logEntryIdx;
-						currentOffsetMatches.add(new FightLogEntry[]{entry, matchingOppLog});
+		Map<Integer, int[]> resolved = new HashMap<>();
+		if (!missing.isEmpty())
+		{
+			Runnable lookup = () ->
+			{
+				for (int itemId : missing)
+				{
+					int[] stats = PvpDamageCalc.getItemStats(itemId);
+					if (stats != null)
+					{
+						resolved.put(itemId, stats);
 					}
 				}
+			};
 
-				if (currentOffsetMatches.size() >= 2)
+			if (PLUGIN.getClient().isClientThread())
+			{
+				lookup.run();
+			}
+			else
+			{
+				CompletableFuture<Void> done = new CompletableFuture<>();
+				PLUGIN.getClientThread().invokeLater(() ->
 				{
-					matchingLogs.add(currentOffsetMatches);
-				}
+					lookup.run();
+					done.complete(null);
+				});
+				done.get(ITEM_STATS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
 			}
 		}
 
-		if (matchingLogs.size() < 1)
+		// only read from here on.
+		return itemId ->
 		{
-			throw new Exception("Unable to match initial attacks for fight analysis.");
+			int[] stats = ItemStatsTable.get(itemId);
+			if (stats != null)
+			{
+				return stats;
+			}
+			int[] resolvedStats = resolved.get(itemId);
+			return resolvedStats == null ? null : resolvedStats.clone();
+		};
+	}
+
+	private static void addMissingItems(int[] gear, Set<Integer> missing)
+	{
+		if (gear == null)
+		{
+			return;
 		}
 
-		// get the array of log entry matches that has the highest number of matches, as it should be the most accurate.
-		// we'll use the matches in this array to determine the tick offset between the two sets of logs.
-		// sort log matches by size, meaning most matches first.
-		matchingLogs.sort(Comparator.comparing(ArrayList<FightLogEntry[]>::size).reversed());
-
-		// ensure the tick difference found is valid: consistent difference between the first few matching attacks found.
-		// this could potentially somehow still accept unrelated/invalid fights, as it could accept a single attack match,
-		// but it should properly merge actual matching fights
-		int bestTickDiff = 0;
-		boolean foundValidTickDiff = false;
-		for (ArrayList<FightLogEntry[]> logMatches : matchingLogs)
-		{
-			int tickDiff = 0;
-			boolean tickDiffValid = true;
-			for (int i = 0; i < logMatches.size(); i++)
+		for (int item : gear)
+		{
+			int itemId = item - PlayerComposition.ITEM_OFFSET;
+			if (item > PlayerComposition.ITEM_OFFSET && ItemStatsTable.get(itemId) == null)
 			{
-				FightLogEntry[] match = logMatches.get(i);
+				missing.add(itemId);
+			}
+		}
+	}
 
-				int curTickDiff = match[0].getTick() - match[1].getTick();
+	// k-way merge of every recording's log entries (each sorted by tick) with a priority queue of cursors, one per
+	// recording: O(total entries * log recordings). All entries of a tick are collected before voting on them,
+	// and each attack that won the vote is given to the sink with the defender's defensive log of the same tick.
+	static void mergeLogs(List<List<MergeEntry>> entries, AttackSink sink)
+	{
+		PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, entries.size()),
+			Comparator.comparingInt(Cursor::tick).thenComparingInt(c -> c.perspective));
+		for (List<MergeEntry> list : entries)
+		{
+			if (!list.isEmpty())
+			{
+				queue.add(new Cursor(list));
+			}
+		}
 
-				// ensure we have a consistent tick difference between the first few matching attacks.
-				if (i == 0)
+		// candidates of the current tick: [attacker side][0: full entries, 1: defensive entries]
+		List<List<List<MergeEntry>>> candidates = Arrays.asList(
+			Arrays.asList(new ArrayList<>(), new ArrayList<>()),
+			Arrays.asList(new ArrayList<>(), new ArrayList<>()));
+		while (!queue.isEmpty())
+		{
+			int tick = queue.peek().tick();
+			while (!queue.isEmpty() && queue.peek().tick() == tick)
+			{
+				Cursor cursor = queue.poll();
+				do
+				{
+					MergeEntry entry = cursor.next();
+					candidates.get(entry.side).get(entry.log.isFullEntry() ? 0 : 1).add(entry);
+				} while (cursor.hasNext() && cursor.tick() == tick);
+
+				if (cursor.hasNext())
+				{
+					queue.add(cursor);
+				}
+			}
+
+			for (int side = COMPETITOR; side <= OPPONENT; side++)
+			{
+				// the defender's defensive log is saved under the defender's name, on the other side.
+				List<FightLogEntry> attackerLogs = vote(candidates.get(side).get(0), true);
+				List<FightLogEntry> defenderLogs = vote(candidates.get(1 - side).get(1), false);
+				if (defenderLogs.isEmpty())
 				{
-					tickDiff = curTickDiff;
 					continue;
 				}
 
-				if (curTickDiff != tickDiff)
+				// one defensive log is saved per attack, but if some are missing, the defender's levels & prayer
+				// on that tick are the same for every attack anyways.
+				for (int i = 0; i < attackerLogs.size(); i++)
 				{
-					tickDiffValid = false;
-					break;
+					sink.add(side, attackerLogs.get(i), defenderLogs.get(Math.min(i, defenderLogs.size() - 1)));
 				}
 			}
 
-			if (tickDiffValid)
+			candidates.forEach(side -> side.forEach(List::clear));
+		}
+	}
+
+	// pick the attacks of a tick most recordings agree on. Each recording votes once for every distinct attack it
+	// has on the tick, so an attack repeated within a recording doesn't outvote the others. A recording can miss
+	// an attack but never add an extra one, so the tick has as many attacks as the recording that saw the most,
+	// and an attack repeated in a recording is kept as often as it was repeated. Ties go to the attacker's own
+	// client, since only it knows the attacker's offensive prayer & boosts, and then to the earliest recording
+	// (the main fight first).
+	private static List<FightLogEntry> vote(List<MergeEntry> candidates, boolean full)
+	{
+		if (candidates.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+		if (candidates.size() == 1)
+		{
+			return Collections.singletonList(candidates.get(0).log);
+		}
+
+		Map<Integer, Vote> votes = new LinkedHashMap<>();
+		Map<Integer, Integer> attacksPerRecording = new HashMap<>();
+		for (MergeEntry entry : candidates)
+		{
+			int signature = full ? LogAligner.signature(entry.log) : LogAligner.defensiveSignature(entry.log);
+			votes.computeIfAbsent(signature, k -> new Vote()).add(entry);
+			attacksPerRecording.merge(entry.perspective, 1, Integer::sum);
+		}
+		int attacks = Collections.max(attacksPerRecording.values());
+
+		// most votes first; the sort is stable so ties keep the order of the earliest recording
+		List<Vote> ranked = new ArrayList<>(votes.values());
+		ranked.sort(Comparator.comparingInt((Vote v) -> -v.recordings.size())
+			.thenComparing(v -> !preferred(v.entries).ownClient));
+
+		List<MergeEntry> winners = new ArrayList<>();
+		for (Vote vote : ranked)
+		{
+			for (MergeEntry entry : vote.copies())
 			{
-				bestTickDiff = tickDiff;
-				foundValidTickDiff = true;
-				break;
+				if (winners.size() == attacks)
+				{
+					break;
+				}
+				winners.add(entry);
 			}
 		}
 
-		if (!foundValidTickDiff)
+		// keep the attacks in the order they were recorded in
+		winners.sort(Comparator.comparingInt(candidates::indexOf));
+		return winners.stream().map(e -> e.log).collect(Collectors.toList());
+	}
+
+	// entries of a group are in recording order, prefer the first one from the attacker's own client.
+	private static MergeEntry preferred(List<MergeEntry> group)
+	{
+		return group.stream().filter(e -> e.ownClient).findFirst().orElse(group.get(0));
+	}
+
+	// which side of the main fight recorded this fight, or -1 if it isn't between the same fighters.
+	private static int sideOf(FightPerformance fight, String cName, String oName)
+	{
+		if (fight == null || fight.competitor == null || fight.opponent == null || fight.getAllFightLogEntries() == null)
 		{
-			throw new Exception("Could not find matching initial attack logs in order to merge fights.");
+			return -1;
 		}
 
-		// now that we have the best tick diff, we're ready to actually merge the two sets of log entries.
-		// start by adjusting the opponent's logs' ticks so they line up with the main fight.
-		for (FightLogEntry log : opponentFightLogEntries)
+		String c = PvpPerformanceTrackerUtils.normalizeName(fight.competitor.getName());
+		String o = PvpPerformanceTrackerUtils.normalizeName(fight.opponent.getName());
+		String mainC = PvpPerformanceTrackerUtils.normalizeName(cName);
+		String mainO = PvpPerformanceTrackerUtils.normalizeName(oName);
+		if (c.equals(mainC) && o.equals(mainO))
 		{
-			log.setTick(log.getTick() + bestTickDiff);
+			return COMPETITOR;
 		}
+		if (c.equals(mainO) && o.equals(mainC))
+		{
+			return OPPONENT;
+		}
+		return -1;
+	}
 
-		analyzedMatchingLogs = new ArrayList<>();
+	// full entries only, sorted by tick, as we'll loop through those a lot.
+	private static ArrayList<FightLogEntry> fullEntries(FightPerformance fight)
+	{
+		return fight.getAllFightLogEntries().stream()
+			.filter(FightLogEntry::isFullEntry).sorted().collect(Collectors.toCollection(ArrayList::new));
+	}
 
-		// now that all the ticks should be lined up on the opponent fight log entries, find matching tick pairs for offensive : defensive logs.
-		// skip the 'main' client's opponent logs, as those are the ones with less data we are trying to improve by using the opponent's data.
-		// so, only loop through the main competitor's logs. We will add opponent attacks when we detect a defensive log.
-		PLUGIN.getClientThread().invokeLater(() ->
-		{
-			mainFightLogEntries.stream()
-				.filter(log -> log.attackerName.equals(mainFight.competitor.getName()))
-				.forEachOrdered(log -> {
-					// if the log is a full entry, then this is an attacking log coming from the competitor,
-					// so we need to find a matching defensive log from the opponent.
-					if (log.isFullEntry())
-					{
-						opponentFightLogEntries.stream()
-							.filter(ol -> ol.getTick() == log.getTick())
-							.filter(ol -> !ol.isFullEntry())
-							.filter(ol -> ol.attackerName.equals(mainFight.opponent.getName()))
-							.findFirst() // when a match is finally found, add the attack.
-							.ifPresent(matchingDefenderLog -> addCompetitorAttack(log, matchingDefenderLog));
-					}
-					else // if the log is not a full entry, it's a defensive log coming from the competitor,
-					{    // meaning we need to match it to an opponent's attacking log.
-						opponentFightLogEntries.stream()
-							.filter(ol -> ol.getTick() == log.getTick())
-							.filter(FightLogEntry::isFullEntry)
-							.filter(ol -> ol.attackerName.equals(mainFight.opponent.getName()))
-							.findFirst() // when a match is finally found, add the attack.
-							.ifPresent(matchingAttackerLog -> addOpponentAttack(matchingAttackerLog, log));
-					}
-				});
+	// align two clients' attacks over the whole fight, then use the most common tick difference between the
+	// matched attacks as the offset between the two clients' ticks. Attacks that look the same but got matched
+	// with the wrong attack end up with a different tick difference, so they don't affect the offset.
+	// This also handles either client missing the first attacks, since the alignment can skip them.
+	private static int findTickOffset(List<FightLogEntry> main, List<FightLogEntry> other) throws Exception
+	{
+		if (Math.abs(main.size() - other.size()) > LogAligner.MAX_LENGTH_DIFFERENCE)
+		{
+			throw new Exception("The fights' attack counts (" + main.size() + " and " + other.size() +
+				") are too different for them to be the same fight.");
+		}
 
-			SwingUtilities.invokeLater(swingCallback);
-		});
+		List<int[]> matches = LogAligner.align(main, other, LogAligner.DEFAULT_BAND);
+		if (matches.size() < 2)
+		{
+			throw new Exception("Unable to match initial attacks for fight analysis.");
+		}
+
+		int[] tickOffset = LogAligner.findTickOffset(main, other, matches);
+		if (tickOffset == null || tickOffset[1] < 2)
+		{
+			throw new Exception("Could not find matching initial attack logs in order to merge fights.");
+		}
+		log.debug("Fight merge: aligned {} of {}/{} attacks, {} with a tick offset of {}", matches.size(),
+			main.size(), other.size(), tickOffset[1], tickOffset[0]);
+		return tickOffset[0];
+	}
+
+	// a recording's entries, sorted by tick, tagged with the side of the merged fight that made them.
+	static List<MergeEntry> mergeEntries(FightPerformance fight, int recordedBy, int perspective)
+	{
+		List<MergeEntry> entries = new ArrayList<>();
+		int competitorSide = recordedBy;
+		int opponentSide = 1 - recordedBy;
+		fight.competitor.getFightLogEntries().forEach(l -> entries.add(new MergeEntry(l, competitorSide, true, perspective)));
+		fight.opponent.getFightLogEntries().forEach(l -> entries.add(new MergeEntry(l, opponentSide, false, perspective)));
+		entries.sort(Comparator.comparingInt(e -> e.log.getTick()));
+		return entries;
 	}
 
 	void addCompetitorAttack(FightLogEntry attackerLog, FightLogEntry defenderLog)
@@ -272,4 +502,80 @@ public class AnalyzedFightPerformance extends FightPerformance
 			this.opponent.addAttack(attackerLog, defenderLog);
 			this.analyzedMatchingLogs.add(new FightLogEntry[]{attackerLog, defenderLog});
 	}
+
+	// receives each merged attack, with the side of the merged fight that made it.
+	interface AttackSink
+	{
+		void add(int side, FightLogEntry attackerLog, FightLogEntry defenderLog);
+	}
+
+	// every entry of the same attack on a tick, from any recording.
+	private static class Vote
+	{
+		private final List<MergeEntry> entries = new ArrayList<>();
+		// how many times each recording has the attack
+		private final Map<Integer, Integer> recordings = new LinkedHashMap<>();
+
+		private void add(MergeEntry entry)
+		{
+			entries.add(entry);
+			recordings.merge(entry.perspective, 1, Integer::sum);
+		}
+
+		// the entries of the preferred recording, which are as many as any recording has if it's repeated.
+		private List<MergeEntry> copies()
+		{
+			int copies = Collections.max(recordings.values());
+			int perspective = entries.stream().filter(e -> recordings.get(e.perspective) == copies)
+				.filter(e -> e.ownClient).findFirst()
+				.orElse(entries.stream().filter(e -> recordings.get(e.perspective) == copies).findFirst().get())
+				.perspective;
+			return entries.stream().filter(e -> e.perspective == perspective).collect(Collectors.toList());
+		}
+	}
+
+	static class MergeEntry
+	{
+		private final FightLogEntry log;
+		private final int side; // side of the merged fight whose log list this was in
+		private final boolean ownClient; // if it was recorded by that side's own client
+		private final int perspective;
+
+		private MergeEntry(FightLogEntry log, int side, boolean ownClient, int perspective)
+		{
+			this.log = log;
+			this.side = side;
+			this.ownClient = ownClient;
+			this.perspective = perspective;
+		}
+	}
+
+	// position in one recording's entries, for the k-way merge.
+	private static class Cursor
+	{
+		private final List<MergeEntry> entries;
+		private final int perspective;
+		private int index = 0;
+
+		private Cursor(List<MergeEntry> entries)
+		{
+			this.entries = entries;
+			this.perspective = entries.get(0).perspective;
+		}
+
+		private int tick()
+		{
+			return entries.get(index).log.getTick();
+		}
+
+		private boolean hasNext()
+		{
+			return index < entries.size();
+		}
+
+		private MergeEntry next()
+		{
+			return entries.get(index++);
+		}
+	}
 }
@@ -0,0 +1,706 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
+import matsyir.pvpperformancetracker.utils.PvpPerformanceTrackerUtils;
+
+// Runs fight analysis (merging both sides of a fight, like FightAnalysisFrame) over a whole folder of exported
+// fight histories: every *.json file in it, each either a fight history array or a single fight.
+//
+// 1. every file is scanned once for the byte offset of each fight in it, and each fight is parsed once (one at a
+//    time) to keep a small reference to it: its names, file, offset & end time. The references are spilled to
+//    temp files in sorted runs of RUN_SIZE, so they're never all in memory
+// 2. the runs are merged back in name pair order, so all fights between the same two names come out together.
+//    They're paired with the opposing fight from the other side, one name pair at a time, through a FightPairIndex.
+//    Leftover recordings of a paired fight (e.g. the same fight in more than one export) join that pair
+// 3. each pair is merged with all of its recordings on a small fixed pool with a bounded queue. Each task seeks
+//    straight to its fights' offsets to load them again, so full fight data is only in memory for the pairs
+//    currently being merged
+// 4. each merge is written to the report as soon as it's done, and only the totals are kept
+//
+// So memory use is at most RUN_SIZE references while reading, the references of a single name pair while pairing
+// it, and the full data of the recordings of at most POOL_SIZE + QUEUE_SIZE + 1 pairs. It doesn't depend on the
+// size or amount of the files.
+@Slf4j
+public class BatchFightAnalyzer
+{
+	public static final String REPORT_FNAME = "batch-analysis-report.csv";
+	private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+	private static final int QUEUE_SIZE = POOL_SIZE * 2;
+	// fight references sorted in memory before being spilled to a temp file
+	private static final int RUN_SIZE = 50_000;
+
+	public interface Listener
+	{
+		// called from the batch's own thread. Fights are done once they're merged, or once it's known they have no pair.
+		void onProgress(int fightsDone, int totalFights);
+		void onFinished(Summary summary);
+	}
+
+	@Getter
+	public static class Summary
+	{
+		private int files;
+		private int fights;
+		private int pairs;
+		private int merged;
+		private int failed;
+		private long elapsedMs;
+		private File report;
+	}
+
+	// the little that's kept about each fight between reading it & merging it.
+	private static class FightRef
+	{
+		private final int file; // index in the analyzed files
+		private final long offset; // byte offset of the fight in its file
+		private final long lastFightTime;
+		private final boolean swapped; // if the competitor is the second name of its NamePair
+
+		FightRef(int file, long offset, long lastFightTime, boolean swapped)
+		{
+			this.file = file;
+			this.offset = offset;
+			this.lastFightTime = lastFightTime;
+			this.swapped = swapped;
+		}
+	}
+
+	// all fights between the same two players, from either side. Names are normalized, first <= second.
+	private static class NamePair
+	{
+		private final String first;
+		private final String second;
+		private final List<FightRef> refs = new ArrayList<>();
+
+		NamePair(String first, String second)
+		{
+			this.first = first;
+			this.second = second;
+		}
+
+		String competitor(FightRef ref)
+		{
+			return ref.swapped ? second : first;
+		}
+
+		String opponent(FightRef ref)
+		{
+			return ref.swapped ? first : second;
+		}
+	}
+
+	// a fight reference with its normalized names, as spilled to the temp files. Sorted by names, then in the order
+	// the fights were found in.
+	private static class SpilledRef implements Comparable<SpilledRef>
+	{
+		private final String first;
+		private final String second;
+		private final long order;
+		private final FightRef ref;
+
+		SpilledRef(String first, String second, long order, FightRef ref)
+		{
+			this.first = first;
+			this.second = second;
+			this.order = order;
+			this.ref = ref;
+		}
+
+		void write(DataOutputStream out) throws IOException
+		{
+			out.writeUTF(first);
+			out.writeUTF(second);
+			out.writeLong(order);
+			out.writeInt(ref.file);
+			out.writeLong(ref.offset);
+			out.writeLong(ref.lastFightTime);
+			out.writeBoolean(ref.swapped);
+		}
+
+		static SpilledRef read(DataInputStream in) throws IOException
+		{
+			String first = in.readUTF();
+			String second = in.readUTF();
+			long order = in.readLong();
+			return new SpilledRef(first, second, order,
+				new FightRef(in.readInt(), in.readLong(), in.readLong(), in.readBoolean()));
+		}
+
+		@Override
+		public int compareTo(SpilledRef o)
+		{
+			int c = first.compareTo(o.first);
+			if (c == 0)
+			{
+				c = second.compareTo(o.second);
+			}
+			return c != 0 ? c : Long.compare(order, o.order);
+		}
+	}
+
+	// external sort of the fight references: sorted runs are spilled to temp files, then merged back in order.
+	private static class RefSpill implements Closeable
+	{
+		private final List<SpilledRef> buffer = new ArrayList<>();
+		private final List<File> runs = new ArrayList<>();
+		private final List<DataInputStream> readers = new ArrayList<>();
+		private PriorityQueue<RunHead> heads;
+		private long count = 0;
+
+		// position in one run, for the k-way merge
+		private static class RunHead
+		{
+			private final DataInputStream in;
+			private SpilledRef ref;
+			private long remaining;
+
+			RunHead(DataInputStream in, long remaining)
+			{
+				this.in = in;
+				this.remaining = remaining;
+			}
+
+			boolean advance() throws IOException
+			{
+				if (remaining == 0)
+				{
+					return false;
+				}
+				remaining--;
+				ref = SpilledRef.read(in);
+				return true;
+			}
+		}
+
+		void add(String first, String second, FightRef ref) throws IOException
+		{
+			buffer.add(new SpilledRef(first, second, count++, ref));
+			if (buffer.size() >= RUN_SIZE)
+			{
+				spill();
+			}
+		}
+
+		private void spill() throws IOException
+		{
+			if (buffer.isEmpty())
+			{
+				return;
+			}
+
+			Collections.sort(buffer);
+			File run = File.createTempFile("pvp-tracker-batch", ".refs");
+			run.deleteOnExit();
+			runs.add(run);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run))))
+			{
+				out.writeLong(buffer.size());
+				for (SpilledRef ref : buffer)
+				{
+					ref.write(out);
+				}
+			}
+			buffer.clear();
+		}
+
+		// the next reference in name pair order, or null once they're all read. Only call after every add().
+		SpilledRef next() throws IOException
+		{
+			if (heads == null)
+			{
+				spill();
+				heads = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> a.ref.compareTo(b.ref));
+				for (File run : runs)
+				{
+					DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(run)));
+					readers.add(in);
+					RunHead head = new RunHead(in, in.readLong());
+					if (head.advance())
+					{
+						heads.add(head);
+					}
+				}
+			}
+
+			RunHead head = heads.poll();
+			if (head == null)
+			{
+				return null;
+			}
+			SpilledRef ref = head.ref;
+			if (head.advance())
+			{
+				heads.add(head);
+			}
+			return ref;
+		}
+
+		@Override
+		public void close()
+		{
+			for (DataInputStream in : readers)
+			{
+				try
+				{
+					in.close();
+				}
+				catch (IOException ignored)
+				{
+				}
+			}
+			for (File run : runs)
+			{
+				if (!run.delete())
+				{
+					log.debug("Batch analysis: could not delete temp file {}", run);
+				}
+			}
+		}
+	}
+
+	private final Gson gson;
+	// max difference between the two sides' fight end times, to allow for clock differences between the clients.
+	private final long pairWindowMs;
+	private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+	public BatchFightAnalyzer(Gson gson, long pairWindowMs)
+	{
+		this.gson = gson;
+		this.pairWindowMs = pairWindowMs;
+	}
+
+	public void cancel()
+	{
+		cancelled.set(true);
+	}
+
+	// Analyze every fight pair in the folder, writing the report into the same folder.
+	// Blocks until done, so should be called from a background thread.
+	public Summary run(File folder, Listener listener) throws IOException
+	{
+		long start = System.currentTimeMillis();
+		Summary summary = new Summary();
+
+		File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".json"));
+		if (files == null)
+		{
+			throw new IOException("Could not list files in " + folder);
+		}
+		Arrays.sort(files);
+		summary.files = files.length;
+
+		summary.report = new File(folder, REPORT_FNAME);
+		AtomicInteger done = new AtomicInteger(0);
+		AtomicInteger merged = new AtomicInteger(0);
+		AtomicInteger failed = new AtomicInteger(0);
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 0, TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(QUEUE_SIZE), new ThreadPoolExecutor.CallerRunsPolicy()); // caller runs = back-pressure
+		try (RefSpill refs = new RefSpill();
+			PrintWriter report = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(summary.report.toPath(), StandardCharsets.UTF_8))))
+		{
+			for (int i = 0; i < files.length && !cancelled.get(); i++)
+			{
+				summary.fights += readFightRefs(files, i, refs);
+			}
+			log.info("Batch analysis: found {} fights in {} files", summary.fights, files.length);
+
+			// the report follows the order of the names
+			report.println("Time,Competitor,Opponent,Competitor deserved dmg,Opponent deserved dmg,Competitor dmg dealt," +
+				"Opponent dmg dealt,Competitor off-pray %,Opponent off-pray %,Winner,Error");
+
+			int totalFights = summary.fights;
+			NamePair names = null;
+			SpilledRef ref;
+			do
+			{
+				ref = cancelled.get() ? null : refs.next();
+				if (names != null && (ref == null || !names.first.equals(ref.first) || !names.second.equals(ref.second)))
+				{
+					// every fight of the name pair was read, pair them & let go of them.
+					NamePair pairNames = names;
+					List<List<FightRef>> pairs = groupFights(pairNames);
+					summary.pairs += pairs.size();
+					int unpaired = pairNames.refs.size() - pairs.stream().mapToInt(List::size).sum();
+					if (unpaired > 0)
+					{
+						listener.onProgress(done.addAndGet(unpaired), totalFights);
+					}
+
+					for (List<FightRef> pair : pairs)
+					{
+						if (cancelled.get())
+						{
+							break;
+						}
+
+						pool.execute(() ->
+						{
+							if (mergePair(files, pairNames, pair, report))
+							{
+								merged.getAndIncrement();
+							}
+							else
+							{
+								failed.getAndIncrement();
+							}
+							listener.onProgress(done.addAndGet(pair.size()), totalFights);
+						});
+					}
+					names = null;
+				}
+
+				if (ref != null)
+				{
+					if (names == null)
+					{
+						names = new NamePair(ref.first, ref.second);
+					}
+					names.refs.add(ref.ref);
+				}
+			} while (ref != null);
+
+			pool.shutdown();
+			try
+			{
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		log.info("Batch analysis: found {} fight pairs in {} fights from {} files", summary.pairs, summary.fights, files.length);
+
+		summary.merged = merged.get();
+		summary.failed = failed.get();
+		summary.elapsedMs = System.currentTimeMillis() - start;
+		listener.onFinished(summary);
+		return summary;
+	}
+
+	// find & parse every fight of one file, one at a time, spilling a reference to each valid one.
+	// Returns the amount of fights found.
+	private int readFightRefs(File[] files, int fileIndex, RefSpill refs) throws IOException
+	{
+		File file = files[fileIndex];
+		long[] offsets;
+		try
+		{
+			offsets = findFightOffsets(file);
+		}
+		catch (IOException e)
+		{
+			log.warn("Batch analysis: skipping unreadable file " + file.getName() + ": " + e.getMessage());
+			return 0;
+		}
+
+		int count = 0;
+		for (long offset : offsets)
+		{
+			if (cancelled.get())
+			{
+				break;
+			}
+
+			FightPerformance fight;
+			try
+			{
+				fight = readFight(file, offset);
+			}
+			catch (Exception e)
+			{
+				log.warn("Batch analysis: skipping invalid fight in " + file.getName() + ": " + e.getMessage());
+				continue;
+			}
+			if (fight == null)
+			{
+				continue;
+			}
+
+			String competitor = PvpPerformanceTrackerUtils.normalizeName(fight.getCompetitor().getName());
+			String opponent = PvpPerformanceTrackerUtils.normalizeName(fight.getOpponent().getName());
+			boolean swapped = competitor.compareTo(opponent) > 0;
+			String first = swapped ? opponent : competitor;
+			String second = swapped ? competitor : opponent;
+			refs.add(first, second, new FightRef(fileIndex, offset, fight.lastFightTime, swapped));
+			count++;
+		}
+		return count;
+	}
+
+	// Byte offsets of the fights in a file: of each element if it's an array, otherwise just the start of the single
+	// fight. Only strings & nesting are tracked to find where each element starts, the fights are parsed later.
+	static long[] findFightOffsets(File file) throws IOException
+	{
+		long[] offsets = new long[16];
+		int count = 0;
+		try (InputStream in = new BufferedInputStream(new FileInputStream(file)))
+		{
+			long position = -1;
+			int depth = 0;
+			boolean inString = false;
+			boolean escaped = false;
+			boolean expectElement = false;
+			int b;
+			while ((b = in.read()) != -1)
+			{
+				position++;
+				if (inString)
+				{
+					if (escaped)
+					{
+						escaped = false;
+					}
+					else if (b == '\\')
+					{
+						escaped = true;
+					}
+					else if (b == '"')
+					{
+						inString = false;
+					}
+					continue;
+				}
+
+				// whitespace, or a UTF-8 byte order mark. Neither can be part of a value outside of a string.
+				if (b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == 0xEF || b == 0xBB || b == 0xBF)
+				{
+					continue;
+				}
+
+				if (depth == 0)
+				{
+					if (b != '[')
+					{
+						return new long[] { position }; // a single fight
+					}
+					depth = 1;
+					expectElement = true;
+					continue;
+				}
+
+				if (depth == 1 && expectElement && b != ']')
+				{
+					if (count == offsets.length)
+					{
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					offsets[count++] = position;
+					expectElement = false;
+				}
+
+				switch (b)
+				{
+					case '"':
+						inString = true;
+						break;
+					case '{':
+					case '[':
+						depth++;
+						break;
+					case '}':
+					case ']':
+						depth--;
+						break;
+					case ',':
+						expectElement = depth == 1;
+						break;
+				}
+
+				if (depth == 0)
+				{
+					break;
+				}
+			}
+		}
+		return Arrays.copyOf(offsets, count);
+	}
+
+	// parse the single fight starting at the given byte offset of the file. Returns null if it isn't a valid fight.
+	private FightPerformance readFight(File file, long offset) throws IOException
+	{
+		try (FileInputStream stream = new FileInputStream(file))
+		{
+			stream.getChannel().position(offset);
+			JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)));
+			FightPerformance fight = gson.fromJson(reader, FightPerformance.class);
+			return isValid(fight) ? fight : null;
+		}
+	}
+
+	private static boolean isValid(FightPerformance fight)
+	{
+		return fight != null && fight.getCompetitor() != null && fight.getOpponent() != null &&
+			fight.getCompetitor().getFightLogEntries() != null && fight.getOpponent().getFightLogEntries() != null;
+	}
+
+	// group the fights of a name pair by the fight they recorded. Each fight is paired with the other side's fight:
+	// names swapped, with the closest end time in the window, each fight in at most one pair. Fights left over after
+	// that are added to the pair whose first fight ended closest to them, as extra recordings to merge. The first
+	// fight of each pair has the names in order, and the second is from the other side.
+	private List<List<FightRef>> groupFights(NamePair names)
+	{
+		FightPairIndex<FightRef> index = new FightPairIndex<>(pairWindowMs);
+		for (FightRef ref : names.refs)
+		{
+			index.add(names.competitor(ref), names.opponent(ref), ref.lastFightTime, ref);
+		}
+
+		List<List<FightRef>> pairs = new ArrayList<>();
+		FightPairIndex<List<FightRef>> pairIndex = new FightPairIndex<>(pairWindowMs);
+		Set<FightRef> paired = new HashSet<>();
+		for (FightRef ref : names.refs)
+		{
+			// handled from the side whose competitor sorts first, the other side is only looked up.
+			if (ref.swapped)
+			{
+				continue;
+			}
+
+			FightRef opposing = index.takeOpposing(names.first, names.second, ref.lastFightTime);
+			if (opposing != null)
+			{
+				List<FightRef> pair = new ArrayList<>(Arrays.asList(ref, opposing));
+				pairs.add(pair);
+				pairIndex.add(names.first, names.second, ref.lastFightTime, pair);
+				paired.add(ref);
+				paired.add(opposing);
+			}
+		}
+
+		for (FightRef ref : names.refs)
+		{
+			if (paired.contains(ref))
+			{
+				continue;
+			}
+
+			List<FightRef> pair = pairIndex.findSameSide(names.first, names.second, ref.lastFightTime);
+			if (pair != null)
+			{
+				pair.add(ref);
+			}
+		}
+		return pairs;
+	}
+
+	// merge a pair of fights & write its line to the report. Returns false if the merge failed, in which case
+	// the line only has the error.
+	private boolean mergePair(File[] files, NamePair names, List<FightRef> pair, PrintWriter report)
+	{
+		String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(pair.get(0).lastFightTime));
+		String prefix = time + "," + names.first + "," + names.second + ",";
+		String line;
+		boolean success = false;
+		try
+		{
+			line = prefix + mergeStats(files, names, pair);
+			success = true;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			line = prefix + ",,,,,,,cancelled";
+		}
+		catch (Exception e)
+		{
+			log.debug("Batch analysis: could not merge fights", e);
+			line = prefix + ",,,,,,," + String.valueOf(e.getMessage()).replace(',', ';');
+		}
+
+		synchronized (report)
+		{
+			report.println(line);
+		}
+		return success;
+	}
+
+	// the stats columns of a successfully merged pair, followed by an empty error column.
+	private String mergeStats(File[] files, NamePair names, List<FightRef> pair) throws Exception
+	{
+		List<FightPerformance> recordings = new ArrayList<>(pair.size());
+		for (FightRef ref : pair)
+		{
+			FightPerformance fight = readFight(files[ref.file], ref.offset);
+			if (fight == null)
+			{
+				throw new Exception("could not reload fights");
+			}
+			PLUGIN.initializeImportedFight(fight);
+			recordings.add(fight);
+		}
+
+		// the whole merge runs on this thread, so the merged fight is complete once it's constructed.
+		AnalyzedFightPerformance analyzed = new AnalyzedFightPerformance(recordings, () -> {});
+
+		Fighter c = analyzed.getCompetitor();
+		Fighter o = analyzed.getOpponent();
+		String winner = c.isDead() == o.isDead() ? "" : o.isDead() ? names.first : names.second;
+		return String.format(Locale.US, "%.2f,%.2f,%d,%d,%.2f,%.2f,%s,",
+			c.getDeservedDamage(), o.getDeservedDamage(), c.getDamageDealt(), o.getDamageDealt(),
+			c.calculateOffPraySuccessPercentage(), o.calculateOffPraySuccessPercentage(), winner);
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import lombok.Getter;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.RangeAmmoData;
+import matsyir.pvpperformancetracker.models.RingData;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.CONFIG;
+
+// Everything PvpDamageCalc needs to know about its surroundings for a calculation, besides the attack itself:
+// the assumed ring & ammo, the combat levels used, and where item stats come from.
+// Immutable, so one context can be shared by any number of calculations running in parallel.
+// The combat levels are kept by reference and should not be modified while the context is in use.
+@Getter
+public final class DamageCalcContext
+{
+	// Source of equipment stats for a single item, in PvpDamageCalc's stat order. Can return null for unknown items.
+	// Returned arrays must be safe for the caller to modify (i.e. a fresh copy every call).
+	public interface ItemStatsSource
+	{
+		int[] getItemStats(int itemId);
+	}
+
+	public static final ItemStatsSource DEFAULT_ITEM_STATS = PvpDamageCalc::getItemStats;
+
+	private final RingData ring;
+	private final RangeAmmoData.BoltAmmo boltChoice;
+	private final RangeAmmoData.StrongBoltAmmo strongBoltChoice;
+	private final RangeAmmoData.DartAmmo bpDartChoice;
+	private final boolean lmsFight;
+	private final CombatLevels attackerLevels;
+	private final CombatLevels defenderLevels;
+	private final ItemStatsSource itemStatsSource;
+
+	public DamageCalcContext(RingData ring, RangeAmmoData.BoltAmmo boltChoice, RangeAmmoData.StrongBoltAmmo strongBoltChoice,
+		RangeAmmoData.DartAmmo bpDartChoice, boolean lmsFight, CombatLevels attackerLevels, CombatLevels defenderLevels,
+		ItemStatsSource itemStatsSource)
+	{
+		this.ring = ring;
+		this.boltChoice = boltChoice;
+		this.strongBoltChoice = strongBoltChoice;
+		this.bpDartChoice = bpDartChoice;
+		this.lmsFight = lmsFight;
+		this.attackerLevels = attackerLevels;
+		this.defenderLevels = defenderLevels;
+		this.itemStatsSource = itemStatsSource == null ? DEFAULT_ITEM_STATS : itemStatsSource;
+	}
+
+	// Build a context from the current config. LMS fights always assume a berserker ring, like the live tracking does.
+	public static DamageCalcContext fromConfig(boolean lmsFight, CombatLevels attackerLevels, CombatLevels defenderLevels)
+	{
+		return new DamageCalcContext(lmsFight ? RingData.BERSERKER_RING : CONFIG.ringChoice(),
+			CONFIG.boltChoice(),
+			CONFIG.strongBoltChoice(),
+			CONFIG.bpDartChoice(),
+			lmsFight,
+			attackerLevels,
+			defenderLevels,
+			DEFAULT_ITEM_STATS);
+	}
+
+	public DamageCalcContext withLevels(CombatLevels attackerLevels, CombatLevels defenderLevels)
+	{
+		if (attackerLevels == this.attackerLevels && defenderLevels == this.defenderLevels)
+		{
+			return this;
+		}
+
+		return new DamageCalcContext(ring, boltChoice, strongBoltChoice, bpDartChoice, lmsFight,
+			attackerLevels, defenderLevels, itemStatsSource);
+	}
+
+	public DamageCalcContext withItemStatsSource(ItemStatsSource itemStatsSource)
+	{
+		return new DamageCalcContext(ring, boltChoice, strongBoltChoice, bpDartChoice, lmsFight,
+			attackerLevels, defenderLevels, itemStatsSource);
+	}
+
+	// get the ammo this context assumes for the given weapon.
+	public RangeAmmoData getWeaponAmmo(EquipmentData weapon)
+	{
+		return EquipmentData.getWeaponAmmo(weapon, boltChoice, strongBoltChoice, bpDartChoice);
+	}
+}
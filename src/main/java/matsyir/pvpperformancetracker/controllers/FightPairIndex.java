@@ -0,0 +1,171 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import matsyir.pvpperformancetracker.utils.PvpPerformanceTrackerUtils;
+
+// Index of fights for finding the opposing side of a fight: the fight recorded by the other player, where the
+// competitor & opponent are swapped and the fight ended at about the same time.
+// Fights are keyed by their normalized (competitor, opponent) names, then bucketed by lastFightTime, so a lookup
+// only looks at the couple of buckets around the fight's time for that exact pair of names, no matter how many
+// fights are indexed. The window allows for clock differences between the two clients.
+//
+// Not thread-safe, callers must synchronize if the index is shared.
+public class FightPairIndex<T>
+{
+	private final long windowMs;
+	private final long bucketMs;
+	private final Map<String, Map<Long, List<Entry<T>>>> index = new HashMap<>();
+	private int size = 0;
+
+	private static class Entry<T>
+	{
+		private final long time;
+		private final T value;
+
+		Entry(long time, T value)
+		{
+			this.time = time;
+			this.value = value;
+		}
+	}
+
+	// windowMs: max difference between two fights' lastFightTime for them to be considered the same fight.
+	public FightPairIndex(long windowMs)
+	{
+		this.windowMs = Math.max(0, windowMs);
+		this.bucketMs = Math.max(1000, this.windowMs);
+	}
+
+	public void add(String competitorName, String opponentName, long lastFightTime, T value)
+	{
+		index.computeIfAbsent(key(competitorName, opponentName), k -> new HashMap<>())
+			.computeIfAbsent(lastFightTime / bucketMs, k -> new ArrayList<>())
+			.add(new Entry<>(lastFightTime, value));
+		size++;
+	}
+
+	public void add(FightPerformance fight, T value)
+	{
+		add(fight.getCompetitor().getName(), fight.getOpponent().getName(), fight.lastFightTime, value);
+	}
+
+	// Find the indexed fight from the other side: competitor & opponent swapped, with the closest lastFightTime
+	// within the window. Returns null if there is none.
+	public T findOpposing(String competitorName, String opponentName, long lastFightTime)
+	{
+		Entry<T> entry = findOpposingEntry(competitorName, opponentName, lastFightTime);
+		return entry == null ? null : entry.value;
+	}
+
+	public T findOpposing(FightPerformance fight)
+	{
+		return findOpposing(fight.getCompetitor().getName(), fight.getOpponent().getName(), fight.lastFightTime);
+	}
+
+	// Find the indexed fight recorded from the same side: same competitor & opponent, with the closest lastFightTime
+	// within the window. Returns null if there is none.
+	public T findSameSide(String competitorName, String opponentName, long lastFightTime)
+	{
+		Entry<T> entry = findEntry(key(competitorName, opponentName), lastFightTime);
+		return entry == null ? null : entry.value;
+	}
+
+	// Same as findOpposing, but also removes the found fight from the index so it can't be paired twice.
+	public T takeOpposing(String competitorName, String opponentName, long lastFightTime)
+	{
+		Entry<T> entry = findOpposingEntry(competitorName, opponentName, lastFightTime);
+		if (entry == null)
+		{
+			return null;
+		}
+
+		Map<Long, List<Entry<T>>> buckets = index.get(key(opponentName, competitorName));
+		long bucket = entry.time / bucketMs;
+		List<Entry<T>> entries = buckets.get(bucket);
+		entries.remove(entry);
+		if (entries.isEmpty())
+		{
+			buckets.remove(bucket);
+		}
+		size--;
+		return entry.value;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public void clear()
+	{
+		index.clear();
+		size = 0;
+	}
+
+	private Entry<T> findOpposingEntry(String competitorName, String opponentName, long lastFightTime)
+	{
+		return findEntry(key(opponentName, competitorName), lastFightTime);
+	}
+
+	private Entry<T> findEntry(String key, long lastFightTime)
+	{
+		Map<Long, List<Entry<T>>> buckets = index.get(key);
+		if (buckets == null)
+		{
+			return null;
+		}
+
+		// the bucket size is at least the window, so this is at most 3 buckets.
+		Entry<T> best = null;
+		for (long bucket = (lastFightTime - windowMs) / bucketMs; bucket <= (lastFightTime + windowMs) / bucketMs; bucket++)
+		{
+			List<Entry<T>> entries = buckets.get(bucket);
+			if (entries == null)
+			{
+				continue;
+			}
+
+			for (Entry<T> entry : entries)
+			{
+				long diff = Math.abs(entry.time - lastFightTime);
+				if (diff <= windowMs && (best == null || diff < Math.abs(best.time - lastFightTime)))
+				{
+					best = entry;
+				}
+			}
+		}
+		return best;
+	}
+
+	private static String key(String competitorName, String opponentName)
+	{
+		return PvpPerformanceTrackerUtils.normalizeName(competitorName) + '\n' + PvpPerformanceTrackerUtils.normalizeName(opponentName);
+	}
+}
@@ -34,6 +34,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -43,6 +44,7 @@ import matsyir.pvpperformancetracker.models.CombatLevels;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
 import matsyir.pvpperformancetracker.models.FightType;
 import matsyir.pvpperformancetracker.models.oldVersions.FightPerformance__1_5_5;
+import matsyir.pvpperformancetracker.utils.DamageDistribution;
 import net.runelite.api.AnimationID;
 import net.runelite.api.Player;
 import net.runelite.api.Skill;
@@ -82,8 +84,22 @@ public class FightPerformance implements Comparable<FightPerformance>
 	@SerializedName("l")
 	public FightType fightType; // save a boolean if the fight was done in LMS, so we can know those stats/rings/ammo are used.
 
+	// chance of dealing at most the damage each fighter dealt, given the damage distributions of all of their attacks.
+	// low = unlucky, high = lucky. Calculated in the background when the fight ends, null if not calculated.
+	@Expose
+	@SerializedName("cL")
+	private volatile Double competitorLuckPercentile;
+	@Expose
+	@SerializedName("oL")
+	private volatile Double opponentLuckPercentile;
+
 	private int competitorPrevHp; // intentionally don't serialize this, temp variable used to calculate hp healed.
 
+	// latest immutable copy of the stats, read by the overlay/panels from other threads. Not serialized.
+	private transient volatile FightStatsSnapshot statsSnapshot;
+	// latest outcome simulation, only reused while the stats version matches. Not serialized.
+	private transient volatile FightSimulator.Result simulationResult;
+
 	// shouldn't be used, just here so we can make a subclass, weird java thing
 	public FightPerformance()
 	{
@@ -110,6 +126,7 @@ public class FightPerformance implements Comparable<FightPerformance>
 
 		this.competitorPrevHp = PLUGIN.getClient().getBoostedSkillLevel(Skill.HITPOINTS);
 		this.competitor.setLastGhostBarrageCheckedMageXp(PLUGIN.getClient().getSkillExperience(Skill.MAGIC));
+		publishStatsSnapshot();
 	}
 
 	// create a FightPerformance using an old 1.5.5 or earlier version.
@@ -188,6 +205,7 @@ public class FightPerformance implements Comparable<FightPerformance>
 		}
 
 		lastFightTime = Instant.now().minusSeconds(secondOffset).toEpochMilli();
+		publishStatsSnapshot();
 	}
 
 	// If the given playerName is in this fight, check the Fighter's current animation,
@@ -217,6 +235,7 @@ public class FightPerformance implements Comparable<FightPerformance>
 					offensivePray,
 					competitorLevels);
 				lastFightTime = Instant.now().toEpochMilli();
+				publishStatsSnapshot();
 			}
 		}
 		else if (eName.equals(opponent.getName()) && Objects.equals(interactingName, competitor.getName()))
@@ -228,9 +247,11 @@ public class FightPerformance implements Comparable<FightPerformance>
 				// there is no offensive prayer data for the opponent so hardcode 0
 				opponent.addAttack(competitor.getPlayer(), animationData, 0);
 
-				// add a defensive log for the competitor while the opponent is attacking, to be used with the fight analysis/merge
+				// add a defensive log for the competitor while the opponent is attacking, to be used with the fight analysis/merge.
+				// these are kept with the lite profile too, so lite fights can still be merged.
 				competitor.addDefensiveLogs(competitorLevels, PLUGIN.currentlyUsedOffensivePray());
 				lastFightTime = Instant.now().toEpochMilli();
+				publishStatsSnapshot();
 			}
 		}
 	}
@@ -262,6 +283,7 @@ public class FightPerformance implements Comparable<FightPerformance>
 				AnimationData.MAGIC_ANCIENT_MULTI_TARGET,
 				offensivePray,
 				competitorLevels);
+			publishStatsSnapshot();
 		}
 	}
 
@@ -279,6 +301,26 @@ public class FightPerformance implements Comparable<FightPerformance>
 		{
 			competitor.addDamageDealt(damage);
 		}
+		else
+		{
+			return;
+		}
+
+		publishStatsSnapshot();
+	}
+
+	// returns the Fighter with the given name, or null if they aren't in this fight.
+	public Fighter getFighter(String playerName)
+	{
+		if (competitor.getName().equals(playerName))
+		{
+			return competitor;
+		}
+		else if (opponent.getName().equals(playerName))
+		{
+			return opponent;
+		}
+		return null;
 	}
 
 	public void updateCompetitorHp(int currentHp)
@@ -287,6 +329,11 @@ public class FightPerformance implements Comparable<FightPerformance>
 		{
 			int hpHealed = currentHp - competitorPrevHp;
 			competitor.addHpHealed(hpHealed);
+			if (competitor.getHpTracker() != null)
+			{
+				competitor.getHpTracker().onHeal(PLUGIN.getClient().getTickCount(), hpHealed);
+			}
+			publishStatsSnapshot();
 		}
 		competitorPrevHp = currentHp;
 	}
@@ -317,11 +364,88 @@ public class FightPerformance implements Comparable<FightPerformance>
 		if (isOver)
 		{
 			lastFightTime = Instant.now().toEpochMilli();
+			publishStatsSnapshot();
 		}
 
 		return isOver;
 	}
 
+	// build a new immutable copy of the current stats & publish it for the overlay/panels.
+	// should be called from the thread that mutates the fight, after every change.
+	public void publishStatsSnapshot()
+	{
+		FightStatsSnapshot previous = statsSnapshot;
+		statsSnapshot = new FightStatsSnapshot(this, previous == null ? 1 : previous.getVersion() + 1);
+	}
+
+	// latest published stats, safe to read from any thread. Only null before the first publish, which happens
+	// when the fight starts, or when it's loaded/imported (see PvpPerformanceTrackerPlugin.initializeImportedFight).
+	public FightStatsSnapshot getStatsSnapshot()
+	{
+		return statsSnapshot;
+	}
+
+	void setSimulationResult(FightSimulator.Result simulationResult)
+	{
+		this.simulationResult = simulationResult;
+	}
+
+	// Collect what's needed to calculate both fighters' luck percentiles, and return the calculation as a task.
+	// Should be called from the thread that modifies the fight (client thread), but the returned task
+	// doesn't touch the fighters anymore, so it can run on any thread.
+	public Runnable createLuckPercentileTask()
+	{
+		List<double[]> competitorPmfs = new ArrayList<>();
+		List<double[]> opponentPmfs = new ArrayList<>();
+		int competitorDamage = collectLuckInputs(competitor.getFightLogEntries(), null, competitorPmfs);
+		int opponentDamage = collectLuckInputs(opponent.getFightLogEntries(), null, opponentPmfs);
+
+		return () -> setLuckPercentiles(
+			DamageDistribution.cumulativeProbability(competitorPmfs, competitorDamage),
+			DamageDistribution.cumulativeProbability(opponentPmfs, opponentDamage));
+	}
+
+	void setLuckPercentiles(Double competitorLuckPercentile, Double opponentLuckPercentile)
+	{
+		this.competitorLuckPercentile = competitorLuckPercentile;
+		this.opponentLuckPercentile = opponentLuckPercentile;
+	}
+
+	// Add the damage distribution of every full entry that has the damage it actually did to pmfs, and return the
+	// sum of that damage. Only attacks are compared to their own hitsplats, so damage from poison, recoil etc. and
+	// attacks without matched hitsplats are left out. If results isn't null, each non-null result replaces its
+	// entry's accuracy & hit range (e.g. recalculated with a new config).
+	static int collectLuckInputs(List<FightLogEntry> entries, DamageCalcResult[] results, List<double[]> pmfs)
+	{
+		int damage = 0;
+		if (entries == null)
+		{
+			return damage;
+		}
+
+		for (int i = 0; i < entries.size(); i++)
+		{
+			FightLogEntry entry = entries.get(i);
+			if (!entry.isFullEntry() || entry.getActualDamageSum() == null)
+			{
+				continue;
+			}
+
+			DamageCalcResult result = results != null && i < results.length ? results[i] : null;
+			if (result != null)
+			{
+				pmfs.add(DamageDistribution.of(DamageDistribution.getShape(entry), result.getMinHit(), result.getMaxHit())
+					.getPmf(result.getAccuracy()));
+			}
+			else
+			{
+				pmfs.add(DamageDistribution.of(entry).getPmf(entry.getAccuracy()));
+			}
+			damage += entry.getActualDamageSum();
+		}
+		return damage;
+	}
+
 	public ArrayList<FightLogEntry> getAllFightLogEntries()
 	{
 		if (competitor.getFightLogEntries() == null || opponent.getFightLogEntries() == null)
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.utils.DamageDistribution;
+
+// Replays a recorded fight many times with random rolls, to estimate how likely each fighter was to win it.
+// Every attack keeps its recorded accuracy & hit range (through its DamageDistribution), and every simulated
+// hit is compared to what actually hit: the defender's simulated hp is their recorded hp before the hit, minus
+// however much more damage they took in the simulation than in the real fight. That way, food & brews eaten
+// during the real fight still count, and the simulated fight ends as soon as someone's hp reaches 0.
+//
+// The input is flattened into primitive arrays up front (CDFs of every attack back to back), and the runs are
+// split across the common fork-join pool, each leaf having its own SplittableRandom & counters.
+@Slf4j
+public class FightSimulator
+{
+	public static final int DEFAULT_ITERATIONS = 1_000_000;
+	// simulated fights per fork-join leaf task
+	private static final int ITERATIONS_PER_TASK = 50_000;
+	private static final int DEFAULT_MAX_HP = 99;
+
+	@Getter
+	public static class Result
+	{
+		private final long statsVersion; // FightStatsSnapshot version that was simulated
+		private final int iterations;
+		private final double competitorWinProbability;
+		private final double opponentWinProbability;
+		// koByAttack[n] = chance that the fighter KO'd their opponent on or before their (n+1)th attack
+		private final double[] competitorKoByAttack;
+		private final double[] opponentKoByAttack;
+		// average simulated fight length, in ticks from the first attack until the KO (or the last attack)
+		private final double expectedLengthTicks;
+
+		private Result(long statsVersion, int iterations, double competitorWinProbability, double opponentWinProbability,
+			double[] competitorKoByAttack, double[] opponentKoByAttack, double expectedLengthTicks)
+		{
+			this.statsVersion = statsVersion;
+			this.iterations = iterations;
+			this.competitorWinProbability = competitorWinProbability;
+			this.opponentWinProbability = opponentWinProbability;
+			this.competitorKoByAttack = competitorKoByAttack;
+			this.opponentKoByAttack = opponentKoByAttack;
+			this.expectedLengthTicks = expectedLengthTicks;
+		}
+
+		public double getNoKoProbability()
+		{
+			return Math.max(0, 1 - competitorWinProbability - opponentWinProbability);
+		}
+
+		// half-width of the 95% confidence interval for one of this result's probabilities
+		public double getMarginOfError(double probability)
+		{
+			return 1.96 * Math.sqrt(probability * (1 - probability) / iterations);
+		}
+	}
+
+	// Get the fight's cached simulation if its stats didn't change since, otherwise simulate it in the
+	// common fork-join pool. The fight's log entries are read right away, so this should be called from
+	// the thread that owns the fight (the EDT for fights loaded from history).
+	public static CompletableFuture<Result> simulate(FightPerformance fight)
+	{
+		// a fight that was never published can't be cached, since there's no version to compare against.
+		FightStatsSnapshot stats = fight.getStatsSnapshot();
+		long version = stats == null ? 0 : stats.getVersion();
+		Result cached = fight.getSimulationResult();
+		if (stats != null && cached != null && cached.getStatsVersion() == version)
+		{
+			return CompletableFuture.completedFuture(cached);
+		}
+
+		Input input = new Input(fight);
+		return CompletableFuture.supplyAsync(() ->
+		{
+			long start = System.nanoTime();
+			Result result = input.run(version, DEFAULT_ITERATIONS);
+			log.debug("Simulated {} fights of {} attacks in {}ms", DEFAULT_ITERATIONS, input.attackCount,
+				(System.nanoTime() - start) / 1_000_000);
+			fight.setSimulationResult(result);
+			return result;
+		}, ForkJoinPool.commonPool());
+	}
+
+	// the recorded fight, flattened into arrays indexed by attack (in tick order).
+	private static class Input
+	{
+		private final int attackCount;
+		private final int[] defender; // 0 = competitor was hit, 1 = opponent was hit
+		private final int[] cdfStart; // index of each attack's CDF in cdfs
+		private final int[] cdfLength;
+		private final double[] cdfs;
+		private final int[] baseHp; // recorded hp before each hit
+		private final double[] recordedDamage; // actual damage of each hit, or its deserved damage if unknown
+		private final int[] tick; // ticks since the first attack
+		private final int[] maxHp = { DEFAULT_MAX_HP, DEFAULT_MAX_HP };
+		private final int competitorAttacks;
+		private final int opponentAttacks;
+
+		Input(FightPerformance fight)
+		{
+			String competitorName = fight.getCompetitor().getName();
+			List<FightLogEntry> entries = new ArrayList<>();
+			for (FightLogEntry entry : fight.getAllFightLogEntries())
+			{
+				if (entry.isFullEntry())
+				{
+					entries.add(entry);
+				}
+			}
+
+			attackCount = entries.size();
+			defender = new int[attackCount];
+			cdfStart = new int[attackCount];
+			cdfLength = new int[attackCount];
+			baseHp = new int[attackCount];
+			recordedDamage = new double[attackCount];
+			tick = new int[attackCount];
+
+			int cAttacks = 0;
+			List<double[]> pmfs = new ArrayList<>(attackCount);
+			int totalLength = 0;
+			for (int k = 0; k < attackCount; k++)
+			{
+				FightLogEntry entry = entries.get(k);
+				boolean competitorAttacked = competitorName.equals(entry.attackerName);
+				cAttacks += competitorAttacked ? 1 : 0;
+				defender[k] = competitorAttacked ? 1 : 0;
+				if (entry.getOpponentMaxHp() != null && entry.getOpponentMaxHp() > 0)
+				{
+					maxHp[defender[k]] = entry.getOpponentMaxHp();
+				}
+
+				double[] pmf = DamageDistribution.of(entry).getPmf(entry.getAccuracy());
+				pmfs.add(pmf);
+				cdfStart[k] = totalLength;
+				cdfLength[k] = pmf.length;
+				totalLength += pmf.length;
+
+				tick[k] = entry.getTick() - entries.get(0).getTick();
+				recordedDamage[k] = entry.getActualDamageSum() != null ? entry.getActualDamageSum() : entry.getDeservedDamage();
+			}
+			competitorAttacks = cAttacks;
+			opponentAttacks = attackCount - cAttacks;
+
+			cdfs = new double[totalLength];
+			for (int k = 0; k < attackCount; k++)
+			{
+				double[] pmf = pmfs.get(k);
+				double sum = 0;
+				for (int x = 0; x < pmf.length; x++)
+				{
+					sum += pmf[x];
+					cdfs[cdfStart[k] + x] = sum;
+				}
+				cdfs[cdfStart[k] + pmf.length - 1] = 1.0; // avoid rounding leaving a gap at the top
+			}
+
+			// hp before each hit: the recorded hp if we have it, otherwise carry it over from the previous hit.
+			double[] hp = { maxHp[0], maxHp[1] };
+			for (int k = 0; k < attackCount; k++)
+			{
+				FightLogEntry entry = entries.get(k);
+				int d = defender[k];
+				Integer recordedHp = entry.getDisplayHpBefore() != null ? entry.getDisplayHpBefore() : entry.getEstimatedHpBeforeHit();
+				if (recordedHp != null)
+				{
+					hp[d] = recordedHp;
+				}
+				baseHp[k] = (int)Math.max(1, Math.min(Math.round(hp[d]), maxHp[d]));
+				hp[d] -= recordedDamage[k];
+			}
+		}
+
+		Result run(long statsVersion, int iterations)
+		{
+			Counts counts = ForkJoinPool.commonPool().invoke(new SimulationTask(this, new SplittableRandom(), iterations));
+
+			double[] competitorKoByAttack = new double[competitorAttacks];
+			double[] opponentKoByAttack = new double[opponentAttacks];
+			long cKos = 0, oKos = 0;
+			int cIdx = 0, oIdx = 0;
+			for (int k = 0; k < attackCount; k++)
+			{
+				if (defender[k] == 1)
+				{
+					cKos += counts.koAtAttack[k];
+					competitorKoByAttack[cIdx++] = (double)cKos / iterations;
+				}
+				else
+				{
+					oKos += counts.koAtAttack[k];
+					opponentKoByAttack[oIdx++] = (double)oKos / iterations;
+				}
+			}
+
+			return new Result(statsVersion, iterations, (double)cKos / iterations, (double)oKos / iterations,
+				competitorKoByAttack, opponentKoByAttack, (double)counts.totalTicks / iterations);
+		}
+
+		// simulate one fight, returning the index of the attack that KO'd, or -1 if nobody died.
+		// uses the given extraDamage array as scratch space, to avoid allocating per simulated fight.
+		int simulateOnce(SplittableRandom random, double[] extraDamage)
+		{
+			extraDamage[0] = 0;
+			extraDamage[1] = 0;
+			for (int k = 0; k < attackCount; k++)
+			{
+				int d = defender[k];
+				int damage = sampleDamage(k, random.nextDouble());
+				double hp = Math.min(baseHp[k] - extraDamage[d], maxHp[d]);
+				if (damage >= hp)
+				{
+					return k;
+				}
+				extraDamage[d] += damage - recordedDamage[k];
+			}
+			return -1;
+		}
+
+		// binary search for the first damage value whose cumulative probability is above the roll.
+		private int sampleDamage(int attack, double roll)
+		{
+			int start = cdfStart[attack];
+			int lo = 0, hi = cdfLength[attack] - 1;
+			while (lo < hi)
+			{
+				int mid = (lo + hi) >>> 1;
+				if (cdfs[start + mid] > roll)
+				{
+					hi = mid;
+				}
+				else
+				{
+					lo = mid + 1;
+				}
+			}
+			return lo;
+		}
+	}
+
+	private static class Counts
+	{
+		private final long[] koAtAttack;
+		private long totalTicks = 0;
+
+		Counts(int attackCount)
+		{
+			koAtAttack = new long[attackCount];
+		}
+
+		void add(Counts other)
+		{
+			for (int k = 0; k < koAtAttack.length; k++)
+			{
+				koAtAttack[k] += other.koAtAttack[k];
+			}
+			totalTicks += other.totalTicks;
+		}
+	}
+
+	private static class SimulationTask extends RecursiveTask<Counts>
+	{
+		private final Input input;
+		private final SplittableRandom random;
+		private final int iterations;
+
+		SimulationTask(Input input, SplittableRandom random, int iterations)
+		{
+			this.input = input;
+			this.random = random;
+			this.iterations = iterations;
+		}
+
+		@Override
+		protected Counts compute()
+		{
+			if (iterations > ITERATIONS_PER_TASK)
+			{
+				int half = iterations / 2;
+				SimulationTask left = new SimulationTask(input, random.split(), half);
+				SimulationTask right = new SimulationTask(input, random, iterations - half);
+				left.fork();
+				Counts counts = right.compute();
+				counts.add(left.join());
+				return counts;
+			}
+
+			Counts counts = new Counts(input.attackCount);
+			double[] extraDamage = new double[2];
+			int lastTick = input.attackCount > 0 ? input.tick[input.attackCount - 1] : 0;
+			for (int i = 0; i < iterations; i++)
+			{
+				int koAttack = input.simulateOnce(random, extraDamage);
+				if (koAttack >= 0)
+				{
+					counts.koAtAttack[koAttack]++;
+					counts.totalTicks += input.tick[koAttack];
+				}
+				else
+				{
+					counts.totalTicks += lastTick;
+				}
+			}
+			return counts;
+		}
+	}
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.List;
+import lombok.Getter;
+
+// Running totals of the competitor's stats over a set of fights, used for the total stats panel.
+// Fights can be added and removed again in any order, and two aggregates over separate fights can be merged,
+// so large histories can be summed up in parallel chunks. Counts are exact; the decimal sums use compensated
+// (Neumaier) summation, so adding & removing many fights doesn't slowly drift away from the real totals.
+// Not thread-safe: every aggregate should only be changed by one thread at a time.
+public class FightStatsAggregate
+{
+	// below this many fights, summing them on the calling thread is faster than splitting the work
+	private static final int PARALLEL_THRESHOLD = 512;
+
+	@Getter
+	private int numFights;
+	@Getter
+	private int numKills;
+	@Getter
+	private int numDeaths;
+	@Getter
+	private int numFightsWithKoChance;
+
+	private long offPraySuccessCount;
+	private long attackCount;
+	private long damageDealt;
+	private long magicAttackCount;
+	private long magicHitCount;
+	private long offensivePraySuccessCount;
+	private long hpHealed;
+	private long ghostBarrageCount;
+	private long competitorKoChances;
+	private long opponentKoChances;
+
+	private long dmgDealtDiff;
+	private long killDmgDealt;
+	private long killDmgDealtDiff;
+	private long deathDmgDealt;
+	private long deathDmgDealtDiff;
+
+	private final Sum deservedDmg = new Sum();
+	private final Sum deservedDmgDiff = new Sum();
+	private final Sum killDeservedDmg = new Sum();
+	private final Sum killDeservedDmgDiff = new Sum();
+	private final Sum deathDeservedDmg = new Sum();
+	private final Sum deathDeservedDmgDiff = new Sum();
+	private final Sum magicHitCountDeserved = new Sum();
+	private final Sum ghostBarrageDeservedDamage = new Sum();
+	private final Sum competitorKoProb = new Sum(); // sum of each fight's overall KO probability
+	private final Sum opponentKoProb = new Sum();
+
+	// sum up a list of fights' published stats, in parallel chunks if there are many of them.
+	public static FightStatsAggregate of(List<FightStatsSnapshot> fights)
+	{
+		if (fights.size() < PARALLEL_THRESHOLD)
+		{
+			FightStatsAggregate aggregate = new FightStatsAggregate();
+			fights.forEach(aggregate::add);
+			return aggregate;
+		}
+
+		return fights.parallelStream().collect(FightStatsAggregate::new, FightStatsAggregate::add, FightStatsAggregate::merge);
+	}
+
+	public void add(FightStatsSnapshot stats)
+	{
+		apply(stats, 1);
+	}
+
+	// remove a fight's stats that were previously added. This has to be the same snapshot that was added,
+	// otherwise the totals will drift away from the fights they're supposed to sum up.
+	public void remove(FightStatsSnapshot stats)
+	{
+		apply(stats, -1);
+		if (numFights == 0)
+		{
+			// nothing left, drop any rounding error left in the sums.
+			clear();
+		}
+	}
+
+	// add every fight of another aggregate into this one.
+	public void merge(FightStatsAggregate o)
+	{
+		numFights += o.numFights;
+		numKills += o.numKills;
+		numDeaths += o.numDeaths;
+		numFightsWithKoChance += o.numFightsWithKoChance;
+
+		offPraySuccessCount += o.offPraySuccessCount;
+		attackCount += o.attackCount;
+		damageDealt += o.damageDealt;
+		magicAttackCount += o.magicAttackCount;
+		magicHitCount += o.magicHitCount;
+		offensivePraySuccessCount += o.offensivePraySuccessCount;
+		hpHealed += o.hpHealed;
+		ghostBarrageCount += o.ghostBarrageCount;
+		competitorKoChances += o.competitorKoChances;
+		opponentKoChances += o.opponentKoChances;
+
+		dmgDealtDiff += o.dmgDealtDiff;
+		killDmgDealt += o.killDmgDealt;
+		killDmgDealtDiff += o.killDmgDealtDiff;
+		deathDmgDealt += o.deathDmgDealt;
+		deathDmgDealtDiff += o.deathDmgDealtDiff;
+
+		deservedDmg.merge(o.deservedDmg);
+		deservedDmgDiff.merge(o.deservedDmgDiff);
+		killDeservedDmg.merge(o.killDeservedDmg);
+		killDeservedDmgDiff.merge(o.killDeservedDmgDiff);
+		deathDeservedDmg.merge(o.deathDeservedDmg);
+		deathDeservedDmgDiff.merge(o.deathDeservedDmgDiff);
+		magicHitCountDeserved.merge(o.magicHitCountDeserved);
+		ghostBarrageDeservedDamage.merge(o.ghostBarrageDeservedDamage);
+		competitorKoProb.merge(o.competitorKoProb);
+		opponentKoProb.merge(o.opponentKoProb);
+	}
+
+	public void clear()
+	{
+		numFights = 0;
+		numKills = 0;
+		numDeaths = 0;
+		numFightsWithKoChance = 0;
+
+		offPraySuccessCount = 0;
+		attackCount = 0;
+		damageDealt = 0;
+		magicAttackCount = 0;
+		magicHitCount = 0;
+		offensivePraySuccessCount = 0;
+		hpHealed = 0;
+		ghostBarrageCount = 0;
+		competitorKoChances = 0;
+		opponentKoChances = 0;
+
+		dmgDealtDiff = 0;
+		killDmgDealt = 0;
+		killDmgDealtDiff = 0;
+		deathDmgDealt = 0;
+		deathDmgDealtDiff = 0;
+
+		deservedDmg.clear();
+		deservedDmgDiff.clear();
+		killDeservedDmg.clear();
+		killDeservedDmgDiff.clear();
+		deathDeservedDmg.clear();
+		deathDeservedDmgDiff.clear();
+		magicHitCountDeserved.clear();
+		ghostBarrageDeservedDamage.clear();
+		competitorKoProb.clear();
+		opponentKoProb.clear();
+	}
+
+	// add (sign = 1) or subtract (sign = -1) a fight's stats.
+	private void apply(FightStatsSnapshot stats, int sign)
+	{
+		FightStatsSnapshot.FighterStats competitor = stats.getCompetitor();
+		FightStatsSnapshot.FighterStats opponent = stats.getOpponent();
+		numFights += sign;
+
+		offPraySuccessCount += sign * competitor.getOffPraySuccessCount();
+		attackCount += sign * competitor.getAttackCount();
+		damageDealt += sign * competitor.getDamageDealt();
+		magicAttackCount += sign * competitor.getMagicAttackCount();
+		magicHitCount += sign * competitor.getMagicHitCount();
+		offensivePraySuccessCount += sign * competitor.getOffensivePraySuccessCount();
+		hpHealed += sign * competitor.getHpHealed();
+		ghostBarrageCount += sign * competitor.getGhostBarrageCount();
+		magicHitCountDeserved.add(sign * competitor.getMagicHitCountDeserved());
+		ghostBarrageDeservedDamage.add(sign * competitor.getGhostBarrageDeservedDamage());
+
+		double fightDeservedDmg = sign * competitor.getDeservedDamage();
+		double fightDeservedDmgDiff = sign * (competitor.getDeservedDamage() - opponent.getDeservedDamage());
+		long fightDmgDealt = sign * competitor.getDamageDealt();
+		long fightDmgDealtDiff = sign * (long)(competitor.getDamageDealt() - opponent.getDamageDealt());
+
+		deservedDmg.add(fightDeservedDmg);
+		deservedDmgDiff.add(fightDeservedDmgDiff);
+		dmgDealtDiff += fightDmgDealtDiff;
+
+		// kill-specific or death-specific stats
+		if (competitor.isDead())
+		{
+			numDeaths += sign;
+			deathDeservedDmg.add(fightDeservedDmg);
+			deathDeservedDmgDiff.add(fightDeservedDmgDiff);
+			deathDmgDealt += fightDmgDealt;
+			deathDmgDealtDiff += fightDmgDealtDiff;
+		}
+
+		if (opponent.isDead())
+		{
+			numKills += sign;
+			killDeservedDmg.add(fightDeservedDmg);
+			killDeservedDmgDiff.add(fightDeservedDmgDiff);
+			killDmgDealt += fightDmgDealt;
+			killDmgDealtDiff += fightDmgDealtDiff;
+		}
+
+		// KO chances & overall KO probability for this fight, only counted if the fight has any KO data
+		if (stats.getCompetitorKoChances() + stats.getOpponentKoChances() > 0)
+		{
+			numFightsWithKoChance += sign;
+			competitorKoChances += sign * stats.getCompetitorKoChances();
+			opponentKoChances += sign * stats.getOpponentKoChances();
+			competitorKoProb.add(sign * koProb(stats.getCompetitorOverallKoProb()));
+			opponentKoProb.add(sign * koProb(stats.getOpponentOverallKoProb()));
+		}
+	}
+
+	// a fighter without KO chances had no chance to KO at all
+	private static double koProb(Double overallKoProb)
+	{
+		return overallKoProb != null ? overallKoProb : 0.0;
+	}
+
+	// a Fighter holding the summed up attack stats, to reuse its stat strings & percentages.
+	public Fighter toFighter()
+	{
+		Fighter fighter = new Fighter("Player");
+		fighter.addAttacks((int)offPraySuccessCount, (int)attackCount, deservedDmg.get(), (int)damageDealt,
+			(int)magicAttackCount, (int)magicHitCount, magicHitCountDeserved.get(), (int)offensivePraySuccessCount,
+			(int)hpHealed, (int)ghostBarrageCount, ghostBarrageDeservedDamage.get());
+		return fighter;
+	}
+
+	public double getAvgDeservedDmg()
+	{
+		return average(deservedDmg.get(), numFights);
+	}
+
+	public double getAvgDeservedDmgDiff()
+	{
+		return average(deservedDmgDiff.get(), numFights);
+	}
+
+	public double getAvgDmgDealt()
+	{
+		return average(damageDealt, numFights);
+	}
+
+	public double getAvgDmgDealtDiff()
+	{
+		return average(dmgDealtDiff, numFights);
+	}
+
+	public double getKillAvgDeservedDmg()
+	{
+		return average(killDeservedDmg.get(), numKills);
+	}
+
+	public double getKillAvgDeservedDmgDiff()
+	{
+		return average(killDeservedDmgDiff.get(), numKills);
+	}
+
+	public double getKillAvgDmgDealt()
+	{
+		return average(killDmgDealt, numKills);
+	}
+
+	public double getKillAvgDmgDealtDiff()
+	{
+		return average(killDmgDealtDiff, numKills);
+	}
+
+	public double getDeathAvgDeservedDmg()
+	{
+		return average(deathDeservedDmg.get(), numDeaths);
+	}
+
+	public double getDeathAvgDeservedDmgDiff()
+	{
+		return average(deathDeservedDmgDiff.get(), numDeaths);
+	}
+
+	public double getDeathAvgDmgDealt()
+	{
+		return average(deathDmgDealt, numDeaths);
+	}
+
+	public double getDeathAvgDmgDealtDiff()
+	{
+		return average(deathDmgDealtDiff, numDeaths);
+	}
+
+	public double getAvgHpHealed()
+	{
+		return average(hpHealed, numFights);
+	}
+
+	public double getAvgGhostBarrageCount()
+	{
+		return average(ghostBarrageCount, numFights);
+	}
+
+	// average extra deserved damage per ghost barrage
+	public double getAvgGhostBarrageDeservedDamage()
+	{
+		return average(ghostBarrageDeservedDamage.get(), ghostBarrageCount);
+	}
+
+	public long getTotalCompetitorKoChances()
+	{
+		return competitorKoChances;
+	}
+
+	public long getTotalOpponentKoChances()
+	{
+		return opponentKoChances;
+	}
+
+	public double getAvgCompetitorKoChances()
+	{
+		return average(competitorKoChances, numFightsWithKoChance);
+	}
+
+	public double getAvgOpponentKoChances()
+	{
+		return average(opponentKoChances, numFightsWithKoChance);
+	}
+
+	public double getAvgCompetitorKoProb()
+	{
+		return average(competitorKoProb.get(), numFightsWithKoChance);
+	}
+
+	public double getAvgOpponentKoProb()
+	{
+		return average(opponentKoProb.get(), numFightsWithKoChance);
+	}
+
+	private static double average(double total, long count)
+	{
+		return count != 0 ? total / count : 0;
+	}
+
+	// Neumaier compensated sum: keeps the low-order bits lost by each addition in a separate term.
+	private static final class Sum
+	{
+		private double sum;
+		private double compensation;
+
+		private void add(double value)
+		{
+			double t = sum + value;
+			if (Math.abs(sum) >= Math.abs(value))
+			{
+				compensation += (sum - t) + value;
+			}
+			else
+			{
+				compensation += (value - t) + sum;
+			}
+			sum = t;
+		}
+
+		private void merge(Sum o)
+		{
+			add(o.sum);
+			add(o.compensation);
+		}
+
+		private void clear()
+		{
+			sum = 0;
+			compensation = 0;
+		}
+
+		private double get()
+		{
+			return sum + compensation;
+		}
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import lombok.Getter;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+
+// Immutable copy of the displayed stats of a FightPerformance at a given point in time.
+// A new one is built & published by the fight (on the client thread) every time its stats change,
+// so the overlay & panels can read it from any thread without touching the mutable Fighters or
+// their fight log lists. The version is incremented on every publish, so renderers can skip work
+// if nothing changed since they last looked at it.
+@Getter
+public final class FightStatsSnapshot
+{
+	private final long version;
+	private final boolean fightStarted;
+	private final long lastFightTime;
+
+	// every stat of each fighter, for the fight history & analysis panels and the total stats.
+	private final FighterStats competitor;
+	private final FighterStats opponent;
+
+	private final String competitorName;
+	private final String opponentName;
+	private final boolean competitorDead;
+	private final boolean opponentDead;
+
+	// overlay strings, pre-formatted since Fighter's NumberFormat isn't safe to share between threads
+	private final String competitorOffPrayShort;
+	private final String opponentOffPrayShort;
+	private final String competitorDeservedDmgString;
+	private final int opponentDeservedDmgRounded;
+	private final String competitorDmgDealtString;
+	private final int opponentDamageDealt;
+	private final String competitorShortMagicHitStats;
+	private final String opponentShortMagicHitStats;
+	private final String competitorOffensivePrayShort;
+	private final int competitorHpHealed;
+	private final String competitorGhostBarrageStats;
+
+	private final boolean competitorOffPraySuccessIsGreater;
+	private final boolean opponentOffPraySuccessIsGreater;
+	private final boolean competitorDeservedDmgIsGreater;
+	private final boolean opponentDeservedDmgIsGreater;
+	private final boolean competitorDmgDealtIsGreater;
+	private final boolean opponentDmgDealtIsGreater;
+	private final boolean competitorMagicHitsLuckier;
+	private final boolean opponentMagicHitsLuckier;
+
+	// KO chance summary, over every log entry that has a KO chance.
+	private final int competitorKoChances;
+	private final Double competitorOverallKoProb; // null if there were no KO chances
+	private final Double competitorLastKoChance;
+	private final int opponentKoChances;
+	private final Double opponentOverallKoProb;
+	private final Double opponentLastKoChance;
+
+	// must be called from whichever thread is mutating the fight (client thread for ongoing fights)
+	FightStatsSnapshot(FightPerformance fight, long version)
+	{
+		this.version = version;
+
+		Fighter competitor = fight.getCompetitor();
+		Fighter opponent = fight.getOpponent();
+
+		fightStarted = fight.fightStarted();
+		lastFightTime = fight.getLastFightTime();
+		this.competitor = new FighterStats(competitor, opponent);
+		this.opponent = new FighterStats(opponent, competitor);
+		competitorName = competitor.getName();
+		opponentName = opponent.getName();
+		competitorDead = competitor.isDead();
+		opponentDead = opponent.isDead();
+
+		competitorOffPrayShort = competitor.getOffPrayStats(true);
+		opponentOffPrayShort = opponent.getOffPrayStats(true);
+		competitorDeservedDmgString = competitor.getDeservedDmgString(opponent);
+		opponentDeservedDmgRounded = (int)Math.round(opponent.getDeservedDamage());
+		competitorDmgDealtString = competitor.getDmgDealtString(opponent);
+		opponentDamageDealt = opponent.getDamageDealt();
+		competitorShortMagicHitStats = competitor.getShortMagicHitStats();
+		opponentShortMagicHitStats = opponent.getShortMagicHitStats();
+		competitorOffensivePrayShort = competitor.getOffensivePrayStats(true);
+		competitorHpHealed = competitor.getHpHealed();
+		competitorGhostBarrageStats = competitor.getGhostBarrageStats();
+
+		competitorOffPraySuccessIsGreater = fight.competitorOffPraySuccessIsGreater();
+		opponentOffPraySuccessIsGreater = fight.opponentOffPraySuccessIsGreater();
+		competitorDeservedDmgIsGreater = fight.competitorDeservedDmgIsGreater();
+		opponentDeservedDmgIsGreater = fight.opponentDeservedDmgIsGreater();
+		competitorDmgDealtIsGreater = fight.competitorDmgDealtIsGreater();
+		opponentDmgDealtIsGreater = fight.opponentDmgDealtIsGreater();
+		competitorMagicHitsLuckier = fight.competitorMagicHitsLuckier();
+		opponentMagicHitsLuckier = fight.opponentMagicHitsLuckier();
+
+		int cKoChances = 0;
+		double cSurvivalProb = 1.0; // chance the opponent survived every KO chance
+		Double cLastKoChance = null;
+		int oKoChances = 0;
+		double oSurvivalProb = 1.0;
+		Double oLastKoChance = null;
+		for (FightLogEntry log : fight.getAllFightLogEntries())
+		{
+			Double koChance = log.getKoChance();
+			if (koChance == null)
+			{
+				continue;
+			}
+
+			if (competitorName.equals(log.attackerName))
+			{
+				cKoChances++;
+				cSurvivalProb *= (1.0 - koChance);
+				cLastKoChance = koChance;
+			}
+			else
+			{
+				oKoChances++;
+				oSurvivalProb *= (1.0 - koChance);
+				oLastKoChance = koChance;
+			}
+		}
+
+		competitorKoChances = cKoChances;
+		competitorOverallKoProb = cKoChances > 0 ? 1.0 - cSurvivalProb : null;
+		competitorLastKoChance = cLastKoChance;
+		opponentKoChances = oKoChances;
+		opponentOverallKoProb = oKoChances > 0 ? 1.0 - oSurvivalProb : null;
+		opponentLastKoChance = oLastKoChance;
+	}
+
+	// Immutable copy of one Fighter's stats, with its display strings formatted against the other fighter.
+	@Getter
+	public static final class FighterStats
+	{
+		private final String name;
+		private final boolean dead;
+
+		private final int attackCount;
+		private final int offPraySuccessCount;
+		private final double offPraySuccessPercentage;
+		private final String offPrayStats;
+
+		private final double deservedDamage;
+		private final String deservedDmgString;
+		private final String deservedDmgDiffString; // only the difference vs the other fighter, 1 decimal
+		private final int damageDealt;
+		private final String dmgDealtString;
+		private final String dmgDealtDiffString;
+
+		private final int magicAttackCount;
+		private final int magicHitCount;
+		private final double magicHitCountDeserved;
+		private final String magicHitStats;
+
+		private final int offensivePraySuccessCount;
+		private final double offensivePraySuccessPercentage;
+		private final String offensivePrayStats;
+
+		private final int hpHealed;
+		private final int ghostBarrageCount;
+		private final double ghostBarrageDeservedDamage;
+		private final String ghostBarrageStats;
+
+		private FighterStats(Fighter fighter, Fighter other)
+		{
+			name = fighter.getName();
+			dead = fighter.isDead();
+
+			attackCount = fighter.getAttackCount();
+			offPraySuccessCount = fighter.getOffPraySuccessCount();
+			offPraySuccessPercentage = fighter.calculateOffPraySuccessPercentage();
+			offPrayStats = fighter.getOffPrayStats();
+
+			deservedDamage = fighter.getDeservedDamage();
+			deservedDmgString = fighter.getDeservedDmgString(other);
+			deservedDmgDiffString = fighter.getDeservedDmgString(other, 1, true);
+			damageDealt = fighter.getDamageDealt();
+			dmgDealtString = fighter.getDmgDealtString(other);
+			dmgDealtDiffString = fighter.getDmgDealtString(other, true);
+
+			magicAttackCount = fighter.getMagicAttackCount();
+			magicHitCount = fighter.getMagicHitCount();
+			magicHitCountDeserved = fighter.getMagicHitCountDeserved();
+			magicHitStats = fighter.getMagicHitStats();
+
+			offensivePraySuccessCount = fighter.getOffensivePraySuccessCount();
+			offensivePraySuccessPercentage = fighter.calculateOffensivePraySuccessPercentage();
+			offensivePrayStats = fighter.getOffensivePrayStats();
+
+			hpHealed = fighter.getHpHealed();
+			ghostBarrageCount = fighter.getGhostBarrageCount();
+			ghostBarrageDeservedDamage = fighter.getGhostBarrageDeservedDamage();
+			ghostBarrageStats = fighter.getGhostBarrageStats();
+		}
+	}
+}
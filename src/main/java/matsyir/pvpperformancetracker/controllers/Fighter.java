@@ -42,6 +42,7 @@ import matsyir.pvpperformancetracker.models.AnimationData;
 import matsyir.pvpperformancetracker.models.CombatLevels;
 import matsyir.pvpperformancetracker.models.EquipmentData;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.utils.TickBudgetMonitor;
 import net.runelite.api.Actor;
 import net.runelite.api.AnimationID;
 import net.runelite.api.HeadIcon;
@@ -123,6 +124,9 @@ class Fighter
 	@Getter
 	private transient Queue<FightLogEntry> pendingAttacks;
 
+	// range of HP this fighter can currently have, as a target. Only used during an ongoing fight.
+	private transient HpIntervalTracker hpTracker;
+
 	// fighter that is bound to a player and gets updated during a fight
 	Fighter(FightPerformance fight, Player player)
 	{
@@ -245,12 +249,17 @@ class Fighter
 
 		FightLogEntry fightLogEntry = new FightLogEntry(player, opponent, pvpDamageCalc, offensivePray, levels, animationData);
 		fightLogEntry.setGmaulSpecial(isGmaulSpec);
-		if (PvpPerformanceTrackerPlugin.CONFIG.fightLogInChat())
+		if (PvpPerformanceTrackerPlugin.CONFIG.fightLogInChat()
+			&& !PLUGIN.getLoadMonitor().isShedding(TickBudgetMonitor.Level.NO_CHAT_LOG))
 		{
 			PvpPerformanceTrackerPlugin.PLUGIN.sendChatMessage(fightLogEntry.toChatMessage());
 		}
 		fightLogEntries.add(fightLogEntry);
-		pendingAttacks.add(fightLogEntry);
+		// pending attacks are only used to match hitsplats for KO chances, which the lite profile skips.
+		if (!PLUGIN.isLiteTracking())
+		{
+			pendingAttacks.add(fightLogEntry);
+		}
 	}
 
 	// add an attack from fight log, without player references, for merging fight logs (fight analysis)
@@ -298,6 +307,13 @@ class Fighter
 		// ^^^ also so they could be used in fight analysis/merge. Unused params will be used for this
 	}
 
+	// used by the HistoryRecalculator, after the fight log entries' damage stats were recalculated.
+	void setRecalculatedTotals(double deservedDamage, double magicHitCountDeserved)
+	{
+		this.deservedDamage = deservedDamage;
+		this.magicHitCountDeserved = magicHitCountDeserved;
+	}
+
 	// used to manually build Fighters in AnalyzedFightPerformance.
 	public void setTotalGhostBarrageStats(int ghostBarrageCount, double ghostBarrageDeservedDamage)
 	{
@@ -321,6 +337,27 @@ class Fighter
 		this.ghostBarrageDeservedDamage += ghostBarrageDeservedDamage;
 	}
 
+	// get this fighter's HP tracker, creating it if needed. Also updates its max HP, which can change
+	// once a hiscore lookup completes.
+	public HpIntervalTracker getOrCreateHpTracker(int maxHpLevel)
+	{
+		if (hpTracker == null)
+		{
+			hpTracker = new HpIntervalTracker(maxHpLevel);
+		}
+		else
+		{
+			hpTracker.setMaxHpLevel(maxHpLevel);
+		}
+		return hpTracker;
+	}
+
+	// used by AnalyzedFightPerformance, to re-calculate merged attacks with item stats resolved ahead of time.
+	void setItemStatsSource(DamageCalcContext.ItemStatsSource itemStatsSource)
+	{
+		pvpDamageCalc.setItemStatsSource(itemStatsSource);
+	}
+
 	void addDamageDealt(int damage)
 	{
 		this.damageDealt += damage;
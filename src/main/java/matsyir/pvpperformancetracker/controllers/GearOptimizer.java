@@ -0,0 +1,655 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.models.FightType;
+import net.runelite.api.PlayerComposition;
+import net.runelite.api.kit.KitType;
+import net.runelite.client.game.ItemEquipmentStats;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemStats;
+
+// Suggests the best loadouts from the user's owned gear against a specific opponent, based on every fight
+// saved against them. For every weapon & attack animation the competitor used on them, the weapon & attack stay
+// the same, and every combination of owned armour/jewellery is ranked by its deserved damage (average hit),
+// averaged over all the gear the opponent was seen wearing while being attacked.
+//
+// To keep the search small enough to run interactively:
+// - item stats are resolved once (on the client thread) into a map that backs the damage calcs' ItemStatsSource
+// - within each slot, items that are dominated on the stats relevant to the attack style are pruned
+//   (unless they're part of a set effect, like void)
+// - if that's still too many combinations, the weakest items of the largest slots are left out, which is reported
+//   in the results since it can drop the best loadout (e.g. a set effect outweighing raw stats)
+// - each slot's candidate bonuses & every defender gear's bonuses are totalled once per search, so a combination
+//   only sums a few small vectors before running the damage calc on them
+// - the remaining combinations are evaluated in parallel on the search's own fork-join pool, each task keeping its own top-k
+//
+// Steps, and the thread they run on:
+// 1. (EDT) Request.fromFights: collect the attacks, opponent gear & levels from the fights
+// 2. (client) resolveItems: look up stats, slots & names through the ItemManager
+// 3. (any) optimize
+@Slf4j
+public class GearOptimizer
+{
+	public static final int TOP_K = 5;
+	// after pruning, the largest slots get trimmed further until there are at most this many combinations per attack
+	private static final int MAX_COMBINATIONS = 1_000_000;
+	private static final int COMBINATIONS_PER_TASK = 2048;
+
+	// searched slots. The weapon stays as recorded, and the ring & ammo come from the config.
+	private static final KitType[] SLOTS = {
+		KitType.HEAD, KitType.CAPE, KitType.AMULET, KitType.TORSO, KitType.SHIELD, KitType.LEGS, KitType.HANDS, KitType.BOOTS
+	};
+
+	// items that are worth more than their stats when worn together, so they're never pruned.
+	private static final Set<EquipmentData> SET_EFFECT_ITEMS = EnumSet.of(
+		EquipmentData.VOID_MAGE_HELM, EquipmentData.VOID_RANGE_HELM, EquipmentData.VOID_MELEE_HELM,
+		EquipmentData.VOID_ELITE_BODY, EquipmentData.VOID_ELITE_LEGS, EquipmentData.VOID_GLOVES,
+		EquipmentData.VOID_BODY, EquipmentData.VOID_LEGS,
+		EquipmentData.CRYSTAL_HELM, EquipmentData.CRYSTAL_BODY, EquipmentData.CRYSTAL_LEGS);
+
+	// Everything needed from the fights, copied so the search doesn't touch them again.
+	@Getter
+	public static class Request
+	{
+		private final int[] ownedItemIds;
+		private final List<Attack> attacks = new ArrayList<>();
+		private final List<int[]> defenderGears = new ArrayList<>();
+		private final List<Integer> defenderGearCounts = new ArrayList<>();
+		private final DamageCalcContext context;
+
+		private Request(int[] ownedItemIds, DamageCalcContext context)
+		{
+			this.ownedItemIds = ownedItemIds;
+			this.context = context;
+		}
+
+		// Collect what the competitor did against fight's opponent, in the given fight and every other fight against
+		// them in the list. Should be called from the thread that owns the fights (EDT for the fight history).
+		public static Request fromFights(FightPerformance fight, List<FightPerformance> fights, int[] ownedItemIds)
+		{
+			String opponentName = fight.getOpponent().getName();
+			List<FightPerformance> opponentFights = new ArrayList<>();
+			opponentFights.add(fight);
+			for (FightPerformance f : fights)
+			{
+				if (f != fight && f.getOpponent() != null && opponentName.equalsIgnoreCase(f.getOpponent().getName()))
+				{
+					opponentFights.add(f);
+				}
+			}
+
+			// fights from older versions or imports may not have a fight type, treat those as normal fights.
+			FightType fightType = fight.fightType == null ? FightType.NORMAL : fight.fightType;
+			// the opponent's own levels if they were recorded, otherwise assume the fight type's levels like PvpDamageCalc does.
+			CombatLevels attackerLevels = fightType.getCombatLevelsForType();
+			CombatLevels defenderLevels = null;
+			Map<AttackKey, Attack> attacks = new LinkedHashMap<>();
+			Map<List<Integer>, Integer> defenderGears = new LinkedHashMap<>();
+			for (FightPerformance f : opponentFights)
+			{
+				if (f.getCompetitor().getFightLogEntries() == null || f.getOpponent().getFightLogEntries() == null)
+				{
+					continue;
+				}
+
+				for (FightLogEntry entry : f.getOpponent().getFightLogEntries())
+				{
+					if (defenderLevels == null && entry.getAttackerLevels() != null)
+					{
+						defenderLevels = entry.getAttackerLevels();
+					}
+				}
+
+				for (FightLogEntry entry : f.getCompetitor().getFightLogEntries())
+				{
+					if (!entry.isFullEntry() || entry.getAttackerGear() == null || entry.getDefenderGear() == null ||
+						entry.getAttackerGear().length <= KitType.BOOTS.getIndex() || entry.getDefenderGear().length <= KitType.BOOTS.getIndex())
+					{
+						continue;
+					}
+
+					AttackKey key = new AttackKey(entry.getAttackerGear()[KitType.WEAPON.getIndex()], entry.getAnimationData());
+					attacks.putIfAbsent(key, new Attack(entry.getAnimationData(), entry.getAttackerGear().clone()));
+					defenderGears.merge(toList(entry.getDefenderGear()), 1, Integer::sum);
+				}
+			}
+
+			Request request = new Request(ownedItemIds, DamageCalcContext.fromConfig(fightType.isLmsFight(),
+				attackerLevels, defenderLevels != null ? defenderLevels : fightType.getCombatLevelsForType()));
+			request.attacks.addAll(attacks.values());
+			defenderGears.forEach((gear, count) ->
+			{
+				request.defenderGears.add(gear.stream().mapToInt(Integer::intValue).toArray());
+				request.defenderGearCounts.add(count);
+			});
+			return request;
+		}
+
+		// every item id the search can come across, in item id format (not player composition format).
+		Set<Integer> getAllItemIds()
+		{
+			Set<Integer> ids = new HashSet<>();
+			for (int id : ownedItemIds)
+			{
+				ids.add(id);
+			}
+			for (Attack attack : attacks)
+			{
+				addItemIds(ids, attack.recordedGear);
+			}
+			for (int[] gear : defenderGears)
+			{
+				addItemIds(ids, gear);
+			}
+			if (context.getRing() != null)
+			{
+				ids.add(context.getRing().getItemId());
+			}
+			return ids;
+		}
+
+		private static void addItemIds(Set<Integer> ids, int[] gear)
+		{
+			for (int item : gear)
+			{
+				if (item > PlayerComposition.ITEM_OFFSET)
+				{
+					ids.add(item - PlayerComposition.ITEM_OFFSET);
+				}
+			}
+		}
+
+		private static List<Integer> toList(int[] gear)
+		{
+			List<Integer> list = new ArrayList<>(gear.length);
+			for (int item : gear)
+			{
+				list.add(item);
+			}
+			return list;
+		}
+	}
+
+	// a weapon + attack animation the competitor used. The recorded gear fills any slot without owned items.
+	@Getter
+	public static class Attack
+	{
+		private final AnimationData animation;
+		private final int[] recordedGear;
+
+		Attack(AnimationData animation, int[] recordedGear)
+		{
+			this.animation = animation;
+			this.recordedGear = recordedGear;
+		}
+
+		public int getWeaponId()
+		{
+			int weapon = recordedGear[KitType.WEAPON.getIndex()];
+			return weapon > PlayerComposition.ITEM_OFFSET ? weapon - PlayerComposition.ITEM_OFFSET : weapon;
+		}
+	}
+
+	private static class AttackKey
+	{
+		private final int weapon;
+		private final AnimationData animation;
+
+		AttackKey(int weapon, AnimationData animation)
+		{
+			this.weapon = weapon;
+			this.animation = animation;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof AttackKey))
+			{
+				return false;
+			}
+			AttackKey other = (AttackKey)o;
+			return weapon == other.weapon && animation == other.animation;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return weapon * 31 + (animation == null ? 0 : animation.hashCode());
+		}
+	}
+
+	// Item stats, slots & names looked up through the ItemManager, keyed by item id.
+	@Getter
+	public static class ResolvedItems
+	{
+		private final Map<Integer, int[]> stats = new HashMap<>();
+		private final Map<Integer, Integer> slots = new HashMap<>();
+		private final Set<Integer> twoHanded = new HashSet<>();
+		private final Map<Integer, String> names = new HashMap<>();
+
+		public String getName(int itemId)
+		{
+			return names.getOrDefault(itemId, String.valueOf(itemId));
+		}
+
+		// same contract as the default item stats: a fresh copy, or null for unknown items.
+		int[] getItemStats(int itemId)
+		{
+			int[] itemStats = stats.get(itemId);
+			return itemStats == null ? null : itemStats.clone();
+		}
+	}
+
+	// Must be called from the client thread.
+	public static ResolvedItems resolveItems(Request request, ItemManager itemManager)
+	{
+		ResolvedItems items = new ResolvedItems();
+		for (int itemId : request.getAllItemIds())
+		{
+			int[] stats = PvpDamageCalc.getItemStats(itemId);
+			if (stats != null)
+			{
+				items.stats.put(itemId, stats);
+			}
+
+			// LMS copies have no stats of their own, use the real item's slot.
+			EquipmentData data = EquipmentData.fromId(itemId);
+			ItemStats itemStats = itemManager.getItemStats(itemId);
+			if ((itemStats == null || itemStats.getEquipment() == null) && data != null)
+			{
+				itemStats = itemManager.getItemStats(data.getItemId());
+			}
+			if (itemStats != null && itemStats.getEquipment() != null)
+			{
+				ItemEquipmentStats equipment = itemStats.getEquipment();
+				items.slots.put(itemId, equipment.getSlot());
+				if (equipment.isTwoHanded())
+				{
+					items.twoHanded.add(itemId);
+				}
+			}
+
+			items.names.put(itemId, itemManager.getItemComposition(itemId).getName());
+		}
+		return items;
+	}
+
+	@Getter
+	public static class Loadout
+	{
+		private final int[] gear; // player composition format, like FightLogEntry gear
+		private final double averageHit;
+		private final double accuracy;
+
+		Loadout(int[] gear, double averageHit, double accuracy)
+		{
+			this.gear = gear;
+			this.averageHit = averageHit;
+			this.accuracy = accuracy;
+		}
+	}
+
+	@Getter
+	public static class AttackResult
+	{
+		private final Attack attack;
+		private final List<Loadout> loadouts; // best first
+		private final int combinationsEvaluated;
+		// owned items left out of the search to stay under MAX_COMBINATIONS, in item id format
+		private final List<Integer> trimmedItemIds;
+
+		AttackResult(Attack attack, List<Loadout> loadouts, int combinationsEvaluated, List<Integer> trimmedItemIds)
+		{
+			this.attack = attack;
+			this.loadouts = loadouts;
+			this.combinationsEvaluated = combinationsEvaluated;
+			this.trimmedItemIds = trimmedItemIds;
+		}
+	}
+
+	// Rank loadouts for every attack in the request. Safe to call from any thread, blocks until done.
+	// The search runs on its own fork-join pool, which is shut down afterwards.
+	public static List<AttackResult> optimize(Request request, ResolvedItems items)
+	{
+		long start = System.nanoTime();
+		DamageCalcContext ctx = request.getContext().withItemStatsSource(items::getItemStats);
+		double totalWeight = request.getDefenderGearCounts().stream().mapToInt(Integer::intValue).sum();
+
+		// the defenders' bonuses don't depend on the searched gear, total them once for every attack.
+		int[][] defenderBonuses = new int[request.getDefenderGears().size()][];
+		for (int d = 0; d < defenderBonuses.length; d++)
+		{
+			defenderBonuses[d] = PvpDamageCalc.calculateBonuses(request.getDefenderGears().get(d), ctx.getRing(), ctx.getItemStatsSource());
+		}
+
+		ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+		try
+		{
+			List<AttackResult> results = new ArrayList<>();
+			for (Attack attack : request.getAttacks())
+			{
+				List<Integer> trimmedItemIds = new ArrayList<>();
+				int[][] candidates = getCandidates(attack, request.getOwnedItemIds(), items, trimmedItemIds);
+				int combinations = 1;
+				for (int[] slotCandidates : candidates)
+				{
+					combinations *= slotCandidates.length;
+				}
+
+				Search search = new Search(ctx, attack, candidates, items, defenderBonuses, request.getDefenderGearCounts(), totalWeight);
+				List<Loadout> best = pool.invoke(new SearchTask(search, 0, combinations));
+				results.add(new AttackResult(attack, best, combinations, trimmedItemIds));
+			}
+
+			log.debug("Optimized {} attacks in {}ms", results.size(), (System.nanoTime() - start) / 1_000_000);
+			return results;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	// the options for every searched slot, in player composition format, after pruning.
+	// Owned items left out to limit the search are added to trimmedItemIds.
+	private static int[][] getCandidates(Attack attack, int[] ownedItemIds, ResolvedItems items, List<Integer> trimmedItemIds)
+	{
+		int[] relevantStats = getRelevantStats(attack.getAnimation());
+		boolean twoHanded = items.getTwoHanded().contains(attack.getWeaponId());
+
+		List<List<Integer>> candidates = new ArrayList<>();
+		for (KitType slot : SLOTS)
+		{
+			List<Integer> slotItems = new ArrayList<>();
+			if (!(twoHanded && slot == KitType.SHIELD))
+			{
+				for (int itemId : ownedItemIds)
+				{
+					Integer itemSlot = items.getSlots().get(itemId);
+					if (itemSlot != null && itemSlot == slot.getIndex() && !slotItems.contains(itemId))
+					{
+						slotItems.add(itemId);
+					}
+				}
+			}
+
+			List<Integer> slotCandidates = new ArrayList<>();
+			if (slotItems.isEmpty())
+			{
+				slotCandidates.add(attack.getRecordedGear()[slot.getIndex()]);
+			}
+			else
+			{
+				for (int itemId : prune(slotItems, relevantStats, items))
+				{
+					slotCandidates.add(itemId + PlayerComposition.ITEM_OFFSET);
+				}
+			}
+			candidates.add(slotCandidates);
+		}
+
+		trimToMaxCombinations(candidates, relevantStats, items, trimmedItemIds);
+
+		int[][] result = new int[candidates.size()][];
+		for (int i = 0; i < result.length; i++)
+		{
+			result[i] = candidates.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+		return result;
+	}
+
+	// the equipment bonuses that affect the damage of the given attack, in PvpDamageCalc's stat order.
+	private static int[] getRelevantStats(AnimationData animation)
+	{
+		switch (animation.attackStyle)
+		{
+			case STAB: return new int[] { 0, 10 };
+			case SLASH: return new int[] { 1, 10 };
+			case CRUSH: return new int[] { 2, 10 };
+			case RANGED: return new int[] { 4, 11, 10 }; // strength for the atlatl
+			case MAGIC: return new int[] { 3, 12 };
+			default: return new int[0];
+		}
+	}
+
+	// remove items that are at best equal to another item on every relevant stat (keeping the first of equal items).
+	private static List<Integer> prune(List<Integer> slotItems, int[] relevantStats, ResolvedItems items)
+	{
+		List<Integer> kept = new ArrayList<>();
+		for (int i = 0; i < slotItems.size(); i++)
+		{
+			int itemId = slotItems.get(i);
+			if (SET_EFFECT_ITEMS.contains(EquipmentData.fromId(itemId)))
+			{
+				kept.add(itemId);
+				continue;
+			}
+
+			boolean dominated = false;
+			for (int j = 0; j < slotItems.size() && !dominated; j++)
+			{
+				if (i != j)
+				{
+					int cmp = compareStats(items.getStats().get(slotItems.get(j)), items.getStats().get(itemId), relevantStats);
+					dominated = cmp > 0 || (cmp == 0 && j < i);
+				}
+			}
+
+			if (!dominated)
+			{
+				kept.add(itemId);
+			}
+		}
+		return kept;
+	}
+
+	// 1 if a dominates b, 0 if they're equal, -1 otherwise. Unknown stats count as all 0.
+	private static int compareStats(int[] a, int[] b, int[] relevantStats)
+	{
+		boolean better = false;
+		for (int stat : relevantStats)
+		{
+			int aStat = a == null ? 0 : a[stat];
+			int bStat = b == null ? 0 : b[stat];
+			if (aStat < bStat)
+			{
+				return -1;
+			}
+			better |= aStat > bStat;
+		}
+		return better ? 1 : 0;
+	}
+
+	// drop the weakest remaining items from the largest slot until the search is small enough.
+	// The summed relevant stats don't account for set effects, so dropped items are reported in trimmedItemIds.
+	private static void trimToMaxCombinations(List<List<Integer>> candidates, int[] relevantStats, ResolvedItems items, List<Integer> trimmedItemIds)
+	{
+		Comparator<Integer> byRelevantStats = Comparator.comparingInt(compositionId ->
+		{
+			int[] stats = items.getStats().get(compositionId - PlayerComposition.ITEM_OFFSET);
+			int sum = 0;
+			for (int stat : relevantStats)
+			{
+				sum += stats == null ? 0 : stats[stat];
+			}
+			return sum;
+		});
+
+		long combinations = candidates.stream().mapToLong(List::size).reduce(1, (a, b) -> a * b);
+		while (combinations > MAX_COMBINATIONS)
+		{
+			List<Integer> largest = Collections.max(candidates, Comparator.comparingInt(List::size));
+			largest.sort(byRelevantStats.reversed());
+			trimmedItemIds.add(largest.remove(largest.size() - 1) - PlayerComposition.ITEM_OFFSET);
+			combinations = candidates.stream().mapToLong(List::size).reduce(1, (a, b) -> a * b);
+		}
+	}
+
+	// shared, read-only state of one attack's search.
+	private static class Search
+	{
+		private final DamageCalcContext ctx;
+		private final Attack attack;
+		private final int[][] candidates;
+		// candidateBonuses[slot][candidate] = that item's bonuses, all 0 for unknown items
+		private final int[][][] candidateBonuses;
+		// the bonuses of everything that isn't searched: the ring, weapon & other recorded slots
+		private final int[] baseBonuses;
+		private final int[][] defenderBonuses;
+		private final double[] defenderWeights;
+
+		Search(DamageCalcContext ctx, Attack attack, int[][] candidates, ResolvedItems items, int[][] defenderBonuses,
+			List<Integer> defenderGearCounts, double totalWeight)
+		{
+			this.ctx = ctx;
+			this.attack = attack;
+			this.candidates = candidates;
+			this.defenderBonuses = defenderBonuses;
+			this.defenderWeights = new double[defenderGearCounts.size()];
+			for (int i = 0; i < defenderWeights.length; i++)
+			{
+				defenderWeights[i] = defenderGearCounts.get(i) / totalWeight;
+			}
+
+			int[] unsearchedGear = attack.getRecordedGear().clone();
+			candidateBonuses = new int[SLOTS.length][][];
+			for (int s = 0; s < SLOTS.length; s++)
+			{
+				unsearchedGear[SLOTS[s].getIndex()] = 0;
+				candidateBonuses[s] = new int[candidates[s].length][];
+				for (int c = 0; c < candidates[s].length; c++)
+				{
+					int[] stats = candidates[s][c] > PlayerComposition.ITEM_OFFSET ?
+						items.getStats().get(candidates[s][c] - PlayerComposition.ITEM_OFFSET) : null;
+					candidateBonuses[s][c] = stats != null ? stats : new int[ItemStatsTable.STAT_COUNT];
+				}
+			}
+			baseBonuses = PvpDamageCalc.calculateBonuses(unsearchedGear, ctx.getRing(), ctx.getItemStatsSource());
+		}
+
+		// write the given combination into gear and its total bonuses into bonuses.
+		// slots are used as digits of a mixed radix number.
+		void decode(int combination, int[] gear, int[] bonuses)
+		{
+			System.arraycopy(baseBonuses, 0, bonuses, 0, bonuses.length);
+			for (int s = 0; s < SLOTS.length; s++)
+			{
+				int[] slotCandidates = candidates[s];
+				int candidate = combination % slotCandidates.length;
+				gear[SLOTS[s].getIndex()] = slotCandidates[candidate];
+				int[] candidateStats = candidateBonuses[s][candidate];
+				for (int i = 0; i < bonuses.length; i++)
+				{
+					bonuses[i] += candidateStats[i];
+				}
+				combination /= slotCandidates.length;
+			}
+		}
+	}
+
+	private static class SearchTask extends RecursiveTask<List<Loadout>>
+	{
+		private final Search search;
+		private final int from;
+		private final int to;
+
+		SearchTask(Search search, int from, int to)
+		{
+			this.search = search;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<Loadout> compute()
+		{
+			if (to - from > COMBINATIONS_PER_TASK)
+			{
+				int mid = (from + to) >>> 1;
+				SearchTask left = new SearchTask(search, from, mid);
+				left.fork();
+				List<Loadout> best = new SearchTask(search, mid, to).compute();
+				best.addAll(left.join());
+				return topK(best);
+			}
+
+			// min-heap of the best loadouts so far, the worst one is on top to be replaced.
+			PriorityQueue<Loadout> best = new PriorityQueue<>(TOP_K + 1, Comparator.comparingDouble(Loadout::getAverageHit));
+			int[] gear = search.attack.getRecordedGear().clone();
+			int[] bonuses = new int[ItemStatsTable.STAT_COUNT];
+			for (int combination = from; combination < to; combination++)
+			{
+				search.decode(combination, gear, bonuses);
+
+				double averageHit = 0;
+				double accuracy = 0;
+				for (int d = 0; d < search.defenderBonuses.length; d++)
+				{
+					DamageCalcResult result = PvpDamageCalc.calculateWithBonuses(search.ctx, gear, bonuses, search.defenderBonuses[d],
+						search.attack.getAnimation(), true, true, false);
+					averageHit += result.getAverageHit() * search.defenderWeights[d];
+					accuracy += result.getAccuracy() * search.defenderWeights[d];
+				}
+
+				if (best.size() < TOP_K || averageHit > best.peek().getAverageHit())
+				{
+					best.add(new Loadout(gear.clone(), averageHit, accuracy));
+					if (best.size() > TOP_K)
+					{
+						best.poll();
+					}
+				}
+			}
+			return topK(new ArrayList<>(best));
+		}
+
+		private static List<Loadout> topK(List<Loadout> loadouts)
+		{
+			loadouts.sort(Comparator.comparingDouble(Loadout::getAverageHit).reversed());
+			return new ArrayList<>(loadouts.subList(0, Math.min(TOP_K, loadouts.size())));
+		}
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.models.FightType;
+import matsyir.pvpperformancetracker.utils.DamageDistribution;
+import net.runelite.api.PlayerComposition;
+
+// Recalculates deserved damage, accuracy & hit ranges of every saved fight, using the current gear/ammo/level config.
+// The calculations run in a fork-join pool using PvpDamageCalc's stateless calculate(), and nothing is modified
+// until every fight is done: the new values are then all applied at once on the client thread.
+// Starting a new recalculation cancels the previous one.
+//
+// Steps, and the thread they run on:
+// 1. (pool) collect the ids of any items that aren't in the ItemStatsTable
+// 2. (client) resolve those through the ItemManager, which isn't safe to use from the pool
+// 3. (pool) recalculate every fight into separate results
+// 4. (client) apply the results to the fights
+@Slf4j
+public class HistoryRecalculator
+{
+	// fights per fork-join leaf task. Fights have ~20-100 attacks each so this is plenty of work per task.
+	private static final int FIGHTS_PER_TASK = 8;
+
+	public interface Listener
+	{
+		// called from pool threads, at most ~100 times per recalculation
+		void onProgress(int fightsDone, int totalFights);
+		// called from the client thread, after the results were applied
+		void onFinished(int totalFights, long elapsedMs);
+	}
+
+	private final ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	private final Executor clientThread;
+	private Job currentJob;
+
+	public HistoryRecalculator(Executor clientThread)
+	{
+		this.clientThread = clientThread;
+	}
+
+	// Start recalculating the given fights. The contexts are built right away from the current config.
+	public synchronized void start(List<FightPerformance> fights, Listener listener)
+	{
+		cancel();
+
+		Map<FightType, DamageCalcContext> contexts = new EnumMap<>(FightType.class);
+		for (FightType type : FightType.values())
+		{
+			contexts.put(type, DamageCalcContext.fromConfig(type.isLmsFight(), type.getCombatLevelsForType(), type.getCombatLevelsForType()));
+		}
+
+		currentJob = new Job(new ArrayList<>(fights), contexts, listener);
+		pool.execute(currentJob::collectMissingItems);
+	}
+
+	public synchronized void cancel()
+	{
+		if (currentJob != null)
+		{
+			currentJob.cancelled = true;
+			currentJob = null;
+		}
+	}
+
+	public synchronized boolean isRunning()
+	{
+		return currentJob != null;
+	}
+
+	public void shutDown()
+	{
+		cancel();
+		pool.shutdownNow();
+	}
+
+	private synchronized void finish(Job job)
+	{
+		if (currentJob == job)
+		{
+			currentJob = null;
+		}
+	}
+
+	// Recalculate a fighter's attacks into results (one per entry, null for entries that can't be recalculated).
+	// Accounts for them exactly like the live tracking (Fighter.addAttack) does, so recalculating under an unchanged
+	// config leaves everything as it was. Returns { deservedDamage, magicHitCountDeserved }.
+	static double[] recalculateEntries(FightType type, DamageCalcContext ctx, List<FightLogEntry> entries, DamageCalcResult[] results)
+	{
+		double deservedDamage = 0;
+		double magicHitCountDeserved = 0;
+		for (int i = 0; i < results.length; i++)
+		{
+			FightLogEntry entry = entries.get(i);
+			if (!entry.isFullEntry() || entry.getAttackerGear() == null || entry.getDefenderGear() == null)
+			{
+				continue;
+			}
+
+			// same parameters as the live tracking: prayers aren't checked, they're assumed to be correct.
+			// gmaul specs are a single attack there too, no matter how many hitsplats they matched.
+			DamageCalcResult result = LmsCalcTable.calculate(type, ctx, entry.getAttackerGear(), entry.getDefenderGear(),
+				entry.getAnimationData(), entry.success(), true, false);
+
+			results[i] = result;
+			deservedDamage += result.getAverageHit();
+			if (entry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC)
+			{
+				magicHitCountDeserved += result.getAccuracy();
+			}
+		}
+
+		return new double[] { deservedDamage, magicHitCountDeserved };
+	}
+
+	// new values for a single fight, kept separate from the fight until everything is done.
+	private static final class RecalculatedFight
+	{
+		private final FightPerformance fight;
+		private final DamageCalcResult[] competitorResults;
+		private final DamageCalcResult[] opponentResults;
+		private double competitorDeservedDamage = 0;
+		private double competitorMagicHitCountDeserved = 0;
+		private double opponentDeservedDamage = 0;
+		private double opponentMagicHitCountDeserved = 0;
+		private Double competitorLuckPercentile;
+		private Double opponentLuckPercentile;
+
+		private RecalculatedFight(FightPerformance fight)
+		{
+			this.fight = fight;
+			this.competitorResults = new DamageCalcResult[fight.getCompetitor().getFightLogEntries().size()];
+			this.opponentResults = new DamageCalcResult[fight.getOpponent().getFightLogEntries().size()];
+		}
+	}
+
+	private class Job
+	{
+		private final List<FightPerformance> fights;
+		private final Map<FightType, DamageCalcContext> contexts;
+		private final Listener listener;
+		private final RecalculatedFight[] results;
+		private final AtomicInteger fightsDone = new AtomicInteger();
+		private final int progressStep;
+		private final long startTime = System.currentTimeMillis();
+		private volatile boolean cancelled = false;
+
+		private Job(List<FightPerformance> fights, Map<FightType, DamageCalcContext> contexts, Listener listener)
+		{
+			this.fights = fights;
+			this.contexts = contexts;
+			this.listener = listener;
+			this.results = new RecalculatedFight[fights.size()];
+			this.progressStep = Math.max(1, fights.size() / 100);
+		}
+
+		private void collectMissingItems()
+		{
+			Set<Integer> missing = new HashSet<>();
+			for (FightPerformance fight : fights)
+			{
+				if (cancelled) { return; }
+				for (FightLogEntry entry : fight.getAllFightLogEntries())
+				{
+					if (!entry.isFullEntry())
+					{
+						continue;
+					}
+					addMissingItems(entry.getAttackerGear(), missing);
+					addMissingItems(entry.getDefenderGear(), missing);
+				}
+			}
+			for (DamageCalcContext ctx : contexts.values())
+			{
+				if (ctx.getRing() != null && ItemStatsTable.get(ctx.getRing().getItemId()) == null)
+				{
+					missing.add(ctx.getRing().getItemId());
+				}
+			}
+
+			clientThread.execute(() -> resolveMissingItems(missing));
+		}
+
+		private void addMissingItems(int[] gear, Set<Integer> missing)
+		{
+			if (gear == null)
+			{
+				return;
+			}
+
+			for (int item : gear)
+			{
+				int itemId = item - PlayerComposition.ITEM_OFFSET;
+				if (item > PlayerComposition.ITEM_OFFSET && !missing.contains(itemId) && ItemStatsTable.get(itemId) == null)
+				{
+					missing.add(itemId);
+				}
+			}
+		}
+
+		private void resolveMissingItems(Set<Integer> missing)
+		{
+			if (cancelled) { return; }
+
+			Map<Integer, int[]> resolved = new HashMap<>();
+			for (int itemId : missing)
+			{
+				int[] stats = PvpDamageCalc.getItemStats(itemId);
+				if (stats != null)
+				{
+					resolved.put(itemId, stats);
+				}
+			}
+
+			// only read from here on, by the pool threads.
+			DamageCalcContext.ItemStatsSource itemStats = itemId ->
+			{
+				int[] stats = ItemStatsTable.get(itemId);
+				if (stats != null)
+				{
+					return stats;
+				}
+				int[] resolvedStats = resolved.get(itemId);
+				return resolvedStats == null ? null : resolvedStats.clone();
+			};
+
+			pool.execute(new RecursiveAction()
+			{
+				@Override
+				protected void compute()
+				{
+					invokeAll(new FightRange(itemStats, 0, fights.size()));
+					if (!cancelled)
+					{
+						clientThread.execute(Job.this::apply);
+					}
+				}
+			});
+		}
+
+		private void recalculate(DamageCalcContext.ItemStatsSource itemStats, int index)
+		{
+			FightPerformance fight = fights.get(index);
+			if (fight.getCompetitor().getFightLogEntries() == null || fight.getOpponent().getFightLogEntries() == null)
+			{
+				reportProgress(fightsDone.incrementAndGet());
+				return;
+			}
+
+			FightType type = fight.fightType == null ? FightType.NORMAL : fight.fightType;
+			DamageCalcContext base = contexts.get(type);
+			DamageCalcContext ctx = new DamageCalcContext(base.getRing(), base.getBoltChoice(), base.getStrongBoltChoice(),
+				base.getBpDartChoice(), base.isLmsFight(), base.getAttackerLevels(), base.getDefenderLevels(), itemStats);
+
+			RecalculatedFight result = new RecalculatedFight(fight);
+			double[] competitorTotals = recalculateEntries(type, ctx, fight.getCompetitor().getFightLogEntries(), result.competitorResults);
+			double[] opponentTotals = recalculateEntries(type, ctx, fight.getOpponent().getFightLogEntries(), result.opponentResults);
+			result.competitorDeservedDamage = competitorTotals[0];
+			result.competitorMagicHitCountDeserved = competitorTotals[1];
+			result.opponentDeservedDamage = opponentTotals[0];
+			result.opponentMagicHitCountDeserved = opponentTotals[1];
+			// the luck percentiles depend on the recalculated hit ranges & accuracy, so they're recalculated too.
+			result.competitorLuckPercentile = luckPercentile(fight.getCompetitor().getFightLogEntries(), result.competitorResults);
+			result.opponentLuckPercentile = luckPercentile(fight.getOpponent().getFightLogEntries(), result.opponentResults);
+			results[index] = result;
+
+			reportProgress(fightsDone.incrementAndGet());
+		}
+
+		private Double luckPercentile(List<FightLogEntry> entries, DamageCalcResult[] results)
+		{
+			List<double[]> pmfs = new ArrayList<>();
+			int damage = FightPerformance.collectLuckInputs(entries, results, pmfs);
+			return DamageDistribution.cumulativeProbability(pmfs, damage);
+		}
+
+		private void reportProgress(int done)
+		{
+			if (done % progressStep == 0 || done == fights.size())
+			{
+				listener.onProgress(done, fights.size());
+			}
+		}
+
+		private void apply()
+		{
+			if (cancelled) { return; }
+
+			for (RecalculatedFight result : results)
+			{
+				if (result == null)
+				{
+					continue;
+				}
+
+				Fighter competitor = result.fight.getCompetitor();
+				Fighter opponent = result.fight.getOpponent();
+				// the fight could have been modified in the meantime, shouldn't happen for saved fights but just in case.
+				if (competitor.getFightLogEntries().size() != result.competitorResults.length
+					|| opponent.getFightLogEntries().size() != result.opponentResults.length)
+				{
+					continue;
+				}
+
+				applyFighter(competitor, result.competitorResults);
+				applyFighter(opponent, result.opponentResults);
+				competitor.setRecalculatedTotals(result.competitorDeservedDamage, result.competitorMagicHitCountDeserved);
+				opponent.setRecalculatedTotals(result.opponentDeservedDamage, result.opponentMagicHitCountDeserved);
+				result.fight.setLuckPercentiles(result.competitorLuckPercentile, result.opponentLuckPercentile);
+				result.fight.publishStatsSnapshot();
+			}
+
+			finish(this);
+			listener.onFinished(results.length, System.currentTimeMillis() - startTime);
+		}
+
+		private void applyFighter(Fighter fighter, DamageCalcResult[] results)
+		{
+			List<FightLogEntry> entries = fighter.getFightLogEntries();
+			for (int i = 0; i < results.length; i++)
+			{
+				if (results[i] != null)
+				{
+					entries.get(i).setDamageStats(results[i]);
+				}
+			}
+		}
+
+		private class FightRange extends RecursiveAction
+		{
+			private final DamageCalcContext.ItemStatsSource itemStats;
+			private final int from;
+			private final int to;
+
+			private FightRange(DamageCalcContext.ItemStatsSource itemStats, int from, int to)
+			{
+				this.itemStats = itemStats;
+				this.from = from;
+				this.to = to;
+			}
+
+			@Override
+			protected void compute()
+			{
+				if (cancelled)
+				{
+					return;
+				}
+
+				if (to - from <= FIGHTS_PER_TASK)
+				{
+					for (int i = from; i < to && !cancelled; i++)
+					{
+						recalculate(itemStats, i);
+					}
+					return;
+				}
+
+				int mid = (from + to) >>> 1;
+				invokeAll(new FightRange(itemStats, from, mid), new FightRange(itemStats, mid, to));
+			}
+		}
+	}
+}
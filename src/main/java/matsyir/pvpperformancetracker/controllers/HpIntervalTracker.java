@@ -0,0 +1,155 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.Arrays;
+import lombok.Getter;
+import matsyir.pvpperformancetracker.utils.PvpPerformanceTrackerUtils;
+
+// Tracks the range of HP a fighter can currently have, [minHp, maxHp], during an ongoing fight.
+// Every hitsplat, heal & health bar sample updates it in constant time: hits and heals shift the range,
+// while health bar samples narrow it down. It also keeps the net damage at the start/end of the last
+// few ticks, so the HP before a past tick's hits can be projected back from the current range, which
+// benefits from every sample taken since.
+// Only used from the client thread.
+public class HpIntervalTracker
+{
+	private static final int HISTORY_TICKS = 8;
+
+	@Getter
+	private int maxHpLevel;
+	@Getter
+	private int minHp;
+	@Getter
+	private int maxHp;
+
+	private long netDamage = 0; // total damage taken minus heals, since the tracker was created
+	private final int[] historyTicks = new int[HISTORY_TICKS];
+	private final long[] netDamageAtTickStart = new long[HISTORY_TICKS];
+	private final long[] netDamageAtTickEnd = new long[HISTORY_TICKS];
+
+	HpIntervalTracker(int maxHpLevel)
+	{
+		this.maxHpLevel = maxHpLevel;
+		// nothing known yet, only that they're alive
+		this.minHp = 1;
+		this.maxHp = maxHpLevel;
+		Arrays.fill(historyTicks, -1);
+	}
+
+	// the max HP can change once a hiscore lookup completes. Keep what we know, clamped to the new max.
+	void setMaxHpLevel(int maxHpLevel)
+	{
+		if (maxHpLevel <= 0 || maxHpLevel == this.maxHpLevel)
+		{
+			return;
+		}
+
+		// if we didn't know anything yet, widen the range to the new max too
+		boolean unknown = maxHp == this.maxHpLevel;
+		this.maxHpLevel = maxHpLevel;
+		maxHp = unknown ? maxHpLevel : Math.min(maxHp, maxHpLevel);
+		minHp = Math.min(minHp, maxHp);
+	}
+
+	public void onHit(int tick, int amount)
+	{
+		int slot = markTick(tick);
+		netDamage += amount;
+		netDamageAtTickEnd[slot] = netDamage;
+		minHp = Math.max(0, minHp - amount);
+		maxHp = Math.max(0, maxHp - amount);
+	}
+
+	public void onHeal(int tick, int amount)
+	{
+		int slot = markTick(tick);
+		netDamage -= amount;
+		netDamageAtTickEnd[slot] = netDamage;
+		minHp = Math.min(maxHpLevel, minHp + amount);
+		maxHp = Math.min(maxHpLevel, maxHp + amount);
+	}
+
+	// exact HP is known, e.g. for the local player.
+	public void onExactHp(int hp)
+	{
+		minHp = hp;
+		maxHp = hp;
+	}
+
+	// narrow the range using a health bar sample that reflects the HP after all of afterTick's hits.
+	// if the sample doesn't fit the current range (e.g. they ate), the range is reset to the sample.
+	public void onHealthSample(int ratio, int scale, int afterTick)
+	{
+		int[] sampleRange = PvpPerformanceTrackerUtils.getHpRangeFromHealthBar(ratio, scale, maxHpLevel);
+		if (sampleRange == null)
+		{
+			return;
+		}
+
+		// shift the sample by anything that was applied since it was taken
+		int slot = Math.floorMod(afterTick, HISTORY_TICKS);
+		long damageSince = historyTicks[slot] == afterTick ? netDamage - netDamageAtTickEnd[slot] : 0;
+		int sampleMin = (int)Math.max(0, sampleRange[0] - damageSince);
+		int sampleMax = (int)Math.max(0, sampleRange[1] - damageSince);
+
+		int newMin = Math.max(minHp, sampleMin);
+		int newMax = Math.min(maxHp, sampleMax);
+		if (newMin > newMax)
+		{
+			newMin = sampleMin;
+			newMax = sampleMax;
+		}
+		minHp = newMin;
+		maxHp = newMax;
+	}
+
+	// estimated HP right before the first hit of the given tick, or null if it's no longer in the history.
+	public Integer getEstimatedHpBeforeTick(int tick)
+	{
+		int slot = Math.floorMod(tick, HISTORY_TICKS);
+		if (historyTicks[slot] != tick)
+		{
+			return null;
+		}
+
+		long damageSince = netDamage - netDamageAtTickStart[slot];
+		long min = Math.min(maxHpLevel, minHp + damageSince);
+		long max = Math.min(maxHpLevel, maxHp + damageSince);
+		return (int)((min + max + 1) / 2);
+	}
+
+	private int markTick(int tick)
+	{
+		int slot = Math.floorMod(tick, HISTORY_TICKS);
+		if (historyTicks[slot] != tick)
+		{
+			historyTicks[slot] = tick;
+			netDamageAtTickStart[slot] = netDamage;
+			netDamageAtTickEnd[slot] = netDamage;
+		}
+		return slot;
+	}
+}
@@ -0,0 +1,331 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.RangeAmmoData;
+import matsyir.pvpperformancetracker.models.RingData;
+
+// Pre-resolved equipment stats for every item the plugin knows about (EquipmentData, including all
+// of their additional ids, rings & ammo), so that the first attacks of a fight don't have to go
+// through the ItemManager & EquipmentData fallback lookups.
+//
+// Stored as a sorted id array + one flat stats array (STAT_COUNT ints per item), which is swapped in
+// all at once when warmUp() completes. Until then, get() simply returns null and callers do the
+// regular lookup.
+//
+// A copy of the table can also be bundled as a binary resource (RESOURCE_NAME), which is loaded without
+// needing the ItemManager. That lets the damage calc run offline (batch jobs, benchmarks...): without a plugin,
+// the first get() loads it. In the client, it's used as the initial table until the live warm-up replaces it. When both are available, differences between them are
+// logged so the resource can be regenerated. The resource is generated from RuneLite's item stats json by the
+// dev-only ItemStatsTableGenerator (gradle generateItemStats), using the same item list as the warm-up.
+// Items missing from the resource are simply left to the live lookup, and reported by the drift check.
+//
+// Resource format (big-endian): int magic, int format version, int stat count, int item count,
+// then for each item: int itemId followed by STAT_COUNT ints.
+@Slf4j
+public class ItemStatsTable
+{
+	public static final int STAT_COUNT = 13;
+	public static final String RESOURCE_NAME = "/item_stats.bin";
+	private static final int RESOURCE_MAGIC = 0x50505354; // "PPST"
+	private static final int RESOURCE_VERSION = 1;
+
+	private static final class Table
+	{
+		private final int[] ids;
+		private final int[] stats;
+
+		private Table(int[] ids, int[] stats)
+		{
+			this.ids = ids;
+			this.stats = stats;
+		}
+	}
+
+	private static volatile Table table = null;
+	private static volatile Table bundledTable = null;
+	private static volatile boolean bundledLoadAttempted = false;
+
+	// Load the bundled stats resource if there is one. Doesn't need the client, so it can be called from any thread.
+	// If the live table wasn't warmed up yet, the bundled one is used in the meantime.
+	public static synchronized void loadBundled()
+	{
+		if (bundledTable != null || bundledLoadAttempted)
+		{
+			return;
+		}
+		bundledLoadAttempted = true;
+
+		try (InputStream in = ItemStatsTable.class.getResourceAsStream(RESOURCE_NAME))
+		{
+			if (in == null)
+			{
+				log.debug("No bundled item stats resource found");
+				return;
+			}
+
+			loadBundled(in);
+		}
+		catch (IOException e)
+		{
+			log.warn("Could not load bundled item stats, ignoring them", e);
+		}
+	}
+
+	// Load item stats in the resource format as the bundled table, and use them until the live table is ready.
+	static synchronized void loadBundled(InputStream in) throws IOException
+	{
+		Table previousBundled = bundledTable;
+		bundledTable = read(in);
+		if (table == null || table == previousBundled)
+		{
+			table = bundledTable;
+			LmsCalcTable.clear();
+		}
+		log.debug("Loaded bundled item stats for {} items", bundledTable.ids.length);
+	}
+
+	private static Table read(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != RESOURCE_MAGIC)
+		{
+			throw new IOException("Invalid item stats resource");
+		}
+		int version = data.readInt();
+		int statCount = data.readInt();
+		if (version != RESOURCE_VERSION || statCount != STAT_COUNT)
+		{
+			throw new IOException("Unsupported item stats resource version " + version + " with " + statCount + " stats");
+		}
+
+		int count = data.readInt();
+		int[] ids = new int[count];
+		int[] stats = new int[count * STAT_COUNT];
+		for (int i = 0; i < count; i++)
+		{
+			ids[i] = data.readInt();
+			if (i > 0 && ids[i] <= ids[i - 1])
+			{
+				throw new IOException("Item stats resource ids are not sorted");
+			}
+			for (int j = 0; j < STAT_COUNT; j++)
+			{
+				stats[i * STAT_COUNT + j] = data.readInt();
+			}
+		}
+
+		return new Table(ids, stats);
+	}
+
+	// Write stats for every known item in the resource format, to regenerate the bundled resource.
+	// The lookup gives the stats for a single item id, like PvpDamageCalc.lookupItemStats.
+	public static void writeResource(OutputStream outputStream, IntFunction<int[]> lookup) throws IOException
+	{
+		Table t = build(lookup);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+		out.writeInt(RESOURCE_MAGIC);
+		out.writeInt(RESOURCE_VERSION);
+		out.writeInt(STAT_COUNT);
+		out.writeInt(t.ids.length);
+		for (int i = 0; i < t.ids.length; i++)
+		{
+			out.writeInt(t.ids[i]);
+			for (int j = 0; j < STAT_COUNT; j++)
+			{
+				out.writeInt(t.stats[i * STAT_COUNT + j]);
+			}
+		}
+		out.flush();
+	}
+
+	// Log every item whose live stats don't match the bundled resource. Returns the amount of differences.
+	private static int reportDrift(Table live, Table bundled)
+	{
+		int drift = 0;
+		for (int i = 0; i < live.ids.length; i++)
+		{
+			int bundledIndex = Arrays.binarySearch(bundled.ids, live.ids[i]);
+			if (bundledIndex < 0)
+			{
+				log.debug("Item {} is missing from the bundled item stats", live.ids[i]);
+				drift++;
+				continue;
+			}
+
+			if (!Arrays.equals(live.stats, i * STAT_COUNT, (i + 1) * STAT_COUNT,
+				bundled.stats, bundledIndex * STAT_COUNT, (bundledIndex + 1) * STAT_COUNT))
+			{
+				log.debug("Item {} stats differ from the bundled item stats", live.ids[i]);
+				drift++;
+			}
+		}
+
+		return drift;
+	}
+
+	// Resolve stats for every known item. Uses the ItemManager, so it should be called from the client thread,
+	// outside of combat (on startup).
+	public static void warmUp()
+	{
+		long start = System.nanoTime();
+		loadBundled(); // no-op if it was already loaded, needed first for the drift check
+
+		Table live = build(PvpDamageCalc::lookupItemStats);
+		table = live;
+		LmsCalcTable.clear();
+		log.debug("Warmed up item stats for {} items in {}ms", live.ids.length, (System.nanoTime() - start) / 1_000_000);
+
+		// nothing to compare against if no resource was bundled, the live table is all there is.
+		Table bundled = bundledTable;
+		if (bundled == null)
+		{
+			return;
+		}
+
+		int drift = reportDrift(live, bundled);
+		if (drift > 0)
+		{
+			log.debug("Bundled item stats are out of date ({} differences), regenerate them with generateItemStats", drift);
+		}
+	}
+
+	// Resolve stats for every item the plugin knows about: EquipmentData (with all of their additional ids),
+	// rings & ammo. Items the lookup doesn't know are left out.
+	private static Table build(IntFunction<int[]> lookup)
+	{
+		// TreeMap so the ids come out sorted, ready for binary searches
+		Map<Integer, int[]> resolved = new TreeMap<>();
+		for (EquipmentData data : EquipmentData.values())
+		{
+			int[] mainStats = lookup.apply(data.getItemId());
+			if (mainStats == null)
+			{
+				continue;
+			}
+			resolved.putIfAbsent(data.getItemId(), mainStats);
+
+			if (data.getAdditionalIds() != null)
+			{
+				for (int id : data.getAdditionalIds())
+				{
+					// same fallback as the regular lookup: variants without their own stats use the main item's.
+					int[] stats = lookup.apply(id);
+					resolved.putIfAbsent(id, stats != null ? stats : mainStats);
+				}
+			}
+		}
+
+		for (RingData ring : RingData.values())
+		{
+			addIfFound(resolved, ring.getItemId(), lookup);
+		}
+		for (RangeAmmoData ammo : RangeAmmoData.BoltAmmo.values())
+		{
+			addIfFound(resolved, ammo.getItemId(), lookup);
+		}
+		for (RangeAmmoData ammo : RangeAmmoData.StrongBoltAmmo.values())
+		{
+			addIfFound(resolved, ammo.getItemId(), lookup);
+		}
+		for (RangeAmmoData ammo : RangeAmmoData.DartAmmo.values())
+		{
+			addIfFound(resolved, ammo.getItemId(), lookup);
+		}
+		for (RangeAmmoData ammo : RangeAmmoData.OtherAmmo.values())
+		{
+			addIfFound(resolved, ammo.getItemId(), lookup);
+		}
+
+		int[] ids = new int[resolved.size()];
+		int[] stats = new int[resolved.size() * STAT_COUNT];
+		int i = 0;
+		for (Map.Entry<Integer, int[]> entry : resolved.entrySet())
+		{
+			ids[i] = entry.getKey();
+			System.arraycopy(entry.getValue(), 0, stats, i * STAT_COUNT, STAT_COUNT);
+			i++;
+		}
+
+		return new Table(ids, stats);
+	}
+
+	private static void addIfFound(Map<Integer, int[]> resolved, int itemId, IntFunction<int[]> lookup)
+	{
+		if (itemId <= 0 || resolved.containsKey(itemId))
+		{
+			return;
+		}
+
+		int[] stats = lookup.apply(itemId);
+		if (stats != null)
+		{
+			resolved.put(itemId, stats);
+		}
+	}
+
+	// Get a copy of the pre-resolved stats for an item, or null if it isn't in the table (or the table isn't ready yet).
+	// A copy is returned since the caller is allowed to modify it.
+	public static int[] get(int itemId)
+	{
+		Table t = table;
+		if (t == null && !bundledLoadAttempted)
+		{
+			// nothing loaded yet, e.g. running offline: fall back to the bundled resource.
+			loadBundled();
+			t = table;
+		}
+		if (t == null)
+		{
+			return null;
+		}
+
+		int index = Arrays.binarySearch(t.ids, itemId);
+		if (index < 0)
+		{
+			return null;
+		}
+
+		return Arrays.copyOfRange(t.stats, index * STAT_COUNT, (index + 1) * STAT_COUNT);
+	}
+
+	public static boolean isReady()
+	{
+		return table != null;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.FightType;
+import net.runelite.api.PlayerComposition;
+
+// Table of damage calc results for LMS fights. LMS pins both fighters' levels per FightType, forces the ring & bolts,
+// and only has a small pool of gear, so the same few loadouts get calculated over and over: every result is kept here
+// and reused for every later attack with the same inputs, skipping PvpDamageCalc entirely.
+//
+// Entries are added on first use rather than all up front, since gear is mixed per slot (plus swaps mid-attack)
+// so the full space is much larger than what is actually seen. Non-LMS calculations, or LMS ones using other levels
+// than the fight type's (e.g. fight analysis using recorded levels), go straight through to PvpDamageCalc.
+public class LmsCalcTable
+{
+	// the table is simply cleared when it gets this big, a whole LMS session uses a few thousand entries at most.
+	private static final int MAX_SIZE = 50_000;
+	private static final Map<Key, DamageCalcResult> TABLE = new ConcurrentHashMap<>();
+
+	/**
+	 * Same as {@link PvpDamageCalc#calculate}, but looked up in the table for LMS fight types.
+	 *
+	 * @param fightType The fight's type, only LMS types use the table.
+	 */
+	public static DamageCalcResult calculate(FightType fightType, DamageCalcContext ctx, int[] attackerItems, int[] defenderItems,
+		AnimationData animationData, boolean success, boolean successfulOffensive, boolean defensiveAugurySuccess)
+	{
+		if (fightType == null || !fightType.isLmsFight() || !ctx.isLmsFight() ||
+			ctx.getAttackerLevels() != fightType.getCombatLevelsForType() || ctx.getDefenderLevels() != fightType.getCombatLevelsForType())
+		{
+			return PvpDamageCalc.calculate(ctx, attackerItems, defenderItems, animationData, success, successfulOffensive, defensiveAugurySuccess);
+		}
+
+		Key key = new Key(fightType, ctx, attackerItems, defenderItems, animationData, success, successfulOffensive, defensiveAugurySuccess);
+		DamageCalcResult result = TABLE.get(key);
+		if (result == null)
+		{
+			result = PvpDamageCalc.calculate(ctx, attackerItems, defenderItems, animationData, success, successfulOffensive, defensiveAugurySuccess);
+			if (TABLE.size() >= MAX_SIZE)
+			{
+				TABLE.clear();
+			}
+			TABLE.put(key, result);
+		}
+		return result;
+	}
+
+	// should be called whenever item stats change, since they're baked into the results.
+	public static void clear()
+	{
+		TABLE.clear();
+	}
+
+	// Everything the results depend on, packed into one int array:
+	// { fight type, animation, prayer flags, ring, dart choice, attacker gear..., defender gear... }
+	// Bolts aren't included since LMS always forces diamond/opal dragon bolts (e).
+	private static final class Key
+	{
+		private final int[] values;
+		private final int hash;
+
+		Key(FightType fightType, DamageCalcContext ctx, int[] attackerItems, int[] defenderItems, AnimationData animationData,
+			boolean success, boolean successfulOffensive, boolean defensiveAugurySuccess)
+		{
+			values = new int[5 + attackerItems.length + 1 + defenderItems.length];
+			values[0] = fightType.ordinal();
+			values[1] = animationData.ordinal();
+			values[2] = (success ? 1 : 0) | (successfulOffensive ? 2 : 0) | (defensiveAugurySuccess ? 4 : 0);
+			values[3] = ctx.getRing() == null ? -1 : ctx.getRing().ordinal();
+			values[4] = ctx.getBpDartChoice() == null ? -1 : ctx.getBpDartChoice().ordinal();
+			int i = 5;
+			for (int item : attackerItems)
+			{
+				values[i++] = normalize(item);
+			}
+			values[i++] = -1; // separator, in case gear arrays ever differ in length
+			for (int item : defenderItems)
+			{
+				values[i++] = normalize(item);
+			}
+			hash = Arrays.hashCode(values);
+		}
+
+		// only items affect the calcs, not kits (hair, arms etc)
+		private static int normalize(int compositionId)
+		{
+			return compositionId > PlayerComposition.ITEM_OFFSET ? compositionId : 0;
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			return o instanceof Key && hash == ((Key)o).hash && Arrays.equals(values, ((Key)o).values);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
+}
@@ -26,7 +26,9 @@
 package matsyir.pvpperformancetracker.controllers;
 
 import lombok.Getter;
+import lombok.Setter;
 import java.util.Arrays;
+import java.util.function.IntFunction;
 import lombok.extern.slf4j.Slf4j;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
 import matsyir.pvpperformancetracker.models.AnimationData;
@@ -39,6 +41,7 @@ import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.fixItemI
 import matsyir.pvpperformancetracker.models.EquipmentData;
 import matsyir.pvpperformancetracker.models.EquipmentData.VoidStyle;
 import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.FightType;
 import matsyir.pvpperformancetracker.models.RangeAmmoData;
 import matsyir.pvpperformancetracker.models.RingData;
 import net.runelite.api.PlayerComposition;
@@ -52,6 +55,8 @@ import net.runelite.api.Player;
 // Pvp damage calculations
 // call updateDamageStats(...) with required parameters, and retrieve results by using the field getters
 // for averageHit, accuracy, maxHit, and minHit.
+// The updateDamageStats functions are adapters over the static calculate(...), which takes an explicit
+// DamageCalcContext & returns an immutable DamageCalcResult, and can be used from any thread.
 //
 // combat formulas source thread QFC: 317,318,461,66138854
 // osrs wiki was also used a lot
@@ -134,9 +139,25 @@ public class PvpDamageCalc
 
 	private RingData ringUsed;
 	boolean isLmsFight;
+	private final FightType fightType;
+	// where the updateDamageStats adapters get item stats from. Fight analysis swaps in stats resolved ahead of
+	// time, so the attacks can be re-calculated away from the client thread.
+	@Setter
+	private DamageCalcContext.ItemStatsSource itemStatsSource = DamageCalcContext.DEFAULT_ITEM_STATS;
+
+	// mutable intermediate values for a single calculation. never shared between calculations,
+	// so the static calculate() stays thread-safe.
+	private static final class Calc
+	{
+		private double averageHit = 0;
+		private double accuracy = 0;
+		private int minHit = 0;
+		private int maxHit = 0;
+	}
 
 	public PvpDamageCalc(FightPerformance relatedFight)
 	{
+		fightType = relatedFight.fightType;
 		isLmsFight = relatedFight.fightType.isLmsFight();
 		this.attackerLevels = relatedFight.fightType.getCombatLevelsForType();
 		this.defenderLevels = relatedFight.fightType.getCombatLevelsForType();
@@ -144,58 +165,40 @@ public class PvpDamageCalc
 		this.ringUsed = isLmsFight ? RingData.BERSERKER_RING : CONFIG.ringChoice();
 	}
 
+	// context for the next calculation done through the updateDamageStats adapters. The ammo choices are read
+	// from the config on every attack, like they always were, while the ring is kept from when the fight started.
+	private DamageCalcContext currentContext()
+	{
+		return new DamageCalcContext(ringUsed, CONFIG.boltChoice(), CONFIG.strongBoltChoice(), CONFIG.bpDartChoice(),
+			isLmsFight, attackerLevels, defenderLevels, itemStatsSource);
+	}
+
+	private void setResult(DamageCalcResult result)
+	{
+		averageHit = result.getAverageHit();
+		accuracy = result.getAccuracy();
+		minHit = result.getMinHit();
+		maxHit = result.getMaxHit();
+	}
+
 	// main function used to update stats during an ongoing fight
 	public void updateDamageStats(Player attacker, Player defender, boolean success, AnimationData animationData)
 	{
 		// shouldn't be possible, but just in case
 		if (attacker == null || defender == null) { return; }
 
-		averageHit = 0;
-		accuracy = 0;
-		minHit = 0;
-		maxHit = 0;
-
 		int[] attackerItems = attacker.getPlayerComposition().getEquipmentIds();
 		int[] defenderItems = defender.getPlayerComposition().getEquipmentIds();
 
-		EquipmentData weapon = EquipmentData.fromId(fixItemId(attackerItems[KitType.WEAPON.getIndex()]));
-
-		int[] playerStats = this.calculateBonusesWithRing(attackerItems);
-		int[] opponentStats = this.calculateBonusesWithRing(defenderItems);
-		AnimationData.AttackStyle attackStyle = animationData.attackStyle; // basic style: stab/slash/crush/ranged/magic
-
-		// Special attack used will be determined based on the currently used weapon, if its special attack has been implemented.
-		// the animation just serves to tell if they actually did a special attack animation, since some animations
-		// are used for multiple special attacks.
-		boolean isSpecial = animationData.isSpecial;
-		VoidStyle voidStyle = VoidStyle.getVoidStyleFor(attacker.getPlayerComposition().getEquipmentIds());
+		DamageCalcContext ctx = currentContext();
+		setResult(LmsCalcTable.calculate(fightType, ctx, attackerItems, defenderItems, animationData, success, true, false));
 
-		if (attackStyle.isMelee() || animationData == AnimationData.MELEE_VOIDWAKER_SPEC)
-		{
-			getMeleeMaxHit(playerStats[STRENGTH_BONUS], isSpecial, weapon, voidStyle, true);
-			getMeleeAccuracy(playerStats, opponentStats, attackStyle, isSpecial, weapon, voidStyle, true);
-		}
-		else if (attackStyle == AttackStyle.RANGED)
+		if (log.isDebugEnabled())
 		{
-			getRangedMaxHit(playerStats[RANGE_STRENGTH], isSpecial, weapon, voidStyle, true, attackerItems);
-			getRangeAccuracy(playerStats[RANGE_ATTACK], opponentStats[RANGE_DEF], isSpecial, weapon, voidStyle, true, attackerItems);
+			log.debug("attackStyle: " + animationData.attackStyle.toString() + ", avgHit: " + nf.format(averageHit) + ", acc: " + nf.format(accuracy) +
+				"\nattacker(" + attacker.getName() + ")stats: " + Arrays.toString(calculateBonuses(attackerItems, ctx)) +
+				"\ndefender(" +  defender.getName() + ")stats: " + Arrays.toString(calculateBonuses(defenderItems, ctx)));
 		}
-		// this should always be true at this point, but just in case. unknown animation styles won't
-		// make it here, they should be stopped in FightPerformance::checkForAttackAnimations
-		else if (attackStyle == AttackStyle.MAGIC)
-		{
-			EquipmentData shield = EquipmentData.fromId(fixItemId(attackerItems[KitType.SHIELD.getIndex()]));
-			getMagicMaxHit(shield, playerStats[MAGIC_DAMAGE], animationData, weapon, voidStyle, true);
-			getMagicAccuracy(playerStats[MAGIC_ATTACK], opponentStats[MAGIC_DEF], weapon, animationData, voidStyle, true, false);
-		}
-
-		getAverageHit(success, weapon, isSpecial);
-
-		maxHit = (int)(maxHit * (success ? 1 : UNSUCCESSFUL_PRAY_DMG_MODIFIER));
-
-		log.debug("attackStyle: " + attackStyle.toString() + ", avgHit: " + nf.format(averageHit) + ", acc: " + nf.format(accuracy) +
-			"\nattacker(" + attacker.getName() + ")stats: " + Arrays.toString(playerStats) +
-			"\ndefender(" +  defender.getName() + ")stats: " + Arrays.toString(opponentStats));
 	}
 
 	// secondary function used to analyze fights from the fight log (fight analysis/fight merge)
@@ -203,21 +206,49 @@ public class PvpDamageCalc
 	{
 		this.attackerLevels = atkLog.getAttackerLevels();
 		this.defenderLevels = defenderLog.getAttackerLevels();
-		int[] attackerItems = atkLog.getAttackerGear();
-		int[] defenderItems = atkLog.getDefenderGear();
-		boolean success = atkLog.success();
-		AnimationData animationData = atkLog.getAnimationData();
 		boolean successfulOffensive = atkLog.getAnimationData().attackStyle.isUsingSuccessfulOffensivePray(atkLog.getAttackerOffensivePray());
 
-		averageHit = 0;
-		accuracy = 0;
-		minHit = 0;
-		maxHit = 0;
+		setResult(calculate(currentContext(), atkLog.getAttackerGear(), atkLog.getDefenderGear(), atkLog.getAnimationData(),
+			atkLog.success(), successfulOffensive, defenderLog.getAttackerOffensivePray() == SpriteID.PRAYER_AUGURY));
+	}
+
+	/**
+	 * Stateless damage calculation for a single attack. Everything it depends on is passed in, and it doesn't read
+	 * the config or the plugin, so it's safe to call from any thread as long as the context's item stats source is.
+	 *
+	 * @param ctx                    Ring, ammo, combat levels and item stats to use.
+	 * @param attackerItems          The attacker's equipment ids (player composition format).
+	 * @param defenderItems          The defender's equipment ids (player composition format).
+	 * @param animationData          The attack animation.
+	 * @param success                If the attack was off-pray.
+	 * @param successfulOffensive    If the attacker used the correct offensive prayer.
+	 * @param defensiveAugurySuccess If the defender had augury on against a magic attack.
+	 * @return The resulting average hit, accuracy, min hit & max hit.
+	 */
+	public static DamageCalcResult calculate(DamageCalcContext ctx, int[] attackerItems, int[] defenderItems, AnimationData animationData,
+		boolean success, boolean successfulOffensive, boolean defensiveAugurySuccess)
+	{
+		return calculateWithBonuses(ctx, attackerItems, calculateBonuses(attackerItems, ctx), calculateBonuses(defenderItems, ctx),
+			animationData, success, successfulOffensive, defensiveAugurySuccess);
+	}
+
+	/**
+	 * Same as {@link #calculate}, but with both sides' equipment bonuses already totalled (including the context's ring),
+	 * for callers that evaluate many gear combinations and can sum the bonuses incrementally.
+	 *
+	 * @param attackerItems   The attacker's equipment ids, still needed for the weapon & set effects.
+	 * @param attackerBonuses The attacker's total equipment bonuses, as returned by calculateBonuses. Not modified.
+	 * @param defenderBonuses The defender's total equipment bonuses, as returned by calculateBonuses. Not modified.
+	 */
+	public static DamageCalcResult calculateWithBonuses(DamageCalcContext ctx, int[] attackerItems, int[] attackerBonuses, int[] defenderBonuses,
+		AnimationData animationData, boolean success, boolean successfulOffensive, boolean defensiveAugurySuccess)
+	{
+		Calc calc = new Calc();
 
 		EquipmentData weapon = EquipmentData.fromId(fixItemId(attackerItems[KitType.WEAPON.getIndex()]));
 
-		int[] playerStats = this.calculateBonuses(attackerItems);
-		int[] opponentStats = this.calculateBonuses(defenderItems);
+		int[] playerStats = attackerBonuses;
+		int[] opponentStats = defenderBonuses;
 		AnimationData.AttackStyle attackStyle = animationData.attackStyle; // basic style: stab/slash/crush/ranged/magic
 
 		// Special attack used will be determined based on the currently used weapon, if its special attack has been implemented.
@@ -226,31 +257,33 @@ public class PvpDamageCalc
 		boolean isSpecial = animationData.isSpecial;
 		VoidStyle voidStyle = VoidStyle.getVoidStyleFor(attackerItems);
 
-		if (attackStyle.isMelee())
+		if (attackStyle.isMelee() || animationData == AnimationData.MELEE_VOIDWAKER_SPEC)
 		{
-			getMeleeMaxHit(playerStats[STRENGTH_BONUS], isSpecial, weapon, voidStyle, successfulOffensive);
-			getMeleeAccuracy(playerStats, opponentStats, attackStyle, isSpecial, weapon, voidStyle, successfulOffensive);
+			getMeleeMaxHit(ctx, calc, playerStats[STRENGTH_BONUS], isSpecial, weapon, voidStyle, successfulOffensive);
+			getMeleeAccuracy(ctx, calc, playerStats, opponentStats, attackStyle, isSpecial, weapon, voidStyle, successfulOffensive);
 		}
 		else if (attackStyle == AttackStyle.RANGED)
 		{
-			getRangedMaxHit(playerStats[RANGE_STRENGTH], isSpecial, weapon, voidStyle, successfulOffensive, attackerItems);
-			getRangeAccuracy(playerStats[RANGE_ATTACK], opponentStats[RANGE_DEF], isSpecial, weapon, voidStyle, successfulOffensive, attackerItems);
+			getRangedMaxHit(ctx, calc, playerStats[RANGE_STRENGTH], isSpecial, weapon, voidStyle, successfulOffensive, attackerItems);
+			getRangeAccuracy(ctx, calc, playerStats[RANGE_ATTACK], opponentStats[RANGE_DEF], isSpecial, weapon, voidStyle, successfulOffensive, attackerItems);
 		}
 		// this should always be true at this point, but just in case. unknown animation styles won't
 		// make it here, they should be stopped in FightPerformance::checkForAttackAnimations
 		else if (attackStyle == AttackStyle.MAGIC)
 		{
 			EquipmentData shield = EquipmentData.fromId(fixItemId(attackerItems[KitType.SHIELD.getIndex()]));
-			getMagicMaxHit(shield, playerStats[MAGIC_DAMAGE], animationData, weapon, voidStyle, successfulOffensive);
-			getMagicAccuracy(playerStats[MAGIC_ATTACK], opponentStats[MAGIC_DEF], weapon, animationData, voidStyle, successfulOffensive, defenderLog.getAttackerOffensivePray() == SpriteID.PRAYER_AUGURY);
+			getMagicMaxHit(calc, shield, playerStats[MAGIC_DAMAGE], animationData, weapon, voidStyle, successfulOffensive);
+			getMagicAccuracy(ctx, calc, playerStats[MAGIC_ATTACK], opponentStats[MAGIC_DEF], weapon, animationData, voidStyle, successfulOffensive, defensiveAugurySuccess);
 		}
 
-		getAverageHit(success, weapon, isSpecial);
+		getAverageHit(calc, success, weapon, isSpecial);
 
-		maxHit = (int)(maxHit * (success ? 1 : UNSUCCESSFUL_PRAY_DMG_MODIFIER));
+		calc.maxHit = (int)(calc.maxHit * (success ? 1 : UNSUCCESSFUL_PRAY_DMG_MODIFIER));
+
+		return new DamageCalcResult(calc.averageHit, calc.accuracy, calc.minHit, calc.maxHit);
 	}
 
-	private void getAverageHit(boolean success, EquipmentData weapon, boolean usingSpec)
+	private static void getAverageHit(Calc calc, boolean success, EquipmentData weapon, boolean usingSpec)
 	{
 		boolean ancientGs = weapon == EquipmentData.ANCIENT_GODSWORD;
 		boolean dbow = weapon == EquipmentData.DARK_BOW;
@@ -265,10 +298,10 @@ public class PvpDamageCalc
 		// average hit calculation for attacks that have minimum hits that are skewed towards hitting minimum hit more often
 		if (usingSpec && (dbow || vls || swh))
 		{
-			double accuracyAdjuster = dbow ? accuracy : 1;
-			minHit = dbow ? DBOW_SPEC_MIN_HIT : 0;
-			minHit = vls ? (int) (maxHit * VLS_SPEC_MIN_DMG_MODIFIER) : minHit;
-			minHit = swh ? (int) (maxHit * SWH_SPEC_MIN_DMG_MODIFIER) : minHit;
+			double accuracyAdjuster = dbow ? calc.accuracy : 1;
+			calc.minHit = dbow ? DBOW_SPEC_MIN_HIT : 0;
+			calc.minHit = vls ? (int) (calc.maxHit * VLS_SPEC_MIN_DMG_MODIFIER) : calc.minHit;
+			calc.minHit = swh ? (int) (calc.maxHit * SWH_SPEC_MIN_DMG_MODIFIER) : calc.minHit;
 
 			int total = 0;
 
@@ -277,12 +310,12 @@ public class PvpDamageCalc
 			// potential hit rolls (min=0 max=5): 0, 1, 2, 3, 4, 5
 			// potential hit rolls (min=3 max=5): 3, 3, 3, 3, 4, 5 (intuitively it would just be 3, 4, 5, but nope)
 			// so, it is more common to roll the minimum hit and that has to be accounted for in the average hit.
-			for (int i = 0; i <= maxHit; i++)
+			for (int i = 0; i <= calc.maxHit; i++)
 			{
-				total += i < minHit ? minHit / accuracyAdjuster : i;
+				total += i < calc.minHit ? calc.minHit / accuracyAdjuster : i;
 			}
 
-			averageSuccessfulHit = (double) total / maxHit;
+			averageSuccessfulHit = (double) total / calc.maxHit;
 		}
 		else if (usingSpec && claws)
 		{
@@ -291,38 +324,38 @@ public class PvpDamageCalc
 			// 1.5x multiplier and the chance of a 2x multiplier is what higherModifierChance is for
 
 			// inverted accuracy is used to calculate the chances of missing specifically 1, 2 or 3 times in a row
-			double invertedAccuracy = 1 - accuracy;
-			double averageSuccessfulRegularHit = maxHit / 2;
-			double higherModifierChance = (accuracy + (accuracy * invertedAccuracy));
-			double lowerModifierChance = ((accuracy * Math.pow(invertedAccuracy, 2)) + (accuracy * Math.pow(invertedAccuracy, 3)));
+			double invertedAccuracy = 1 - calc.accuracy;
+			double averageSuccessfulRegularHit = calc.maxHit / 2;
+			double higherModifierChance = (calc.accuracy + (calc.accuracy * invertedAccuracy));
+			double lowerModifierChance = ((calc.accuracy * Math.pow(invertedAccuracy, 2)) + (calc.accuracy * Math.pow(invertedAccuracy, 3)));
 			double averageSpecialHit = ((higherModifierChance * 2) + (lowerModifierChance * 1.5)) * averageSuccessfulRegularHit;
 
-			averageHit = averageSpecialHit * prayerModifier;
-			accuracy = higherModifierChance + lowerModifierChance;
+			calc.averageHit = averageSpecialHit * prayerModifier;
+			calc.accuracy = higherModifierChance + lowerModifierChance;
 			// the random +1 is not included in avg hit but it is included in the max hit to be seen from fight logs
-			maxHit = maxHit * 2 + 1;
+			calc.maxHit = calc.maxHit * 2 + 1;
 			return;
 		}
 		else if (fang)
 		{
 			double maxHitMultiplier = usingSpec ? 1: 0.85; // max hit when using spec is 100% but minHit stays the same
 			// accuracy rolls twice for the fang, so the accuracy is equal to 1 - chance of hit1 OR hit2
-			double invertedAccuracy = 1 - accuracy; // example: if accuracy is 20% and thus 0.2, inverted accuracy is 0.8
+			double invertedAccuracy = 1 - calc.accuracy; // example: if accuracy is 20% and thus 0.2, inverted accuracy is 0.8
 			double chanceOfMissingTwice = Math.pow(invertedAccuracy, 2); // 0.8 squared is 0.64 or 64%
-			accuracy = 1 - chanceOfMissingTwice; // thus 64% chance of missing, or 36% accuracy
+			calc.accuracy = 1 - chanceOfMissingTwice; // thus 64% chance of missing, or 36% accuracy
 			// max hit is 0.85% and min hit is 15%
 			// unlike VLS/SWH/Dbow I believe this rolls between min and max instead of raising hits between 0 - minHit to minHit
-			minHit = (int) (0.15 * maxHit);
-			maxHit = (int) (maxHitMultiplier * maxHit);
+			calc.minHit = (int) (0.15 * calc.maxHit);
+			calc.maxHit = (int) (maxHitMultiplier * calc.maxHit);
 
-			averageSuccessfulHit = (minHit + maxHit) / 2.0;
+			averageSuccessfulHit = (calc.minHit + calc.maxHit) / 2.0;
 		}
 		// average hit calculation for attacks with minimum hits that use a more 'intuitive' average hit, similar to osmuten's fang
 		else if (usingSpec && voidwaker)
 		{
-			minHit = (int) (maxHit * VOIDWAKER_SPEC_MIN_DMG_MODIFIER);
+			calc.minHit = (int) (calc.maxHit * VOIDWAKER_SPEC_MIN_DMG_MODIFIER);
 
-			averageSuccessfulHit = (minHit + maxHit) / 2.0;
+			averageSuccessfulHit = (calc.minHit + calc.maxHit) / 2.0;
 		}
 		else
 		{
@@ -330,32 +363,32 @@ public class PvpDamageCalc
 			// not a core OSRS damage calc that is meant to be rounded down by int
 			// If reaching this part of the code, the minHit should always be 0, but include it anyways
 			// just in case.
-			averageSuccessfulHit = (minHit + maxHit) / 2.0;
+			averageSuccessfulHit = (calc.minHit + calc.maxHit) / 2.0;
 
 			// Abyssal Dagger Spec: Hits twice, adjust average and double displayed max hit.
 			boolean abyssalDagger = weapon == EquipmentData.ABYSSAL_DAGGER;
 			if (abyssalDagger && usingSpec)
 			{
 				averageSuccessfulHit *= 2; // Account for two hits in average
-				maxHit *= 2; // Double the max hit for display
+				calc.maxHit *= 2; // Double the max hit for display
 			}
 
-			if (minHit > 0)
+			if (calc.minHit > 0)
 			{
 				log.info("PvpDamageCalc:getAverageHit: Fell into default avg hit calculation with a minHit > 0 (" +
-					minHit + "). Shouldn't happen. Weapon: " + weapon.toString());
+					calc.minHit + "). Shouldn't happen. Weapon: " + weapon.toString());
 			}
 		}
 
-		averageHit = accuracy * averageSuccessfulHit * prayerModifier;
+		calc.averageHit = calc.accuracy * averageSuccessfulHit * prayerModifier;
 
 		if (usingSpec && ancientGs)
 		{
-			averageHit += ANCIENT_GS_FIXED_DAMAGE;
+			calc.averageHit += ANCIENT_GS_FIXED_DAMAGE;
 		}
 	}
 
-	private void getMeleeMaxHit(int meleeStrength, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
+	private static void getMeleeMaxHit(DamageCalcContext ctx, Calc calc, int meleeStrength, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
 	{
 		boolean ags = weapon == EquipmentData.ARMADYL_GODSWORD;
 		boolean ancientGs = weapon == EquipmentData.ANCIENT_GODSWORD;
@@ -366,7 +399,7 @@ public class PvpDamageCalc
 		boolean voidwaker = weapon == EquipmentData.VOIDWAKER;
 		boolean abyssalDagger = weapon == EquipmentData.ABYSSAL_DAGGER;
 
-		int effectiveLevel = (int) Math.floor((attackerLevels.str * (successfulOffensive ? PIETY_STR_PRAYER_MODIFIER : 1)) + 8 + 3);
+		int effectiveLevel = (int) Math.floor((ctx.getAttackerLevels().str * (successfulOffensive ? PIETY_STR_PRAYER_MODIFIER : 1)) + 8 + 3);
 		// apply void bonus if applicable
 		if (voidStyle == VoidStyle.VOID_ELITE_MELEE || voidStyle == VoidStyle.VOID_MELEE)
 		{
@@ -383,18 +416,18 @@ public class PvpDamageCalc
 			(voidwaker && usingSpec) ? VOIDWAKER_SPEC_DMG_MODIFIER :
 			(abyssalDagger && usingSpec) ? ABYSSAL_DAGGER_SPEC_DMG_MODIFIER :
 			1;
-		maxHit = (int) (damageModifier * baseDamage);
+		calc.maxHit = (int) (damageModifier * baseDamage);
 	}
 
-	private void getRangedMaxHit(int rangeStrength, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive, int[] attackerComposition)
+	private static void getRangedMaxHit(DamageCalcContext ctx, Calc calc, int rangeStrength, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive, int[] attackerComposition)
 	{
-		RangeAmmoData weaponAmmo = EquipmentData.getWeaponAmmo(weapon);
+		RangeAmmoData weaponAmmo = ctx.getWeaponAmmo(weapon);
 		EquipmentData head = EquipmentData.fromId(fixItemId(attackerComposition[KitType.HEAD.getIndex()]));
 		EquipmentData body = EquipmentData.fromId(fixItemId(attackerComposition[KitType.TORSO.getIndex()]));
 		EquipmentData legs = EquipmentData.fromId(fixItemId(attackerComposition[KitType.LEGS.getIndex()]));
 
 		// if it's an LMS fight and bolts are used, force diamond bolts (e) or opal dragon bolts (e) based on weapon used.
-		if (this.isLmsFight)
+		if (ctx.isLmsFight())
 		{
 			weaponAmmo = weaponAmmo instanceof RangeAmmoData.StrongBoltAmmo ? RangeAmmoData.StrongBoltAmmo.OPAL_DRAGON_BOLTS_E :
 				weaponAmmo instanceof RangeAmmoData.BoltAmmo ? RangeAmmoData.BoltAmmo.DIAMOND_BOLTS_E : weaponAmmo;
@@ -407,7 +440,7 @@ public class PvpDamageCalc
 
 		rangeStrength += ammoStrength;
 
-		double effectiveLevel = Math.floor((attackerLevels.range * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_DMG_MODIFIER : 1)) + 8);
+		double effectiveLevel = Math.floor((ctx.getAttackerLevels().range * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_DMG_MODIFIER : 1)) + 8);
 		// apply void bonus if applicable
 		if (voidStyle == VoidStyle.VOID_ELITE_RANGE || voidStyle == VoidStyle.VOID_RANGE)
 		{
@@ -424,9 +457,9 @@ public class PvpDamageCalc
 		// Eclipse Atlatl uses Melee Str for max hit but Ranged prayers/void
 		if (weapon == EquipmentData.ECLIPSE_ATLATL)
 		{
-			int[] playerStats = calculateBonusesWithRing(attackerComposition);
+			int[] playerStats = calculateBonuses(attackerComposition, ctx);
 			// Recalculate effective level using Strength level but Ranged prayer modifier
-			effectiveLevel = Math.floor(((attackerLevels.str * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_DMG_MODIFIER : 1)) + STANCE_BONUS) + 8);
+			effectiveLevel = Math.floor(((ctx.getAttackerLevels().str * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_DMG_MODIFIER : 1)) + STANCE_BONUS) + 8);
 
 			// Apply Ranged void bonus if applicable
 			if (voidStyle == VoidStyle.VOID_ELITE_RANGE || voidStyle == VoidStyle.VOID_RANGE)
@@ -435,13 +468,13 @@ public class PvpDamageCalc
 			}
 
 			baseDamage = (int) Math.floor(0.5 + (effectiveLevel * (playerStats[STRENGTH_BONUS] + 64) / 640));
-			maxHit = baseDamage;
+			calc.maxHit = baseDamage;
 		}
 		else // Standard Ranged Max Hit Calc
 		{
-		maxHit = weaponAmmo == null ?
+		calc.maxHit = weaponAmmo == null ?
 			(int) (modifier * baseDamage) :
-			(int) ((modifier * baseDamage) + weaponAmmo.getBonusMaxHit(attackerLevels.range));
+			(int) ((modifier * baseDamage) + weaponAmmo.getBonusMaxHit(ctx.getAttackerLevels().range));
 		}
 
 		// apply crystal armor bonus if using bow
@@ -453,11 +486,11 @@ public class PvpDamageCalc
 				(body == EquipmentData.CRYSTAL_BODY ? 0.075 : 0) +
 				(legs == EquipmentData.CRYSTAL_LEGS ? 0.05 : 0);
 
-			maxHit *= dmgModifier;
+			calc.maxHit *= dmgModifier;
 		}
 	}
 
-	private void getMagicMaxHit(EquipmentData shield, int mageDamageBonus, AnimationData animationData, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
+	private static void getMagicMaxHit(Calc calc, EquipmentData shield, int mageDamageBonus, AnimationData animationData, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
 	{
 		boolean smokeBstaff = weapon == EquipmentData.SMOKE_BATTLESTAFF;
 		boolean tome = shield == EquipmentData.TOME_OF_FIRE;
@@ -479,10 +512,10 @@ public class PvpDamageCalc
 			magicBonus *= voidStyle.dmgModifier;
 		}
 
-		maxHit = (int)(animationData.baseSpellDamage * magicBonus);
+		calc.maxHit = (int)(animationData.baseSpellDamage * magicBonus);
 	}
 
-	private void getMeleeAccuracy(int[] playerStats, int[] opponentStats, AttackStyle attackStyle, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
+	private static void getMeleeAccuracy(DamageCalcContext ctx, Calc calc, int[] playerStats, int[] opponentStats, AttackStyle attackStyle, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive)
 	{
 		boolean vls = weapon == EquipmentData.VESTAS_LONGSWORD;
 		boolean ags = weapon == EquipmentData.ARMADYL_GODSWORD;
@@ -494,7 +527,7 @@ public class PvpDamageCalc
 
 		if (voidwaker && usingSpec)
 		{
-			accuracy = VOIDWAKER_FIXED_ACCURACY;
+			calc.accuracy = VOIDWAKER_FIXED_ACCURACY;
 			return;
 		}
 
@@ -523,7 +556,7 @@ public class PvpDamageCalc
 		/**
 		 * Attacker Chance
 		 */
-		effectiveLevelPlayer = Math.floor(((attackerLevels.atk * (successfulOffensive ? PIETY_ATK_PRAYER_MODIFIER : 1)) + STANCE_BONUS) + 8);
+		effectiveLevelPlayer = Math.floor(((ctx.getAttackerLevels().atk * (successfulOffensive ? PIETY_ATK_PRAYER_MODIFIER : 1)) + STANCE_BONUS) + 8);
 		// apply void bonus if applicable
 		if (voidStyle == VoidStyle.VOID_ELITE_MELEE || voidStyle == VoidStyle.VOID_MELEE)
 		{
@@ -556,7 +589,7 @@ public class PvpDamageCalc
 		/**
 		 * Defender Chance
 		 */
-		effectiveLevelTarget = Math.floor(((defenderLevels.def * PIETY_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
+		effectiveLevelTarget = Math.floor(((ctx.getDefenderLevels().def * PIETY_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
 
 		if (vls && usingSpec)
 		{
@@ -572,19 +605,19 @@ public class PvpDamageCalc
 		 */
 		if (attackerChance > defenderChance)
 		{
-			accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
+			calc.accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
 		}
 		else
 		{
-			accuracy = attackerChance / (2 * (defenderChance + 1));
+			calc.accuracy = attackerChance / (2 * (defenderChance + 1));
 		}
 	}
 
-	private void getRangeAccuracy(int playerRangeAtt, int opponentRangeDef, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive, int[] attackerComposition)
+	private static void getRangeAccuracy(DamageCalcContext ctx, Calc calc, int playerRangeAtt, int opponentRangeDef, boolean usingSpec, EquipmentData weapon, VoidStyle voidStyle, boolean successfulOffensive, int[] attackerComposition)
 	{
-		RangeAmmoData weaponAmmo = EquipmentData.getWeaponAmmo(weapon);
+		RangeAmmoData weaponAmmo = ctx.getWeaponAmmo(weapon);
 		// if it's an LMS fight and bolts are used, don't use config bolt, just use diamond bolts(e)
-		if (this.isLmsFight && (weaponAmmo instanceof RangeAmmoData.BoltAmmo ||
+		if (ctx.isLmsFight() && (weaponAmmo instanceof RangeAmmoData.BoltAmmo ||
 			weaponAmmo instanceof RangeAmmoData.StrongBoltAmmo))
 		{
 			weaponAmmo = RangeAmmoData.BoltAmmo.DIAMOND_BOLTS_E;
@@ -601,7 +634,7 @@ public class PvpDamageCalc
 		/**
 		 * Attacker Chance
 		 */
-		effectiveLevelPlayer = Math.floor(((attackerLevels.range * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_ATTACK_MODIFIER : 1)) + STANCE_BONUS) + 8);
+		effectiveLevelPlayer = Math.floor(((ctx.getAttackerLevels().range * (successfulOffensive ? RIGOUR_OFFENSIVE_PRAYER_ATTACK_MODIFIER : 1)) + STANCE_BONUS) + 8);
 		// apply void bonus if applicable
 		if (voidStyle == VoidStyle.VOID_ELITE_RANGE || voidStyle == VoidStyle.VOID_RANGE)
 		{
@@ -643,7 +676,7 @@ public class PvpDamageCalc
 		/**
 		 * Defender Chance
 		 */
-		effectiveLevelTarget = Math.floor(((defenderLevels.def * RIGOUR_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
+		effectiveLevelTarget = Math.floor(((ctx.getDefenderLevels().def * RIGOUR_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
 		defenderChance = Math.floor(effectiveLevelTarget * ((double) opponentRangeDef + 64));
 
 		/**
@@ -651,21 +684,21 @@ public class PvpDamageCalc
 		 */
 		if (attackerChance > defenderChance)
 		{
-			accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
+			calc.accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
 		}
 		else
 		{
-			accuracy = attackerChance / (2 * (defenderChance + 1));
+			calc.accuracy = attackerChance / (2 * (defenderChance + 1));
 		}
 
 		// the effect in pvp is 5% instead of 10% like it is for pvm
 		// upon further testing this effect applies to opal dragon bolts as well
 		// diamond bolts and opal bolts accuracy: 5% of attacks are 100% accuracy, so apply avg accuracy as:
 		// (95% of normal accuracy) + (5% of 100% accuracy)
-		accuracy = (diamonds || opals) ? (accuracy * .95) + .05 : accuracy;
+		calc.accuracy = (diamonds || opals) ? (calc.accuracy * .95) + .05 : calc.accuracy;
 	}
 
-	private void getMagicAccuracy(int playerMageAtt, int opponentMageDef, EquipmentData weapon, AnimationData animationData, VoidStyle voidStyle, boolean successfulOffensive, boolean defensiveAugurySuccess)
+	private static void getMagicAccuracy(DamageCalcContext ctx, Calc calc, int playerMageAtt, int opponentMageDef, EquipmentData weapon, AnimationData animationData, VoidStyle voidStyle, boolean successfulOffensive, boolean defensiveAugurySuccess)
 	{
 		double effectiveLevelPlayer;
 
@@ -683,7 +716,7 @@ public class PvpDamageCalc
 		/**
 		 * Attacker Chance
 		 */
-		effectiveLevelPlayer = Math.floor(((attackerLevels.mage * (successfulOffensive ? AUGURY_OFFENSIVE_PRAYER_MODIFIER : 1))) + 8);
+		effectiveLevelPlayer = Math.floor(((ctx.getAttackerLevels().mage * (successfulOffensive ? AUGURY_OFFENSIVE_PRAYER_MODIFIER : 1))) + 8);
 		// apply void bonus if applicable
 		if (voidStyle == VoidStyle.VOID_ELITE_MAGE || voidStyle == VoidStyle.VOID_MAGE)
 		{
@@ -696,13 +729,13 @@ public class PvpDamageCalc
 		/**
 		 * Defender Chance
 		 */
-		effectiveLevelTarget = Math.floor(((defenderLevels.def * AUGURY_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
-		effectiveMagicLevelTarget = Math.floor((defenderLevels.mage * (defensiveAugurySuccess ? AUGURY_MAGEDEF_PRAYER_MODIFIER : 1)) * 0.70);
+		effectiveLevelTarget = Math.floor(((ctx.getDefenderLevels().def * AUGURY_DEF_PRAYER_MODIFIER) + STANCE_BONUS) + 8);
+		effectiveMagicLevelTarget = Math.floor((ctx.getDefenderLevels().mage * (defensiveAugurySuccess ? AUGURY_MAGEDEF_PRAYER_MODIFIER : 1)) * 0.70);
 		reducedDefenceLevelTarget = Math.floor(effectiveLevelTarget * 0.30);
 		effectiveMagicDefenceTarget = effectiveMagicLevelTarget + reducedDefenceLevelTarget;
 
 		// 0.975x is a simplified brimstone accuracy formula, where x = mage def
-		defenderChance = ringUsed == RingData.BRIMSTONE_RING ?
+		defenderChance = ctx.getRing() == RingData.BRIMSTONE_RING ?
 			Math.floor(effectiveMagicDefenceTarget * ((BRIMSTONE_RING_OPPONENT_DEF_MODIFIER * opponentMageDef) + 64)) :
 			Math.floor(effectiveMagicDefenceTarget * ((double) opponentMageDef + 64));
 
@@ -711,11 +744,11 @@ public class PvpDamageCalc
 		 */
 		if (attackerChance > defenderChance)
 		{
-			accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
+			calc.accuracy = 1 - (defenderChance + 2) / (2 * (attackerChance + 1));
 		}
 		else
 		{
-			accuracy = attackerChance / (2 * (defenderChance + 1));
+			calc.accuracy = attackerChance / (2 * (defenderChance + 1));
 		}
 
 		boolean smokeBstaff = weapon == EquipmentData.SMOKE_BATTLESTAFF;
@@ -723,11 +756,11 @@ public class PvpDamageCalc
 		// provide accuracy buff from smoke battlestaff or volatile staff spec if applicable
 		if (smokeBstaff && AnimationData.isStandardSpellbookSpell(animationData))
 		{
-			accuracy *= SMOKE_BATTLESTAFF_DMG_ACC_MODIFIER;
+			calc.accuracy *= SMOKE_BATTLESTAFF_DMG_ACC_MODIFIER;
 		}
 		else if (volatileStaff && animationData == MAGIC_VOLATILE_NIGHTMARE_STAFF_SPEC)
 		{
-			accuracy *= VOLATILE_NIGHTMARE_STAFF_ACC_MODIFIER;
+			calc.accuracy *= VOLATILE_NIGHTMARE_STAFF_ACC_MODIFIER;
 		}
 	}
 
@@ -735,20 +768,46 @@ public class PvpDamageCalc
 	// First, try to get the item stats from the item manager. If stats weren't present in the
 	// itemManager, try get the 'real' item id from the EquipmentData. If it's not defined in EquipmentData, it will return null
 	// and count as 0 stats, but that should be very rare.
+	// Items known by the plugin are looked up in the pre-resolved ItemStatsTable first, once it's warmed up.
 	public static int[] getItemStats(int itemId)
 	{
-		ItemStats itemStats = PLUGIN.getItemManager().getItemStats(itemId);
+		int[] tableStats = ItemStatsTable.get(itemId);
+		if (tableStats != null)
+		{
+			return tableStats;
+		}
+
+		// offline (no client, e.g. batch analysis) there is only the bundled table to rely on.
+		if (PLUGIN == null || PLUGIN.getItemManager() == null)
+		{
+			return null;
+		}
+
+		return lookupItemStats(itemId);
+	}
+
+	// the regular ItemManager lookup, without going through the ItemStatsTable.
+	static int[] lookupItemStats(int itemId)
+	{
+		return lookupItemStats(itemId, PLUGIN.getItemManager()::getItemStats);
+	}
+
+	// look up an item's stats from the given source of RuneLite item stats (the ItemManager, or the stats json
+	// when generating the bundled ItemStatsTable resource).
+	static int[] lookupItemStats(int itemId, IntFunction<ItemStats> itemStatsSource)
+	{
+		ItemStats itemStats = itemStatsSource.apply(itemId);
 		if (itemStats == null)
 		{
 			EquipmentData itemData = EquipmentData.fromId(itemId);
 			if (itemData != null)
 			{
 				itemId = itemData.getItemId();
-				itemStats = PLUGIN.getItemManager().getItemStats(itemId);
+				itemStats = itemStatsSource.apply(itemId);
 			}
 		}
 
-		if (itemStats != null)
+		if (itemStats != null && itemStats.getEquipment() != null)
 		{
 			final ItemEquipmentStats equipmentStats = itemStats.getEquipment();
 			return new int[] {
@@ -773,23 +832,29 @@ public class PvpDamageCalc
 		return null;
 	}
 
-	// this is used to calculate bonuses including the currently used ring, in case we're in LMS but the config ring
+	// this is used to calculate bonuses including the context's ring, in case we're in LMS but the config ring
 	// is different.
-	private int[] calculateBonusesWithRing(int[] itemIds)
+	private static int[] calculateBonuses(int[] itemIds, DamageCalcContext ctx)
 	{
-		return calculateBonuses(itemIds, this.ringUsed);
+		return calculateBonuses(itemIds, ctx.getRing(), ctx.getItemStatsSource());
 	}
 
 	public static int[] calculateBonuses(int[] itemIds)
 	{
 		return calculateBonuses(itemIds, CONFIG.ringChoice());
 	}
-	// Calculate total equipment bonuses for all given items
+
 	public static int[] calculateBonuses(int[] itemIds, RingData ringUsed)
+	{
+		return calculateBonuses(itemIds, ringUsed, DamageCalcContext.DEFAULT_ITEM_STATS);
+	}
+
+	// Calculate total equipment bonuses for all given items
+	public static int[] calculateBonuses(int[] itemIds, RingData ringUsed, DamageCalcContext.ItemStatsSource itemStats)
 	{
 		int[] equipmentBonuses = ringUsed == null || ringUsed == RingData.NONE ?
 			new int[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0 } :
-			getItemStats(ringUsed.getItemId());
+			itemStats.getItemStats(ringUsed.getItemId());
 
 		if (equipmentBonuses == null) // shouldn't happen, but as a failsafe if the ring lookup fails
 		{
@@ -800,7 +865,7 @@ public class PvpDamageCalc
 		{
 			if (item > PlayerComposition.ITEM_OFFSET)
 			{
-				int[] bonuses = getItemStats(item - PlayerComposition.ITEM_OFFSET);
+				int[] bonuses = itemStats.getItemStats(item - PlayerComposition.ITEM_OFFSET);
 
 				if (bonuses == null)
 				{
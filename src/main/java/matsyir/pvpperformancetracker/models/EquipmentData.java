@@ -201,18 +201,27 @@ public enum EquipmentData
 
 	// get currently selected weapon ammo, based on weapon used & configured bolt choice.
 	public static RangeAmmoData getWeaponAmmo(EquipmentData weapon)
+	{
+		return getWeaponAmmo(weapon, PvpPerformanceTrackerPlugin.CONFIG.boltChoice(),
+			PvpPerformanceTrackerPlugin.CONFIG.strongBoltChoice(),
+			PvpPerformanceTrackerPlugin.CONFIG.bpDartChoice());
+	}
+
+	// get weapon ammo based on weapon used & the given ammo choices, without reading the config.
+	public static RangeAmmoData getWeaponAmmo(EquipmentData weapon, RangeAmmoData boltChoice,
+		RangeAmmoData strongBoltChoice, RangeAmmoData bpDartChoice)
 	{
 		if (ArrayUtils.contains(RangeAmmoData.BoltAmmo.WEAPONS_USING, weapon))
 		{
-			return PvpPerformanceTrackerPlugin.CONFIG.boltChoice();
+			return boltChoice;
 		}
 		else if (ArrayUtils.contains(RangeAmmoData.StrongBoltAmmo.WEAPONS_USING, weapon))
 		{
-			return PvpPerformanceTrackerPlugin.CONFIG.strongBoltChoice();
+			return strongBoltChoice;
 		}
 		else if (ArrayUtils.contains(RangeAmmoData.DartAmmo.WEAPONS_USING, weapon))
 		{
-			return PvpPerformanceTrackerPlugin.CONFIG.bpDartChoice();
+			return bpDartChoice;
 		}
 		else if (weapon == HEAVY_BALLISTA || weapon == LIGHT_BALLISTA)
 		{
@@ -33,6 +33,7 @@ import java.text.NumberFormat;
 import java.time.Instant;
 import lombok.Getter;
 import lombok.Setter;
+import matsyir.pvpperformancetracker.controllers.DamageCalcResult;
 import matsyir.pvpperformancetracker.controllers.PvpDamageCalc;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
 import net.runelite.api.GraphicID;
@@ -356,6 +357,23 @@ public class FightLogEntry implements Comparable<FightLogEntry>
 		return recordedHealthScale;
 	}
 
+	// replace the damage calc values, e.g. after the gear/level config changed (HistoryRecalculator).
+	// the KO chance is also updated if the HP before the hit was known.
+	public void setDamageStats(DamageCalcResult result)
+	{
+		this.deservedDamage = result.getAverageHit();
+		this.accuracy = result.getAccuracy();
+		this.minHit = result.getMinHit();
+		this.maxHit = result.getMaxHit();
+
+		if (displayHpBefore != null)
+		{
+			Double newKoChance = PvpPerformanceTrackerUtils.calculateKoChance(this, displayHpBefore);
+			this.koChance = newKoChance;
+			this.displayKoChance = newKoChance;
+		}
+	}
+
 	// Set the tick when the hitsplat landed
 	public void setHitsplatTick(int tick)
 	{
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.Arrays;
+
+/**
+ * Small min-cost assignment solver (Hungarian algorithm with potentials), used to assign the hitsplats
+ * of a tick to the pending attacks that could have caused them.
+ */
+public class AssignmentSolver
+{
+	/**
+	 * Cost to use for pairs that must never be assigned together.
+	 */
+	public static final double INFEASIBLE = 1e9;
+
+	/**
+	 * Assigns every row to a distinct column while minimizing the total cost. Runs in O(rows^2 * cols),
+	 * so callers are expected to keep the matrix small.
+	 *
+	 * @param cost The cost matrix, cost[row][col]. Must have at least as many columns as rows.
+	 * @return The assigned column for each row.
+	 */
+	public static int[] solve(double[][] cost)
+	{
+		int n = cost.length;
+		if (n == 0)
+		{
+			return new int[0];
+		}
+		int m = cost[0].length;
+		if (m < n)
+		{
+			throw new IllegalArgumentException("Assignment needs at least as many columns as rows");
+		}
+
+		// 1-indexed arrays, index 0 is used as a virtual starting column.
+		double[] u = new double[n + 1];
+		double[] v = new double[m + 1];
+		int[] p = new int[m + 1]; // row assigned to each column
+		int[] way = new int[m + 1];
+		double[] minv = new double[m + 1];
+		boolean[] used = new boolean[m + 1];
+
+		for (int i = 1; i <= n; i++)
+		{
+			p[0] = i;
+			int j0 = 0;
+			Arrays.fill(minv, Double.POSITIVE_INFINITY);
+			Arrays.fill(used, false);
+			do
+			{
+				used[j0] = true;
+				int i0 = p[j0];
+				double delta = Double.POSITIVE_INFINITY;
+				int j1 = 0;
+				for (int j = 1; j <= m; j++)
+				{
+					if (used[j])
+					{
+						continue;
+					}
+					double cur = cost[i0 - 1][j - 1] - u[i0] - v[j];
+					if (cur < minv[j])
+					{
+						minv[j] = cur;
+						way[j] = j0;
+					}
+					if (minv[j] < delta)
+					{
+						delta = minv[j];
+						j1 = j;
+					}
+				}
+				for (int j = 0; j <= m; j++)
+				{
+					if (used[j])
+					{
+						u[p[j]] += delta;
+						v[j] -= delta;
+					}
+					else
+					{
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while (p[j0] != 0);
+
+			// walk back along the augmenting path
+			do
+			{
+				int j1 = way[j0];
+				p[j0] = p[j1];
+				j0 = j1;
+			} while (j0 != 0);
+		}
+
+		int[] result = new int[n];
+		for (int j = 1; j <= m; j++)
+		{
+			if (p[j] != 0)
+			{
+				result[p[j] - 1] = j - 1;
+			}
+		}
+		return result;
+	}
+}
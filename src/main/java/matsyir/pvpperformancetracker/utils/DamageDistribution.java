@@ -0,0 +1,421 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import net.runelite.api.kit.KitType;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.fixItemId;
+
+/**
+ * Probability mass function of the damage dealt by a single attack, taking into account the special attacks whose
+ * damage isn't a uniform roll between the min and max hit (dbow/VLS/SWH min hits, dragon claws, abyssal dagger).
+ * <p>
+ * A distribution is made of a few "branches" (e.g. hit or miss), each with its own damage PMF. The accuracy only
+ * decides the weight of each branch, so the branches are cached per (shape, min hit, max hit) and mixed on lookup,
+ * which keeps lookups exact for any accuracy. Instances are immutable and safe to share between threads.
+ */
+public class DamageDistribution
+{
+	// the cache is simply cleared when it gets this big, in practice a few hundred combinations are used.
+	private static final int MAX_CACHE_SIZE = 4096;
+	private static final Map<Long, DamageDistribution> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * How an attack's damage is distributed.
+	 */
+	public enum Shape
+	{
+		/**
+		 * Uniform roll between the min and max hit on a successful hit, 0 on a miss.
+		 */
+		STANDARD,
+		/**
+		 * Roll between 0 and the max hit, raised to the min hit on a successful hit (VLS/SWH specs).
+		 */
+		MIN_HIT_ON_HIT,
+		/**
+		 * Same as MIN_HIT_ON_HIT, but misses also deal the min hit (dbow spec).
+		 */
+		MIN_HIT_ALWAYS,
+		/**
+		 * Two uniform rolls between 0 and half the max hit, that both hit or both miss (abyssal dagger spec).
+		 */
+		DOUBLE_HIT,
+		/**
+		 * Dragon claws spec: up to 4 accuracy rolls, the damage depends on which one succeeds first.
+		 */
+		CLAWS
+	}
+
+	private final Shape shape;
+	// tails[branch][x] = chance of dealing at least x damage within that branch
+	private final double[][] tails;
+
+	private DamageDistribution(Shape shape, double[][] branchPmfs)
+	{
+		this.shape = shape;
+		this.tails = new double[branchPmfs.length][];
+		for (int b = 0; b < branchPmfs.length; b++)
+		{
+			double[] pmf = branchPmfs[b];
+			double[] tail = new double[pmf.length + 1];
+			for (int x = pmf.length - 1; x >= 0; x--)
+			{
+				tail[x] = tail[x + 1] + pmf[x];
+			}
+			tails[b] = tail;
+		}
+	}
+
+	/**
+	 * Gets the (cached) distribution for the given shape & hit range.
+	 *
+	 * @param shape  The damage shape of the attack.
+	 * @param minHit The attack's min hit.
+	 * @param maxHit The attack's max hit.
+	 * @return The damage distribution.
+	 */
+	public static DamageDistribution of(Shape shape, int minHit, int maxHit)
+	{
+		maxHit = Math.max(0, maxHit);
+		minHit = Math.max(0, Math.min(minHit, maxHit));
+		long key = ((long) shape.ordinal() << 40) | ((long) minHit << 20) | maxHit;
+
+		DamageDistribution distribution = CACHE.get(key);
+		if (distribution == null)
+		{
+			if (CACHE.size() >= MAX_CACHE_SIZE)
+			{
+				CACHE.clear();
+			}
+			distribution = new DamageDistribution(shape, buildBranches(shape, minHit, maxHit));
+			CACHE.put(key, distribution);
+		}
+		return distribution;
+	}
+
+	/**
+	 * Gets the distribution of a fight log entry's attack, based on its weapon, animation & hit range.
+	 *
+	 * @param entry The attack.
+	 * @return The damage distribution.
+	 */
+	public static DamageDistribution of(FightLogEntry entry)
+	{
+		return of(getShape(entry), entry.getMinHit(), entry.getMaxHit());
+	}
+
+	/**
+	 * @param entry The attack.
+	 * @return The damage shape of the attack, STANDARD unless it's one of the special attacks with a custom shape.
+	 */
+	public static Shape getShape(FightLogEntry entry)
+	{
+		if (entry.getAnimationData() == null || !entry.getAnimationData().isSpecial || entry.getAttackerGear() == null)
+		{
+			return Shape.STANDARD;
+		}
+
+		EquipmentData weapon = EquipmentData.fromId(fixItemId(entry.getAttackerGear()[KitType.WEAPON.getIndex()]));
+		if (weapon == EquipmentData.DARK_BOW)
+		{
+			return Shape.MIN_HIT_ALWAYS;
+		}
+		else if (weapon == EquipmentData.VESTAS_LONGSWORD || weapon == EquipmentData.STATIUS_WARHAMMER)
+		{
+			return Shape.MIN_HIT_ON_HIT;
+		}
+		else if (weapon == EquipmentData.DRAGON_CLAWS)
+		{
+			return Shape.CLAWS;
+		}
+		else if (weapon == EquipmentData.ABYSSAL_DAGGER)
+		{
+			return Shape.DOUBLE_HIT;
+		}
+
+		return Shape.STANDARD;
+	}
+
+	/**
+	 * @return The highest damage this distribution can deal.
+	 */
+	public int getMaxDamage()
+	{
+		int max = 0;
+		for (double[] tail : tails)
+		{
+			max = Math.max(max, tail.length - 2);
+		}
+		return max;
+	}
+
+	/**
+	 * Chance of dealing at least the given damage.
+	 *
+	 * @param damage   The damage to reach.
+	 * @param accuracy The attack's accuracy, as calculated by PvpDamageCalc.
+	 * @return The chance (0.0 to 1.0).
+	 */
+	public double probabilityAtLeast(int damage, double accuracy)
+	{
+		if (damage <= 0)
+		{
+			return 1.0;
+		}
+
+		double[] weights = getBranchWeights(accuracy);
+		double chance = 0;
+		for (int b = 0; b < tails.length; b++)
+		{
+			if (damage < tails[b].length)
+			{
+				chance += weights[b] * tails[b][damage];
+			}
+		}
+		return Math.max(0.0, Math.min(chance, 1.0));
+	}
+
+	/**
+	 * Full probability mass function, for the given accuracy.
+	 *
+	 * @param accuracy The attack's accuracy, as calculated by PvpDamageCalc.
+	 * @return pmf[x] = chance of dealing exactly x damage, for x from 0 to getMaxDamage().
+	 */
+	public double[] getPmf(double accuracy)
+	{
+		double[] weights = getBranchWeights(accuracy);
+		double[] pmf = new double[getMaxDamage() + 1];
+		for (int b = 0; b < tails.length; b++)
+		{
+			double[] tail = tails[b];
+			for (int x = 0; x < tail.length - 1; x++)
+			{
+				pmf[x] += weights[b] * (tail[x] - tail[x + 1]);
+			}
+		}
+		return pmf;
+	}
+
+	// weight of each branch, in the same order as buildBranches.
+	private double[] getBranchWeights(double accuracy)
+	{
+		accuracy = Math.max(0.0, Math.min(accuracy, 1.0));
+		if (shape != Shape.CLAWS)
+		{
+			return new double[] { accuracy, 1 - accuracy };
+		}
+
+		// the claws' accuracy is the chance of at least one of 4 rolls succeeding: 1 - (1 - p)^4
+		double p = 1 - Math.pow(1 - accuracy, 0.25);
+		double q = 1 - p;
+		return new double[] { p, q * p, q * q * p, q * q * q * p, q * q * q * q };
+	}
+
+	// the damage PMF of each branch, given that the branch happens.
+	// 2 branches (hit, miss) for every shape except claws, which has one per roll + all missing.
+	private static double[][] buildBranches(Shape shape, int minHit, int maxHit)
+	{
+		switch (shape)
+		{
+			case MIN_HIT_ON_HIT:
+				return new double[][] { raisedToMin(minHit, maxHit), point(0) };
+			case MIN_HIT_ALWAYS:
+				return new double[][] { raisedToMin(minHit, maxHit), point(minHit) };
+			case DOUBLE_HIT:
+			{
+				double[] singleHit = uniform(0, maxHit / 2);
+				return new double[][] { convolve(singleHit, singleHit), point(0) };
+			}
+			case CLAWS:
+			{
+				// the displayed max hit is 2x the regular max hit + 1
+				int base = Math.max(0, (maxHit - 1) / 2);
+				return new double[][] {
+					clawsBranch(base / 2, Math.max(base / 2, base - 1), 1),
+					clawsBranch(3 * base / 8, 7 * base / 8, 2),
+					clawsBranch(base / 4, 3 * base / 4, 3),
+					clawsBranch(base / 4, 5 * base / 4, 4),
+					point(0)
+				};
+			}
+			case STANDARD:
+			default:
+				return new double[][] { uniform(minHit, maxHit), point(0) };
+		}
+	}
+
+	// total claws damage when the given roll (1-4) is the first one to succeed, with that hit between min & max.
+	private static double[] clawsBranch(int min, int max, int firstSuccessfulRoll)
+	{
+		int[] totals = new int[max - min + 1];
+		int highest = 0;
+		for (int hit = min; hit <= max; hit++)
+		{
+			int total;
+			switch (firstSuccessfulRoll)
+			{
+				case 1: // hit, hit/2, hit/4, hit/4 + 1
+					total = hit + hit / 2 + 2 * (hit / 4) + 1;
+					break;
+				case 2: // hit, hit/2, hit/2 + 1
+					total = hit + 2 * (hit / 2) + 1;
+					break;
+				case 3: // hit, hit + 1
+					total = 2 * hit + 1;
+					break;
+				default: // only the last hit
+					total = hit;
+					break;
+			}
+			totals[hit - min] = total;
+			highest = Math.max(highest, total);
+		}
+
+		double[] pmf = new double[highest + 1];
+		double chance = 1.0 / totals.length;
+		for (int total : totals)
+		{
+			pmf[total] += chance;
+		}
+		return pmf;
+	}
+
+	private static double[] point(int damage)
+	{
+		double[] pmf = new double[damage + 1];
+		pmf[damage] = 1;
+		return pmf;
+	}
+
+	private static double[] uniform(int min, int max)
+	{
+		double[] pmf = new double[max + 1];
+		double chance = 1.0 / (max - min + 1);
+		for (int x = min; x <= max; x++)
+		{
+			pmf[x] = chance;
+		}
+		return pmf;
+	}
+
+	// roll between 0 & max, where any roll under the min hit becomes the min hit.
+	private static double[] raisedToMin(int min, int max)
+	{
+		double[] pmf = uniform(0, max);
+		for (int x = 0; x < min; x++)
+		{
+			pmf[min] += pmf[x];
+			pmf[x] = 0;
+		}
+		return pmf;
+	}
+
+	/**
+	 * Chance that the total damage of several independent attacks is at most the given total, by convolving their PMFs.
+	 * Sums above the total are dropped as they are reached, since damage can only go up: the work & memory are bounded
+	 * by the total rather than by the highest possible sum.
+	 *
+	 * @param pmfs  The PMF of each attack, e.g. from {@link #getPmf(double)}.
+	 * @param total The total damage.
+	 * @return The chance (0.0 to 1.0), or null if there were no attacks.
+	 */
+	public static Double cumulativeProbability(List<double[]> pmfs, int total)
+	{
+		if (pmfs.isEmpty() || total < 0)
+		{
+			return null;
+		}
+
+		int highestSum = 0;
+		for (double[] pmf : pmfs)
+		{
+			highestSum += pmf.length - 1;
+		}
+		if (total >= highestSum)
+		{
+			return 1.0;
+		}
+
+		double[] sums = new double[total + 1];
+		double[] next = new double[total + 1];
+		sums[0] = 1;
+		for (double[] pmf : pmfs)
+		{
+			Arrays.fill(next, 0);
+			for (int s = 0; s <= total; s++)
+			{
+				if (sums[s] == 0)
+				{
+					continue;
+				}
+				int highest = Math.min(pmf.length - 1, total - s);
+				for (int x = 0; x <= highest; x++)
+				{
+					next[s + x] += sums[s] * pmf[x];
+				}
+			}
+			double[] swap = sums;
+			sums = next;
+			next = swap;
+		}
+
+		double chance = 0;
+		for (double p : sums)
+		{
+			chance += p;
+		}
+		return Math.max(0.0, Math.min(chance, 1.0));
+	}
+
+	/**
+	 * Direct convolution of two PMFs, the distribution of the sum of both.
+	 *
+	 * @param a The first PMF.
+	 * @param b The second PMF.
+	 * @return The PMF of the sum.
+	 */
+	public static double[] convolve(double[] a, double[] b)
+	{
+		double[] result = new double[a.length + b.length - 1];
+		for (int i = 0; i < a.length; i++)
+		{
+			if (a[i] == 0)
+			{
+				continue;
+			}
+			for (int j = 0; j < b.length; j++)
+			{
+				result[i + j] += a[i] * b[j];
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Assigns the hitsplats that landed on an actor in a tick to the hit slots of the attacks that could have caused
+ * them. Each slot is one hit an attack can still take this tick, based on its hitsplat group pattern.
+ * <p>
+ * The cost of giving a hit to a slot is how far the tick is from when that slot's hit group is expected to land,
+ * and hits above the attack's max hit can never be given to it. Slots are solved in batches of
+ * {@link #MAX_SLOTS_PER_SOLVE} against all remaining hits, so the work stays bounded no matter how many attacks
+ * are pending, while every slot and every hit still goes through the same cost model.
+ */
+public class HitsplatAssignment
+{
+	/**
+	 * Max slots per solver call, the solver runs in O(slots^2 * hits).
+	 */
+	public static final int MAX_SLOTS_PER_SOLVE = 12;
+	/**
+	 * Max hits considered per tick, any past that are left unassigned.
+	 */
+	public static final int MAX_HITS = 64;
+
+	// cost of leaving a slot empty, higher than any feasible landing tick difference
+	static final double UNASSIGNED_HIT_COST = 10;
+
+	/**
+	 * One hit an attack can still take this tick.
+	 */
+	public static class Slot
+	{
+		final int delay;
+		final int expectedDelay;
+		final int maxHit;
+		final double tieBreak;
+
+		/**
+		 * @param delay         Ticks between the attack and the tick being processed.
+		 * @param expectedDelay Expected ticks between the attack and this slot's hit group landing.
+		 * @param maxHit        The attack's max hit, or 0 or less if unknown.
+		 * @param tieBreak      Small extra cost used to prefer earlier attacks/slots between equal options.
+		 */
+		public Slot(int delay, int expectedDelay, int maxHit, double tieBreak)
+		{
+			this.delay = delay;
+			this.expectedDelay = expectedDelay;
+			this.maxHit = maxHit;
+			this.tieBreak = tieBreak;
+		}
+
+		boolean canTake(int amount)
+		{
+			return delay >= 0 && (maxHit <= 0 || amount <= maxHit);
+		}
+	}
+
+	/**
+	 * @param slots      The slots, in priority order (earlier attacks first).
+	 * @param hitAmounts The damage of each hit, in the order they landed.
+	 * @return The index of the hit assigned to each slot, or -1 if the slot stays empty.
+	 */
+	public static int[] assign(List<Slot> slots, int[] hitAmounts)
+	{
+		int[] result = new int[slots.size()];
+		Arrays.fill(result, -1);
+		boolean[] hitUsed = new boolean[hitAmounts.length];
+
+		for (int batchStart = 0; batchStart < slots.size(); batchStart += MAX_SLOTS_PER_SOLVE)
+		{
+			int batchSize = Math.min(MAX_SLOTS_PER_SOLVE, slots.size() - batchStart);
+
+			List<Integer> freeHits = new ArrayList<>();
+			for (int h = 0; h < hitAmounts.length && freeHits.size() < MAX_HITS; h++)
+			{
+				if (!hitUsed[h])
+				{
+					freeHits.add(h);
+				}
+			}
+			if (freeHits.isEmpty())
+			{
+				break;
+			}
+
+			// columns: one per free hit, then one "unassigned" column per slot so a slot can stay empty.
+			int hitCount = freeHits.size();
+			double[][] cost = new double[batchSize][hitCount + batchSize];
+			for (int s = 0; s < batchSize; s++)
+			{
+				Slot slot = slots.get(batchStart + s);
+				for (int c = 0; c < hitCount; c++)
+				{
+					int h = freeHits.get(c);
+					cost[s][c] = slot.canTake(hitAmounts[h])
+						? Math.abs(slot.delay - slot.expectedDelay) + slot.tieBreak + h * 0.0001
+						: AssignmentSolver.INFEASIBLE;
+				}
+				for (int u = 0; u < batchSize; u++)
+				{
+					cost[s][hitCount + u] = UNASSIGNED_HIT_COST;
+				}
+			}
+
+			int[] solution = AssignmentSolver.solve(cost);
+			for (int s = 0; s < batchSize; s++)
+			{
+				int c = solution[s];
+				if (c < hitCount)
+				{
+					int h = freeHits.get(c);
+					hitUsed[h] = true;
+					result[batchStart + s] = h;
+				}
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import javax.swing.ImageIcon;
+
+/**
+ * Size-bounded, least-recently-used cache of icons for sprites and item images, safe to use from any thread.
+ * Concurrent requests for an icon that is still loading share the same load instead of starting their own.
+ * Loads that fail or complete with null are not cached, so they get retried on the next request.
+ */
+public class IconCache
+{
+	private static final long SPRITE_KEY = 1L << 32;
+	private static final long ITEM_KEY = 2L << 32;
+
+	private final Map<Long, ImageIcon> icons;
+	private final Map<Long, CompletableFuture<ImageIcon>> loading = new HashMap<>();
+
+	private long hits = 0;
+	private long misses = 0;
+	private long sharedLoads = 0;
+
+	/**
+	 * @param maxSize The maximum amount of icons kept, the least recently used ones are evicted first.
+	 */
+	public IconCache(int maxSize)
+	{
+		icons = new LinkedHashMap<Long, ImageIcon>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, ImageIcon> eldest)
+			{
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public static long spriteKey(int spriteId)
+	{
+		return SPRITE_KEY | (spriteId & 0xFFFFFFFFL);
+	}
+
+	public static long itemKey(int itemId)
+	{
+		return ITEM_KEY | (itemId & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets an icon, loading it if it isn't cached and isn't already being loaded.
+	 *
+	 * @param key    The key of the icon, from spriteKey() or itemKey().
+	 * @param loader Starts loading the icon, on whichever thread it needs. Only called on a miss.
+	 * @return A future completed with the icon, already completed if it was cached.
+	 * It completes on the thread the load finished on, so callers must move to the EDT themselves.
+	 */
+	public CompletableFuture<ImageIcon> get(long key, Supplier<CompletableFuture<ImageIcon>> loader)
+	{
+		CompletableFuture<ImageIcon> load;
+		synchronized (this)
+		{
+			ImageIcon icon = icons.get(key);
+			if (icon != null)
+			{
+				hits++;
+				return CompletableFuture.completedFuture(icon);
+			}
+
+			misses++;
+			load = loading.get(key);
+			if (load != null)
+			{
+				sharedLoads++;
+				return load;
+			}
+
+			load = new CompletableFuture<>();
+			loading.put(key, load);
+		}
+
+		// start the load outside of the lock, since the loader could complete right away.
+		CompletableFuture<ImageIcon> result = load;
+		try
+		{
+			loader.get().whenComplete((icon, ex) ->
+			{
+				synchronized (this)
+				{
+					loading.remove(key);
+					if (icon != null)
+					{
+						icons.put(key, icon);
+					}
+				}
+
+				if (ex != null)
+				{
+					result.completeExceptionally(ex);
+				}
+				else
+				{
+					result.complete(icon);
+				}
+			});
+		}
+		catch (RuntimeException ex)
+		{
+			synchronized (this)
+			{
+				loading.remove(key);
+			}
+			result.completeExceptionally(ex);
+		}
+		return result;
+	}
+
+	public synchronized void clear()
+	{
+		icons.clear();
+	}
+
+	/**
+	 * @return The fraction of requests that were served from the cache, or 0 if there weren't any.
+	 */
+	public synchronized double getHitRate()
+	{
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double)hits / requests;
+	}
+
+	/**
+	 * @return A short summary of the cache's size and metrics, for logging.
+	 */
+	public synchronized String getStats()
+	{
+		return String.format("%d icons, %d hits, %d misses (%d shared an ongoing load), %.1f%% hit rate",
+			icons.size(), hits, misses, sharedLoads, getHitRate() * 100);
+	}
+}
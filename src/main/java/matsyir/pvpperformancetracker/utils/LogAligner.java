@@ -0,0 +1,239 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+
+/**
+ * Aligns the attack logs recorded by two opposing clients for the same fight, so they can be merged.
+ * <p>
+ * Each attack is reduced to a signature of everything both clients see the same way (attacker, animation, both
+ * gear sets, both overheads, off-pray & splash). The logs are then aligned as a longest common subsequence of
+ * matching signatures, where a match scores a bit more if the number of ticks since the previous attack is also
+ * the same on both sides. That gap doesn't depend on either client's tick count, and it tells apart attacks that
+ * look the same, which happens a lot since people use the same gear for many attacks in a row.
+ * <p>
+ * Either client can miss the odd attack, but both lists stay in the same order, so the alignment only has to
+ * search a band around the diagonal, widened by the difference in length of the logs: O(n * (band + |n - m|)) time
+ * & memory. Logs whose lengths differ by more than {@link #MAX_LENGTH_DIFFERENCE} aren't aligned at all, which
+ * keeps that bounded by O(n) however long the fight.
+ */
+public class LogAligner
+{
+	/**
+	 * Default number of attacks one client can be ahead of the other at any point, on top of the difference in
+	 * length of the two logs.
+	 */
+	public static final int DEFAULT_BAND = 16;
+
+	/**
+	 * Most attacks one log can have over the other. Two recordings of the same fight only differ by the few attacks
+	 * either client missed, anything beyond this isn't the same fight (or not all of it).
+	 */
+	public static final int MAX_LENGTH_DIFFERENCE = 128;
+
+	private static final int UNREACHABLE = Integer.MIN_VALUE / 2;
+
+	/**
+	 * Aligns two lists of full fight log entries, each sorted by tick.
+	 *
+	 * @param a    The first client's full entries.
+	 * @param b    The second client's full entries.
+	 * @param band How far off the diagonal matches are searched for, see {@link #DEFAULT_BAND}.
+	 * @return The matched pairs of indices { index in a, index in b }, in order. Empty if either log is empty, or if
+	 * their lengths differ by more than {@link #MAX_LENGTH_DIFFERENCE}.
+	 */
+	public static List<int[]> align(List<FightLogEntry> a, List<FightLogEntry> b, int band)
+	{
+		int n = a.size();
+		int m = b.size();
+		if (n == 0 || m == 0 || Math.abs(n - m) > MAX_LENGTH_DIFFERENCE)
+		{
+			return new ArrayList<>();
+		}
+
+		int[] sigA = signatures(a);
+		int[] sigB = signatures(b);
+		int[] gapA = tickGaps(a);
+		int[] gapB = tickGaps(b);
+
+		// dp[i][j - i + w]: best score between a[0..i) and b[0..j), only for j within w of i.
+		int w = band + Math.abs(n - m);
+		int width = 2 * w + 1;
+		int[][] dp = new int[n + 1][width];
+		for (int i = 0; i <= n; i++)
+		{
+			Arrays.fill(dp[i], UNREACHABLE);
+			for (int j = Math.max(0, i - w); j <= Math.min(m, i + w); j++)
+			{
+				if (i == 0 || j == 0)
+				{
+					dp[i][j - i + w] = 0;
+					continue;
+				}
+
+				int best = Math.max(get(dp, i - 1, j, w), get(dp, i, j - 1, w));
+				if (sigA[i - 1] == sigB[j - 1] && matches(a.get(i - 1), b.get(j - 1)))
+				{
+					best = Math.max(best, get(dp, i - 1, j - 1, w) + matchScore(gapA[i - 1], gapB[j - 1]));
+				}
+				dp[i][j - i + w] = best;
+			}
+		}
+
+		// walk back from the end to collect the matches.
+		List<int[]> pairs = new ArrayList<>();
+		int i = n, j = m;
+		while (i > 0 && j > 0)
+		{
+			int current = get(dp, i, j, w);
+			if (sigA[i - 1] == sigB[j - 1] && current == get(dp, i - 1, j - 1, w) + matchScore(gapA[i - 1], gapB[j - 1])
+				&& matches(a.get(i - 1), b.get(j - 1)))
+			{
+				pairs.add(new int[] { i - 1, j - 1 });
+				i--;
+				j--;
+			}
+			else if (current == get(dp, i - 1, j, w))
+			{
+				i--;
+			}
+			else
+			{
+				j--;
+			}
+		}
+		Collections.reverse(pairs);
+		return pairs;
+	}
+
+	/**
+	 * Finds the tick offset between the two clients, as the most common tick difference between matched attacks.
+	 *
+	 * @param a     The first client's full entries.
+	 * @param b     The second client's full entries.
+	 * @param pairs Matches from {@link #align}.
+	 * @return { tick difference (a - b), number of matches with that difference }, or null if there were no matches.
+	 */
+	public static int[] findTickOffset(List<FightLogEntry> a, List<FightLogEntry> b, List<int[]> pairs)
+	{
+		Map<Integer, Integer> counts = new HashMap<>();
+		int[] best = null;
+		for (int[] pair : pairs)
+		{
+			int diff = a.get(pair[0]).getTick() - b.get(pair[1]).getTick();
+			int count = counts.merge(diff, 1, Integer::sum);
+			if (best == null || count > best[1])
+			{
+				best = new int[] { diff, count };
+			}
+		}
+		return best;
+	}
+
+	private static int get(int[][] dp, int i, int j, int w)
+	{
+		int k = j - i + w;
+		return k < 0 || k >= dp[i].length ? UNREACHABLE : dp[i][k];
+	}
+
+	private static int matchScore(int gapA, int gapB)
+	{
+		return gapA == gapB ? 3 : 2;
+	}
+
+	// ticks since the previous entry, 0 for the first one.
+	private static int[] tickGaps(List<FightLogEntry> entries)
+	{
+		int[] gaps = new int[entries.size()];
+		for (int i = 1; i < gaps.length; i++)
+		{
+			gaps[i] = entries.get(i).getTick() - entries.get(i - 1).getTick();
+		}
+		return gaps;
+	}
+
+	private static int[] signatures(List<FightLogEntry> entries)
+	{
+		int[] signatures = new int[entries.size()];
+		for (int i = 0; i < signatures.length; i++)
+		{
+			signatures[i] = signature(entries.get(i));
+		}
+		return signatures;
+	}
+
+	/**
+	 * Hashes everything about a full entry that every client sees the same way. Entries that
+	 * {@link #matches} always have the same signature.
+	 *
+	 * @param e A full fight log entry.
+	 * @return The entry's signature.
+	 */
+	public static int signature(FightLogEntry e)
+	{
+		return Objects.hash(e.attackerName, e.getAnimationData(), Arrays.hashCode(e.getAttackerGear()),
+			Arrays.hashCode(e.getDefenderGear()), e.getAttackerOverhead(), e.getDefenderOverhead(), e.success(), e.isSplash());
+	}
+
+	/**
+	 * Hashes the data of a defensive entry: the defender's levels & offensive prayer.
+	 *
+	 * @param e A defensive (not full) fight log entry.
+	 * @return The entry's signature.
+	 */
+	public static int defensiveSignature(FightLogEntry e)
+	{
+		CombatLevels l = e.getAttackerLevels();
+		return Objects.hash(e.getAttackerOffensivePray(),
+			l == null ? 0 : Objects.hash(l.atk, l.str, l.def, l.range, l.mage, l.hp));
+	}
+
+	/**
+	 * Checks if two full entries, recorded by different clients, describe the same attack. Dps calc values aren't
+	 * compared since they depend on each client's config. If gear & prayers are the same, the calcs would be too.
+	 *
+	 * @return true if both entries look like the same attack.
+	 */
+	public static boolean matches(FightLogEntry a, FightLogEntry b)
+	{
+		return Objects.equals(a.attackerName, b.attackerName) &&
+			a.getAnimationData() == b.getAnimationData() &&
+			Arrays.equals(a.getAttackerGear(), b.getAttackerGear()) &&
+			Arrays.equals(a.getDefenderGear(), b.getDefenderGear()) &&
+			a.getAttackerOverhead() == b.getAttackerOverhead() &&
+			a.getDefenderOverhead() == b.getDefenderOverhead() &&
+			a.success() == b.success() &&
+			a.isSplash() == b.isSplash();
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sorted index of values by lowercased name, used to filter the fight history by username without scanning
+ * every fight. Prefix lookups walk only the names that start with the prefix, so their cost depends on the
+ * number of matches rather than the size of the history. Values are compared by identity.
+ * <p>
+ * Not thread-safe.
+ *
+ * @param <T> The indexed values.
+ */
+public class NamePrefixIndex<T>
+{
+	private final TreeMap<String, Set<T>> index = new TreeMap<>();
+
+	/**
+	 * Adds a value under the given name. A value can be added under several names.
+	 */
+	public void add(String name, T value)
+	{
+		index.computeIfAbsent(key(name), k -> Collections.newSetFromMap(new IdentityHashMap<>())).add(value);
+	}
+
+	/**
+	 * Removes a value that was added under the given name.
+	 */
+	public void remove(String name, T value)
+	{
+		String key = key(name);
+		Set<T> values = index.get(key);
+		if (values != null && values.remove(value) && values.isEmpty())
+		{
+			index.remove(key);
+		}
+	}
+
+	/**
+	 * Finds every value with a name equal to, or starting with, the filter. An empty filter finds every value.
+	 *
+	 * @param filter The filter, in any case.
+	 * @param exact  If true, only names equal to the filter match.
+	 * @return The matching values, in no particular order.
+	 */
+	public Set<T> find(String filter, boolean exact)
+	{
+		String key = key(filter);
+		Set<T> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+		if (exact && !key.isEmpty())
+		{
+			Set<T> values = index.get(key);
+			if (values != null)
+			{
+				matches.addAll(values);
+			}
+			return matches;
+		}
+
+		for (Map.Entry<String, Set<T>> entry : index.tailMap(key, true).entrySet())
+		{
+			if (!entry.getKey().startsWith(key))
+			{
+				break;
+			}
+			matches.addAll(entry.getValue());
+		}
+		return matches;
+	}
+
+	/**
+	 * Checks a single name against a filter, the same way {@link #find} does.
+	 *
+	 * @param name   The name to check.
+	 * @param filter The filter, in any case.
+	 * @param exact  If true, the name must be equal to the filter.
+	 * @return true if the name matches the filter.
+	 */
+	public static boolean matches(String name, String filter, boolean exact)
+	{
+		String key = key(filter);
+		if (key.isEmpty())
+		{
+			return true;
+		}
+		return exact ? key(name).equals(key) : key(name).startsWith(key);
+	}
+
+	public void clear()
+	{
+		index.clear();
+	}
+
+	private static String key(String name)
+	{
+		return name == null ? "" : name.trim().toLowerCase();
+	}
+}
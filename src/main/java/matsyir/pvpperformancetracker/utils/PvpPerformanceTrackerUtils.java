@@ -2,6 +2,7 @@ package matsyir.pvpperformancetracker.utils;
 
 import lombok.extern.slf4j.Slf4j;
 import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
 import java.util.Arrays;
 
 @Slf4j
@@ -52,6 +53,30 @@ public class PvpPerformanceTrackerUtils
 		return Math.max(0.0, Math.min(chance, 1.0));
 	}
 
+	/**
+	 * Calculates the chance of knocking out an opponent with a single attack, using the attack's exact damage
+	 * distribution rather than a uniform roll (see {@link DamageDistribution}).
+	 *
+	 * @param entry               The attack.
+	 * @param estimatedOpponentHp The estimated HP of the opponent before the hit.
+	 * @return The KO chance (0.0 to 1.0), or null if the attack can't deal enough damage to KO.
+	 */
+	public static Double calculateKoChance(FightLogEntry entry, int estimatedOpponentHp)
+	{
+		if (estimatedOpponentHp <= 0)
+		{
+			return null;
+		}
+
+		DamageDistribution distribution = DamageDistribution.of(entry);
+		if (distribution.getMaxDamage() < estimatedOpponentHp)
+		{
+			return null;
+		}
+
+		return distribution.probabilityAtLeast(estimatedOpponentHp, entry.getAccuracy());
+	}
+
 	/**
 	 * Returns how many splats an attack animation should produce based on its group pattern.
 	 */
@@ -76,39 +101,72 @@ public class PvpPerformanceTrackerUtils
 	 */
 	public static int calculateHpBeforeHit(int ratio, int scale, int maxHp, int damageSum)
 	{
-		if (ratio < 0 || scale <= 0 || maxHp <= 0)
+		int[] hpRange = getHpRangeFromHealthBar(ratio, scale, maxHp);
+		if (hpRange == null)
 		{
 			return -1; // Cannot estimate
 		}
 
-		int hpAfter;
+		int hpAfter = (hpRange[0] + hpRange[1] + 1) / 2; // Average the possible range
+		return hpAfter + damageSum;
+	}
+
+	/**
+	 * Calculates the range of HP values that a health bar ratio/scale can represent.
+	 *
+	 * @param ratio The health bar ratio (0-?).
+	 * @param scale The health bar scale.
+	 * @param maxHp The actor's maximum HP.
+	 * @return The {min, max} possible HP, or null if the health bar isn't valid.
+	 */
+	public static int[] getHpRangeFromHealthBar(int ratio, int scale, int maxHp)
+	{
+		if (ratio < 0 || scale <= 0 || maxHp <= 0)
+		{
+			return null;
+		}
+
 		if (ratio == 0)
 		{
-			hpAfter = 0;
+			return new int[] {0, 0};
 		}
-		else
+
+		int minHealth = 1;
+		int maxHealth;
+		if (scale > 1)
 		{
-			int minHealth = 1;
-			int maxHealth;
-			if (scale > 1)
+			if (ratio > 1)
 			{
-				if (ratio > 1)
-				{
-					minHealth = (maxHp * (ratio - 1) + scale - 2) / (scale - 1);
-				}
-				maxHealth = (maxHp * ratio - 1) / (scale - 1);
-				if (maxHealth > maxHp)
-				{
-					maxHealth = maxHp;
-				}
+				minHealth = (maxHp * (ratio - 1) + scale - 2) / (scale - 1);
 			}
-			else // scale = 1 implies ratio must be 1
+			maxHealth = (maxHp * ratio - 1) / (scale - 1);
+			if (maxHealth > maxHp)
 			{
 				maxHealth = maxHp;
 			}
-			hpAfter = (minHealth + maxHealth + 1) / 2; // Average the possible range
+		}
+		else // scale = 1 implies ratio must be 1
+		{
+			maxHealth = maxHp;
 		}
 
-		return hpAfter + damageSum;
+		return new int[] {minHealth, maxHealth};
+	}
+
+	/**
+	 * Normalizes a player name so the same player can be matched across clients and exports: lowercase, and
+	 * non-breaking spaces, underscores & hyphens all count as regular spaces.
+	 *
+	 * @param name The player name, as saved in a fight.
+	 * @return The normalized name, or an empty string if the name is null.
+	 */
+	public static String normalizeName(String name)
+	{
+		if (name == null)
+		{
+			return "";
+		}
+
+		return name.replace('\u00A0', ' ').replace('_', ' ').replace('-', ' ').trim().toLowerCase();
 	}
 }
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.utils;
+
+import java.lang.management.ManagementFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures how much time the plugin itself spends on the client thread each game tick (event handlers and
+ * overlay rendering), and progressively turns off optional work when it keeps going over the budget.
+ * Full fidelity is restored one level at a time once the load drops back down.
+ * <p>
+ * Everything except {@link #getLevel()} is expected to be called from the client thread.
+ * <p>
+ * Besides the time, the memory allocated by the plugin's work is also measured where the JVM supports it,
+ * so the cost of the tracking profiles can be compared.
+ */
+@Slf4j
+public class TickBudgetMonitor
+{
+	// consecutive ticks over budget before degrading by one level
+	private static final int TICKS_OVER_TO_DEGRADE = 3;
+	// consecutive ticks under half the budget before recovering by one level (~15 seconds)
+	private static final int TICKS_UNDER_TO_RECOVER = 25;
+
+	// null if the JVM can't measure per-thread allocations
+	private static final com.sun.management.ThreadMXBean ALLOCATION_BEAN = getAllocationBean();
+
+	/**
+	 * Degradation levels, in the order optional work gets turned off. Each level also includes
+	 * every level before it, e.g. NO_KO_CHANCE also skips HP polling.
+	 */
+	public enum Level
+	{
+		FULL("Full"),
+		NO_HP_POLLING("No HP polling"),
+		NO_KO_CHANCE("No KO chance"),
+		NO_GHOST_BARRAGE("No ghost barrages"),
+		NO_CHAT_LOG("No chat fight log");
+
+		@Getter
+		private final String displayName;
+
+		Level(String displayName)
+		{
+			this.displayName = displayName;
+		}
+	}
+
+	@Getter
+	private volatile Level level = Level.FULL;
+
+	private long currentTickNanos = 0;
+	private int ticksOverBudget = 0;
+	private int ticksUnderBudget = 0;
+
+	// running totals since the last resetTotals(), used to compare tracking profiles
+	private long totalNanos = 0;
+	private long totalBytes = 0;
+	private int totalTicks = 0;
+
+	/**
+	 * Running cost totals, e.g. for all the fights tracked with one profile.
+	 */
+	@Getter
+	public static class Totals
+	{
+		private long nanos = 0;
+		private long allocatedBytes = 0;
+		private int ticks = 0;
+		private int fights = 0;
+
+		public void add(TickBudgetMonitor monitor)
+		{
+			nanos += monitor.totalNanos;
+			allocatedBytes += monitor.totalBytes;
+			ticks += monitor.totalTicks;
+			fights++;
+		}
+
+		/**
+		 * @return The average time per tick in microseconds, or 0 if there were no ticks.
+		 */
+		public double getMicrosPerTick()
+		{
+			return ticks == 0 ? 0 : nanos / 1000.0 / ticks;
+		}
+
+		/**
+		 * @return The average memory allocated per tick in bytes, or 0 if there were no ticks.
+		 */
+		public double getBytesPerTick()
+		{
+			return ticks == 0 ? 0 : (double)allocatedBytes / ticks;
+		}
+	}
+
+	/**
+	 * Adds the time elapsed and memory allocated since the work started to the current tick's total.
+	 *
+	 * @param startNanos The System.nanoTime() value taken before the work started.
+	 * @param startBytes The {@link #allocatedBytes()} value taken before the work started.
+	 */
+	public void record(long startNanos, long startBytes)
+	{
+		currentTickNanos += System.nanoTime() - startNanos;
+		if (ALLOCATION_BEAN != null)
+		{
+			totalBytes += allocatedBytes() - startBytes;
+		}
+	}
+
+	/**
+	 * @return The total memory allocated so far by the current thread, or 0 if the JVM can't measure it.
+	 */
+	public long allocatedBytes()
+	{
+		return ALLOCATION_BEAN == null ? 0 : ALLOCATION_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * @return true if allocations are being measured.
+	 */
+	public static boolean isMeasuringAllocations()
+	{
+		return ALLOCATION_BEAN != null;
+	}
+
+	/**
+	 * Evaluates the tick that just ended against the budget, and adjusts the level if needed.
+	 * Should be called once per game tick, before any of the new tick's work is recorded.
+	 *
+	 * @param budgetMs The allowed time per tick in milliseconds.
+	 * @param enabled  If false, the level is reset to FULL and nothing is shed.
+	 */
+	public void endTick(int budgetMs, boolean enabled)
+	{
+		long tickNanos = currentTickNanos;
+		currentTickNanos = 0;
+		totalNanos += tickNanos;
+		totalTicks++;
+
+		if (!enabled)
+		{
+			ticksOverBudget = 0;
+			ticksUnderBudget = 0;
+			level = Level.FULL;
+			return;
+		}
+
+		long budgetNanos = budgetMs * 1_000_000L;
+		if (tickNanos > budgetNanos)
+		{
+			ticksUnderBudget = 0;
+			if (++ticksOverBudget >= TICKS_OVER_TO_DEGRADE && level.ordinal() < Level.values().length - 1)
+			{
+				setLevel(Level.values()[level.ordinal() + 1], tickNanos);
+				ticksOverBudget = 0;
+			}
+		}
+		else if (tickNanos < budgetNanos / 2)
+		{
+			ticksOverBudget = 0;
+			if (++ticksUnderBudget >= TICKS_UNDER_TO_RECOVER && level != Level.FULL)
+			{
+				setLevel(Level.values()[level.ordinal() - 1], tickNanos);
+				ticksUnderBudget = 0;
+			}
+		}
+		else
+		{
+			// somewhere around the budget, hold the current level.
+			ticksOverBudget = 0;
+			ticksUnderBudget = 0;
+		}
+	}
+
+	/**
+	 * @param feature The level at which the feature gets turned off.
+	 * @return true if the feature should currently be skipped.
+	 */
+	public boolean isShedding(Level feature)
+	{
+		return level.ordinal() >= feature.ordinal();
+	}
+
+	/**
+	 * Resets the running totals, e.g. when a new fight starts.
+	 */
+	public void resetTotals()
+	{
+		totalNanos = 0;
+		totalBytes = 0;
+		totalTicks = 0;
+	}
+
+	/**
+	 * @return The average time spent per tick since the last resetTotals(), in microseconds.
+	 */
+	public long getAverageTickMicros()
+	{
+		return totalTicks == 0 ? 0 : totalNanos / totalTicks / 1000;
+	}
+
+	/**
+	 * @return The number of ticks since the last resetTotals().
+	 */
+	public int getTotalTicks()
+	{
+		return totalTicks;
+	}
+
+	private static com.sun.management.ThreadMXBean getAllocationBean()
+	{
+		try
+		{
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean)
+			{
+				com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)bean;
+				if (allocationBean.isThreadAllocatedMemorySupported())
+				{
+					allocationBean.setThreadAllocatedMemoryEnabled(true);
+					return allocationBean;
+				}
+			}
+		}
+		catch (Exception | LinkageError e)
+		{
+			log.debug("Can't measure thread allocations", e);
+		}
+		return null;
+	}
+
+	private void setLevel(Level newLevel, long tickNanos)
+	{
+		log.info("Tick took {}ms, changing tracking level from {} to {}",
+			tickNanos / 1_000_000, level.getDisplayName(), newLevel.getDisplayName());
+		level = newLevel;
+	}
+}
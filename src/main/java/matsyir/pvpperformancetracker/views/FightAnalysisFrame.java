@@ -33,12 +33,22 @@ import java.awt.dnd.DnDConstants;
 import java.awt.dnd.DropTarget;
 import java.awt.dnd.DropTargetDropEvent;
 import java.awt.event.ItemEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
@@ -47,9 +57,11 @@ import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JRootPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import lombok.extern.slf4j.Slf4j;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN_ICON;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
@@ -64,10 +76,29 @@ public class FightAnalysisFrame extends JFrame
 	public static String WIKI_HELP_URL = "https://github.com/Matsyir/pvp-performance-tracker/wiki#fight-analysisfight-merge";
 	private static String WINDOW_TITLE = "PvP Performance Tracker: Fight Analysis";
 	private static final NumberFormat nf = NumberFormat.getInstance();
+	// how many analyzed input pairs to keep, so going back & merging the same fights again is instant.
+	private static final int ANALYSIS_CACHE_SIZE = 8;
+	// cached analyses by a hash of both inputs, in access order. Guarded by itself.
+	private static final Map<String, CachedAnalysis> analysisCache = new LinkedHashMap<String, CachedAnalysis>(16, 0.75f, true)
+	{
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedAnalysis> eldest)
+		{
+			return size() > ANALYSIS_CACHE_SIZE;
+		}
+	};
 
 	private JPanel mainPanel;
 	private JTextField mainFightJsonInput;
 	private JTextField opponentFightJsonInput;
+	private JButton confirmButton;
+	private JPanel progressPanel;
+	private JProgressBar progressBar;
+
+	// incremented on the EDT every time an analysis is started or cancelled, so results from
+	// a previous (cancelled) analysis can be recognized & dropped.
+	private volatile int analysisId = 0;
+	private Thread analysisThread;
 
 	private FightPerformance mainFight;
 	private FightPerformance opponentFight;
@@ -84,6 +115,13 @@ public class FightAnalysisFrame extends JFrame
 	{
 		this(rootPane);
 		mainFightJsonInput.setText(PLUGIN.GSON.toJson(fight, FightPerformance.class));
+
+		// fill in the opponent's side too if it was imported
+		FightPerformance opposingFight = PLUGIN.findOpposingFight(fight);
+		if (opposingFight != null)
+		{
+			opponentFightJsonInput.setText(PLUGIN.GSON.toJson(opposingFight, FightPerformance.class));
+		}
 		validate();
 		repaint();
 	}
@@ -114,6 +152,16 @@ public class FightAnalysisFrame extends JFrame
 
 		add(mainPanel);
 
+		// stop any ongoing analysis when the window is closed
+		addWindowListener(new WindowAdapter()
+		{
+			@Override
+			public void windowClosing(WindowEvent e)
+			{
+				cancelAnalysis();
+			}
+		});
+
 		setVisible(true);
 		initializeFrame();
 	}
@@ -150,7 +198,8 @@ public class FightAnalysisFrame extends JFrame
 		instructionLabel.setText("<html>This window is used to merge two opposing fighters' fight data in order to " +
 			"get more accurate stats about the fight, since some data is only available client-side. Both data " +
 			"entries should come from the same fight, but from two different clients. Fighter 2 is Fighter 1's " +
-			"opponent. Right click a fight in order to copy its data.<br/><br/>" +
+			"opponent. Right click a fight in order to copy its data. Either side can also be an array of several " +
+			"recordings of the same fight, which fill in any attacks one of them missed.<br/><br/>" +
 			"When using this, the following stats are applied to deserved damage & deserved magic hits:<br/>" +
 			"&nbsp;&nbsp;&mdash; Offensive prayers, instead of always being correct<br/>" +
 			"&nbsp;&nbsp;&mdash; Boosted or drained levels (e.g from brewing down), instead of using config stats or fixed LMS stats<br/>" +
@@ -244,12 +293,32 @@ public class FightAnalysisFrame extends JFrame
 		textAreaLine.setMaximumSize(new Dimension(mainPanel.getWidth(), 32));
 
 		// confirm button
-		JButton confirmButton = new JButton("<html><strong>Merge Fight Data</strong></html>");
+		confirmButton = new JButton("<html><strong>Merge Fight Data</strong></html>");
 		confirmButton.setSize(256, 32);
 		confirmButton.setMaximumSize(new Dimension(256, 32));
 		confirmButton.addActionListener(e -> performAnalysis());
 		confirmButton.setAlignmentX(Component.CENTER_ALIGNMENT);
 
+		// progress bar & cancel button, only shown while an analysis is running
+		progressBar = new JProgressBar();
+		progressBar.setIndeterminate(true);
+		progressBar.setStringPainted(true);
+		progressBar.setMaximumSize(new Dimension(256, 24));
+
+		JButton cancelButton = new JButton("Cancel");
+		cancelButton.setMaximumSize(new Dimension(96, 24));
+		cancelButton.addActionListener(e -> cancelAnalysis());
+
+		progressPanel = new JPanel();
+		progressPanel.setLayout(new BoxLayout(progressPanel, BoxLayout.X_AXIS));
+		progressPanel.setBackground(null);
+		progressPanel.setAlignmentX(Component.CENTER_ALIGNMENT);
+		progressPanel.setMaximumSize(new Dimension(360, 24));
+		progressPanel.add(progressBar);
+		progressPanel.add(Box.createRigidArea(new Dimension(8, 0)));
+		progressPanel.add(cancelButton);
+		progressPanel.setVisible(false);
+
 		// add all components
 		mainPanel.add(wikiLinkLabel);
 		mainPanel.add(Box.createRigidArea(new Dimension(0, 4)));
@@ -260,66 +329,186 @@ public class FightAnalysisFrame extends JFrame
 		mainPanel.add(textAreaLine);
 		mainPanel.add(Box.createRigidArea(new Dimension(0, 16)));
 		mainPanel.add(confirmButton);
+		mainPanel.add(Box.createRigidArea(new Dimension(0, 8)));
+		mainPanel.add(progressPanel);
 
 		validate();
 		repaint();
 	}
 
-	// parse fights into mainFight / opponentFight. Returns false if either are invalid.
-	private boolean parseFights()
+	// parse a fighter's fight data, one or more recordings. Returns null if it is invalid, after showing an error.
+	// Called from the analysis thread.
+	private static List<FightPerformance> parseFights(String json, String fighter)
 	{
+		List<FightPerformance> fights;
 		try
 		{
-			// if either fight or their log entries are null, error
-			mainFight = PLUGIN.GSON.fromJson(mainFightJsonInput.getText().trim(), FightPerformance.class);
-			if (mainFight == null || mainFight.getAllFightLogEntries() == null || mainFight.getAllFightLogEntries().size() < 1)
+			// either a single fight, or an array of several recordings of it (e.g. from more than one export)
+			fights = json.startsWith("[") ?
+				Arrays.asList(PLUGIN.GSON.fromJson(json, FightPerformance[].class)) :
+				Collections.singletonList(PLUGIN.GSON.fromJson(json, FightPerformance.class));
+		}
+		catch (Exception e)
+		{
+			PLUGIN.createConfirmationModal(false, "Error while parsing " + fighter + "'s fight data.");
+			return null;
+		}
+
+		// if there are no fights, or any fight or its log entries are null, error
+		if (fights.isEmpty() || fights.stream().anyMatch(fight -> fight == null ||
+			fight.getAllFightLogEntries() == null || fight.getAllFightLogEntries().size() < 1))
+		{
+			PLUGIN.createConfirmationModal(false, "Error parsing " + fighter + "'s fight data.");
+			return null;
+		}
+
+		fights.forEach(PLUGIN::initializeImportedFight);
+		return fights;
+	}
+
+	// start fight parsing & merging in the background, and if fights are valid then move onto the next "state" of
+	// the frame where we will display stats about the fight. Large fights can take a while to parse and merge,
+	// so this is kept off of the EDT; the frame shows a progress bar with a cancel button in the meantime.
+	private void performAnalysis()
+	{
+		String mainJson = mainFightJsonInput.getText().trim();
+		String opponentJson = opponentFightJsonInput.getText().trim();
+
+		cancelAnalysis();
+		final int id = ++analysisId;
+		confirmButton.setEnabled(false);
+		progressPanel.setVisible(true);
+		setProgress(id, "Parsing fight data...");
+		validate();
+		repaint();
+
+		analysisThread = new Thread(() ->
+		{
+			try
 			{
-				PLUGIN.createConfirmationModal(false, "Error parsing Fighter 1's fight data.");
-				mainFight = null;
+				String key = hashInputs(mainJson, opponentJson);
+				CachedAnalysis cached;
+				synchronized (analysisCache)
+				{
+					cached = analysisCache.get(key);
+				}
+				if (cached != null)
+				{
+					SwingUtilities.invokeLater(() -> finishAnalysis(id, cached));
+					return;
+				}
 
-				return false;
-			}
+				setProgress(id, "Parsing Fighter 1's fight data...");
+				List<FightPerformance> mainRecordings = parseFights(mainJson, "Fighter 1");
+				if (mainRecordings == null || isCancelled(id))
+				{
+					SwingUtilities.invokeLater(() -> stopAnalysis(id));
+					return;
+				}
+
+				setProgress(id, "Parsing Fighter 2's fight data...");
+				List<FightPerformance> opponentRecordings = parseFights(opponentJson, "Fighter 2");
+				if (opponentRecordings == null || isCancelled(id))
+				{
+					SwingUtilities.invokeLater(() -> stopAnalysis(id));
+					return;
+				}
+
+				setProgress(id, "Merging fights & re-calculating attacks...");
+				// the whole merge runs on this thread, only item stats missing from the ItemStatsTable are looked up
+				// on the client thread. The merged fight is complete once the constructor returns.
+				// every recording of either side is merged, Fighter 1's first one being the main fight.
+				List<FightPerformance> recordings = new ArrayList<>(mainRecordings);
+				recordings.addAll(opponentRecordings);
+				AnalyzedFightPerformance analyzed = new AnalyzedFightPerformance(recordings, () -> {});
 
-			opponentFight = PLUGIN.GSON.fromJson(opponentFightJsonInput.getText().trim(), FightPerformance.class);
-			if (opponentFight == null || opponentFight.getAllFightLogEntries() == null || opponentFight.getAllFightLogEntries().size() < 1)
+				CachedAnalysis result = new CachedAnalysis(analyzed.getMainFight(), analyzed.getOpposingFight(), analyzed);
+				synchronized (analysisCache)
+				{
+					analysisCache.put(key, result);
+				}
+				SwingUtilities.invokeLater(() -> finishAnalysis(id, result));
+			}
+			catch (Exception e)
 			{
-				PLUGIN.createConfirmationModal(false, "Error parsing Fighter 2's fight data.");
-				opponentFight = null;
+				if (isCancelled(id)) { return; }
 
-				return false;
+				log.info("Error during fight analysis - could not merge fights. Exception tack trace: ", e);
+				PLUGIN.createConfirmationModal(false, "<html>Error while merging fights. Unable to analyze.<br/>If you think this should have been valid, feel free to submit<br/>an issue on the github repo, and include client logs.</html>");
+				SwingUtilities.invokeLater(() -> stopAnalysis(id));
 			}
+		}, "pvp-tracker-fight-analysis");
+		analysisThread.setDaemon(true);
+		analysisThread.start();
+	}
 
+	// cancel the ongoing analysis, if any. Its results will be ignored if they still come in.
+	private void cancelAnalysis()
+	{
+		if (analysisThread == null) { return; }
 
-			PLUGIN.initializeImportedFight(mainFight);
-			PLUGIN.initializeImportedFight(opponentFight);
-		}
-		catch(Exception e)
-		{
-			PLUGIN.createConfirmationModal(false, "Error while parsing fight data.");
-			return false;
-		}
+		analysisThread.interrupt();
+		stopAnalysis(analysisId);
+		analysisId++;
+	}
+
+	// hide the progress bar after an analysis ended, unless another one has started since.
+	// Must be called on the EDT.
+	private void stopAnalysis(int id)
+	{
+		if (id != analysisId) { return; }
 
-		return true;
+		analysisThread = null;
+		confirmButton.setEnabled(true);
+		progressPanel.setVisible(false);
+		validate();
+		repaint();
 	}
 
-	// start fight parsing, and if fights are valid then move onto the next "state" of the frame
-	// where we will display stats about the fight.
-	private void performAnalysis()
+	// display the analyzed fight, unless the analysis was cancelled. Must be called on the EDT.
+	private void finishAnalysis(int id, CachedAnalysis result)
 	{
-		boolean fightsValid = parseFights();
-		// parseFights includes error messages if the parse fails
-		if (!fightsValid) { return; }
+		if (id != analysisId) { return; }
 
-		try
+		stopAnalysis(id);
+		mainFight = result.mainFight;
+		opponentFight = result.opponentFight;
+		analyzedFight = result.analyzedFight;
+		displayAnalysis();
+	}
+
+	private boolean isCancelled(int id)
+	{
+		return Thread.currentThread().isInterrupted() || id != analysisId;
+	}
+
+	private void setProgress(int id, String text)
+	{
+		SwingUtilities.invokeLater(() ->
 		{
+			if (id == analysisId)
+			{
+				progressBar.setString(text);
+			}
+		});
+	}
 
-			analyzedFight = new AnalyzedFightPerformance(mainFight, opponentFight, this::displayAnalysis);
-			// now that we've got the merged fight, display results, this is done with the displayAnalysis callback
-		}
-		catch(Exception e)
+	// both inputs can be very large, so only keep a hash of them as the cache key.
+	private static String hashInputs(String mainJson, String opponentJson) throws Exception
+	{
+		MessageDigest digest = MessageDigest.getInstance("SHA-256");
+		digest.update(mainJson.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+		digest.update(opponentJson.getBytes(StandardCharsets.UTF_8));
+		return new BigInteger(1, digest.digest()).toString(16);
+	}
+
+	// analyses depend on the config (e.g. levels, gear), so drop them when it changes.
+	public static void clearAnalysisCache()
+	{
+		synchronized (analysisCache)
 		{
-			log.info("Error during fight analysis - could not merge fights. Exception tack trace: ", e);
-			PLUGIN.createConfirmationModal(false, "<html>Error while merging fights. Unable to analyze.<br/>If you think this should have been valid, feel free to submit<br/>an issue on the github repo, and include client logs.</html>");
+			analysisCache.clear();
 		}
 	}
 
@@ -399,4 +588,18 @@ public class FightAnalysisFrame extends JFrame
 		validate();
 		repaint();
 	}
+
+	private static class CachedAnalysis
+	{
+		private final FightPerformance mainFight;
+		private final FightPerformance opponentFight;
+		private final AnalyzedFightPerformance analyzedFight;
+
+		private CachedAnalysis(FightPerformance mainFight, FightPerformance opponentFight, AnalyzedFightPerformance analyzedFight)
+		{
+			this.mainFight = mainFight;
+			this.opponentFight = opponentFight;
+			this.analyzedFight = analyzedFight;
+		}
+	}
 }
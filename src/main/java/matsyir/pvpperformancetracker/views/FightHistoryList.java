@@ -0,0 +1,347 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.views;
+
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import javax.swing.AbstractListModel;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import matsyir.pvpperformancetracker.controllers.FightPerformance;
+import net.runelite.client.ui.ColorScheme;
+
+// Virtualized fight history: a plain list model of fights, painted by a single reused FightPerformancePanel.
+// Only the visible rows are ever painted, and no Swing components are created per fight, so the whole
+// history can be scrolled through. Clicks, the context menu, hover & tooltips are forwarded to the row under
+// the mouse, to behave like the individual FightPerformancePanels used to.
+public class FightHistoryList extends JList<FightPerformance>
+{
+	private final Model model;
+	private final Renderer renderer = new Renderer();
+	private int hoveredIndex = -1;
+
+	public FightHistoryList()
+	{
+		model = new Model();
+		setModel(model);
+		setCellRenderer(renderer);
+		setBackground(ColorScheme.DARK_GRAY_COLOR);
+		setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		setFocusable(false);
+
+		// every row has the same number of lines, so a fixed size lets the list skip measuring every fight.
+		// The width still follows the scroll pane's viewport.
+		setFixedCellHeight((int)renderer.panel.getPreferredSize().getHeight());
+		setFixedCellWidth(1);
+
+		MouseAdapter mouseListener = new MouseAdapter()
+		{
+			@Override
+			public void mouseMoved(MouseEvent e)
+			{
+				setHoveredIndex(rowAt(e.getPoint()));
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e)
+			{
+				setHoveredIndex(-1);
+			}
+
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				int index = rowAt(e.getPoint());
+				if (index < 0) { return; }
+
+				FightPerformance fight = model.getElementAt(index);
+				if (SwingUtilities.isRightMouseButton(e))
+				{
+					FightPerformancePanel.createPopupMenu(fight, FightHistoryList.this).show(FightHistoryList.this, e.getX(), e.getY());
+				}
+				else
+				{
+					FightPerformancePanel.createFightLogFrame(fight, null, getRootPane());
+				}
+			}
+		};
+		addMouseListener(mouseListener);
+		addMouseMotionListener(mouseListener);
+	}
+
+	// add a new fight at the top of the list.
+	public void addFight(FightPerformance fight)
+	{
+		model.add(0, fight);
+	}
+
+	// remove a fight from the list. Returns false if it wasn't in it.
+	public boolean removeFight(FightPerformance fight)
+	{
+		// removed fights are usually the oldest ones trimmed by the history limit, at the bottom of the list.
+		int index = model.lastIndexOf(fight);
+		if (index < 0)
+		{
+			return false;
+		}
+
+		model.remove(index, index);
+		return true;
+	}
+
+	// change the list to show the given fights (newest first), only removing & inserting the fights that changed,
+	// in contiguous runs. The fights that were added and removed are collected into the given lists.
+	public void setFights(List<FightPerformance> fights, List<FightPerformance> added, List<FightPerformance> removed)
+	{
+		Set<FightPerformance> wanted = Collections.newSetFromMap(new IdentityHashMap<>());
+		wanted.addAll(fights);
+
+		// remove fights that shouldn't be shown anymore, from the bottom so indices stay valid.
+		int runEnd = -1;
+		for (int i = model.getSize() - 1; i >= -1; i--)
+		{
+			boolean remove = i >= 0 && !wanted.contains(model.getElementAt(i));
+			if (remove && runEnd < 0)
+			{
+				runEnd = i;
+			}
+			else if (!remove && runEnd >= 0)
+			{
+				for (int j = i + 1; j <= runEnd; j++)
+				{
+					removed.add(model.getElementAt(j));
+				}
+				model.remove(i + 1, runEnd);
+				runEnd = -1;
+			}
+		}
+
+		// what's left is in the same order as the new fights, so insert the missing ones in place.
+		Set<FightPerformance> shown = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (int i = 0; i < model.getSize(); i++)
+		{
+			shown.add(model.getElementAt(i));
+		}
+
+		int index = 0;
+		int i = 0;
+		while (i < fights.size())
+		{
+			if (index < model.getSize() && model.getElementAt(index) == fights.get(i))
+			{
+				index++;
+				i++;
+				continue;
+			}
+
+			if (shown.contains(fights.get(i)))
+			{
+				// the order changed (shouldn't happen, since the history stays sorted), replace everything instead.
+				for (int j = 0; j < model.getSize(); j++)
+				{
+					removed.add(model.getElementAt(j));
+				}
+				model.clear();
+				model.addAll(0, fights);
+				added.addAll(fights);
+				return;
+			}
+
+			int runStart = i;
+			while (i < fights.size() && !shown.contains(fights.get(i)))
+			{
+				i++;
+			}
+			List<FightPerformance> run = fights.subList(runStart, i);
+			model.addAll(index, run);
+			added.addAll(run);
+			index += run.size();
+		}
+	}
+
+	public void clear()
+	{
+		model.clear();
+	}
+
+	// the fight's stats changed (e.g. recalculated), repaint its row if it is visible.
+	public void fightUpdated(FightPerformance fight)
+	{
+		int index = model.indexOf(fight);
+		if (index >= 0)
+		{
+			model.changed(index);
+		}
+	}
+
+	@Override
+	public String getToolTipText(MouseEvent e)
+	{
+		int index = rowAt(e.getPoint());
+		if (index < 0)
+		{
+			return null;
+		}
+
+		// lay the renderer out like the row under the mouse, then use the tooltip of the stat being hovered.
+		Rectangle bounds = getCellBounds(index, index);
+		renderer.getListCellRendererComponent(this, model.getElementAt(index), index, false, false);
+		renderer.panel.setBounds(0, 0, bounds.width, bounds.height);
+		renderer.panel.validate();
+
+		Component c = SwingUtilities.getDeepestComponentAt(renderer.panel, e.getX() - bounds.x, e.getY() - bounds.y);
+		while (c != null && c != renderer.panel)
+		{
+			if (c instanceof JComponent && ((JComponent)c).getToolTipText() != null)
+			{
+				return ((JComponent)c).getToolTipText();
+			}
+			c = c.getParent();
+		}
+		return renderer.panel.getToolTipText();
+	}
+
+	// index of the row at the given point, or -1 if it isn't on a row.
+	private int rowAt(Point p)
+	{
+		int index = locationToIndex(p);
+		if (index < 0)
+		{
+			return -1;
+		}
+		Rectangle bounds = getCellBounds(index, index);
+		return bounds != null && bounds.contains(p) ? index : -1;
+	}
+
+	private void setHoveredIndex(int index)
+	{
+		if (index == hoveredIndex) { return; }
+
+		repaintRow(hoveredIndex);
+		hoveredIndex = index;
+		repaintRow(hoveredIndex);
+		setCursor(new Cursor(index >= 0 ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+	}
+
+	private void repaintRow(int index)
+	{
+		if (index < 0 || index >= model.getSize()) { return; }
+
+		Rectangle bounds = getCellBounds(index, index);
+		if (bounds != null)
+		{
+			repaint(bounds);
+		}
+	}
+
+	// list model over a plain array list, sorted from newest to oldest.
+	private static class Model extends AbstractListModel<FightPerformance>
+	{
+		private final ArrayList<FightPerformance> fights = new ArrayList<>();
+
+		@Override
+		public int getSize()
+		{
+			return fights.size();
+		}
+
+		@Override
+		public FightPerformance getElementAt(int index)
+		{
+			return fights.get(index);
+		}
+
+		private int indexOf(FightPerformance fight)
+		{
+			return fights.indexOf(fight);
+		}
+
+		private int lastIndexOf(FightPerformance fight)
+		{
+			return fights.lastIndexOf(fight);
+		}
+
+		private void add(int index, FightPerformance fight)
+		{
+			fights.add(index, fight);
+			fireIntervalAdded(this, index, index);
+		}
+
+		private void addAll(int index, List<FightPerformance> newFights)
+		{
+			if (newFights.isEmpty()) { return; }
+
+			fights.addAll(index, newFights);
+			fireIntervalAdded(this, index, index + newFights.size() - 1);
+		}
+
+		private void remove(int from, int to)
+		{
+			fights.subList(from, to + 1).clear();
+			fireIntervalRemoved(this, from, to);
+		}
+
+		private void clear()
+		{
+			if (fights.isEmpty()) { return; }
+
+			int last = fights.size() - 1;
+			fights.clear();
+			fireIntervalRemoved(this, 0, last);
+		}
+
+		private void changed(int index)
+		{
+			fireContentsChanged(this, index, index);
+		}
+	}
+
+	// paints every row with the same FightPerformancePanel, only filling in the row's fight.
+	private class Renderer implements ListCellRenderer<FightPerformance>
+	{
+		private final FightPerformancePanel panel = new FightPerformancePanel(true);
+
+		@Override
+		public Component getListCellRendererComponent(JList<? extends FightPerformance> list, FightPerformance fight,
+			int index, boolean isSelected, boolean cellHasFocus)
+		{
+			panel.setFight(fight, false, null);
+			panel.setHovered(index == hoveredIndex);
+			return panel;
+		}
+	}
+}
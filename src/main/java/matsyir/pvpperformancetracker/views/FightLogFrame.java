@@ -28,23 +28,32 @@ package matsyir.pvpperformancetracker.views;
 import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.Point;
-import java.awt.image.BufferedImage;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 import java.util.stream.Collectors;
-import javax.swing.ImageIcon;
+import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRootPane;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
 import javax.swing.event.ListSelectionListener;
+import javax.swing.table.AbstractTableModel;
 import javax.swing.table.DefaultTableCellRenderer;
 import lombok.extern.slf4j.Slf4j;
 import matsyir.pvpperformancetracker.controllers.AnalyzedFightPerformance;
+import matsyir.pvpperformancetracker.controllers.FightSimulator;
 import matsyir.pvpperformancetracker.models.AnimationData;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
@@ -69,10 +78,19 @@ public class FightLogFrame extends JFrame
 		nfPercent.setRoundingMode(RoundingMode.HALF_UP);
 	}
 
+	// very long fight logs are split into pages, so the table never holds more rows than this at once.
+	private static final int PAGE_SIZE = 500;
+
+	// a single renderer is shared by every cell of every fight log table, instead of a component per cell.
+	private static final FightLogCellRenderer CELL_RENDERER = new FightLogCellRenderer();
+
 	private FightLogDetailFrame fightLogDetailFrame;
 	private JTable table;
+	private FightLogTableModel tableModel;
 	private ListSelectionListener onRowSelected;
 	private ArrayList<FightLogEntry> fightLogEntries;
+	// refreshes the page bar after the page changed, if there is one.
+	private Runnable updatePageBar = () -> {};
 
 	// expects logEntries composing of only "full" log entries, that contain full attack data, not defender entries.
 	FightLogFrame(FightPerformance fight, ArrayList<FightLogEntry> logEntries, JRootPane rootPane)
@@ -95,118 +113,56 @@ public class FightLogFrame extends JFrame
 		setLocation(rootPane.getLocationOnScreen());
 
 		JPanel mainPanel = new JPanel(new BorderLayout(4, 4));
-		Object[][] stats = new Object[fightLogEntries.size()][14]; // Updated column count to include Actual Dmg
-		int i = 0;
-		int initialTick = 0;
 
-		for (FightLogEntry fightEntry : fightLogEntries)
+		// cells are computed from the log entries as they get displayed or sorted, see FightLogTableModel.
+		tableModel = new FightLogTableModel(fightLogEntries);
+		table = new JTable(tableModel);
+		table.setRowHeight(30);
+		for (int col = 0; col < table.getColumnCount(); col++)
 		{
-			if (i == 0)
-			{
-				initialTick = fightEntry.getTick();
-			}
-
-			int styleIcon = fightEntry.getAnimationData().attackStyle.getStyleSpriteId();
-			JLabel styleIconLabel = new JLabel();
-			PLUGIN.addSpriteToLabelIfValid(styleIconLabel, styleIcon, this::repaint);
-			styleIconLabel.setToolTipText(fightEntry.getAnimationData().attackStyle.toString());
-
-			stats[i][0] = fightEntry.getAttackerName();
-			stats[i][1] = styleIconLabel;
-			stats[i][2] = fightEntry.getHitRange();
-			stats[i][3] = nf.format(fightEntry.getAccuracy() * 100) + '%';
-			stats[i][4] = nf.format(fightEntry.getDeservedDamage());
-			// Actual Dmg column (Index 5)
-			JLabel dmgLabel = new JLabel();
-			if (fightEntry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC && fightEntry.isSplash())
-			{
-				int splashIcon = SpriteID.SPELL_ICE_BARRAGE_DISABLED;
-				PLUGIN.addSpriteToLabelIfValid(dmgLabel, splashIcon, this::repaint);
-			}
-			else
-			{
-				Integer actualDmg = fightEntry.getActualDamageSum();
-				String dmgText = actualDmg != null ? nf.format(actualDmg) : "-";
-				dmgLabel.setText(dmgText);
-			}
-			stats[i][5] = dmgLabel;
-			// HP column (Index 6) - Display as Current/Max
-			Integer hp = fightEntry.getEstimatedHpBeforeHit();
-			Integer maxHp = fightEntry.getOpponentMaxHp();
-			stats[i][6] = (hp != null && maxHp != null) ? hp + "/" + maxHp : (hp != null ? String.valueOf(hp) : "-");
-			// KO Chance column (Index 7)
-			Double koChance = fightEntry.getKoChance();
-			stats[i][7] = koChance != null ? nfPercent.format(koChance) : "-";
-			// Special? (Index 8)
-			stats[i][8] = fightEntry.getAnimationData().isSpecial ? "✔" : "";
-			// Off-Pray? (Index 9)
-			stats[i][9] = fightEntry.success() ? "✔" : "";
-			// Def Prayer (Index 10)
-			int prayIcon = PLUGIN.getSpriteForHeadIcon(fightEntry.getDefenderOverhead());
-			if (prayIcon > 0)
-			{
-				JLabel defPrayLabel = new JLabel();
-				PLUGIN.addSpriteToLabelIfValid(defPrayLabel, prayIcon, this::repaint);
-				stats[i][10] = defPrayLabel;
-			}
-			else
-			{
-				stats[i][10] = "";
-			}
-			// Splash (Index 11)
-			if (fightEntry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC)
-			{
-				int splashIcon = fightEntry.isSplash() ? SpriteID.SPELL_ICE_BARRAGE_DISABLED : SpriteID.SPELL_ICE_BARRAGE;
-				JLabel splashLabel = new JLabel();
-				PLUGIN.addSpriteToLabelIfValid(splashLabel, splashIcon, this::repaint);
-				stats[i][11] = splashLabel;
-			}
-			else
-			{
-				stats[i][11] = "";
-			}
-			// Offensive Pray (Index 12)
-			JLabel attPrayLabel = new JLabel();
-			if (fightEntry.getAttackerOffensivePray() > 0)
-			{
-				PLUGIN.addSpriteToLabelIfValid(attPrayLabel, fightEntry.getAttackerOffensivePray(), this::repaint);
-				stats[i][12] = attPrayLabel;
-			}
-			else
-			{
-				stats[i][12] = "";
-			}
-			int tickDuration = fightEntry.getTick() - initialTick;
-			int durationMillis = (tickDuration * 600); // (* 0.6) to get duration in secs from ticks, so *600 for ms
-			Duration duration = Duration.ofMillis(durationMillis);
-			String time = String.format("%02d:%02d.%01d",
-				duration.toMinutes(),
-				duration.getSeconds() % 60,
-				durationMillis % 1000 / 100) + " (" + tickDuration + ")";
-			stats[i][13] = time;
-
-			i++;
+			table.getColumnModel().getColumn(col).setCellRenderer(CELL_RENDERER);
 		}
 
-		String[] header = { "Attacker", "Style", "Hit Range", "Accuracy", "Avg Hit", "Actual Dmg", "HP", "KO Chance", "Special?",
-		"Off-Pray?", "Def Prayer", "Splash", "Offensive Pray", "Time, (Tick)" };
-		table = new JTable(stats, header);
-		table.setRowHeight(30);
-		table.setDefaultEditor(Object.class, null);
+		// the model sorts the whole fight log rather than a row sorter only sorting the current page: clicking a
+		// column header sorts by it ascending, then descending, then goes back to the log's order.
+		table.getTableHeader().addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				int viewColumn = table.getTableHeader().columnAtPoint(e.getPoint());
+				if (viewColumn < 0)
+				{
+					return;
+				}
 
-		table.getColumnModel().getColumn(1).setCellRenderer(new BufferedImageCellRenderer()); // Style
-		table.getColumnModel().getColumn(5).setCellRenderer(new BufferedImageCellRenderer()); // Actual Dmg
-		table.getColumnModel().getColumn(10).setCellRenderer(new BufferedImageCellRenderer()); // Def Prayer
-		table.getColumnModel().getColumn(11).setCellRenderer(new BufferedImageCellRenderer()); // Splash
-		table.getColumnModel().getColumn(12).setCellRenderer(new BufferedImageCellRenderer()); // Offensive Pray
+				int column = table.convertColumnIndexToModel(viewColumn);
+				if (column != tableModel.getSortColumn())
+				{
+					sortTable(column, true);
+				}
+				else if (tableModel.isSortAscending())
+				{
+					sortTable(column, false);
+				}
+				else
+				{
+					sortTable(-1, true);
+				}
+			}
+		});
 
 		onRowSelected = e ->
 		{
-			int row = table.getSelectedRow();
+			int entryIdx = getSelectedEntryIndex();
+			if (entryIdx < 0)
+			{
+				return;
+			}
 
 			if (fightLogDetailFrame != null)
 			{
-				if (fightLogDetailFrame.rowIdx == row)
+				if (fightLogDetailFrame.rowIdx == entryIdx)
 				{
 					return;
 				}
@@ -215,7 +171,7 @@ public class FightLogFrame extends JFrame
 				fightLogDetailFrame = null;
 			}
 
-			fightLogDetailFrame = new FightLogDetailFrame(fight, fightLogEntries.get(row), row,
+			fightLogDetailFrame = new FightLogDetailFrame(fight, fightLogEntries.get(entryIdx), entryIdx,
 				new Point( // place the new detail frame roughly to the right of the fight log window.
 					this.getLocation().x + this.getSize().width,
 					this.getLocation().y)
@@ -226,36 +182,414 @@ public class FightLogFrame extends JFrame
 
 		mainPanel.add(new JScrollPane(table), BorderLayout.CENTER);
 
+		JLabel simulationLabel = new JLabel("Simulating fight outcome...");
+		simulationLabel.setBorder(new EmptyBorder(0, 4, 4, 4));
+		JPanel southPanel = new JPanel(new BorderLayout(4, 4));
+		if (fightLogEntries.size() > PAGE_SIZE)
+		{
+			southPanel.add(createPageBar(), BorderLayout.NORTH);
+		}
+		southPanel.add(simulationLabel, BorderLayout.SOUTH);
+		mainPanel.add(southPanel, BorderLayout.SOUTH);
+		FightSimulator.simulate(fight).whenComplete((result, ex) -> SwingUtilities.invokeLater(() ->
+		{
+			if (ex != null)
+			{
+				log.warn("Error while simulating fight outcome", ex);
+				simulationLabel.setText("Could not simulate fight outcome.");
+				return;
+			}
+			setSimulationResult(simulationLabel, fight, result);
+		}));
+
 		add(mainPanel);
 		setVisible(true);
 	}
 
-	static class BufferedImageCellRenderer extends DefaultTableCellRenderer
+	// index in fightLogEntries of the selected row, or -1 if there is no selection.
+	private int getSelectedEntryIndex()
 	{
+		int row = table.getSelectedRow();
+		if (row < 0)
+		{
+			return -1;
+		}
+
+		return tableModel.getEntryIndex(row);
+	}
+
+	private void sortTable(int column, boolean ascending)
+	{
+		tableModel.sortBy(column, ascending);
+		for (int col = 0; col < table.getColumnCount(); col++)
+		{
+			int modelColumn = table.convertColumnIndexToModel(col);
+			String arrow = modelColumn != column ? "" : ascending ? " \u25B2" : " \u25BC";
+			table.getColumnModel().getColumn(col).setHeaderValue(tableModel.getColumnName(modelColumn) + arrow);
+		}
+		table.getTableHeader().repaint();
+		updatePageBar.run();
+	}
+
+	private JPanel createPageBar()
+	{
+		JPanel pageBar = new JPanel(new BorderLayout(4, 0));
+		pageBar.setBorder(new EmptyBorder(0, 4, 0, 4));
+
+		JButton previousButton = new JButton("< Previous");
+		JButton nextButton = new JButton("Next >");
+		JLabel pageLabel = new JLabel("", SwingConstants.CENTER);
+
+		updatePageBar = () ->
+		{
+			int pageStart = tableModel.getPageStart();
+			pageLabel.setText("Page " + (tableModel.getPage() + 1) + " of " + tableModel.getPageCount()
+				+ " (attacks " + (pageStart + 1) + "-" + (pageStart + tableModel.getRowCount())
+				+ " of " + fightLogEntries.size() + ")");
+			previousButton.setEnabled(tableModel.getPage() > 0);
+			nextButton.setEnabled(tableModel.getPage() < tableModel.getPageCount() - 1);
+		};
+
+		previousButton.addActionListener(e ->
+		{
+			tableModel.setPage(tableModel.getPage() - 1);
+			updatePageBar.run();
+		});
+		nextButton.addActionListener(e ->
+		{
+			tableModel.setPage(tableModel.getPage() + 1);
+			updatePageBar.run();
+		});
+		updatePageBar.run();
+
+		pageBar.add(previousButton, BorderLayout.WEST);
+		pageBar.add(pageLabel, BorderLayout.CENTER);
+		pageBar.add(nextButton, BorderLayout.EAST);
+		return pageBar;
+	}
+
+	private static void setSimulationResult(JLabel label, FightPerformance fight, FightSimulator.Result result)
+	{
+		String competitorName = fight.getCompetitor().getName();
+		String opponentName = fight.getOpponent().getName();
+		label.setText("Simulated outcome (" + nf.format(result.getIterations()) + " runs): "
+			+ competitorName + " wins " + formatProbability(result, result.getCompetitorWinProbability()) + ", "
+			+ opponentName + " wins " + formatProbability(result, result.getOpponentWinProbability()) + ", "
+			+ "no KO " + formatProbability(result, result.getNoKoProbability()) + ". "
+			+ "Average length: " + nf.format(result.getExpectedLengthTicks()) + " ticks.");
+
+		label.setToolTipText("<html>Chance to have KO'd the opponent by each attack:<br>"
+			+ competitorName + ": " + formatKoCurve(result.getCompetitorKoByAttack()) + "<br>"
+			+ opponentName + ": " + formatKoCurve(result.getOpponentKoByAttack()) + "</html>");
+	}
+
+	private static String formatProbability(FightSimulator.Result result, double probability)
+	{
+		return nfPercent.format(probability) + " (±" + nfPercent.format(result.getMarginOfError(probability)) + ")";
+	}
+
+	// only show every 5th attack, to keep the tooltip readable for longer fights.
+	private static String formatKoCurve(double[] koByAttack)
+	{
+		if (koByAttack.length == 0)
+		{
+			return "-";
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (int n = 4; n < koByAttack.length - 1; n += 5)
+		{
+			sb.append('#').append(n + 1).append(": ").append(nfPercent.format(koByAttack[n])).append(", ");
+		}
+		sb.append('#').append(koByAttack.length).append(": ").append(nfPercent.format(koByAttack[koByAttack.length - 1]));
+		return sb.toString();
+	}
+
+	// Table model over a page of the fight log. Cells are computed from their FightLogEntry the first time
+	// they're needed, and kept for the rest of the page. Values are kept raw (numbers, booleans, sprite ids) so they
+	// sort properly, and get formatted by the FightLogCellRenderer.
+	// Sorting is done here over every entry, not only the current page: each entry's sort key is computed once,
+	// the entry indices are sorted by them, and pages are then taken from that sorted order.
+	private static class FightLogTableModel extends AbstractTableModel
+	{
+		static final int COL_ATTACKER = 0;
+		static final int COL_STYLE = 1;
+		static final int COL_HIT_RANGE = 2;
+		static final int COL_ACCURACY = 3;
+		static final int COL_AVG_HIT = 4;
+		static final int COL_ACTUAL_DMG = 5;
+		static final int COL_HP = 6;
+		static final int COL_KO_CHANCE = 7;
+		static final int COL_SPECIAL = 8;
+		static final int COL_OFF_PRAY = 9;
+		static final int COL_DEF_PRAY = 10;
+		static final int COL_SPLASH = 11;
+		static final int COL_OFFENSIVE_PRAY = 12;
+		static final int COL_TIME = 13;
+
+		private static final String[] COLUMN_NAMES = { "Attacker", "Style", "Hit Range", "Accuracy", "Avg Hit",
+			"Actual Dmg", "HP", "KO Chance", "Special?", "Off-Pray?", "Def Prayer", "Splash", "Offensive Pray",
+			"Time, (Tick)" };
+		private static final Class<?>[] COLUMN_CLASSES = { String.class, AnimationData.AttackStyle.class,
+			Long.class, Double.class, Double.class, Integer.class, Integer.class, Double.class, Boolean.class,
+			Boolean.class, Integer.class, Integer.class, Integer.class, Integer.class };
+
+		// marks cells that haven't been computed yet, since null is a valid value (e.g. no KO chance)
+		private static final Object NOT_COMPUTED = new Object();
+
+		private final List<FightLogEntry> entries;
+		private final int initialTick;
+		private int page = 0;
+		private Object[][] cells;
+		// index in entries of every row, in the sorted order
+		private int[] order;
+		private int sortColumn = -1;
+		private boolean sortAscending = true;
+
+		FightLogTableModel(List<FightLogEntry> entries)
+		{
+			this.entries = entries;
+			initialTick = entries.isEmpty() ? 0 : entries.get(0).getTick();
+			order = new int[entries.size()];
+			for (int i = 0; i < order.length; i++)
+			{
+				order[i] = i;
+			}
+			cells = new Object[getRowCount()][];
+		}
+
+		int getSortColumn()
+		{
+			return sortColumn;
+		}
+
+		boolean isSortAscending()
+		{
+			return sortAscending;
+		}
+
+		// sort every entry by a column, or go back to the log's order if the column is -1. Equal values stay in the
+		// log's order. Goes back to the first page.
+		void sortBy(int column, boolean ascending)
+		{
+			Integer[] sorted = new Integer[entries.size()];
+			for (int i = 0; i < sorted.length; i++)
+			{
+				sorted[i] = i;
+			}
+
+			if (column >= 0)
+			{
+				Object[] keys = new Object[entries.size()];
+				for (int i = 0; i < keys.length; i++)
+				{
+					keys[i] = computeValue(entries.get(i), column);
+				}
+				Comparator<Integer> byKey = (a, b) -> compareKeys(keys[a], keys[b]);
+				Arrays.sort(sorted, ascending ? byKey : byKey.reversed());
+			}
+
+			for (int i = 0; i < sorted.length; i++)
+			{
+				order[i] = sorted[i];
+			}
+			sortColumn = column;
+			sortAscending = ascending;
+			setPage(0);
+		}
+
+		// nulls (e.g. no KO chance) sort first, like the values they're missing.
+		@SuppressWarnings("unchecked")
+		private static int compareKeys(Object a, Object b)
+		{
+			if (a == null || b == null)
+			{
+				return a == null ? (b == null ? 0 : -1) : 1;
+			}
+			return ((Comparable<Object>)a).compareTo(b);
+		}
+
+		int getPage()
+		{
+			return page;
+		}
+
+		int getPageCount()
+		{
+			return Math.max(1, (entries.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+		}
+
+		int getPageStart()
+		{
+			return page * PAGE_SIZE;
+		}
+
+		void setPage(int newPage)
+		{
+			page = Math.max(0, Math.min(newPage, getPageCount() - 1));
+			cells = new Object[getRowCount()][];
+			fireTableDataChanged();
+		}
+
+		// index in entries of a row of the current page.
+		int getEntryIndex(int row)
+		{
+			return order[getPageStart() + row];
+		}
+
+		FightLogEntry getEntry(int row)
+		{
+			return entries.get(getEntryIndex(row));
+		}
+
 		@Override
-		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column)
+		public int getRowCount()
 		{
-			super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-			if (value instanceof BufferedImage)
+			return Math.max(0, Math.min(PAGE_SIZE, entries.size() - getPageStart()));
+		}
+
+		@Override
+		public int getColumnCount()
+		{
+			return COLUMN_NAMES.length;
+		}
+
+		@Override
+		public String getColumnName(int column)
+		{
+			return COLUMN_NAMES[column];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int column)
+		{
+			return COLUMN_CLASSES[column];
+		}
+
+		@Override
+		public Object getValueAt(int row, int column)
+		{
+			Object[] rowCells = cells[row];
+			if (rowCells == null)
 			{
-				setText("");
-				setIcon(new ImageIcon((BufferedImage)value));
+				rowCells = new Object[COLUMN_NAMES.length];
+				Arrays.fill(rowCells, NOT_COMPUTED);
+				cells[row] = rowCells;
 			}
-			else if (value instanceof JLabel)
+
+			if (rowCells[column] == NOT_COMPUTED)
+			{
+				rowCells[column] = computeValue(getEntry(row), column);
+			}
+			return rowCells[column];
+		}
+
+		private Object computeValue(FightLogEntry entry, int column)
+		{
+			boolean isMagic = entry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC;
+			switch (column)
 			{
-				JLabel val = (JLabel)value;
-				setIcon(val.getIcon());
-				setText(val.getText());
-				setToolTipText(val.getToolTipText());
+				case COL_ATTACKER: return entry.getAttackerName();
+				case COL_STYLE: return entry.getAnimationData().attackStyle;
+				// sorts by max hit, then min hit. Hits are never negative, so both fit in one key.
+				case COL_HIT_RANGE: return ((long)entry.getMaxHit() << 32) | entry.getMinHit();
+				case COL_ACCURACY: return entry.getAccuracy();
+				case COL_AVG_HIT: return entry.getDeservedDamage();
+				case COL_ACTUAL_DMG: return entry.getActualDamageSum();
+				case COL_HP: return entry.getEstimatedHpBeforeHit();
+				case COL_KO_CHANCE: return entry.getKoChance();
+				case COL_SPECIAL: return entry.getAnimationData().isSpecial;
+				case COL_OFF_PRAY: return entry.success();
+				case COL_DEF_PRAY: return PLUGIN.getSpriteForHeadIcon(entry.getDefenderOverhead());
+				case COL_SPLASH: return !isMagic ? 0 :
+					entry.isSplash() ? SpriteID.SPELL_ICE_BARRAGE_DISABLED : SpriteID.SPELL_ICE_BARRAGE;
+				case COL_OFFENSIVE_PRAY: return entry.getAttackerOffensivePray();
+				case COL_TIME: return entry.getTick() - initialTick;
+				default: return null;
 			}
-			else
+		}
+	}
+
+	// Formats the raw values of FightLogTableModel, and draws sprites straight from the plugin's sprite cache.
+	// Sprites that aren't cached yet get loaded in the background, then the table is repainted.
+	private static class FightLogCellRenderer extends DefaultTableCellRenderer
+	{
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column)
+		{
+			super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+			setIcon(null);
+			setToolTipText(null);
+
+			FightLogTableModel model = (FightLogTableModel)table.getModel();
+			FightLogEntry entry = model.getEntry(table.convertRowIndexToModel(row));
+			switch (table.convertColumnIndexToModel(column))
 			{
-				setText("");
-				setIcon(null);
+				case FightLogTableModel.COL_STYLE:
+					setText("");
+					setSprite(table, entry.getAnimationData().attackStyle.getStyleSpriteId());
+					setToolTipText(String.valueOf(value));
+					break;
+				case FightLogTableModel.COL_HIT_RANGE:
+					setText(entry.getHitRange());
+					break;
+				case FightLogTableModel.COL_ACCURACY:
+					setText(nf.format((Double)value * 100) + '%');
+					break;
+				case FightLogTableModel.COL_AVG_HIT:
+					setText(nf.format(value));
+					break;
+				case FightLogTableModel.COL_ACTUAL_DMG:
+					if (entry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC && entry.isSplash())
+					{
+						setText("");
+						setSprite(table, SpriteID.SPELL_ICE_BARRAGE_DISABLED);
+					}
+					else
+					{
+						setText(value != null ? nf.format(value) : "-");
+					}
+					break;
+				case FightLogTableModel.COL_HP: // Display as Current/Max
+					Integer maxHp = entry.getOpponentMaxHp();
+					setText(value == null ? "-" : (maxHp != null ? value + "/" + maxHp : String.valueOf(value)));
+					break;
+				case FightLogTableModel.COL_KO_CHANCE:
+					setText(value != null ? nfPercent.format(value) : "-");
+					break;
+				case FightLogTableModel.COL_SPECIAL:
+				case FightLogTableModel.COL_OFF_PRAY:
+					setText(Boolean.TRUE.equals(value) ? "✔" : "");
+					break;
+				case FightLogTableModel.COL_DEF_PRAY:
+				case FightLogTableModel.COL_SPLASH:
+				case FightLogTableModel.COL_OFFENSIVE_PRAY:
+					setText("");
+					setSprite(table, (Integer)value);
+					break;
+				case FightLogTableModel.COL_TIME:
+					int tickDuration = (Integer)value;
+					int durationMillis = (tickDuration * 600); // (* 0.6) to get duration in secs from ticks, so *600 for ms
+					Duration duration = Duration.ofMillis(durationMillis);
+					setText(String.format("%02d:%02d.%01d",
+						duration.toMinutes(),
+						duration.getSeconds() % 60,
+						durationMillis % 1000 / 100) + " (" + tickDuration + ")");
+					break;
+				default:
+					break;
 			}
 
 			return this;
 		}
+
+		private void setSprite(JTable table, int spriteId)
+		{
+			if (spriteId > 0)
+			{
+				setIcon(PLUGIN.getSpriteIcon(spriteId, table::repaint));
+			}
+		}
 	}
 
 	// initialize frame using an AnalyzedFight, in order to pass the analyzed fight data
@@ -278,17 +612,18 @@ public class FightLogFrame extends JFrame
 
 		table.getSelectionModel().removeListSelectionListener(onRowSelected);
 		onRowSelected = e -> {
-			int row = table.getSelectedRow();
+			int entryIdx = getSelectedEntryIndex();
+			if (entryIdx < 0) { return; }
 
 			if (fightLogDetailFrame != null)
 			{
-				if (fightLogDetailFrame.rowIdx == row) { return; }
+				if (fightLogDetailFrame.rowIdx == entryIdx) { return; }
 
 				fightLogDetailFrame.dispose();
 				fightLogDetailFrame = null;
 			}
 
-			fightLogDetailFrame = new FightLogDetailFrame(fight, fightLogEntries.get(row), fight.getAnalyzedMatchingLogs().get(row)[1], row,
+			fightLogDetailFrame = new FightLogDetailFrame(fight, fightLogEntries.get(entryIdx), fight.getAnalyzedMatchingLogs().get(entryIdx)[1], entryIdx,
 				new Point( // place the new detail frame roughly to the right of the fight log window.
 					this.getLocationOnScreen().x + (this.getSize().width),
 					this.getLocationOnScreen().y)
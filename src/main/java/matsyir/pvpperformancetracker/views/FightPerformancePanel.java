@@ -38,7 +38,6 @@ import java.text.SimpleDateFormat;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.List; // Added import
 import javax.swing.BorderFactory;
 import javax.swing.BoxLayout;
 import javax.swing.ImageIcon;
@@ -48,13 +47,15 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
+import javax.swing.JRootPane;
+import javax.swing.SwingUtilities;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN_ICON;
 import matsyir.pvpperformancetracker.controllers.AnalyzedFightPerformance;
 import matsyir.pvpperformancetracker.models.FightLogEntry;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
-import matsyir.pvpperformancetracker.controllers.Fighter;
+import matsyir.pvpperformancetracker.controllers.FightStatsSnapshot;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
@@ -104,6 +105,26 @@ public class FightPerformancePanel extends JPanel
 	private AnalyzedFightPerformance analyzedFight;
 	private boolean showBorders;
 
+	// one label per side for each line, filled in by setFight so the same panel can be reused for other fights.
+	private final JLabel playerStatsName = new JLabel();
+	private final JLabel opponentStatsName = new JLabel();
+	private final JLabel playerOffPrayStats = new JLabel();
+	private final JLabel opponentOffPrayStats = new JLabel();
+	private final JLabel playerDeservedDpsStats = new JLabel();
+	private final JLabel opponentDeservedDpsStats = new JLabel();
+	private final JLabel playerDmgDealtStats = new JLabel();
+	private final JLabel opponentDmgDealtStats = new JLabel();
+	private final JLabel playerMagicHitStats = new JLabel();
+	private final JLabel opponentMagicHitStats = new JLabel();
+	private final JLabel playerOffensivePrayStats = new JLabel();
+	private final JLabel opponentOffensivePrayStats = new JLabel();
+	private final JLabel playerHpHealed = new JLabel();
+	private final JLabel opponentHpHealed = new JLabel();
+	private final JLabel playerGhostBarrages = new JLabel();
+	private final JLabel opponentGhostBarrages = new JLabel();
+	private final JLabel playerTotalKoChance = new JLabel();
+	private final JLabel opponentTotalKoChance = new JLabel();
+
 	// Panel to display previous fight performance data.
 	// intended layout:
 	//
@@ -136,6 +157,53 @@ public class FightPerformancePanel extends JPanel
 	}
 
 	public FightPerformancePanel(FightPerformance fight, boolean showActions, boolean showBorders, boolean showOpponentClientStats, FightPerformance oppFight)
+	{
+		this(showBorders);
+		setFight(fight, showOpponentClientStats, oppFight);
+
+		// setup mouse events for hovering and clicking to open the fight log
+		MouseAdapter fightPerformanceMouseListener = new MouseAdapter()
+		{
+			@Override
+			public void mouseEntered(MouseEvent e)
+			{
+				setHovered(true);
+				setCursor(new Cursor(Cursor.HAND_CURSOR));
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e)
+			{
+				setHovered(false);
+				setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
+			}
+
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				// ignore right clicks since that should be used for context menus/popup menus.
+				// btn1: left click, btn2: middle click, btn3: right click
+				if (e.getButton() == MouseEvent.BUTTON3)
+				{
+					return;
+				}
+
+				createFightLogFrame(FightPerformancePanel.this.fight, analyzedFight, getRootPane());
+			}
+		};
+		addMouseListener(fightPerformanceMouseListener);
+
+		// skip the remaining code if we aren't showing actions.
+		if (!showActions) { return; }
+
+		setComponentPopupMenu(createPopupMenu(fight, this));
+
+		setMaximumSize(new Dimension(PluginPanel.PANEL_WIDTH, (int)getPreferredSize().getHeight()));
+	}
+
+	// build the empty layout only, without any fight or mouse listeners. Used directly by the fight history list,
+	// which reuses one panel to paint every fight.
+	FightPerformancePanel(boolean showBorders)
 	{
 		this.showBorders = showBorders;
 		if (deathIcon == null)
@@ -144,17 +212,9 @@ public class FightPerformancePanel extends JPanel
 			deathIcon = new ImageIcon(PLUGIN_ICON.getScaledInstance(12, 12,  Image.SCALE_DEFAULT));
 		}
 
-		this.fight = fight;
-		// save Fighters temporarily for more direct access
-		Fighter competitor = fight.getCompetitor();
-		Fighter opponent = fight.getOpponent();
-
 		setLayout(new BorderLayout(5, 0));
 		setBackground(ColorScheme.DARKER_GRAY_COLOR);
 
-		String tooltipText = "This fight ended at " + DATE_FORMAT.format(Date.from(Instant.ofEpochMilli(fight.getLastFightTime())));
-		setToolTipText(tooltipText);
-
 		if (showBorders)
 		{
 			setBorder(normalBorder);
@@ -165,155 +225,134 @@ public class FightPerformancePanel extends JPanel
 		fightPanel.setLayout(new BoxLayout(fightPanel, BoxLayout.Y_AXIS));
 		fightPanel.setBackground(null);
 
-		// FIRST LINE: both player names
-		JPanel playerNamesLine = new JPanel();
-		playerNamesLine.setLayout(new BorderLayout());
-		playerNamesLine.setBackground(null);
+		fightPanel.add(createLine(playerStatsName, opponentStatsName));
+		fightPanel.add(createLine(playerOffPrayStats, opponentOffPrayStats));
+		fightPanel.add(createLine(playerDeservedDpsStats, opponentDeservedDpsStats));
+		fightPanel.add(createLine(playerDmgDealtStats, opponentDmgDealtStats));
+		fightPanel.add(createLine(playerMagicHitStats, opponentMagicHitStats));
+		fightPanel.add(createLine(playerOffensivePrayStats, opponentOffensivePrayStats));
+		fightPanel.add(createLine(playerHpHealed, opponentHpHealed));
+		fightPanel.add(createLine(playerGhostBarrages, opponentGhostBarrages));
+		fightPanel.add(createLine(playerTotalKoChance, opponentTotalKoChance));
 
-		// first line LEFT: player name
-		JLabel playerStatsName = new JLabel();
-		if (competitor.isDead())
-		{
-			playerStatsName.setIcon(deathIcon);
-		}
+		add(fightPanel, BorderLayout.NORTH);
+	}
+
+	// line with one stat fixed to the left and the other fixed to the right. The labels start with a blank
+	// text so the panel already has its full height before a fight is set.
+	private static JPanel createLine(JLabel left, JLabel right)
+	{
+		left.setText(" ");
+		right.setText(" ");
+		JPanel line = new JPanel();
+		line.setLayout(new BorderLayout());
+		line.setBackground(null);
+		line.add(left, BorderLayout.WEST);
+		line.add(right, BorderLayout.EAST);
+		return line;
+	}
+
+	// fill in every line with the given fight's stats, read from its published stats snapshot so the fighters
+	// are never touched on the EDT.
+	void setFight(FightPerformance fight, boolean showOpponentClientStats, FightPerformance oppFight)
+	{
+		this.fight = fight;
+		FightStatsSnapshot stats = fight.getStatsSnapshot();
+		// save the fighters' stats temporarily for more direct access
+		FightStatsSnapshot.FighterStats competitor = stats.getCompetitor();
+		FightStatsSnapshot.FighterStats opponent = stats.getOpponent();
+		// the opponent's own client stats, only when showing them
+		FightStatsSnapshot.FighterStats oppComp = showOpponentClientStats ? oppFight.getStatsSnapshot().getCompetitor() : null;
+
+		String tooltipText = "This fight ended at " + DATE_FORMAT.format(Date.from(Instant.ofEpochMilli(stats.getLastFightTime())));
+		setToolTipText(tooltipText);
+
+		// FIRST LINE LEFT: player name
+		playerStatsName.setIcon(competitor.isDead() ? deathIcon : null);
 		playerStatsName.setText(competitor.getName());
 		playerStatsName.setForeground(Color.WHITE);
-		playerNamesLine.add(playerStatsName, BorderLayout.WEST);
 
 		// first line RIGHT: opponent name
-		JLabel opponentStatsName = new JLabel();
-		if (opponent.isDead())
-		{
-			opponentStatsName.setIcon(deathIcon);
-		}
+		opponentStatsName.setIcon(opponent.isDead() ? deathIcon : null);
 		opponentStatsName.setText(opponent.getName());
 		opponentStatsName.setForeground(Color.WHITE);
-		playerNamesLine.add(opponentStatsName, BorderLayout.EAST);
 
-		// SECOND LINE: both player's off-pray hit stats
-		JPanel offPrayStatsLine = new JPanel();
-		offPrayStatsLine.setLayout(new BorderLayout());
-		offPrayStatsLine.setBackground(null);
-
-		// second line LEFT: player's off-pray hit stats
-		JLabel playerOffPrayStats = new JLabel();
+		// SECOND LINE LEFT: player's off-pray hit stats
 		playerOffPrayStats.setText(competitor.getOffPrayStats());
 		playerOffPrayStats.setToolTipText(competitor.getName() + " hit " + competitor.getOffPraySuccessCount() + " successful off-pray attacks out of " +
 			competitor.getAttackCount() + " total attacks (" +
-			nf.format(competitor.calculateOffPraySuccessPercentage()) + "%)");
-		playerOffPrayStats.setForeground(fight.competitorOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
-		offPrayStatsLine.add(playerOffPrayStats, BorderLayout.WEST);
+			nf.format(competitor.getOffPraySuccessPercentage()) + "%)");
+		playerOffPrayStats.setForeground(stats.isCompetitorOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// second line RIGHT:, opponent's off-pray hit stats
-		JLabel opponentOffPrayStats = new JLabel();
 		opponentOffPrayStats.setText(opponent.getOffPrayStats());
 		opponentOffPrayStats.setToolTipText(opponent.getName() + " hit " + opponent.getOffPraySuccessCount() + " successful off-pray attacks out of " +
 			opponent.getAttackCount() + " total attacks (" +
-			nf.format(opponent.calculateOffPraySuccessPercentage()) + "%)");
-		opponentOffPrayStats.setForeground(fight.opponentOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
-		offPrayStatsLine.add(opponentOffPrayStats, BorderLayout.EAST);
-
-		// THIRD LINE: both player's deserved dps stats
-		JPanel deservedDpsStatsLine = new JPanel();
-		deservedDpsStatsLine.setLayout(new BorderLayout());
-		deservedDpsStatsLine.setBackground(null);
-
-		// third line LEFT: player's deserved dps stats
-		JLabel playerDeservedDpsStats = new JLabel();
-		playerDeservedDpsStats.setText(competitor.getDeservedDmgString(opponent));
-		//playerDeservedDpsStats.setToolTipText(fight.getCompetitorDeservedDmgString(1, false) +  ": Average damage deserved based on gear & overheads (difference vs opponent in brackets)");
+			nf.format(opponent.getOffPraySuccessPercentage()) + "%)");
+		opponentOffPrayStats.setForeground(stats.isOpponentOffPraySuccessIsGreater() ? Color.GREEN : Color.WHITE);
+
+		// THIRD LINE LEFT: player's deserved dps stats
+		playerDeservedDpsStats.setText(competitor.getDeservedDmgString());
 		playerDeservedDpsStats.setToolTipText(
 			competitor.getName() + " deserved to deal " + nf.format(competitor.getDeservedDamage()) +
-			" damage based on gear & overheads (" + competitor.getDeservedDmgString(opponent, 1, true) + " vs opponent)");
-		playerDeservedDpsStats.setForeground(fight.competitorDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
-		deservedDpsStatsLine.add(playerDeservedDpsStats, BorderLayout.WEST);
+			" damage based on gear & overheads (" + competitor.getDeservedDmgDiffString() + " vs opponent)");
+		playerDeservedDpsStats.setForeground(stats.isCompetitorDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// third line RIGHT: opponent's deserved dps stats
-		JLabel opponentDeservedDpsStats = new JLabel();
-		opponentDeservedDpsStats.setText(opponent.getDeservedDmgString(competitor));
-		//opponentDeservedDpsStats.setToolTipText(fight.getOpponentDeservedDmgString(1, false) + ": Average damage deserved based on gear & overheads (difference vs opponent in brackets)");
+		opponentDeservedDpsStats.setText(opponent.getDeservedDmgString());
 		opponentDeservedDpsStats.setToolTipText(
 			opponent.getName() + " deserved to deal " + nf.format(opponent.getDeservedDamage()) +
-			" damage based on gear & overheads (" + opponent.getDeservedDmgString(competitor, 1, true) + " vs you)");
-		opponentDeservedDpsStats.setForeground(fight.opponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
-		deservedDpsStatsLine.add(opponentDeservedDpsStats, BorderLayout.EAST);
-
-		// FOURTH LINE: both player's damage dealt
-		JPanel dmgDealtStatsLine = new JPanel();
-		dmgDealtStatsLine.setLayout(new BorderLayout());
-		dmgDealtStatsLine.setBackground(null);
-
-		// fourth line LEFT: player's damage dealt
-		JLabel playerDmgDealtStats = new JLabel();
-		playerDmgDealtStats.setText(competitor.getDmgDealtString(opponent));
+			" damage based on gear & overheads (" + opponent.getDeservedDmgDiffString() + " vs you)");
+		opponentDeservedDpsStats.setForeground(stats.isOpponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
+
+		// FOURTH LINE LEFT: player's damage dealt
+		playerDmgDealtStats.setText(competitor.getDmgDealtString());
 		playerDmgDealtStats.setToolTipText(competitor.getName() + " dealt " + competitor.getDamageDealt() +
-			" damage (" + competitor.getDmgDealtString(opponent, true) + " vs opponent)");
-		playerDmgDealtStats.setForeground(fight.competitorDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
-		dmgDealtStatsLine.add(playerDmgDealtStats, BorderLayout.WEST);
+			" damage (" + competitor.getDmgDealtDiffString() + " vs opponent)" +
+			getLuckPercentileString(fight.getCompetitorLuckPercentile()));
+		playerDmgDealtStats.setForeground(stats.isCompetitorDmgDealtIsGreater() ? Color.GREEN : Color.WHITE);
 
 		// fourth line RIGHT: opponent's damage dealt
-		JLabel opponentDmgDealtStats = new JLabel();
-		opponentDmgDealtStats.setText(opponent.getDmgDealtString(competitor));
+		opponentDmgDealtStats.setText(opponent.getDmgDealtString());
 		opponentDmgDealtStats.setToolTipText(opponent.getName() + " dealt " + opponent.getDamageDealt() +
-			" damage (" + opponent.getDmgDealtString(competitor, true) + " vs you)");
-		opponentDmgDealtStats.setForeground(fight.opponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
-		dmgDealtStatsLine.add(opponentDmgDealtStats, BorderLayout.EAST);
-
-		// FIFTH LINE: both player's magic hit stats (successful magic attacks/deserved successful magic attacks)
-		JPanel magicHitStatsLine = new JPanel();
-		magicHitStatsLine.setLayout(new BorderLayout());
-		magicHitStatsLine.setBackground(null);
-
-		// fifth line LEFT: player's magic hit stats
-		JLabel playerMagicHitStats = new JLabel();
-		playerMagicHitStats.setText(String.valueOf(competitor.getMagicHitStats()));
+			" damage (" + opponent.getDmgDealtDiffString() + " vs you)" +
+			getLuckPercentileString(fight.getOpponentLuckPercentile()));
+		opponentDmgDealtStats.setForeground(stats.isOpponentDeservedDmgIsGreater() ? Color.GREEN : Color.WHITE);
+
+		// FIFTH LINE LEFT: player's magic hit stats (successful magic attacks/deserved successful magic attacks)
+		playerMagicHitStats.setText(competitor.getMagicHitStats());
 		playerMagicHitStats.setToolTipText("<html>" + competitor.getName() + " successfully hit " +
 			competitor.getMagicHitCount() + " of " + competitor.getMagicAttackCount() + " magic attacks, but deserved to hit " +
 			nf.format(competitor.getMagicHitCountDeserved()) + ".<br>Luck percentage: 100% = expected hits, >100% = lucky, <100% = unlucky</html>");
-		playerMagicHitStats.setForeground(fight.competitorMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
-		magicHitStatsLine.add(playerMagicHitStats, BorderLayout.WEST);
+		playerMagicHitStats.setForeground(stats.isCompetitorMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
 
 		// fifth line RIGHT: opponent's magic hit stats
-		JLabel opponentMagicHitStats = new JLabel();
-		opponentMagicHitStats.setText(String.valueOf(opponent.getMagicHitStats()));
+		opponentMagicHitStats.setText(opponent.getMagicHitStats());
 		opponentMagicHitStats.setToolTipText("<html>" + opponent.getName() + " successfully hit " +
 			opponent.getMagicHitCount() + " of " + opponent.getMagicAttackCount() + " magic attacks, but deserved to hit " +
 			nf.format(opponent.getMagicHitCountDeserved()) + ".<br>Luck percentage: 100% = expected hits, >100% = lucky, <100% = unlucky</html>");
-		opponentMagicHitStats.setForeground(fight.opponentMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
-		magicHitStatsLine.add(opponentMagicHitStats, BorderLayout.EAST);
-
-		// SIXTH LINE: player's offensive pray stats (only player's, no data for opponent)
-		JPanel offensivePrayStatsLine = new JPanel();
-		offensivePrayStatsLine.setLayout(new BorderLayout());
-		offensivePrayStatsLine.setBackground(null);
+		opponentMagicHitStats.setForeground(stats.isOpponentMagicHitsLuckier() ? Color.GREEN : Color.WHITE);
 
-		// sixth line LEFT: player's offensive pray stats
-		JLabel playerOffensivePrayStats = new JLabel();
-		playerOffensivePrayStats.setText(String.valueOf(competitor.getOffensivePrayStats()));
+		// SIXTH LINE LEFT: player's offensive pray stats (only player's, no data for opponent)
+		playerOffensivePrayStats.setText(competitor.getOffensivePrayStats());
 		playerOffensivePrayStats.setToolTipText(competitor.getName() + " did " + competitor.getOffensivePraySuccessCount() + " successful offensive prayers out of " +
 			competitor.getAttackCount() + " total attacks (" +
-			nf.format(competitor.calculateOffensivePraySuccessPercentage()) + "%)");
+			nf.format(competitor.getOffensivePraySuccessPercentage()) + "%)");
 
 		playerOffensivePrayStats.setForeground(
-			(showOpponentClientStats && competitor.calculateOffensivePraySuccessPercentage() >
-				oppFight.getCompetitor().calculateOffensivePraySuccessPercentage()) ?
+			(oppComp != null && competitor.getOffensivePraySuccessPercentage() > oppComp.getOffensivePraySuccessPercentage()) ?
 				Color.GREEN : Color.WHITE);
 
-		offensivePrayStatsLine.add(playerOffensivePrayStats, BorderLayout.WEST);
-
 		//
 		// sixth line RIGHT: "N/A", no data.
-		JLabel opponentOffensivePrayStats = new JLabel();
-		if (showOpponentClientStats)
+		if (oppComp != null)
 		{
-			Fighter oppComp = oppFight.getCompetitor();
-
-			opponentOffensivePrayStats.setText(String.valueOf(oppComp.getOffensivePrayStats()));
+			opponentOffensivePrayStats.setText(oppComp.getOffensivePrayStats());
 			opponentOffensivePrayStats.setToolTipText(oppComp.getName() + " did " + oppComp.getOffensivePraySuccessCount() + " successful offensive prayers out of " +
 				oppComp.getAttackCount() + " total attacks (" +
-				nf.format(oppComp.calculateOffensivePraySuccessPercentage()) + "%)");
+				nf.format(oppComp.getOffensivePraySuccessPercentage()) + "%)");
 			opponentOffensivePrayStats.setForeground(
-				oppFight.getCompetitor().calculateOffensivePraySuccessPercentage() > competitor.calculateOffensivePraySuccessPercentage()
+				oppComp.getOffensivePraySuccessPercentage() > competitor.getOffensivePraySuccessPercentage()
 					? Color.GREEN : Color.WHITE);
 		}
 		else
@@ -322,33 +361,21 @@ public class FightPerformancePanel extends JPanel
 			opponentOffensivePrayStats.setToolTipText("No data is available for the opponent's offensive prayers");
 			opponentOffensivePrayStats.setForeground(Color.WHITE);
 		}
-		offensivePrayStatsLine.add(opponentOffensivePrayStats, BorderLayout.EAST);
 
-		// SEVENTH LINE: player's HP healed (only player's, no data for opponent)
-		JPanel hpHealedLine = new JPanel();
-		hpHealedLine.setLayout(new BorderLayout());
-		hpHealedLine.setBackground(null);
-
-		// SEVENTH LINE LEFT: player's HP healed
-		JLabel playerHpHealed = new JLabel();
+		// SEVENTH LINE LEFT: player's HP healed (only player's, no data for opponent)
 		playerHpHealed.setText(String.valueOf(competitor.getHpHealed()));
 		playerHpHealed.setToolTipText(competitor.getName() + " recovered " + competitor.getHpHealed() + " hitpoints during the fight");
 
 		playerHpHealed.setForeground(
-			(showOpponentClientStats && competitor.getHpHealed() > oppFight.getCompetitor().getHpHealed()) ?
+			(oppComp != null && competitor.getHpHealed() > oppComp.getHpHealed()) ?
 				Color.GREEN : Color.WHITE);
 
-		hpHealedLine.add(playerHpHealed, BorderLayout.WEST);
-
 		// SEVENTH LINE RIGHT: "N/A", no data.
-		JLabel opponentHpHealed = new JLabel();
-		if (showOpponentClientStats)
+		if (oppComp != null)
 		{
-			Fighter oppComp = oppFight.getCompetitor();
-
 			opponentHpHealed.setText(String.valueOf(oppComp.getHpHealed()));
 			opponentHpHealed.setToolTipText(oppComp.getName() + " recovered " + oppComp.getHpHealed() + " hitpoints during the fight");
-			opponentHpHealed.setForeground(oppFight.getCompetitor().getHpHealed() > competitor.getHpHealed() ?
+			opponentHpHealed.setForeground(oppComp.getHpHealed() > competitor.getHpHealed() ?
 				Color.GREEN : Color.WHITE);
 		}
 		else
@@ -357,39 +384,26 @@ public class FightPerformancePanel extends JPanel
 			opponentHpHealed.setToolTipText("No data is available for the opponent's hp healed");
 			opponentHpHealed.setForeground(Color.WHITE);
 		}
-		hpHealedLine.add(opponentHpHealed, BorderLayout.EAST);
-
-		// EIGHTH LINE: line container for player's Ghost barrages (only player's, no data for opponent)
-		JPanel ghostBarragesLine = new JPanel();
-		ghostBarragesLine.setLayout(new BorderLayout());
-		ghostBarragesLine.setBackground(null);
 
-		// EIGHTH LINE LEFT: player's ghost barrage stats
-		JLabel playerGhostBarrages = new JLabel();
+		// EIGHTH LINE LEFT: player's ghost barrage stats (only player's, no data for opponent)
 		playerGhostBarrages.setText(competitor.getGhostBarrageStats());
 		playerGhostBarrages.setToolTipText("<html>(Advanced): " + competitor.getName() + " hit " + competitor.getGhostBarrageCount()
 			+ " ghost barrages during the fight, worth an extra " + nf.format(competitor.getGhostBarrageDeservedDamage())
 			+ " deserved damage.<br>Unless fighting in Duel Arena, your opponent likely had a similar value.</html>");
 
 		playerGhostBarrages.setForeground(
-			(showOpponentClientStats
-				&& competitor.getGhostBarrageDeservedDamage() > oppFight.getCompetitor().getGhostBarrageDeservedDamage())
+			(oppComp != null && competitor.getGhostBarrageDeservedDamage() > oppComp.getGhostBarrageDeservedDamage())
 				? Color.GREEN : ColorScheme.BRAND_ORANGE);
 
-		ghostBarragesLine.add(playerGhostBarrages, BorderLayout.WEST);
-
 		// EIGHTH LINE RIGHT: "N/A", no data.
-		JLabel opponentGhostBarrages = new JLabel();
-		if (showOpponentClientStats)
+		if (oppComp != null)
 		{
-			Fighter oppComp = oppFight.getCompetitor();
-
 			opponentGhostBarrages.setText(oppComp.getGhostBarrageStats());
 			opponentGhostBarrages.setToolTipText("<html>(Advanced): " + oppComp.getName() + " hit " + oppComp.getGhostBarrageCount()
 				+ " ghost barrages during the fight, worth an extra " + nf.format(oppComp.getGhostBarrageDeservedDamage())
 				+ " deserved damage.<br>Unless fighting in Duel Arena, your opponent likely had a similar value.</html>");
 			opponentGhostBarrages.setForeground(
-				oppFight.getCompetitor().getGhostBarrageDeservedDamage() > competitor.getGhostBarrageDeservedDamage()
+				oppComp.getGhostBarrageDeservedDamage() > competitor.getGhostBarrageDeservedDamage()
 				? Color.GREEN : ColorScheme.BRAND_ORANGE);
 		}
 		else
@@ -398,109 +412,35 @@ public class FightPerformancePanel extends JPanel
 			opponentGhostBarrages.setToolTipText("No data is available for the opponent's ghost barrages");
 			opponentGhostBarrages.setForeground(ColorScheme.BRAND_ORANGE);
 		}
-		ghostBarragesLine.add(opponentGhostBarrages, BorderLayout.EAST);
-
-		// NINTH LINE: Total KO Chances
-		JPanel totalKoChanceLine = new JPanel();
-		totalKoChanceLine.setLayout(new BorderLayout());
-		totalKoChanceLine.setBackground(null);
-
-		// Calculate total KO chances and overall probability // MODIFIED Calculation
-		int competitorKoChances = 0;
-		double competitorSurvivalProb = 1.0; // Start with 100% survival chance
-		int opponentKoChances = 0;
-		double opponentSurvivalProb = 1.0; // Start with 100% survival chance
-		List<FightLogEntry> logs = fight.getAllFightLogEntries();
-		for (FightLogEntry log : logs) {
-			Double koChance = log.getKoChance();
-			if (koChance != null) {
-				if (log.attackerName.equals(competitor.getName())) {
-					competitorKoChances++;
-					competitorSurvivalProb *= (1.0 - koChance); // Calculate survival prob
-				} else {
-					opponentKoChances++;
-					opponentSurvivalProb *= (1.0 - koChance); // Calculate survival prob
-				}
-			}
-		}
 
-		// Calculate overall KO probability
-		Double competitorOverallKoProb = (competitorKoChances > 0) ? (1.0 - competitorSurvivalProb) : null;
-		Double opponentOverallKoProb = (opponentKoChances > 0) ? (1.0 - opponentSurvivalProb) : null;
+		int competitorKoChances = stats.getCompetitorKoChances();
+		int opponentKoChances = stats.getOpponentKoChances();
+		Double competitorOverallKoProb = stats.getCompetitorOverallKoProb();
+		Double opponentOverallKoProb = stats.getOpponentOverallKoProb();
 
 		// NINTH LINE LEFT: Competitor Total KO Chance (Using Overall Probability)
-		JLabel playerTotalKoChance = new JLabel();
 		String compTotalKoChanceText = competitorKoChances + (competitorOverallKoProb != null ? " (" + nfPercent.format(competitorOverallKoProb) + ")" : ""); // Use overall prob
 		playerTotalKoChance.setText(compTotalKoChanceText);
 		playerTotalKoChance.setToolTipText(competitor.getName() + " got " + competitorKoChances + " KO attempts with an overall KO probability of " + (competitorOverallKoProb != null ? nfPercent.format(competitorOverallKoProb) : "0%")); // Updated tooltip
 		playerTotalKoChance.setForeground(Color.WHITE);
-		totalKoChanceLine.add(playerTotalKoChance, BorderLayout.WEST);
 
 		// NINTH LINE RIGHT: Opponent Total KO Chance (Using Overall Probability)
-		JLabel opponentTotalKoChance = new JLabel();
 		String oppTotalKoChanceText = opponentKoChances + (opponentOverallKoProb != null ? " (" + nfPercent.format(opponentOverallKoProb) + ")" : ""); // Use overall prob
 		opponentTotalKoChance.setText(oppTotalKoChanceText);
 		opponentTotalKoChance.setToolTipText(opponent.getName() + " got " + opponentKoChances + " KO attempts with an overall KO probability of " + (opponentOverallKoProb != null ? nfPercent.format(opponentOverallKoProb) : "0%")); // Updated tooltip
 		opponentTotalKoChance.setForeground(Color.WHITE);
-		totalKoChanceLine.add(opponentTotalKoChance, BorderLayout.EAST);
-
-
-		fightPanel.add(playerNamesLine);
-		fightPanel.add(offPrayStatsLine);
-		fightPanel.add(deservedDpsStatsLine);
-		fightPanel.add(dmgDealtStatsLine);
-		fightPanel.add(magicHitStatsLine);
-		fightPanel.add(offensivePrayStatsLine);
-		fightPanel.add(hpHealedLine);
-		fightPanel.add(ghostBarragesLine);
-		fightPanel.add(totalKoChanceLine); // Add the new line
-
-		add(fightPanel, BorderLayout.NORTH);
-
-		// setup mouse events for hovering and clicking to open the fight log
-		MouseAdapter fightPerformanceMouseListener = new MouseAdapter()
-		{
-			@Override
-			public void mouseEntered(MouseEvent e)
-			{
-				setFullBackgroundColor(ColorScheme.DARK_GRAY_COLOR);
-				setOutline(true);
-				setCursor(new Cursor(Cursor.HAND_CURSOR));
-			}
-
-			@Override
-			public void mouseExited(MouseEvent e)
-			{
-				setFullBackgroundColor(ColorScheme.DARKER_GRAY_COLOR);
-				setOutline(false);
-				setCursor(new Cursor(Cursor.DEFAULT_CURSOR));
-			}
-
-			@Override
-			public void mouseClicked(MouseEvent e)
-			{
-				// ignore right clicks since that should be used for context menus/popup menus.
-				// btn1: left click, btn2: middle click, btn3: right click
-				if (e.getButton() == MouseEvent.BUTTON3)
-				{
-					return;
-				}
-
-				createFightLogFrame();
-			}
-		};
-		addMouseListener(fightPerformanceMouseListener);
-
-		// skip the remaining code if we aren't showing actions.
-		if (!showActions) { return; }
+	}
 
+	// context menu with every action for a fight in the fight history.
+	static JPopupMenu createPopupMenu(FightPerformance fight, Component invoker)
+	{
 		JPopupMenu popupMenu = new JPopupMenu();
 
 		// Create "Remove Fight" popup menu/context menu
 		final JMenuItem removeFight = new JMenuItem("Remove Fight");
 		removeFight.addActionListener(e ->
 		{
-			int dialogResult = JOptionPane.showConfirmDialog(this, "Are you sure you want to remove this fight? This cannot be undone.", "Warning", JOptionPane.YES_NO_OPTION);
+			int dialogResult = JOptionPane.showConfirmDialog(invoker, "Are you sure you want to remove this fight? This cannot be undone.", "Warning", JOptionPane.YES_NO_OPTION);
 			if (dialogResult == JOptionPane.YES_OPTION)
 			{
 				PLUGIN.removeFight(fight);
@@ -517,16 +457,19 @@ public class FightPerformancePanel extends JPanel
 		copyFight.setForeground(ColorScheme.BRAND_ORANGE);
 
 		final JMenuItem openFightAnalysis = new JMenuItem("Fight Analysis (Advanced)");
-		openFightAnalysis.addActionListener(e -> new FightAnalysisFrame(fight, this.getRootPane()));
+		openFightAnalysis.addActionListener(e -> new FightAnalysisFrame(fight, SwingUtilities.getRootPane(invoker)));
 		openFightAnalysis.setForeground(ColorScheme.BRAND_ORANGE);
 
+		// Create "Optimize Gear vs Opponent" popup menu/context menu
+		final JMenuItem optimizeGear = new JMenuItem("Optimize Gear vs Opponent");
+		optimizeGear.addActionListener(e -> PLUGIN.optimizeGearAgainst(fight, SwingUtilities.getRootPane(invoker)));
+
 		popupMenu.add(removeFight);
 		popupMenu.add(copyDiscordMsg);
 		popupMenu.add(copyFight);
 		popupMenu.add(openFightAnalysis);
-		setComponentPopupMenu(popupMenu);
-
-		setMaximumSize(new Dimension(PluginPanel.PANEL_WIDTH, (int)getPreferredSize().getHeight()));
+		popupMenu.add(optimizeGear);
+		return popupMenu;
 	}
 
 	public FightPerformancePanel(AnalyzedFightPerformance aFight)
@@ -536,6 +479,13 @@ public class FightPerformancePanel extends JPanel
 		this.analyzedFight = aFight;
 	}
 
+	// hover highlight, also used by the fight history list's renderer for the row under the mouse.
+	void setHovered(boolean hovered)
+	{
+		setFullBackgroundColor(hovered ? ColorScheme.DARK_GRAY_COLOR : ColorScheme.DARKER_GRAY_COLOR);
+		setOutline(hovered);
+	}
+
 	private void setFullBackgroundColor(Color color)
 	{
 		this.setBackground(color);
@@ -553,7 +503,18 @@ public class FightPerformancePanel extends JPanel
 		}
 	}
 
-	private void createFightLogFrame()
+	// e.g. ". Luck: 73% (...)", or an empty string if the fight has no luck percentile.
+	private static String getLuckPercentileString(Double luckPercentile)
+	{
+		if (luckPercentile == null)
+		{
+			return "";
+		}
+
+		return ". Luck: " + nfPercent.format(luckPercentile) + " (chance of dealing this much damage or less, based on every attack's possible hits)";
+	}
+
+	static void createFightLogFrame(FightPerformance fight, AnalyzedFightPerformance analyzedFight, JRootPane rootPane)
 	{
 		// destroy current frame if it exists so we only have one at a time (static field)
 		if (fightLogFrame != null)
@@ -570,14 +531,14 @@ public class FightPerformancePanel extends JPanel
 		}
 		else if (analyzedFight != null) // if analyzed fight is set, then show an analyzed fight's fightLogFrame.
 		{
-			fightLogFrame = new FightLogFrame(analyzedFight, getRootPane());
+			fightLogFrame = new FightLogFrame(analyzedFight, rootPane);
 
 		}
 		else
 		{
 			fightLogFrame = new FightLogFrame(fight,
 				fightLogEntries,
-				getRootPane());
+				rootPane);
 		}
 	}
 }
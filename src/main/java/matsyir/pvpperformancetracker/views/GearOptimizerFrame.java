@@ -0,0 +1,146 @@
+/*
+ * Copyright (c)  2021, Matsyir <https://github.com/Matsyir>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package matsyir.pvpperformancetracker.views;
+
+import java.awt.BorderLayout;
+import java.math.RoundingMode;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JRootPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.border.EmptyBorder;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN_ICON;
+import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.fixItemId;
+import matsyir.pvpperformancetracker.controllers.GearOptimizer;
+import net.runelite.api.kit.KitType;
+
+// Displays GearOptimizer results: the best few loadouts for every attack used against an opponent.
+// Only the slots that differ from the gear that was actually worn for that attack are listed.
+public class GearOptimizerFrame extends JFrame
+{
+	private static final NumberFormat nf = NumberFormat.getInstance();
+
+	static
+	{
+		nf.setMaximumFractionDigits(2);
+		nf.setRoundingMode(RoundingMode.HALF_UP);
+	}
+
+	public GearOptimizerFrame(String opponentName, List<GearOptimizer.AttackResult> results, GearOptimizer.ResolvedItems items, JRootPane rootPane)
+	{
+		super("Best owned gear vs " + opponentName);
+
+		if (isAlwaysOnTopSupported())
+		{
+			setAlwaysOnTop(PLUGIN.getRuneliteConfig().gameAlwaysOnTop());
+		}
+
+		setIconImage(PLUGIN_ICON);
+		setSize(860, 503);
+		if (rootPane != null)
+		{
+			setLocation(rootPane.getLocationOnScreen());
+		}
+
+		List<Object[]> rows = new ArrayList<>();
+		for (GearOptimizer.AttackResult result : results)
+		{
+			String attack = items.getName(result.getAttack().getWeaponId()) + " - " + result.getAttack().getAnimation().toString();
+			int rank = 1;
+			for (GearOptimizer.Loadout loadout : result.getLoadouts())
+			{
+				rows.add(new Object[] {
+					attack,
+					rank++,
+					nf.format(loadout.getAverageHit()),
+					nf.format(loadout.getAccuracy() * 100) + '%',
+					getGearChanges(result.getAttack().getRecordedGear(), loadout.getGear(), items)
+				});
+			}
+		}
+
+		String[] header = { "Attack", "Rank", "Avg Hit", "Accuracy", "Gear changes" };
+		JTable table = new JTable(rows.toArray(new Object[0][]), header);
+		table.setRowHeight(24);
+		table.setDefaultEditor(Object.class, null);
+		table.getColumnModel().getColumn(0).setPreferredWidth(220);
+		table.getColumnModel().getColumn(1).setPreferredWidth(40);
+		table.getColumnModel().getColumn(4).setPreferredWidth(420);
+
+		int combinations = results.stream().mapToInt(GearOptimizer.AttackResult::getCombinationsEvaluated).sum();
+		JLabel summary = new JLabel("<html>Compared " + nf.format(combinations) + " loadouts of owned gear over " + results.size() +
+			" attacks, against every gear set " + opponentName + " was seen wearing." + getTrimmedWarning(results, items) + "</html>");
+		summary.setBorder(new EmptyBorder(0, 4, 4, 4));
+
+		JPanel mainPanel = new JPanel(new BorderLayout(4, 4));
+		mainPanel.add(new JScrollPane(table), BorderLayout.CENTER);
+		mainPanel.add(summary, BorderLayout.SOUTH);
+		add(mainPanel);
+		setVisible(true);
+	}
+
+	// the search leaves out the weakest items by raw stats when there are too many combinations, which can miss
+	// loadouts that rely on set effects. List what was left out so the results aren't mistaken for exhaustive.
+	private static String getTrimmedWarning(List<GearOptimizer.AttackResult> results, GearOptimizer.ResolvedItems items)
+	{
+		Set<String> trimmed = new LinkedHashSet<>();
+		for (GearOptimizer.AttackResult result : results)
+		{
+			for (int itemId : result.getTrimmedItemIds())
+			{
+				trimmed.add(items.getName(itemId));
+			}
+		}
+
+		if (trimmed.isEmpty())
+		{
+			return "";
+		}
+
+		return "<br/><font color='orange'>Too many combinations: " + trimmed.size() + " owned items with the lowest stats were left out " +
+			"for some attacks, and could be part of a better set: " + String.join(", ", trimmed) + "</font>";
+	}
+
+	private static String getGearChanges(int[] recordedGear, int[] gear, GearOptimizer.ResolvedItems items)
+	{
+		List<String> changes = new ArrayList<>();
+		for (int slot = 0; slot < gear.length && slot < recordedGear.length; slot++)
+		{
+			if (slot != KitType.WEAPON.getIndex() && gear[slot] != recordedGear[slot])
+			{
+				changes.add(items.getName(fixItemId(gear[slot])));
+			}
+		}
+		return changes.isEmpty() ? "(same as worn)" : String.join(", ", changes);
+	}
+}
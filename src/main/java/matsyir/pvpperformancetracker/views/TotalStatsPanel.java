@@ -32,7 +32,10 @@ import java.awt.GridLayout;
 import java.math.RoundingMode;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List; // Added import
+import java.util.Map;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
@@ -42,8 +45,9 @@ import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 import matsyir.pvpperformancetracker.controllers.FightPerformance;
+import matsyir.pvpperformancetracker.controllers.FightStatsAggregate;
+import matsyir.pvpperformancetracker.controllers.FightStatsSnapshot;
 import matsyir.pvpperformancetracker.controllers.Fighter;
-import matsyir.pvpperformancetracker.models.FightLogEntry; // Added import
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.CONFIG;
 import static matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin.PLUGIN;
 import net.runelite.client.ui.ColorScheme;
@@ -100,63 +104,16 @@ public class TotalStatsPanel extends JPanel
 
 	private JLabel settingsWarningLabel; // to be hidden/shown
 
+	// running totals of every fight currently shown, only changed on the EDT
+	private final FightStatsAggregate stats = new FightStatsAggregate();
+	// the stats each shown fight was added with, so removing it subtracts exactly that even if the fight's
+	// stats changed since (e.g. recalculated before the panels are rebuilt).
+	private final Map<FightPerformance, FightStatsSnapshot> addedStats = new IdentityHashMap<>();
 	private Fighter totalStats;
 
-	private int numFights = 0;
-
-	private int numKills = 0;
-	private int numDeaths = 0;
-
-	private double totalDeservedDmg = 0;
-	private double totalDeservedDmgDiff = 0;
-	private double avgDeservedDmg = 0;
-	private double avgDeservedDmgDiff = 0;
-
-	private double killTotalDeservedDmg = 0;
-	private double killTotalDeservedDmgDiff = 0;
-	private double killAvgDeservedDmg = 0;
-	private double killAvgDeservedDmgDiff = 0;
-
-	private double deathTotalDeservedDmg = 0;
-	private double deathTotalDeservedDmgDiff = 0;
-	private double deathAvgDeservedDmg = 0;
-	private double deathAvgDeservedDmgDiff = 0;
-
-	private double totalDmgDealt = 0;
-	private double totalDmgDealtDiff = 0;
-	private double avgDmgDealt = 0;
-	private double avgDmgDealtDiff = 0;
-
-	private double killTotalDmgDealt = 0;
-	private double killTotalDmgDealtDiff = 0;
-	private double killAvgDmgDealt = 0;
-	private double killAvgDmgDealtDiff = 0;
-
-	private double deathTotalDmgDealt = 0;
-	private double deathTotalDmgDealtDiff = 0;
-	private double deathAvgDmgDealt = 0;
-	private double deathAvgDmgDealtDiff = 0;
-
-	private double avgHpHealed = 0;
-
-	private double avgGhostBarrageCount = 0;
-	private double avgGhostBarrageDeservedDamage = 0;
-
-	// KO Chance totals/averages
-	private double totalCompetitorKoChances = 0;
-	private double totalOpponentKoChances = 0;
-	private double totalCompetitorKoProbSum = 0; // Sum of overall KO probabilities from each fight
-	private double totalOpponentKoProbSum = 0; // Sum of overall KO probabilities from each fight
-	private double avgCompetitorKoChances = 0;
-	private double avgOpponentKoChances = 0;
-	private double avgCompetitorKoProb = 0; // Average overall KO probability per fight
-	private double avgOpponentKoProb = 0; // Average overall KO probability per fight
-	private int numFightsWithKoChance = 0; // Counter for fights that have KO chance data
-
-
 	public TotalStatsPanel()
 	{
-		totalStats = new Fighter("Player");
+		totalStats = stats.toFighter();
 
 		setLayout(new GridLayout(CONFIG.settingsConfigured() ? LAYOUT_ROWS_WITHOUT_WARNING : LAYOUT_ROWS_WITH_WARNING, 1));
 		setBorder(new EmptyBorder(4, 6, 4, 6));
@@ -202,16 +159,50 @@ public class TotalStatsPanel extends JPanel
 			PLUGIN.importUserFightHistoryData(fightHistoryData);
 		});
 
+		// Create "Import Opponents' Fight Histories" popup menu/context menu item
+		final JMenuItem importOpposingFightHistory = new JMenuItem("Import Opponents' Fight Histories");
+		importOpposingFightHistory.addActionListener(e ->
+		{
+			String fightHistoryData = JOptionPane.showInputDialog(this, "Enter another player's fight history data, to find the other side of your fights for fight analysis:", "Import Opponents' Fight Histories", JOptionPane.INFORMATION_MESSAGE);
+
+			if (fightHistoryData == null || fightHistoryData.length() < 2) { return; }
+
+			PLUGIN.importOpposingFightHistoryData(fightHistoryData);
+		});
+		importOpposingFightHistory.setForeground(ColorScheme.BRAND_ORANGE);
+
 		// Create "Fight Analysis (Advanced)" popup menu/context menu item
 		final JMenuItem fightAnalysis = new JMenuItem("Fight Analysis (Advanced)");
 		fightAnalysis.addActionListener(e -> new FightAnalysisFrame(TotalStatsPanel.this.getRootPane()));
 		fightAnalysis.setForeground(ColorScheme.BRAND_ORANGE);
 
+		// Create "Batch Fight Analysis (Advanced)" popup menu/context menu item
+		final JMenuItem batchFightAnalysis = new JMenuItem("Batch Fight Analysis (Advanced)");
+		batchFightAnalysis.addActionListener(e ->
+		{
+			// ask for a folder of exported fight histories (.json files) from both sides of the fights.
+			JFileChooser folderChooser = new JFileChooser();
+			folderChooser.setDialogTitle("Select a folder of exported fight histories");
+			folderChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+			if (folderChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION)
+			{
+				PLUGIN.runBatchFightAnalysis(folderChooser.getSelectedFile());
+			}
+		});
+		batchFightAnalysis.setForeground(ColorScheme.BRAND_ORANGE);
+
+		// Create "Compare Tracking Profiles" popup menu/context menu item
+		final JMenuItem compareTrackingProfiles = new JMenuItem("Compare Tracking Profiles");
+		compareTrackingProfiles.addActionListener(e -> PLUGIN.createConfirmationModal(true, PLUGIN.getTrackingProfileComparison()));
+
 		popupMenu.add(viewWiki);
 		popupMenu.add(removeAllFights);
 		popupMenu.add(exportFightHistory);
 		popupMenu.add(importFightHistory);
+		popupMenu.add(importOpposingFightHistory);
 		popupMenu.add(fightAnalysis);
+		popupMenu.add(batchFightAnalysis);
+		popupMenu.add(compareTrackingProfiles);
 		setComponentPopupMenu(popupMenu);
 
 		// Now initializing all lines:
@@ -236,13 +227,13 @@ public class TotalStatsPanel extends JPanel
 
 		// left label to show kills
 		killsLabel = new JLabel();
-		killsLabel.setText(numKills + " Kills");
+		killsLabel.setText(stats.getNumKills() + " Kills");
 		killsLabel.setForeground(Color.WHITE);
 		killDeathPanel.add(killsLabel, BorderLayout.WEST);
 
 		// right label to show deaths
 		deathsLabel = new JLabel();
-		deathsLabel.setText(numDeaths + " Deaths");
+		deathsLabel.setText(stats.getNumDeaths() + " Deaths");
 		deathsLabel.setForeground(Color.WHITE);
 		killDeathPanel.add(deathsLabel, BorderLayout.EAST);
 
@@ -408,6 +399,26 @@ public class TotalStatsPanel extends JPanel
 
 	private void setLabels()
 	{
+		totalStats = stats.toFighter();
+		int numFights = stats.getNumFights();
+		int numKills = stats.getNumKills();
+		int numDeaths = stats.getNumDeaths();
+		double avgDeservedDmg = stats.getAvgDeservedDmg();
+		double avgDeservedDmgDiff = stats.getAvgDeservedDmgDiff();
+		double killAvgDeservedDmg = stats.getKillAvgDeservedDmg();
+		double killAvgDeservedDmgDiff = stats.getKillAvgDeservedDmgDiff();
+		double deathAvgDeservedDmg = stats.getDeathAvgDeservedDmg();
+		double deathAvgDeservedDmgDiff = stats.getDeathAvgDeservedDmgDiff();
+		double avgDmgDealt = stats.getAvgDmgDealt();
+		double avgDmgDealtDiff = stats.getAvgDmgDealtDiff();
+		double killAvgDmgDealt = stats.getKillAvgDmgDealt();
+		double killAvgDmgDealtDiff = stats.getKillAvgDmgDealtDiff();
+		double deathAvgDmgDealt = stats.getDeathAvgDmgDealt();
+		double deathAvgDmgDealtDiff = stats.getDeathAvgDmgDealtDiff();
+		double avgHpHealed = stats.getAvgHpHealed();
+		double avgGhostBarrageCount = stats.getAvgGhostBarrageCount();
+		double avgGhostBarrageDeservedDamage = stats.getAvgGhostBarrageDeservedDamage();
+
 		String avgDeservedDmgDiffOneDecimal = nf1.format(avgDeservedDmgDiff);
 		String avgDmgDealtDiffOneDecimal = nf1.format(avgDmgDealtDiff);
 
@@ -491,12 +502,12 @@ public class TotalStatsPanel extends JPanel
 			+ "Unless fighting in Duel Arena, your opponents likely had a similar value.");
 
 		// Set Avg KO Chance label
-		if (numFightsWithKoChance > 0)
+		if (stats.getNumFightsWithKoChance() > 0)
 		{
-			avgCompetitorKoChances = totalCompetitorKoChances / numFightsWithKoChance;
-			avgOpponentKoChances = totalOpponentKoChances / numFightsWithKoChance;
-			avgCompetitorKoProb = totalCompetitorKoProbSum / numFightsWithKoChance;
-			avgOpponentKoProb = totalOpponentKoProbSum / numFightsWithKoChance;
+			double avgCompetitorKoChances = stats.getAvgCompetitorKoChances();
+			double avgOpponentKoChances = stats.getAvgOpponentKoChances();
+			double avgCompetitorKoProb = stats.getAvgCompetitorKoProb();
+			double avgOpponentKoProb = stats.getAvgOpponentKoProb();
 
 			// too long of a line to include both chances & percent/sum, so only include those in tooltip
 			avgKoChanceStatsLabel.setText(nf1.format(avgCompetitorKoChances) + " / " + nf1.format(avgOpponentKoChances));
@@ -506,7 +517,7 @@ public class TotalStatsPanel extends JPanel
 						+ ")<br>Opponent: "
 						+ nf1.format(avgOpponentKoChances) + " (" + nfPercent.format(avgOpponentKoProb)
 						+ ")<br>Total KO Chances: Player: "
-						+ nf.format(totalCompetitorKoChances) + ", Opponent: " + nf.format(totalOpponentKoChances)
+						+ nf.format(stats.getTotalCompetitorKoChances()) + ", Opponent: " + nf.format(stats.getTotalOpponentKoChances())
 						+ "</html>");
 		}
 		else
@@ -526,272 +537,61 @@ public class TotalStatsPanel extends JPanel
 
 	public void addFight(FightPerformance fight)
 	{
-		numFights++;
-
-		totalStats.addAttacks(fight.getCompetitor().getOffPraySuccessCount(), fight.getCompetitor().getAttackCount(),
-			fight.getCompetitor().getDeservedDamage(), fight.getCompetitor().getDamageDealt(),
-			fight.getCompetitor().getMagicAttackCount(), fight.getCompetitor().getMagicHitCount(),
-			fight.getCompetitor().getMagicHitCountDeserved(), fight.getCompetitor().getOffensivePraySuccessCount(),
-			fight.getCompetitor().getHpHealed(), fight.getCompetitor().getGhostBarrageCount(),
-			fight.getCompetitor().getGhostBarrageDeservedDamage());
-
-		// add kill-specific or death-specific stats
-		if (fight.getCompetitor().isDead())
+		FightStatsSnapshot fightStats = fight.getStatsSnapshot();
+		if (addedStats.putIfAbsent(fight, fightStats) == null)
 		{
-			numDeaths++;
-
-			deathTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			deathTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			deathTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-			deathTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			deathAvgDeservedDmg = deathTotalDeservedDmg / numDeaths;
-			deathAvgDeservedDmgDiff = deathTotalDeservedDmgDiff / numDeaths;
-
-			deathAvgDmgDealt = deathTotalDmgDealt / numDeaths;
-			deathAvgDmgDealtDiff = deathTotalDmgDealtDiff / numDeaths;
+			stats.add(fightStats);
+			SwingUtilities.invokeLater(this::setLabels);
 		}
+	}
 
-		if (fight.getOpponent().isDead())
-		{
-			numKills++;
-
-			killTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			killTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			killTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-			killTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			killAvgDeservedDmg = killTotalDeservedDmg / numKills;
-			killAvgDeservedDmgDiff = killTotalDeservedDmgDiff / numKills;
-
-			killAvgDmgDealt = killTotalDmgDealt / numKills;
-			killAvgDmgDealtDiff = killTotalDmgDealtDiff / numKills;
-		}
+	public void addFights(List<FightPerformance> fights)
+	{
+		if (fights == null || fights.size() < 1) { return; }
 
-		totalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-		totalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-		totalDmgDealt += fight.getCompetitor().getDamageDealt();
-		totalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-		// calculate avg stats based on total/numFights
-		avgDeservedDmg = totalDeservedDmg / numFights;
-		avgDeservedDmgDiff = totalDeservedDmgDiff / numFights;
-
-		avgDmgDealt = totalDmgDealt / numFights;
-		avgDmgDealtDiff = totalDmgDealtDiff / numFights;
-
-		avgHpHealed = (double)totalStats.getHpHealed() / numFights;
-
-		avgGhostBarrageCount = (double)totalStats.getGhostBarrageCount() / numFights;
-		avgGhostBarrageDeservedDamage = totalStats.getGhostBarrageCount() != 0 ? totalStats.getGhostBarrageDeservedDamage() / totalStats.getGhostBarrageCount() : 0;
-
-		// Calculate KO chances & sum % for this fight and add to totals
-		int fightCompetitorKoChances = 0;
-		double fightCompetitorSurvivalProb = 1.0;
-		int fightOpponentKoChances = 0;
-		double fightOpponentSurvivalProb = 1.0;
-		boolean fightHasKoData = false;
-		List<FightLogEntry> logs = fight.getAllFightLogEntries();
-		for (FightLogEntry log : logs) {
-			Double koChance = log.getKoChance();
-			if (koChance != null) {
-				fightHasKoData = true; // Mark that this fight has KO data
-				if (log.attackerName.equals(fight.getCompetitor().getName())) {
-					fightCompetitorKoChances++;
-					fightCompetitorSurvivalProb *= (1.0 - koChance);
-				} else {
-					fightOpponentKoChances++;
-					fightOpponentSurvivalProb *= (1.0 - koChance);
-				}
+		List<FightStatsSnapshot> added = new ArrayList<>(fights.size());
+		for (FightPerformance fight : fights)
+		{
+			FightStatsSnapshot fightStats = fight.getStatsSnapshot();
+			if (addedStats.putIfAbsent(fight, fightStats) == null)
+			{
+				added.add(fightStats);
 			}
 		}
+		stats.merge(FightStatsAggregate.of(added));
+		SwingUtilities.invokeLater(this::setLabels);
+	}
 
-		// Only include this fight in KO averages if it had KO data
-		if (fightHasKoData) {
-			numFightsWithKoChance++;
-			totalCompetitorKoChances += fightCompetitorKoChances;
-			totalOpponentKoChances += fightOpponentKoChances;
-			Double fightCompetitorKoProb = (fightCompetitorKoChances > 0) ? (1.0 - fightCompetitorSurvivalProb) : 0.0;
-			Double fightOpponentKoProb = (fightOpponentKoChances > 0) ? (1.0 - fightOpponentSurvivalProb) : 0.0;
-			totalCompetitorKoProbSum += fightCompetitorKoProb;
-			totalOpponentKoProbSum += fightOpponentKoProb;
+	// subtract a fight that was previously added, so removing a fight doesn't need a full reset.
+	public void removeFight(FightPerformance fight)
+	{
+		FightStatsSnapshot fightStats = addedStats.remove(fight);
+		if (fightStats != null)
+		{
+			stats.remove(fightStats);
+			SwingUtilities.invokeLater(this::setLabels);
 		}
-
-		// Recalculate averages using the count of fights with data
-		avgCompetitorKoChances = numFightsWithKoChance != 0 ? totalCompetitorKoChances / numFightsWithKoChance : 0;
-		avgOpponentKoChances = numFightsWithKoChance != 0 ? totalOpponentKoChances / numFightsWithKoChance : 0;
-		avgCompetitorKoProb = numFightsWithKoChance != 0 ? totalCompetitorKoProbSum / numFightsWithKoChance : 0;
-		avgOpponentKoProb = numFightsWithKoChance != 0 ? totalOpponentKoProbSum / numFightsWithKoChance : 0;
-
-
-		SwingUtilities.invokeLater(this::setLabels);
 	}
 
-	public void addFights(ArrayList<FightPerformance> fights)
+	public void removeFights(List<FightPerformance> fights)
 	{
 		if (fights == null || fights.size() < 1) { return; }
 
-		numFights += fights.size();
-
-		// Reset KO chance totals before recalculating for all fights
-		totalCompetitorKoChances = 0;
-		totalOpponentKoChances = 0;
-		totalCompetitorKoProbSum = 0;
-		totalOpponentKoProbSum = 0;
-		numFightsWithKoChance = 0;
-
 		for (FightPerformance fight : fights)
 		{
-			totalStats.addAttacks(fight.getCompetitor().getOffPraySuccessCount(), fight.getCompetitor().getAttackCount(),
-				fight.getCompetitor().getDeservedDamage(), fight.getCompetitor().getDamageDealt(),
-				fight.getCompetitor().getMagicAttackCount(), fight.getCompetitor().getMagicHitCount(),
-				fight.getCompetitor().getMagicHitCountDeserved(), fight.getCompetitor().getOffensivePraySuccessCount(),
-				fight.getCompetitor().getHpHealed(), fight.getCompetitor().getGhostBarrageCount(),
-				fight.getCompetitor().getGhostBarrageDeservedDamage());
-
-			if (fight.getCompetitor().isDead())
-			{
-				numDeaths++;
-
-				deathTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-				deathTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-				deathTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-				deathTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-			}
-			if (fight.getOpponent().isDead())
+			FightStatsSnapshot fightStats = addedStats.remove(fight);
+			if (fightStats != null)
 			{
-				numKills++;
-
-				killTotalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-				killTotalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-				killTotalDmgDealt += fight.getCompetitor().getDamageDealt();
-				killTotalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-			}
-
-			totalDeservedDmg += fight.getCompetitor().getDeservedDamage();
-			totalDeservedDmgDiff += fight.getCompetitorDeservedDmgDiff();
-
-			totalDmgDealt += fight.getCompetitor().getDamageDealt();
-			totalDmgDealtDiff += fight.getCompetitorDmgDealtDiff();
-
-			// Calculate KO chances & sum % for this fight and add to totals if applicable
-			int fightCompetitorKoChances = 0;
-			double fightCompetitorSurvivalProb = 1.0;
-			int fightOpponentKoChances = 0;
-			double fightOpponentSurvivalProb = 1.0;
-			boolean fightHasKoData = false;
-			List<FightLogEntry> logs = fight.getAllFightLogEntries();
-			for (FightLogEntry log : logs) {
-				Double koChance = log.getKoChance();
-				if (koChance != null) {
-					fightHasKoData = true;
-					if (log.attackerName.equals(fight.getCompetitor().getName())) {
-						fightCompetitorKoChances++;
-						fightCompetitorSurvivalProb *= (1.0 - koChance);
-					} else {
-						fightOpponentKoChances++;
-						fightOpponentSurvivalProb *= (1.0 - koChance);
-					}
-				}
-			}
-			if (fightHasKoData) {
-				numFightsWithKoChance++;
-				totalCompetitorKoChances += fightCompetitorKoChances;
-				totalOpponentKoChances += fightOpponentKoChances;
-				Double fightCompetitorKoProb = (fightCompetitorKoChances > 0) ? (1.0 - fightCompetitorSurvivalProb) : 0.0;
-				Double fightOpponentKoProb = (fightOpponentKoChances > 0) ? (1.0 - fightOpponentSurvivalProb) : 0.0;
-				totalCompetitorKoProbSum += fightCompetitorKoProb;
-				totalOpponentKoProbSum += fightOpponentKoProb;
+				stats.remove(fightStats);
 			}
 		}
-
-		// Recalculate averages for all stats
-		avgDeservedDmg = numFights != 0 ? totalDeservedDmg / numFights : 0;
-		avgDeservedDmgDiff = numFights != 0 ? totalDeservedDmgDiff / numFights: 0;
-
-		avgDmgDealt = numFights != 0 ? totalDmgDealt / numFights : 0;
-		avgDmgDealtDiff = numFights != 0 ? totalDmgDealtDiff / numFights : 0;
-
-		killAvgDeservedDmg = numKills != 0 ? killTotalDeservedDmg / numKills : 0;
-		killAvgDeservedDmgDiff = numKills != 0 ? killTotalDeservedDmgDiff / numKills : 0;
-
-		deathAvgDeservedDmg = numDeaths != 0 ? deathTotalDeservedDmg / numDeaths : 0;
-		deathAvgDeservedDmgDiff = numDeaths != 0 ? deathTotalDeservedDmgDiff / numDeaths : 0;
-
-		killAvgDmgDealt = numKills != 0 ? killTotalDmgDealt / numKills : 0;
-		killAvgDmgDealtDiff = numKills != 0 ? killTotalDmgDealtDiff / numKills : 0;
-
-		deathAvgDmgDealt = numDeaths != 0 ? deathTotalDmgDealt / numDeaths : 0;
-		deathAvgDmgDealtDiff = numDeaths != 0 ? deathTotalDmgDealtDiff / numDeaths : 0;
-
-		avgHpHealed = numFights != 0 ? (double)totalStats.getHpHealed() / numFights : 0;
-
-		avgGhostBarrageCount = numFights != 0 ? (double)totalStats.getGhostBarrageCount() / numFights : 0;
-		avgGhostBarrageDeservedDamage = totalStats.getGhostBarrageCount() != 0 ? totalStats.getGhostBarrageDeservedDamage() / totalStats.getGhostBarrageCount() : 0;
-
-		// Recalculate KO averages using the count of fights with data
-		avgCompetitorKoChances = numFightsWithKoChance != 0 ? totalCompetitorKoChances / numFightsWithKoChance : 0;
-		avgOpponentKoChances = numFightsWithKoChance != 0 ? totalOpponentKoChances / numFightsWithKoChance : 0;
-		avgCompetitorKoProb = numFightsWithKoChance != 0 ? totalCompetitorKoProbSum / numFightsWithKoChance : 0;
-		avgOpponentKoProb = numFightsWithKoChance != 0 ? totalOpponentKoProbSum / numFightsWithKoChance : 0;
-
 		SwingUtilities.invokeLater(this::setLabels);
 	}
 
 	public void reset()
 	{
-		numFights = 0;
-		numDeaths = 0;
-		numKills = 0;
-
-		totalDeservedDmg = 0;
-		totalDeservedDmgDiff = 0;
-		killTotalDeservedDmg = 0;
-		killTotalDeservedDmgDiff = 0;
-		deathTotalDeservedDmg = 0;
-		deathTotalDeservedDmgDiff = 0;
-		totalDmgDealt = 0;
-		totalDmgDealtDiff = 0;
-		killTotalDmgDealt = 0;
-		killTotalDmgDealtDiff = 0;
-		deathTotalDmgDealt = 0;
-		deathTotalDmgDealtDiff = 0;
-
-		avgDeservedDmg = 0;
-		avgDeservedDmgDiff = 0;
-		killAvgDeservedDmg = 0;
-		killAvgDeservedDmgDiff = 0;
-		deathAvgDeservedDmg = 0;
-		deathAvgDeservedDmgDiff = 0;
-		avgDmgDealt = 0;
-		avgDmgDealtDiff = 0;
-		killAvgDmgDealt = 0;
-		killAvgDmgDealtDiff = 0;
-		deathAvgDmgDealt = 0;
-		deathAvgDmgDealtDiff = 0;
-
-		avgHpHealed = 0;
-
-		avgGhostBarrageCount = 0;
-		avgGhostBarrageDeservedDamage = 0;
-
-		// Reset KO chance stats
-		totalCompetitorKoChances = 0;
-		totalOpponentKoChances = 0;
-		totalCompetitorKoProbSum = 0;
-		totalOpponentKoProbSum = 0;
-		avgCompetitorKoChances = 0;
-		avgOpponentKoChances = 0;
-		avgCompetitorKoProb = 0;
-		avgOpponentKoProb = 0;
-		numFightsWithKoChance = 0; // Reset new counter
-
-		totalStats = new Fighter("Player");
+		addedStats.clear();
+		stats.clear();
 		SwingUtilities.invokeLater(this::setLabels);
 	}
 
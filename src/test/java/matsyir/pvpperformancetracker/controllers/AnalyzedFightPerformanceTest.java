@@ -0,0 +1,165 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class AnalyzedFightPerformanceTest
+{
+	private static final Gson GSON = new Gson();
+	private static final int COMPETITOR = 0;
+	private static final int OPPONENT = 1;
+	private static final AnimationData SCIM = AnimationData.MELEE_SCIM_SLASH;
+	private static final AnimationData GMAUL = AnimationData.MELEE_GRANITE_MAUL_SPEC;
+
+	// "me" is the main fight's competitor, "opp" its opponent.
+	private static String attack(String attacker, AnimationData animation, int tick)
+	{
+		return "{\"attackerName\":\"" + attacker + "\",\"f\":true,\"T\":" + tick
+			+ ",\"G\":[0,0,0,1800],\"g\":[0,0,0,1900],\"m\":\"" + animation.name() + "\"}";
+	}
+
+	private static String defence(String defender, int tick)
+	{
+		return "{\"attackerName\":\"" + defender + "\",\"f\":false,\"T\":" + tick + "}";
+	}
+
+	// a recording of the fight from the given fighter's client: their own logs & the other fighter's attacks.
+	private static FightPerformance recording(String own, String other, String ownLogs, String otherLogs)
+	{
+		return GSON.fromJson("{\"c\":{\"n\":\"" + own + "\",\"l\":[" + ownLogs + "]},\"o\":{\"n\":\"" + other
+			+ "\",\"l\":[" + otherLogs + "]}}", FightPerformance.class);
+	}
+
+	private static FightPerformance mine(String ownLogs, String otherLogs)
+	{
+		return recording("me", "opp", ownLogs, otherLogs);
+	}
+
+	private static FightPerformance theirs(String ownLogs, String otherLogs)
+	{
+		return recording("opp", "me", ownLogs, otherLogs);
+	}
+
+	private static String logs(String... logs)
+	{
+		return String.join(",", logs);
+	}
+
+	// merged attacks as {side, attacker log, defender log}.
+	private static List<Object[]> merge(FightPerformance... recordings)
+	{
+		List<List<AnalyzedFightPerformance.MergeEntry>> entries = new ArrayList<>();
+		for (int i = 0; i < recordings.length; i++)
+		{
+			int side = recordings[i].competitor.getName().equals("me") ? COMPETITOR : OPPONENT;
+			entries.add(AnalyzedFightPerformance.mergeEntries(recordings[i], side, i));
+		}
+
+		List<Object[]> attacks = new ArrayList<>();
+		AnalyzedFightPerformance.mergeLogs(entries, (side, attackerLog, defenderLog) ->
+			attacks.add(new Object[] { side, attackerLog, defenderLog }));
+		return attacks;
+	}
+
+	private static void assertAttack(Object[] attack, int side, AnimationData animation, int tick)
+	{
+		FightLogEntry attackerLog = (FightLogEntry)attack[1];
+		FightLogEntry defenderLog = (FightLogEntry)attack[2];
+		assertEquals(side, attack[0]);
+		assertEquals(animation, attackerLog.getAnimationData());
+		assertEquals(tick, attackerLog.getTick());
+		assertTrue(attackerLog.isFullEntry());
+		assertFalse(defenderLog.isFullEntry());
+		assertEquals(tick, defenderLog.getTick());
+	}
+
+	@Test
+	public void twoRecordingsPairEachAttackWithTheDefensiveLog()
+	{
+		List<Object[]> attacks = merge(
+			mine(logs(attack("me", SCIM, 10), defence("me", 12)), attack("opp", GMAUL, 12)),
+			theirs(logs(attack("opp", GMAUL, 12), defence("opp", 10)), attack("me", SCIM, 10)));
+
+		assertEquals(2, attacks.size());
+		assertAttack(attacks.get(0), COMPETITOR, SCIM, 10);
+		assertAttack(attacks.get(1), OPPONENT, GMAUL, 12);
+		assertEquals("opp", ((FightLogEntry)attacks.get(0)[2]).attackerName);
+		assertEquals("me", ((FightLogEntry)attacks.get(1)[2]).attackerName);
+	}
+
+	@Test
+	public void threeRecordingsOutvoteTheOwnClient()
+	{
+		// both of the opponent's recordings saw a gmaul spec, only my own client saw a scim.
+		List<Object[]> attacks = merge(
+			mine(attack("me", SCIM, 10), ""),
+			theirs(defence("opp", 10), attack("me", GMAUL, 10)),
+			theirs(defence("opp", 10), attack("me", GMAUL, 10)));
+
+		assertEquals(1, attacks.size());
+		assertAttack(attacks.get(0), COMPETITOR, GMAUL, 10);
+	}
+
+	@Test
+	public void conflictingEntryTieGoesToTheOwnClient()
+	{
+		// my client saw the opponent's attack as a gmaul spec, but their own client knows it was a scim.
+		List<Object[]> attacks = merge(
+			mine(defence("me", 12), attack("opp", GMAUL, 12)),
+			theirs(attack("opp", SCIM, 12), ""));
+
+		assertEquals(1, attacks.size());
+		assertAttack(attacks.get(0), OPPONENT, SCIM, 12);
+	}
+
+	@Test
+	public void attackMissingFromOneRecordingIsFilledIn()
+	{
+		List<Object[]> attacks = merge(
+			mine(logs(attack("me", SCIM, 10), defence("me", 14)), ""),
+			theirs(logs(attack("opp", SCIM, 14), defence("opp", 10)), attack("me", SCIM, 10)));
+
+		assertEquals(2, attacks.size());
+		assertAttack(attacks.get(0), COMPETITOR, SCIM, 10);
+		assertAttack(attacks.get(1), OPPONENT, SCIM, 14);
+	}
+
+	@Test
+	public void sameTickAttacksAreAllKept()
+	{
+		// a scim hit & a gmaul spec on the same tick, then two identical gmaul specs on the same tick.
+		List<Object[]> attacks = merge(
+			mine(logs(attack("me", SCIM, 10), attack("me", GMAUL, 10), attack("me", GMAUL, 20), attack("me", GMAUL, 20)), ""),
+			theirs(logs(defence("opp", 10), defence("opp", 10), defence("opp", 20), defence("opp", 20)),
+				logs(attack("me", SCIM, 10), attack("me", GMAUL, 10), attack("me", GMAUL, 20))));
+
+		assertEquals(4, attacks.size());
+		assertAttack(attacks.get(0), COMPETITOR, SCIM, 10);
+		assertAttack(attacks.get(1), COMPETITOR, GMAUL, 10);
+		assertAttack(attacks.get(2), COMPETITOR, GMAUL, 20);
+		assertAttack(attacks.get(3), COMPETITOR, GMAUL, 20);
+		assertTrue(attacks.get(2)[1] != attacks.get(3)[1]);
+	}
+
+	@Test
+	public void repeatedEntryVotesOnlyOnce()
+	{
+		// my client saw the same scim twice on a tick, both of the opponent's clients saw a gmaul spec instead.
+		// The repeated scim doesn't outvote the gmaul, but a recording doesn't invent attacks so both are kept.
+		List<Object[]> attacks = merge(
+			mine(logs(attack("me", SCIM, 10), attack("me", SCIM, 10)), ""),
+			theirs(defence("opp", 10), attack("me", GMAUL, 10)),
+			theirs(defence("opp", 10), attack("me", GMAUL, 10)));
+
+		assertEquals(2, attacks.size());
+		assertAttack(attacks.get(0), COMPETITOR, SCIM, 10);
+		assertAttack(attacks.get(1), COMPETITOR, GMAUL, 10);
+	}
+}
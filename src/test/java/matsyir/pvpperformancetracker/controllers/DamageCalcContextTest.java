@@ -0,0 +1,104 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.RingData;
+import net.runelite.api.PlayerComposition;
+import net.runelite.api.kit.KitType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class DamageCalcContextTest
+{
+	private static final int DLONG = EquipmentData.DRAGON_LONGSWORD.getItemId();
+
+	// item stats only come from the context, never from the plugin or the ItemStatsTable.
+	private static int[] fixtureStats(int itemId, int strengthBonus)
+	{
+		return itemId == DLONG ? new int[] { 0, 50, 0, 0, 0, 0, 0, 0, 0, 0, strengthBonus, 0, 0 } : null;
+	}
+
+	private static DamageCalcContext context(CombatLevels levels, int strengthBonus)
+	{
+		return new DamageCalcContext(RingData.NONE, null, null, null, false, levels, levels,
+			id -> fixtureStats(id, strengthBonus));
+	}
+
+	private static int[] gear(int weaponId)
+	{
+		int[] gear = new int[KitType.values().length];
+		gear[KitType.WEAPON.getIndex()] = weaponId + PlayerComposition.ITEM_OFFSET;
+		return gear;
+	}
+
+	private static DamageCalcResult slash(DamageCalcContext ctx)
+	{
+		return PvpDamageCalc.calculate(ctx, gear(DLONG), gear(-1), AnimationData.MELEE_SCIM_SLASH, true, true, false);
+	}
+
+	@Test
+	public void usesTheContextsItemStatsSource()
+	{
+		CombatLevels levels = new CombatLevels(99, 99, 99, 99, 99, 99);
+		// floor(0.5 + 132 * 164 / 640) = 33, floor(0.5 + 132 * 64 / 640) = 13
+		assertEquals(33, slash(context(levels, 100)).getMaxHit());
+		assertEquals(13, slash(context(levels, 0)).getMaxHit());
+	}
+
+	@Test
+	public void usesTheContextsLevels()
+	{
+		// effective str: floor(70 * 1.23 + 11) = 97, max hit: floor(0.5 + 97 * 164 / 640) = 24
+		assertEquals(24, slash(context(new CombatLevels(70, 70, 70, 70, 70, 99), 100)).getMaxHit());
+	}
+
+	@Test
+	public void withLevelsOnlyCopiesWhenLevelsChange()
+	{
+		CombatLevels levels = new CombatLevels(99, 99, 99, 99, 99, 99);
+		DamageCalcContext ctx = context(levels, 100);
+		assertSame(ctx, ctx.withLevels(levels, levels));
+
+		CombatLevels lower = new CombatLevels(70, 70, 70, 70, 70, 99);
+		DamageCalcContext copy = ctx.withLevels(lower, levels);
+		assertNotSame(ctx, copy);
+		assertSame(lower, copy.getAttackerLevels());
+		assertSame(ctx.getItemStatsSource(), copy.getItemStatsSource());
+		assertEquals(24, slash(copy).getMaxHit());
+	}
+
+	@Test
+	public void sharedContextGivesTheSameResultsOnAnyThread() throws Exception
+	{
+		DamageCalcContext ctx = context(new CombatLevels(99, 99, 99, 99, 99, 99), 100);
+		DamageCalcResult expected = slash(ctx);
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<DamageCalcResult>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++)
+			{
+				results.add(pool.submit(() -> slash(ctx)));
+			}
+			for (Future<DamageCalcResult> result : results)
+			{
+				assertEquals(expected.getMaxHit(), result.get().getMaxHit());
+				assertEquals(expected.getAverageHit(), result.get().getAverageHit(), 0);
+				assertEquals(expected.getAccuracy(), result.get().getAccuracy(), 0);
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class FightPairIndexTest
+{
+	private static final long WINDOW = 60_000;
+
+	@Test
+	public void findsOpposingWithSwappedNormalizedNames()
+	{
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("Opp_Name", "Me", 1_000_000, "opposing");
+
+		assertEquals("opposing", index.findOpposing("me", "opp name", 1_010_000));
+		assertEquals("opposing", index.findOpposing("ME", "Opp-Name", 990_000));
+	}
+
+	@Test
+	public void ignoresSameSideAndOtherNames()
+	{
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("me", "opp", 1_000_000, "same side");
+		index.add("other", "me", 1_000_000, "other fight");
+
+		assertNull(index.findOpposing("me", "opp", 1_000_000));
+		assertEquals("same side", index.findSameSide("me", "opp", 1_000_000));
+		assertNull(index.findSameSide("opp", "me", 1_000_000));
+	}
+
+	@Test
+	public void picksClosestWithinWindow()
+	{
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("opp", "me", 1_000_000 - 50_000, "far");
+		index.add("opp", "me", 1_000_000 + 5_000, "close");
+		index.add("opp", "me", 1_000_000 + WINDOW + 1, "outside");
+
+		assertEquals("close", index.findOpposing("me", "opp", 1_000_000));
+		assertEquals("far", index.findOpposing("me", "opp", 1_000_000 - 60_000));
+		assertNull(index.findOpposing("me", "opp", 1_000_000 - 50_000 - WINDOW - 1));
+	}
+
+	@Test
+	public void findsAcrossBucketBoundaries()
+	{
+		// buckets are the window's size, so these end up in neighbouring buckets.
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("opp", "me", WINDOW * 10 - 1, "before");
+		index.add("opp", "me", WINDOW * 12, "after");
+
+		assertEquals("before", index.findOpposing("me", "opp", WINDOW * 10 + WINDOW / 2));
+		assertEquals("after", index.findOpposing("me", "opp", WINDOW * 11 + WINDOW / 2 + 1));
+	}
+
+	@Test
+	public void takeOpposingOnlyPairsOnce()
+	{
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("opp", "me", 1_000_000, "first");
+		index.add("opp", "me", 1_020_000, "second");
+		assertEquals(2, index.size());
+
+		assertEquals("first", index.takeOpposing("me", "opp", 1_000_000));
+		assertEquals("second", index.takeOpposing("me", "opp", 1_000_000));
+		assertNull(index.takeOpposing("me", "opp", 1_000_000));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	public void clearRemovesEverything()
+	{
+		FightPairIndex<String> index = new FightPairIndex<>(WINDOW);
+		index.add("opp", "me", 1_000_000, "opposing");
+		index.clear();
+
+		assertEquals(0, index.size());
+		assertNull(index.findOpposing("me", "opp", 1_000_000));
+	}
+
+	@Test
+	public void matchesBruteForceOnRandomFights()
+	{
+		Random random = new Random(7);
+		String[] names = { "a", "b", "c" };
+		FightPairIndex<long[]> index = new FightPairIndex<>(WINDOW);
+		List<long[]> fights = new ArrayList<>(); // competitor, opponent, time
+		for (int i = 0; i < 500; i++)
+		{
+			long[] fight = { random.nextInt(names.length), random.nextInt(names.length), random.nextInt(100_000_000) };
+			fights.add(fight);
+			index.add(names[(int) fight[0]], names[(int) fight[1]], fight[2], fight);
+		}
+
+		for (int i = 0; i < 500; i++)
+		{
+			int competitor = random.nextInt(names.length);
+			int opponent = random.nextInt(names.length);
+			long time = random.nextInt(100_000_000);
+
+			long bestDiff = -1;
+			for (long[] fight : fights)
+			{
+				long diff = Math.abs(fight[2] - time);
+				if (fight[0] == opponent && fight[1] == competitor && diff <= WINDOW && (bestDiff < 0 || diff < bestDiff))
+				{
+					bestDiff = diff;
+				}
+			}
+
+			long[] found = index.findOpposing(names[competitor], names[opponent], time);
+			assertEquals(bestDiff, found == null ? -1 : Math.abs(found[2] - time));
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import java.util.Locale;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class FightPerformanceTest
+{
+	private static final Gson GSON = new Gson();
+	private static final double DELTA = 1e-9;
+
+	// a full log entry hitting 0-10 with the given accuracy, with the damage it actually did if it's known.
+	private static String attack(int tick, double accuracy, Integer actualDamage)
+	{
+		return String.format(Locale.US, "{\"attackerName\":\"me\",\"f\":true,\"T\":%d,\"a\":%.4f,\"l\":0,\"h\":10%s}",
+			tick, accuracy, actualDamage == null ? "" : ",\"aD\":" + actualDamage);
+	}
+
+	// damageDealt ("h") is every hitsplat on the opponent, including poison & recoil.
+	private static FightPerformance fight(int damageDealt, String competitorLogs)
+	{
+		return GSON.fromJson("{\"c\":{\"n\":\"me\",\"h\":" + damageDealt + ",\"l\":[" + competitorLogs + "]},\"o\":{\"n\":\"opp\",\"l\":[]}}",
+			FightPerformance.class);
+	}
+
+	@Test
+	public void luckOnlyComparesTheAttacksOwnDamage()
+	{
+		// the attack did 0, the other 10 damage dealt was poison: 1 of the 11 always-hitting rolls is 0.
+		FightPerformance fight = fight(10, attack(0, 1, 0));
+		fight.createLuckPercentileTask().run();
+
+		assertEquals(1 / 11.0, fight.getCompetitorLuckPercentile(), DELTA);
+		assertNull(fight.getOpponentLuckPercentile());
+	}
+
+	@Test
+	public void attacksWithoutRecordedDamageAreLeftOut()
+	{
+		FightPerformance fight = fight(10, attack(0, 1, null) + "," + attack(4, 1, 10));
+		fight.createLuckPercentileTask().run();
+		assertEquals(1, fight.getCompetitorLuckPercentile(), DELTA);
+
+		FightPerformance unknown = fight(10, attack(0, 1, null));
+		unknown.createLuckPercentileTask().run();
+		assertNull(unknown.getCompetitorLuckPercentile());
+	}
+}
@@ -0,0 +1,121 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import java.util.Locale;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class FightSimulatorTest
+{
+	private static final Gson GSON = new Gson();
+	private static final double DELTA = 1e-9;
+
+	// a full log entry: the attack's tick, accuracy & hit range, the damage it actually did and the defender's hp before it.
+	private static String attack(String attacker, int tick, double accuracy, int minHit, int maxHit, int actualDamage, Integer hpBefore)
+	{
+		return String.format(Locale.US, "{\"attackerName\":\"%s\",\"f\":true,\"T\":%d,\"a\":%.4f,\"l\":%d,\"h\":%d,\"d\":%.4f,\"aD\":%d%s}",
+			attacker, tick, accuracy, minHit, maxHit, accuracy * (minHit + maxHit) / 2, actualDamage,
+			hpBefore == null ? "" : ",\"eH\":" + hpBefore);
+	}
+
+	private static FightPerformance fight(String competitorLogs, String opponentLogs)
+	{
+		FightPerformance fight = GSON.fromJson("{\"c\":{\"n\":\"me\",\"l\":[" + competitorLogs + "]},\"o\":{\"n\":\"opp\",\"l\":[" + opponentLogs + "]}}",
+			FightPerformance.class);
+		fight.publishStatsSnapshot();
+		return fight;
+	}
+
+	private static void assertProbability(double expected, FightSimulator.Result result, double actual)
+	{
+		// well within 4 margins of error, so this practically never fails by chance.
+		assertEquals(expected, actual, 4 * result.getMarginOfError(expected) + DELTA);
+	}
+
+	@Test
+	public void guaranteedKoEndsTheFight()
+	{
+		FightSimulator.Result result = FightSimulator.simulate(fight(
+			attack("me", 0, 1, 99, 99, 99, 99),
+			attack("opp", 1, 1, 99, 99, 99, 99))).join();
+
+		assertEquals(1, result.getCompetitorWinProbability(), DELTA);
+		assertEquals(0, result.getOpponentWinProbability(), DELTA);
+		assertEquals(0, result.getNoKoProbability(), DELTA);
+		assertArrayEquals(new double[] { 1 }, result.getCompetitorKoByAttack(), DELTA);
+		assertArrayEquals(new double[] { 0 }, result.getOpponentKoByAttack(), DELTA);
+		assertEquals(0, result.getExpectedLengthTicks(), DELTA);
+	}
+
+	@Test
+	public void missesNeverKo()
+	{
+		FightSimulator.Result result = FightSimulator.simulate(fight(
+			attack("me", 0, 0, 0, 50, 0, 99) + "," + attack("me", 4, 0, 0, 50, 0, null),
+			attack("opp", 2, 0, 0, 50, 0, 99))).join();
+
+		assertEquals(1, result.getNoKoProbability(), DELTA);
+		assertArrayEquals(new double[] { 0, 0 }, result.getCompetitorKoByAttack(), DELTA);
+		assertEquals(4, result.getExpectedLengthTicks(), DELTA);
+	}
+
+	@Test
+	public void laterAttacksOnlyCountWhenNobodyDiedYet()
+	{
+		// each attack is a coin flip between a miss & a KO
+		FightSimulator.Result result = FightSimulator.simulate(fight(
+			attack("me", 0, 0.5, 99, 99, 0, 99),
+			attack("opp", 1, 0.5, 99, 99, 0, 99))).join();
+
+		assertProbability(0.5, result, result.getCompetitorWinProbability());
+		assertProbability(0.25, result, result.getOpponentWinProbability());
+		assertProbability(0.25, result, result.getNoKoProbability());
+		assertEquals(FightSimulator.DEFAULT_ITERATIONS, result.getIterations());
+	}
+
+	@Test
+	public void simulatedDamageIsComparedToTheRecordedDamage()
+	{
+		// the opponent really took 40 then 40 damage from 99 hp. The simulation hits 40 or 60 (1/21 chance each
+		// value between 40 & 60), and it's only a KO on the 2nd hit if both hits add up to 99+.
+		FightSimulator.Result result = FightSimulator.simulate(fight(
+			attack("me", 0, 1, 40, 60, 40, 99) + "," + attack("me", 4, 1, 40, 60, 40, 59),
+			"")).join();
+
+		int koPairs = 0;
+		for (int first = 40; first <= 60; first++)
+		{
+			for (int second = 40; second <= 60; second++)
+			{
+				koPairs += first + second >= 99 ? 1 : 0;
+			}
+		}
+		double expected = koPairs / (21.0 * 21.0);
+		assertEquals(0, result.getCompetitorKoByAttack()[0], DELTA);
+		assertProbability(expected, result, result.getCompetitorWinProbability());
+	}
+
+	@Test
+	public void healingDuringTheRealFightStillCounts()
+	{
+		// the opponent ate back up to 99 between the hits, so 60 + 60 damage never KOs them.
+		FightSimulator.Result result = FightSimulator.simulate(fight(
+			attack("me", 0, 1, 40, 60, 40, 99) + "," + attack("me", 4, 1, 40, 60, 40, 99),
+			"")).join();
+
+		assertEquals(0, result.getCompetitorWinProbability(), DELTA);
+	}
+
+	@Test
+	public void reusesTheResultUntilTheStatsChange()
+	{
+		FightPerformance fight = fight(attack("me", 0, 0.5, 99, 99, 0, 99), "");
+		FightSimulator.Result first = FightSimulator.simulate(fight).join();
+		assertTrue(FightSimulator.simulate(fight).join() == first);
+
+		fight.publishStatsSnapshot();
+		assertTrue(FightSimulator.simulate(fight).join() != first);
+	}
+}
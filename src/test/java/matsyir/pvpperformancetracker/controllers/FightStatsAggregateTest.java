@@ -0,0 +1,130 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class FightStatsAggregateTest
+{
+	private static final Gson GSON = new Gson();
+	private static final double DELTA = 1e-9;
+
+	// the published stats of a random fight between "me" & "opp", with a few KO chances in its logs.
+	private static FightStatsSnapshot randomFight(Random random)
+	{
+		StringBuilder logs = new StringBuilder();
+		int koChances = random.nextInt(4);
+		for (int i = 0; i < koChances; i++)
+		{
+			logs.append(i == 0 ? "" : ",").append(String.format(Locale.US, "{\"attackerName\":\"%s\",\"k\":%.6f}",
+				random.nextBoolean() ? "me" : "opp", random.nextDouble()));
+		}
+
+		String competitor = String.format(Locale.US, "{\"n\":\"me\",\"a\":%d,\"s\":%d,\"d\":%.4f,\"h\":%d,\"z\":%d,\"m\":%d," +
+				"\"M\":%.4f,\"p\":%d,\"g\":%d,\"y\":%.4f,\"H\":%d,\"x\":%b,\"l\":[%s]}",
+			random.nextInt(100), random.nextInt(50), random.nextDouble() * 500, random.nextInt(500), random.nextInt(30),
+			random.nextInt(20), random.nextDouble() * 20, random.nextInt(100), random.nextInt(5), random.nextDouble() * 50,
+			random.nextInt(200), random.nextInt(3) == 0, logs);
+		String opponent = String.format(Locale.US, "{\"n\":\"opp\",\"d\":%.4f,\"h\":%d,\"x\":%b,\"l\":[]}",
+			random.nextDouble() * 500, random.nextInt(500), random.nextInt(3) == 0);
+		FightPerformance fight = GSON.fromJson("{\"c\":" + competitor + ",\"o\":" + opponent + ",\"l\":" + random.nextInt() + "}", FightPerformance.class);
+		fight.publishStatsSnapshot();
+		return fight.getStatsSnapshot();
+	}
+
+	private static List<FightStatsSnapshot> randomFights(int count, long seed)
+	{
+		Random random = new Random(seed);
+		List<FightStatsSnapshot> fights = new ArrayList<>();
+		for (int i = 0; i < count; i++)
+		{
+			fights.add(randomFight(random));
+		}
+		return fights;
+	}
+
+	private static FightStatsAggregate sequential(List<FightStatsSnapshot> fights)
+	{
+		FightStatsAggregate aggregate = new FightStatsAggregate();
+		fights.forEach(aggregate::add);
+		return aggregate;
+	}
+
+	private static double[] stats(FightStatsAggregate a)
+	{
+		return new double[] {
+			a.getNumFights(), a.getNumKills(), a.getNumDeaths(), a.getNumFightsWithKoChance(),
+			a.getAvgDeservedDmg(), a.getAvgDeservedDmgDiff(), a.getAvgDmgDealt(), a.getAvgDmgDealtDiff(),
+			a.getKillAvgDeservedDmg(), a.getKillAvgDeservedDmgDiff(), a.getKillAvgDmgDealt(), a.getKillAvgDmgDealtDiff(),
+			a.getDeathAvgDeservedDmg(), a.getDeathAvgDeservedDmgDiff(), a.getDeathAvgDmgDealt(), a.getDeathAvgDmgDealtDiff(),
+			a.getAvgHpHealed(), a.getAvgGhostBarrageCount(), a.getAvgGhostBarrageDeservedDamage(),
+			a.getTotalCompetitorKoChances(), a.getTotalOpponentKoChances(), a.getAvgCompetitorKoProb(), a.getAvgOpponentKoProb()
+		};
+	}
+
+	@Test
+	public void removingEveryFightLeavesNothing()
+	{
+		List<FightStatsSnapshot> fights = randomFights(200, 1);
+		FightStatsAggregate aggregate = sequential(fights);
+		Collections.shuffle(fights, new Random(2));
+		fights.forEach(aggregate::remove);
+
+		assertArrayEquals(stats(new FightStatsAggregate()), stats(aggregate), 0);
+	}
+
+	@Test
+	public void removeUndoesAdd()
+	{
+		List<FightStatsSnapshot> kept = randomFights(150, 3);
+		List<FightStatsSnapshot> removed = randomFights(150, 4);
+		FightStatsAggregate aggregate = sequential(kept);
+		removed.forEach(aggregate::add);
+		Collections.shuffle(removed, new Random(5));
+		removed.forEach(aggregate::remove);
+
+		assertArrayEquals(stats(sequential(kept)), stats(aggregate), DELTA);
+	}
+
+	@Test
+	public void mergeMatchesAddingEveryFight()
+	{
+		List<FightStatsSnapshot> first = randomFights(120, 6);
+		List<FightStatsSnapshot> second = randomFights(80, 7);
+		FightStatsAggregate merged = sequential(first);
+		merged.merge(sequential(second));
+
+		List<FightStatsSnapshot> all = new ArrayList<>(first);
+		all.addAll(second);
+		assertArrayEquals(stats(sequential(all)), stats(merged), DELTA);
+	}
+
+	@Test
+	public void mergeThenRemoveMatchesTheOtherSide()
+	{
+		List<FightStatsSnapshot> first = randomFights(100, 8);
+		List<FightStatsSnapshot> second = randomFights(100, 9);
+		FightStatsAggregate merged = sequential(first);
+		merged.merge(sequential(second));
+		first.forEach(merged::remove);
+
+		assertArrayEquals(stats(sequential(second)), stats(merged), DELTA);
+	}
+
+	@Test
+	public void parallelSumMatchesSequential()
+	{
+		// enough fights for of() to split the work into parallel chunks
+		List<FightStatsSnapshot> fights = randomFights(3000, 10);
+		FightStatsAggregate parallel = FightStatsAggregate.of(fights);
+
+		assertEquals(fights.size(), parallel.getNumFights());
+		assertArrayEquals(stats(sequential(fights)), stats(parallel), DELTA);
+	}
+}
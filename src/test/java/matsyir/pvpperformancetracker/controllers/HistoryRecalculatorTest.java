@@ -0,0 +1,124 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import matsyir.pvpperformancetracker.models.FightType;
+import matsyir.pvpperformancetracker.models.RingData;
+import net.runelite.api.PlayerComposition;
+import net.runelite.api.kit.KitType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HistoryRecalculatorTest
+{
+	private static final int GMAUL = EquipmentData.GRANITE_MAUL.getItemId();
+	private static final int KODAI = EquipmentData.KODAI_WAND.getItemId();
+
+	private final Gson gson = new Gson();
+	private DamageCalcContext ctx;
+	private List<FightLogEntry> entries;
+
+	@Before
+	public void recordFight()
+	{
+		CombatLevels levels = new CombatLevels(99, 99, 99, 99, 99, 99);
+		ctx = new DamageCalcContext(RingData.NONE, null, null, null, false, levels, levels, id ->
+			id == GMAUL ? new int[] { 0, 0, 81, 0, 0, 0, 0, 0, 0, 0, 79, 0, 0 } :
+			id == KODAI ? new int[] { 0, 0, 0, 28, 0, 0, 0, 0, 0, 0, 0, 0, 15 } : null);
+
+		entries = new ArrayList<>();
+		entries.add(recordAttack(GMAUL, AnimationData.MELEE_GRANITE_MAUL, null, false, 1));
+		// a gmaul spec that matched 2 hitsplats, off-pray and on-pray
+		entries.add(recordAttack(GMAUL, AnimationData.MELEE_GRANITE_MAUL_SPEC, null, true, 2));
+		entries.add(recordAttack(GMAUL, AnimationData.MELEE_GRANITE_MAUL_SPEC, "MELEE", true, 2));
+		entries.add(recordAttack(KODAI, AnimationData.MAGIC_ANCIENT_MULTI_TARGET, null, false, 1));
+		entries.add(recordAttack(KODAI, AnimationData.MAGIC_ANCIENT_MULTI_TARGET, "MAGIC", false, 0));
+		// defensive-only entry, nothing to recalculate
+		entries.add(gson.fromJson("{\"f\":false}", FightLogEntry.class));
+	}
+
+	private static String gearJson(int weaponId)
+	{
+		int[] gear = new int[KitType.values().length];
+		gear[KitType.WEAPON.getIndex()] = weaponId + PlayerComposition.ITEM_OFFSET;
+		return Arrays.toString(gear);
+	}
+
+	// build an entry like it was saved after a live attack: Fighter.addAttack calculates with the same
+	// parameters, and stores the result in the entry as is.
+	private FightLogEntry recordAttack(int weaponId, AnimationData animation, String defenderOverhead, boolean gmaulSpec, int matchedHits)
+	{
+		FightLogEntry entry = gson.fromJson("{\"f\":true,\"G\":" + gearJson(weaponId) + ",\"g\":" + gearJson(-1)
+			+ ",\"m\":\"" + animation.name() + "\""
+			+ (defenderOverhead == null ? "" : ",\"o\":\"" + defenderOverhead + "\"")
+			+ ",\"GMS\":" + gmaulSpec + ",\"mC\":" + matchedHits + "}", FightLogEntry.class);
+		entry.setDamageStats(PvpDamageCalc.calculate(ctx, entry.getAttackerGear(), entry.getDefenderGear(),
+			entry.getAnimationData(), entry.success(), true, false));
+		return entry;
+	}
+
+	@Test
+	public void recalculatingUnderTheSameConfigChangesNothing()
+	{
+		double liveDeservedDamage = 0;
+		double liveMagicHitCountDeserved = 0;
+		for (FightLogEntry entry : entries)
+		{
+			if (!entry.isFullEntry())
+			{
+				continue;
+			}
+			liveDeservedDamage += entry.getDeservedDamage();
+			if (entry.getAnimationData().attackStyle == AnimationData.AttackStyle.MAGIC)
+			{
+				liveMagicHitCountDeserved += entry.getAccuracy();
+			}
+		}
+
+		DamageCalcResult[] results = new DamageCalcResult[entries.size()];
+		double[] totals = HistoryRecalculator.recalculateEntries(FightType.NORMAL, ctx, entries, results);
+
+		assertEquals(liveDeservedDamage, totals[0], 1e-9);
+		assertEquals(liveMagicHitCountDeserved, totals[1], 1e-9);
+		for (int i = 0; i < entries.size(); i++)
+		{
+			FightLogEntry entry = entries.get(i);
+			if (!entry.isFullEntry())
+			{
+				assertNull(results[i]);
+				continue;
+			}
+			assertEquals(entry.getDeservedDamage(), results[i].getAverageHit(), 1e-9);
+			assertEquals(entry.getAccuracy(), results[i].getAccuracy(), 1e-9);
+			assertEquals(entry.getMinHit(), results[i].getMinHit());
+			assertEquals(entry.getMaxHit(), results[i].getMaxHit());
+		}
+	}
+
+	@Test
+	public void recalculatingTwiceIsStable()
+	{
+		DamageCalcResult[] first = new DamageCalcResult[entries.size()];
+		double[] firstTotals = HistoryRecalculator.recalculateEntries(FightType.NORMAL, ctx, entries, first);
+		for (int i = 0; i < entries.size(); i++)
+		{
+			if (first[i] != null)
+			{
+				entries.get(i).setDamageStats(first[i]);
+			}
+		}
+
+		DamageCalcResult[] second = new DamageCalcResult[entries.size()];
+		double[] secondTotals = HistoryRecalculator.recalculateEntries(FightType.NORMAL, ctx, entries, second);
+		assertEquals(firstTotals[0], secondTotals[0], 1e-9);
+		assertEquals(firstTotals[1], secondTotals[1], 1e-9);
+	}
+}
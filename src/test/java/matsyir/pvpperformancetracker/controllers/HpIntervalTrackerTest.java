@@ -0,0 +1,106 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+public class HpIntervalTrackerTest
+{
+	private static void assertRange(int min, int max, HpIntervalTracker tracker)
+	{
+		assertEquals("min hp", min, tracker.getMinHp());
+		assertEquals("max hp", max, tracker.getMaxHp());
+	}
+
+	@Test
+	public void startsWithOnlyAliveKnown()
+	{
+		assertRange(1, 99, new HpIntervalTracker(99));
+	}
+
+	@Test
+	public void hitsAndHealsShiftTheRange()
+	{
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onHit(10, 20);
+		assertRange(0, 79, tracker);
+
+		tracker.onExactHp(95);
+		tracker.onHeal(11, 10);
+		assertRange(99, 99, tracker);
+	}
+
+	@Test
+	public void healthSampleNarrowsTheRange()
+	{
+		// 15/30 of 99 hp is 48 to 51 hp
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onHealthSample(15, 30, 10);
+		assertRange(48, 51, tracker);
+	}
+
+	@Test
+	public void healthSampleIsShiftedByLaterHits()
+	{
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onHit(10, 5);
+		tracker.onHit(11, 10);
+		// the sample was taken after tick 10's hits, so tick 11's 10 damage still applies to it
+		tracker.onHealthSample(15, 30, 10);
+		assertRange(38, 41, tracker);
+	}
+
+	@Test
+	public void conflictingSampleResetsTheRange()
+	{
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onExactHp(20);
+		// a full health bar doesn't fit 20 hp (e.g. they ate), trust the sample
+		tracker.onHealthSample(30, 30, 10);
+		assertRange(99, 99, tracker);
+	}
+
+	@Test
+	public void projectsHpBeforePastTicks()
+	{
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onExactHp(99);
+		tracker.onHit(10, 20);
+		tracker.onHit(10, 5);
+		tracker.onHit(11, 10);
+
+		assertEquals(Integer.valueOf(99), tracker.getEstimatedHpBeforeTick(10));
+		assertEquals(Integer.valueOf(74), tracker.getEstimatedHpBeforeTick(11));
+		assertNull(tracker.getEstimatedHpBeforeTick(12));
+
+		// a later exact hp also corrects the past ticks' estimates
+		tracker.onExactHp(60);
+		assertEquals(Integer.valueOf(70), tracker.getEstimatedHpBeforeTick(11));
+	}
+
+	@Test
+	public void forgetsTicksOutsideTheHistory()
+	{
+		HpIntervalTracker tracker = new HpIntervalTracker(99);
+		tracker.onHit(10, 1);
+		for (int tick = 11; tick < 30; tick++)
+		{
+			tracker.onHit(tick, 1);
+		}
+		assertNull(tracker.getEstimatedHpBeforeTick(10));
+	}
+
+	@Test
+	public void maxHpLevelChangeKeepsWhatIsKnown()
+	{
+		HpIntervalTracker unknown = new HpIntervalTracker(99);
+		unknown.setMaxHpLevel(80);
+		assertRange(1, 80, unknown);
+
+		HpIntervalTracker known = new HpIntervalTracker(99);
+		known.onExactHp(50);
+		known.setMaxHpLevel(40);
+		assertRange(40, 40, known);
+		assertEquals(40, known.getMaxHpLevel());
+	}
+}
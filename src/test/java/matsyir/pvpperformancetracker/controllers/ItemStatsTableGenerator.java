@@ -0,0 +1,56 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import net.runelite.client.game.ItemStats;
+
+// Dev-only tool which generates the bundled ItemStatsTable resource (item_stats.bin) from RuneLite's
+// item stats json (the same data the ItemManager serves, optionally gzipped), so the damage calc can run
+// without the client. Run through gradle: ./gradlew generateItemStats -PitemStats=<path to stats json>
+public class ItemStatsTableGenerator
+{
+	private static final String DEFAULT_OUTPUT = "src/main/resources" + ItemStatsTable.RESOURCE_NAME;
+
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1 || args[0].isEmpty())
+		{
+			System.err.println("Usage: ItemStatsTableGenerator <item stats json> [output file]");
+			System.exit(1);
+		}
+
+		Map<Integer, ItemStats> stats = readStats(args[0]);
+		String output = args.length > 1 ? args[1] : DEFAULT_OUTPUT;
+		try (OutputStream out = new FileOutputStream(output))
+		{
+			ItemStatsTable.writeResource(out, id -> PvpDamageCalc.lookupItemStats(id, stats::get));
+		}
+		System.out.println("Wrote item stats for " + stats.size() + " known items to " + output);
+	}
+
+	private static Map<Integer, ItemStats> readStats(String path) throws IOException
+	{
+		InputStream in = new FileInputStream(path);
+		if (path.endsWith(".gz"))
+		{
+			in = new GZIPInputStream(in);
+		}
+
+		try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8))
+		{
+			Type type = new TypeToken<Map<Integer, ItemStats>>(){}.getType();
+			return new Gson().fromJson(reader, type);
+		}
+	}
+}
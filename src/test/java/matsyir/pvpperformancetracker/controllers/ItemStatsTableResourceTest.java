@@ -0,0 +1,64 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Before;
+import org.junit.Test;
+
+// Checks the committed item_stats.bin resource itself, as loaded from the classpath.
+public class ItemStatsTableResourceTest
+{
+	@Before
+	public void loadResource() throws IOException
+	{
+		PvpPerformanceTrackerPlugin.PLUGIN = null;
+
+		try (InputStream in = ItemStatsTable.class.getResourceAsStream(ItemStatsTable.RESOURCE_NAME))
+		{
+			assertNotNull("item stats resource is missing", in);
+			ItemStatsTable.loadBundled(in);
+		}
+	}
+
+	@Test
+	public void containsKnownWeapons()
+	{
+		// stab, slash, crush, magic, range attack | stab, slash, crush, magic, range defence | str, range str, magic dmg
+		assertArrayEquals(new int[] { 58, 69, -2, 0, 0, 0, 3, 2, 0, 0, 71, 0, 0 },
+			PvpDamageCalc.getItemStats(EquipmentData.DRAGON_LONGSWORD.getItemId()));
+		assertArrayEquals(new int[] { 0, 82, 0, 0, 0, 0, 0, 0, 0, 0, 82, 0, 0 },
+			PvpDamageCalc.getItemStats(EquipmentData.ABYSSAL_WHIP.getItemId()));
+		assertArrayEquals(new int[] { 0, 0, 0, 0, 90, 0, 0, 0, 0, 0, 0, 0, 0 },
+			PvpDamageCalc.getItemStats(EquipmentData.RUNE_CROSSBOW.getItemId()));
+	}
+
+	@Test
+	public void containsKnownArmour()
+	{
+		assertArrayEquals(new int[] { 0, 0, 0, -15, 30, 55, 47, 60, 50, 57, 0, 0, 0 },
+			PvpDamageCalc.getItemStats(EquipmentData.BLACK_DHIDE_BODY.getItemId()));
+		assertArrayEquals(new int[] { 0, 0, 0, 12, 0, 0, 0, 0, 0, 0, 0, 0, 10 },
+			PvpDamageCalc.getItemStats(EquipmentData.OCCULT_NECKLACE.getItemId()));
+	}
+
+	@Test
+	public void lmsVariantsHaveTheirOwnEntries()
+	{
+		// every id of an item is stored, so variants don't need the EquipmentData fallback.
+		for (int id : EquipmentData.ABYSSAL_WHIP.getAdditionalIds())
+		{
+			assertArrayEquals(PvpDamageCalc.getItemStats(EquipmentData.ABYSSAL_WHIP.getItemId()), PvpDamageCalc.getItemStats(id));
+		}
+	}
+
+	@Test
+	public void unknownItemsAreLeftOut()
+	{
+		assertNull(PvpDamageCalc.getItemStats(1));
+	}
+}
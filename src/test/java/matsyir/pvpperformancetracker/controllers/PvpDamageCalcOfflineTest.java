@@ -0,0 +1,97 @@
+package matsyir.pvpperformancetracker.controllers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import matsyir.pvpperformancetracker.PvpPerformanceTrackerPlugin;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.CombatLevels;
+import matsyir.pvpperformancetracker.models.EquipmentData;
+import matsyir.pvpperformancetracker.models.RingData;
+import net.runelite.api.PlayerComposition;
+import net.runelite.api.kit.KitType;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+// The damage calc only relies on the bundled item stats here: no client, no plugin, no ItemManager.
+public class PvpDamageCalcOfflineTest
+{
+	private static final int DLONG = EquipmentData.DRAGON_LONGSWORD.getItemId();
+	private static final int UNKNOWN_ITEM = 1;
+	private static final int STRENGTH_BONUS = 100;
+
+	@Before
+	public void loadFixtureTable() throws IOException
+	{
+		PvpPerformanceTrackerPlugin.PLUGIN = null;
+
+		// a single known item with +100 strength & +50 slash, everything else unknown (0 stats).
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ItemStatsTable.writeResource(out, id -> id == DLONG ?
+			new int[] { 0, 50, 0, 0, 0, 0, 0, 0, 0, 0, STRENGTH_BONUS, 0, 0 } : null);
+		ItemStatsTable.loadBundled(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private static DamageCalcContext context()
+	{
+		CombatLevels levels = new CombatLevels(99, 99, 99, 99, 99, 99);
+		return new DamageCalcContext(RingData.NONE, null, null, null, false, levels, levels, DamageCalcContext.DEFAULT_ITEM_STATS);
+	}
+
+	private static int[] gear(int weaponId)
+	{
+		int[] gear = new int[KitType.values().length];
+		gear[KitType.WEAPON.getIndex()] = weaponId + PlayerComposition.ITEM_OFFSET;
+		return gear;
+	}
+
+	@Test
+	public void bundledStatsAreUsedWithoutThePlugin()
+	{
+		assertArrayEquals(new int[] { 0, 50, 0, 0, 0, 0, 0, 0, 0, 0, STRENGTH_BONUS, 0, 0 }, PvpDamageCalc.getItemStats(DLONG));
+		// unknown items count as no stats instead of needing the ItemManager
+		assertNull(PvpDamageCalc.getItemStats(UNKNOWN_ITEM));
+	}
+
+	@Test
+	public void calculatesMeleeMaxHitOffline()
+	{
+		// effective str: floor(99 * 1.23 + 8 + 3) = 132, max hit: floor(0.5 + 132 * (100 + 64) / 640) = 33
+		DamageCalcResult success = PvpDamageCalc.calculate(context(), gear(DLONG), gear(-1),
+			AnimationData.MELEE_SCIM_SLASH, true, true, false);
+		assertEquals(33, success.getMaxHit());
+		assertTrue(success.getAccuracy() > 0 && success.getAccuracy() < 1);
+		assertTrue(success.getAverageHit() > 0);
+
+		// off-pray hits deal 60%
+		DamageCalcResult unsuccessful = PvpDamageCalc.calculate(context(), gear(DLONG), gear(-1),
+			AnimationData.MELEE_SCIM_SLASH, false, true, false);
+		assertEquals(19, unsuccessful.getMaxHit());
+		assertEquals(success.getAccuracy(), unsuccessful.getAccuracy(), 0);
+	}
+
+	@Test
+	public void calculationIsDeterministic()
+	{
+		DamageCalcResult first = PvpDamageCalc.calculate(context(), gear(DLONG), gear(-1),
+			AnimationData.MELEE_SCIM_SLASH, true, true, false);
+		DamageCalcResult second = PvpDamageCalc.calculate(context(), gear(DLONG), gear(-1),
+			AnimationData.MELEE_SCIM_SLASH, true, true, false);
+		assertEquals(first.getMaxHit(), second.getMaxHit());
+		assertEquals(first.getAverageHit(), second.getAverageHit(), 0);
+		assertEquals(first.getAccuracy(), second.getAccuracy(), 0);
+	}
+
+	@Test
+	public void unknownWeaponStillCalculates()
+	{
+		// no stats at all for the weapon: max hit from the strength level alone, floor(0.5 + 132 * 64 / 640) = 13
+		DamageCalcResult result = PvpDamageCalc.calculate(context(), gear(UNKNOWN_ITEM), gear(-1),
+			AnimationData.MELEE_SCIM_SLASH, true, true, false);
+		assertEquals(13, result.getMaxHit());
+	}
+}
@@ -0,0 +1,93 @@
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class AssignmentSolverTest
+{
+	@Test
+	public void emptyMatrix()
+	{
+		assertEquals(0, AssignmentSolver.solve(new double[0][0]).length);
+	}
+
+	@Test
+	public void picksTheCheapestAssignmentOverTheGreedyOne()
+	{
+		// greedy would give row 0 column 0 (cost 1), forcing row 1 into column 1 (cost 100).
+		double[][] cost = {
+			{ 1, 2 },
+			{ 1, 100 },
+		};
+		assertArrayEquals(new int[] { 1, 0 }, AssignmentSolver.solve(cost));
+	}
+
+	@Test
+	public void avoidsInfeasiblePairs()
+	{
+		double[][] cost = {
+			{ AssignmentSolver.INFEASIBLE, 5, 9 },
+			{ 3, AssignmentSolver.INFEASIBLE, 9 },
+		};
+		assertArrayEquals(new int[] { 1, 0 }, AssignmentSolver.solve(cost));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMoreRowsThanColumns()
+	{
+		AssignmentSolver.solve(new double[3][2]);
+	}
+
+	@Test
+	public void matchesBruteForceOnRandomMatrices()
+	{
+		Random random = new Random(1234);
+		for (int iteration = 0; iteration < 200; iteration++)
+		{
+			int rows = 1 + random.nextInt(5);
+			int cols = rows + random.nextInt(3);
+			double[][] cost = new double[rows][cols];
+			for (double[] row : cost)
+			{
+				for (int c = 0; c < cols; c++)
+				{
+					row[c] = random.nextInt(20);
+				}
+			}
+
+			int[] solution = AssignmentSolver.solve(cost);
+			boolean[] usedCols = new boolean[cols];
+			double total = 0;
+			for (int r = 0; r < rows; r++)
+			{
+				assertTrue("column assigned twice", !usedCols[solution[r]]);
+				usedCols[solution[r]] = true;
+				total += cost[r][solution[r]];
+			}
+			assertEquals(bruteForce(cost, 0, new boolean[cols]), total, 1e-9);
+		}
+	}
+
+	private static double bruteForce(double[][] cost, int row, boolean[] usedCols)
+	{
+		if (row == cost.length)
+		{
+			return 0;
+		}
+
+		double best = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < usedCols.length; c++)
+		{
+			if (!usedCols[c])
+			{
+				usedCols[c] = true;
+				best = Math.min(best, cost[row][c] + bruteForce(cost, row + 1, usedCols));
+				usedCols[c] = false;
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,158 @@
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class DamageDistributionTest
+{
+	private static final double DELTA = 1e-9;
+
+	private static double sum(double[] pmf)
+	{
+		double total = 0;
+		for (double p : pmf)
+		{
+			total += p;
+		}
+		return total;
+	}
+
+	@Test
+	public void everyShapeIsAProbabilityDistribution()
+	{
+		for (DamageDistribution.Shape shape : DamageDistribution.Shape.values())
+		{
+			for (double accuracy : new double[] { 0, 0.3, 0.75, 1 })
+			{
+				DamageDistribution distribution = DamageDistribution.of(shape, 5, 41);
+				double[] pmf = distribution.getPmf(accuracy);
+				assertEquals(shape + " @ " + accuracy, 1.0, sum(pmf), DELTA);
+				assertEquals(distribution.getMaxDamage() + 1, pmf.length);
+			}
+		}
+	}
+
+	@Test
+	public void probabilityAtLeastMatchesThePmfTail()
+	{
+		for (DamageDistribution.Shape shape : DamageDistribution.Shape.values())
+		{
+			DamageDistribution distribution = DamageDistribution.of(shape, 8, 37);
+			double[] pmf = distribution.getPmf(0.6);
+			double tail = 0;
+			for (int x = pmf.length - 1; x >= 1; x--)
+			{
+				tail += pmf[x];
+				assertEquals(shape + " >= " + x, tail, distribution.probabilityAtLeast(x, 0.6), DELTA);
+			}
+			assertEquals(1.0, distribution.probabilityAtLeast(0, 0.6), DELTA);
+			assertEquals(0.0, distribution.probabilityAtLeast(pmf.length, 0.6), DELTA);
+		}
+	}
+
+	@Test
+	public void standardIsUniformOnHit()
+	{
+		DamageDistribution distribution = DamageDistribution.of(DamageDistribution.Shape.STANDARD, 0, 10);
+		double[] pmf = distribution.getPmf(0.5);
+		assertEquals(0.5 + 0.5 / 11, pmf[0], DELTA);
+		assertEquals(0.5 / 11, pmf[10], DELTA);
+		assertEquals(0.5 * 10 / 11, distribution.probabilityAtLeast(1, 0.5), DELTA);
+	}
+
+	@Test
+	public void minHitOnHitRaisesLowRolls()
+	{
+		// vls/swh spec: rolls under the min hit become the min hit, but only on a successful hit
+		double[] pmf = DamageDistribution.of(DamageDistribution.Shape.MIN_HIT_ON_HIT, 5, 10).getPmf(0.4);
+		assertEquals(0.6, pmf[0], DELTA);
+		assertEquals(0.4 * 6 / 11, pmf[5], DELTA);
+		assertEquals(0.4 / 11, pmf[6], DELTA);
+		for (int x = 1; x < 5; x++)
+		{
+			assertEquals(0, pmf[x], DELTA);
+		}
+	}
+
+	@Test
+	public void minHitAlwaysNeverDealsLess()
+	{
+		// dbow spec: even misses deal the min hit
+		DamageDistribution distribution = DamageDistribution.of(DamageDistribution.Shape.MIN_HIT_ALWAYS, 16, 48);
+		assertEquals(1.0, distribution.probabilityAtLeast(16, 0.2), DELTA);
+		assertEquals(0.8 + 0.2 * 17 / 49, distribution.getPmf(0.2)[16], DELTA);
+	}
+
+	@Test
+	public void doubleHitConvolvesBothHits()
+	{
+		// two rolls between 0 & 5: only 5 + 5 reaches 10
+		DamageDistribution distribution = DamageDistribution.of(DamageDistribution.Shape.DOUBLE_HIT, 0, 10);
+		assertEquals(10, distribution.getMaxDamage());
+		assertEquals(0.9 / 36, distribution.probabilityAtLeast(10, 0.9), DELTA);
+		assertEquals(0.9 * 6 / 36, distribution.getPmf(0.9)[5], DELTA);
+	}
+
+	@Test
+	public void clawsHitWithTheCombinedAccuracy()
+	{
+		// the claws' accuracy already covers all 4 rolls, only all of them missing deals 0 with a decent max hit
+		DamageDistribution distribution = DamageDistribution.of(DamageDistribution.Shape.CLAWS, 0, 61);
+		assertEquals(0.7, distribution.probabilityAtLeast(1, 0.7), DELTA);
+		assertTrue(distribution.getMaxDamage() <= 61);
+	}
+
+	@Test
+	public void distributionsAreCachedPerShapeAndRange()
+	{
+		assertSame(DamageDistribution.of(DamageDistribution.Shape.STANDARD, 0, 25),
+			DamageDistribution.of(DamageDistribution.Shape.STANDARD, 0, 25));
+		// out of range min hits are clamped into the same distribution
+		assertSame(DamageDistribution.of(DamageDistribution.Shape.STANDARD, 25, 25),
+			DamageDistribution.of(DamageDistribution.Shape.STANDARD, 40, 25));
+	}
+
+	@Test
+	public void cumulativeProbabilityOfSmallSums()
+	{
+		double[] coin = { 0.5, 0.5 };
+		assertEquals(0.75, DamageDistribution.cumulativeProbability(Arrays.asList(coin, coin), 1), DELTA);
+		assertEquals(0.25, DamageDistribution.cumulativeProbability(Arrays.asList(coin, coin), 0), DELTA);
+		assertEquals(1.0, DamageDistribution.cumulativeProbability(Arrays.asList(coin, coin), 2), DELTA);
+		assertNull(DamageDistribution.cumulativeProbability(Collections.emptyList(), 5));
+		assertNull(DamageDistribution.cumulativeProbability(Arrays.asList(coin), -1));
+	}
+
+	@Test
+	public void cumulativeProbabilityMatchesTheFullConvolution()
+	{
+		Random random = new Random(7);
+		List<double[]> pmfs = new ArrayList<>();
+		double[] full = { 1 };
+		for (int i = 0; i < 6; i++)
+		{
+			DamageDistribution.Shape shape = DamageDistribution.Shape.values()[random.nextInt(DamageDistribution.Shape.values().length)];
+			double[] pmf = DamageDistribution.of(shape, random.nextInt(10), 10 + random.nextInt(40)).getPmf(random.nextDouble());
+			pmfs.add(pmf);
+			full = DamageDistribution.convolve(full, pmf);
+		}
+
+		for (int total = 0; total < full.length; total += 7)
+		{
+			double expected = 0;
+			for (int x = 0; x <= total; x++)
+			{
+				expected += full[x];
+			}
+			assertEquals("total " + total, Math.min(expected, 1.0), DamageDistribution.cumulativeProbability(pmfs, total), 1e-9);
+		}
+	}
+}
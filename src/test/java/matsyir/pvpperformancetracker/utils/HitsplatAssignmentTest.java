@@ -0,0 +1,117 @@
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class HitsplatAssignmentTest
+{
+	@Test
+	public void neverAssignsHitsAboveTheMaxHit()
+	{
+		// the first attack can't have hit 40, so it has to go to the second one even though it's later.
+		List<HitsplatAssignment.Slot> slots = Arrays.asList(
+			new HitsplatAssignment.Slot(1, 1, 30, 0),
+			new HitsplatAssignment.Slot(1, 1, 50, 0.01));
+		assertArrayEquals(new int[] { 1, 0 }, HitsplatAssignment.assign(slots, new int[] { 40, 20 }));
+	}
+
+	@Test
+	public void leavesSlotsEmptyRatherThanTakingInfeasibleHits()
+	{
+		List<HitsplatAssignment.Slot> slots = Arrays.asList(
+			new HitsplatAssignment.Slot(1, 1, 10, 0),
+			new HitsplatAssignment.Slot(-1, 1, 50, 0.01)); // attack is after the tick, can't have landed yet
+		assertArrayEquals(new int[] { -1, -1 }, HitsplatAssignment.assign(slots, new int[] { 20 }));
+	}
+
+	@Test
+	public void prefersTheAttackExpectedToLandThisTick()
+	{
+		// a magic attack from 2 ticks ago is expected now, a melee attack from 2 ticks ago already landed.
+		List<HitsplatAssignment.Slot> slots = Arrays.asList(
+			new HitsplatAssignment.Slot(2, 0, 0, 0),
+			new HitsplatAssignment.Slot(2, 2, 0, 0.01));
+		assertArrayEquals(new int[] { -1, 0 }, HitsplatAssignment.assign(slots, new int[] { 25 }));
+	}
+
+	@Test
+	public void laterHitGroupsAreExpectedLater()
+	{
+		// claws' second hit group (expected delay 1) vs a fresh melee attack (expected delay 0), both from 1 tick ago.
+		List<HitsplatAssignment.Slot> slots = Arrays.asList(
+			new HitsplatAssignment.Slot(0, 0, 0, 0),
+			new HitsplatAssignment.Slot(1, 1, 0, 0.01));
+		int[] result = HitsplatAssignment.assign(slots, new int[] { 15, 10 });
+		assertEquals(0, result[0]);
+		assertEquals(1, result[1]);
+	}
+
+	@Test
+	public void slotsAndHitsPastOneBatchStillRespectMaxHits()
+	{
+		// more slots than a single solve handles: every slot beyond the first batch can only take the big hit.
+		List<HitsplatAssignment.Slot> slots = new ArrayList<>();
+		for (int i = 0; i < HitsplatAssignment.MAX_SLOTS_PER_SOLVE; i++)
+		{
+			slots.add(new HitsplatAssignment.Slot(1, 1, 5, i * 0.01));
+		}
+		slots.add(new HitsplatAssignment.Slot(1, 1, 60, 1));
+
+		int[] hits = new int[HitsplatAssignment.MAX_SLOTS_PER_SOLVE + 1];
+		Arrays.fill(hits, 3);
+		hits[hits.length - 1] = 55; // the 13th hit, which the old cap never offered to any slot
+
+		int[] result = HitsplatAssignment.assign(slots, hits);
+		assertEquals(hits.length - 1, result[slots.size() - 1]);
+		for (int s = 0; s < slots.size() - 1; s++)
+		{
+			assertTrue(result[s] >= 0 && hits[result[s]] <= 5);
+		}
+	}
+
+	@Test
+	public void slotsPastOneBatchDontTakeInfeasibleHits()
+	{
+		List<HitsplatAssignment.Slot> slots = new ArrayList<>();
+		for (int i = 0; i <= HitsplatAssignment.MAX_SLOTS_PER_SOLVE; i++)
+		{
+			slots.add(new HitsplatAssignment.Slot(1, 1, 5, i * 0.01));
+		}
+
+		int[] hits = new int[HitsplatAssignment.MAX_SLOTS_PER_SOLVE + 1];
+		Arrays.fill(hits, 3);
+		hits[hits.length - 1] = 55;
+
+		int[] result = HitsplatAssignment.assign(slots, hits);
+		assertEquals(-1, result[slots.size() - 1]);
+	}
+
+	@Test
+	public void eachHitIsUsedOnce()
+	{
+		List<HitsplatAssignment.Slot> slots = new ArrayList<>();
+		for (int i = 0; i < 30; i++)
+		{
+			slots.add(new HitsplatAssignment.Slot(1, 1, 0, i * 0.01));
+		}
+		int[] result = HitsplatAssignment.assign(slots, new int[20]);
+
+		boolean[] used = new boolean[20];
+		int assigned = 0;
+		for (int h : result)
+		{
+			if (h >= 0)
+			{
+				assertTrue(!used[h]);
+				used[h] = true;
+				assigned++;
+			}
+		}
+		assertEquals(20, assigned);
+	}
+}
@@ -0,0 +1,110 @@
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.ImageIcon;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class IconCacheTest
+{
+	private static CompletableFuture<ImageIcon> loaded(ImageIcon icon, AtomicInteger loads)
+	{
+		loads.incrementAndGet();
+		return CompletableFuture.completedFuture(icon);
+	}
+
+	@Test
+	public void cachesLoadedIcons()
+	{
+		IconCache cache = new IconCache(8);
+		AtomicInteger loads = new AtomicInteger();
+		ImageIcon icon = new ImageIcon();
+
+		assertTrue(cache.get(IconCache.spriteKey(1), () -> loaded(icon, loads)).join() == icon);
+		assertTrue(cache.get(IconCache.spriteKey(1), () -> loaded(new ImageIcon(), loads)).join() == icon);
+		assertEquals(1, loads.get());
+		assertEquals(0.5, cache.getHitRate(), 0);
+	}
+
+	@Test
+	public void spriteAndItemKeysDontCollide()
+	{
+		assertNotEquals(IconCache.spriteKey(1), IconCache.itemKey(1));
+		assertNotEquals(IconCache.spriteKey(-1), IconCache.itemKey(-1));
+	}
+
+	@Test
+	public void concurrentRequestsShareOneLoad()
+	{
+		IconCache cache = new IconCache(8);
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<ImageIcon> pending = new CompletableFuture<>();
+
+		CompletableFuture<ImageIcon> first = cache.get(IconCache.itemKey(4151), () ->
+		{
+			loads.incrementAndGet();
+			return pending;
+		});
+		CompletableFuture<ImageIcon> second = cache.get(IconCache.itemKey(4151), () -> loaded(new ImageIcon(), loads));
+		assertEquals(1, loads.get());
+
+		ImageIcon icon = new ImageIcon();
+		pending.complete(icon);
+		assertTrue(first.join() == icon);
+		assertTrue(second.join() == icon);
+	}
+
+	@Test
+	public void failedAndNullLoadsAreRetried()
+	{
+		IconCache cache = new IconCache(8);
+		AtomicInteger loads = new AtomicInteger();
+		CompletableFuture<ImageIcon> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new RuntimeException("not loaded"));
+
+		assertTrue(cache.get(IconCache.spriteKey(2), () ->
+		{
+			loads.incrementAndGet();
+			return failed;
+		}).isCompletedExceptionally());
+		assertEquals(null, cache.get(IconCache.spriteKey(2), () -> loaded(null, loads)).join());
+
+		ImageIcon icon = new ImageIcon();
+		assertTrue(cache.get(IconCache.spriteKey(2), () -> loaded(icon, loads)).join() == icon);
+		assertEquals(3, loads.get());
+	}
+
+	@Test
+	public void loaderThrowingIsRetried()
+	{
+		IconCache cache = new IconCache(8);
+		AtomicInteger loads = new AtomicInteger();
+
+		assertTrue(cache.get(IconCache.spriteKey(3), () ->
+		{
+			throw new IllegalStateException("no client");
+		}).isCompletedExceptionally());
+		cache.get(IconCache.spriteKey(3), () -> loaded(new ImageIcon(), loads)).join();
+		assertEquals(1, loads.get());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed()
+	{
+		IconCache cache = new IconCache(2);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get(IconCache.spriteKey(1), () -> loaded(new ImageIcon(), loads));
+		cache.get(IconCache.spriteKey(2), () -> loaded(new ImageIcon(), loads));
+		cache.get(IconCache.spriteKey(1), () -> loaded(new ImageIcon(), loads)); // 1 is now the most recently used
+		cache.get(IconCache.spriteKey(3), () -> loaded(new ImageIcon(), loads)); // evicts 2
+		assertEquals(3, loads.get());
+
+		cache.get(IconCache.spriteKey(1), () -> loaded(new ImageIcon(), loads));
+		assertEquals(3, loads.get());
+		cache.get(IconCache.spriteKey(2), () -> loaded(new ImageIcon(), loads));
+		assertEquals(4, loads.get());
+	}
+}
@@ -0,0 +1,130 @@
+package matsyir.pvpperformancetracker.utils;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import matsyir.pvpperformancetracker.models.AnimationData;
+import matsyir.pvpperformancetracker.models.FightLogEntry;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LogAlignerTest
+{
+	private static final Gson GSON = new Gson();
+	private static final AnimationData[] ANIMATIONS = {
+		AnimationData.MELEE_SCIM_SLASH, AnimationData.MAGIC_ANCIENT_MULTI_TARGET, AnimationData.MELEE_GRANITE_MAUL_SPEC
+	};
+
+	private static FightLogEntry entry(String attacker, AnimationData animation, int tick)
+	{
+		return GSON.fromJson("{\"attackerName\":\"" + attacker + "\",\"f\":true,\"T\":" + tick
+			+ ",\"G\":[0,0,0,1800],\"g\":[0,0,0,1900],\"m\":\"" + animation.name() + "\"}", FightLogEntry.class);
+	}
+
+	// a random fight: both fighters attacking with a few different attacks, 1-5 ticks apart.
+	private static List<FightLogEntry> randomFight(int attacks, long seed)
+	{
+		Random random = new Random(seed);
+		List<FightLogEntry> entries = new ArrayList<>();
+		int tick = 100;
+		for (int i = 0; i < attacks; i++)
+		{
+			tick += 1 + random.nextInt(5);
+			entries.add(entry(random.nextBoolean() ? "a" : "b", ANIMATIONS[random.nextInt(ANIMATIONS.length)], tick));
+		}
+		return entries;
+	}
+
+	// the same fight as seen by another client: ticks shifted by the offset.
+	private static List<FightLogEntry> shifted(List<FightLogEntry> entries, int offset)
+	{
+		List<FightLogEntry> copy = new ArrayList<>();
+		for (FightLogEntry e : entries)
+		{
+			copy.add(entry(e.attackerName, e.getAnimationData(), e.getTick() + offset));
+		}
+		return copy;
+	}
+
+	@Test
+	public void alignsIdenticalLogsOneToOne()
+	{
+		List<FightLogEntry> a = randomFight(60, 1);
+		List<FightLogEntry> b = shifted(a, -37);
+		List<int[]> pairs = LogAligner.align(a, b, LogAligner.DEFAULT_BAND);
+		assertEquals(a.size(), pairs.size());
+		for (int i = 0; i < pairs.size(); i++)
+		{
+			assertArrayEquals(new int[] { i, i }, pairs.get(i));
+		}
+		assertArrayEquals(new int[] { 37, 60 }, LogAligner.findTickOffset(a, b, pairs));
+	}
+
+	@Test
+	public void skipsAttacksMissedByOneClient()
+	{
+		List<FightLogEntry> a = randomFight(80, 2);
+		List<FightLogEntry> b = shifted(a, 12);
+		// the second client missed the first attacks and a few in the middle
+		b.remove(50);
+		b.remove(30);
+		b.remove(0);
+		b.remove(0);
+
+		List<int[]> pairs = LogAligner.align(a, b, LogAligner.DEFAULT_BAND);
+		assertEquals(b.size(), pairs.size());
+		for (int[] pair : pairs)
+		{
+			assertEquals(a.get(pair[0]).getTick() + 12, b.get(pair[1]).getTick());
+		}
+		assertArrayEquals(new int[] { -12, b.size() }, LogAligner.findTickOffset(a, b, pairs));
+	}
+
+	@Test
+	public void doesntMatchDifferentAttacks()
+	{
+		List<FightLogEntry> a = new ArrayList<>();
+		List<FightLogEntry> b = new ArrayList<>();
+		a.add(entry("a", AnimationData.MELEE_SCIM_SLASH, 1));
+		b.add(entry("b", AnimationData.MELEE_SCIM_SLASH, 1));
+		a.add(entry("a", AnimationData.MELEE_SCIM_SLASH, 5));
+		b.add(entry("a", AnimationData.MAGIC_ANCIENT_MULTI_TARGET, 5));
+
+		List<int[]> pairs = LogAligner.align(a, b, LogAligner.DEFAULT_BAND);
+		assertTrue(pairs.isEmpty());
+		assertNull(LogAligner.findTickOffset(a, b, pairs));
+	}
+
+	@Test
+	public void emptyLogsDontAlign()
+	{
+		assertTrue(LogAligner.align(new ArrayList<>(), randomFight(5, 3), LogAligner.DEFAULT_BAND).isEmpty());
+		assertTrue(LogAligner.align(randomFight(5, 3), new ArrayList<>(), LogAligner.DEFAULT_BAND).isEmpty());
+	}
+
+	@Test
+	public void rejectsLogsOfVeryDifferentLengths()
+	{
+		// would otherwise need a band as wide as the longest log
+		List<FightLogEntry> a = randomFight(3000, 4);
+		List<FightLogEntry> b = new ArrayList<>(a.subList(0, 50));
+		assertTrue(LogAligner.align(a, b, LogAligner.DEFAULT_BAND).isEmpty());
+		assertTrue(LogAligner.align(b, a, LogAligner.DEFAULT_BAND).isEmpty());
+	}
+
+	@Test
+	public void alignsLongLogsWithinTheLengthLimit()
+	{
+		List<FightLogEntry> a = randomFight(3000, 5);
+		List<FightLogEntry> b = shifted(a.subList(LogAligner.MAX_LENGTH_DIFFERENCE, a.size()), 3);
+
+		List<int[]> pairs = LogAligner.align(a, b, LogAligner.DEFAULT_BAND);
+		assertEquals(b.size(), pairs.size());
+		assertArrayEquals(new int[] { LogAligner.MAX_LENGTH_DIFFERENCE, 0 }, pairs.get(0));
+		assertArrayEquals(new int[] { -3, b.size() }, LogAligner.findTickOffset(a, b, pairs));
+	}
+}
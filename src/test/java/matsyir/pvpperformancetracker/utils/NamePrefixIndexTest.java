@@ -0,0 +1,112 @@
+package matsyir.pvpperformancetracker.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class NamePrefixIndexTest
+{
+	private static Set<String> set(String... values)
+	{
+		return new HashSet<>(Arrays.asList(values));
+	}
+
+	private static NamePrefixIndex<String> fights()
+	{
+		// each fight indexed by both of its names, like the fight history panel does
+		NamePrefixIndex<String> index = new NamePrefixIndex<>();
+		index.add("Zezima", "fight1");
+		index.add("Woox", "fight1");
+		index.add("Zezima", "fight2");
+		index.add("Zeah", "fight2");
+		index.add("woox", "fight3");
+		index.add("B0aty", "fight3");
+		return index;
+	}
+
+	@Test
+	public void findsByPrefixIgnoringCase()
+	{
+		NamePrefixIndex<String> index = fights();
+		assertEquals(set("fight1", "fight2"), new HashSet<>(index.find("ze", false)));
+		assertEquals(set("fight1", "fight3"), new HashSet<>(index.find("woox", false)));
+		assertEquals(set("fight3"), new HashSet<>(index.find("b", false)));
+		assertTrue(index.find("x", false).isEmpty());
+	}
+
+	@Test
+	public void exactOnlyMatchesWholeNames()
+	{
+		NamePrefixIndex<String> index = fights();
+		assertEquals(set("fight1", "fight2"), new HashSet<>(index.find("zezima", true)));
+		assertTrue(index.find("ze", true).isEmpty());
+	}
+
+	@Test
+	public void emptyFilterFindsEverything()
+	{
+		assertEquals(set("fight1", "fight2", "fight3"), new HashSet<>(fights().find("", false)));
+	}
+
+	@Test
+	public void filterIsNormalized()
+	{
+		NamePrefixIndex<String> index = fights();
+		assertEquals(set("fight1", "fight2"), new HashSet<>(index.find(" ZE", false)));
+		assertEquals(set("fight1", "fight2"), new HashSet<>(index.find("Zezima ", true)));
+		assertEquals(set("fight1", "fight2", "fight3"), new HashSet<>(index.find("", true)));
+	}
+
+	@Test
+	public void matchesAgreesWithFind()
+	{
+		assertTrue(NamePrefixIndex.matches("Zezima", " ZE", false));
+		assertFalse(NamePrefixIndex.matches("Zezima", "ze", true));
+		assertTrue(NamePrefixIndex.matches("Zezima", "ZEZIMA", true));
+		assertFalse(NamePrefixIndex.matches("Woox", "ze", false));
+		assertTrue(NamePrefixIndex.matches("Woox", "", true));
+	}
+
+	@Test
+	public void valueMatchingBothNamesIsFoundOnce()
+	{
+		NamePrefixIndex<String> index = new NamePrefixIndex<>();
+		index.add("zeah", "fight");
+		index.add("zezima", "fight");
+		assertEquals(1, index.find("ze", false).size());
+	}
+
+	@Test
+	public void removeOnlyRemovesThatName()
+	{
+		NamePrefixIndex<String> index = fights();
+		index.remove("Zezima", "fight2");
+		assertEquals(set("fight1"), new HashSet<>(index.find("zezima", true)));
+		assertEquals(set("fight2"), new HashSet<>(index.find("zeah", true)));
+
+		index.remove("Zeah", "fight2");
+		index.remove("Zeah", "fight2"); // removing twice is a no-op
+		assertEquals(Collections.singleton("fight1"), new HashSet<>(index.find("ze", false)));
+	}
+
+	@Test
+	public void valuesAreComparedByIdentity()
+	{
+		NamePrefixIndex<String> index = new NamePrefixIndex<>();
+		String first = new String("fight");
+		String second = new String("fight");
+		index.add("zezima", first);
+		index.add("zezima", second);
+		assertEquals(2, index.find("zezima", true).size());
+
+		index.remove("zezima", first);
+		Set<String> found = index.find("zezima", true);
+		assertEquals(1, found.size());
+		assertTrue(found.iterator().next() == second);
+	}
+}